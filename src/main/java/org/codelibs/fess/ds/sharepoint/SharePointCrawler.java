@@ -15,19 +15,36 @@
  */
 package org.codelibs.fess.ds.sharepoint;
 
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.codelibs.core.misc.Pair;
+import org.codelibs.fess.ds.sharepoint.cache.BoundedCache;
+import org.codelibs.fess.ds.sharepoint.cache.PrincipalCache;
 import org.codelibs.fess.ds.sharepoint.client.SharePointClient;
 import org.codelibs.fess.ds.sharepoint.client.SharePointClientBuilder;
 import org.codelibs.fess.ds.sharepoint.client.api.list.getlistitem.GetListItemRoleResponse;
@@ -35,16 +52,24 @@ import org.codelibs.fess.ds.sharepoint.client.credential.NtlmCredential;
 import org.codelibs.fess.ds.sharepoint.client.exception.SharePointClientException;
 import org.codelibs.fess.ds.sharepoint.client.exception.SharePointServerException;
 import org.codelibs.fess.ds.sharepoint.client.oauth.OAuth;
+import org.codelibs.fess.ds.sharepoint.crawl.ItemIdTracker;
 import org.codelibs.fess.ds.sharepoint.crawl.SharePointCrawl;
 import org.codelibs.fess.ds.sharepoint.crawl.SiteCrawl;
 import org.codelibs.fess.ds.sharepoint.crawl.doclib.FolderCrawl;
 import org.codelibs.fess.ds.sharepoint.crawl.list.ListCrawl;
+import org.codelibs.fess.ds.sharepoint.store.ChangeTokenStore;
+import org.codelibs.fess.ds.sharepoint.store.FingerprintStore;
+import org.codelibs.fess.ds.sharepoint.store.FolderStore;
+import org.codelibs.fess.ds.sharepoint.store.MetadataStore;
 import org.codelibs.fess.exception.DataStoreCrawlingException;
 import org.codelibs.fess.helper.CrawlerStatsHelper;
 import org.codelibs.fess.helper.CrawlerStatsHelper.StatsAction;
 import org.codelibs.fess.helper.CrawlerStatsHelper.StatsKeyObject;
+import org.codelibs.fess.mylasta.direction.FessConfig;
 import org.codelibs.fess.opensearch.config.exentity.DataConfig;
 import org.codelibs.fess.util.ComponentUtil;
+import org.opensearch.index.query.BoolQueryBuilder;
+import org.opensearch.index.query.QueryBuilders;
 
 import jakarta.validation.ValidationException;
 
@@ -54,12 +79,51 @@ import jakarta.validation.ValidationException;
 public class SharePointCrawler {
     private static final Logger logger = LogManager.getLogger(SharePointCrawler.class);
 
+    private static final long RESULT_POLL_INTERVAL = 1000L;
+
+    private static final long WORKER_IDLE_INTERVAL = 100L;
+
+    // default index.max_terms_count of the search engine
+    private static final int MAX_TERMS_COUNT = 65536;
+
     private final SharePointClient client;
 
     private final ConcurrentLinkedQueue<SharePointCrawl> crawlingQueue = new ConcurrentLinkedQueue<>();
 
     private final CrawlerConfig config;
 
+    private final BlockingQueue<CrawlResult> resultQueue;
+
+    private final ChangeTokenStore changeTokenStore;
+
+    private final BoundedCache<String, GetListItemRoleResponse.SharePointGroup> sharePointGroupCache;
+
+    private final Map<String, CompletableFuture<String>> formUrlCache = new ConcurrentHashMap<>();
+
+    private final MetadataStore metadataStore;
+
+    private final FingerprintStore fingerprintStore;
+
+    private final FolderStore folderStore;
+
+    private final ItemIdTracker itemIdTracker;
+
+    private Map<String, Object> refreshFields = Collections.emptyMap();
+
+    private final LongAdder failedCount = new LongAdder();
+
+    private final AtomicInteger activeCount = new AtomicInteger();
+
+    private final AtomicLong throttledUntil = new AtomicLong();
+
+    private final LongAdder throttleCount = new LongAdder();
+
+    private final LongAdder throttleWaitTime = new LongAdder();
+
+    private ExecutorService executorService;
+
+    private CountDownLatch workerLatch;
+
     /**
      * Creates a new SharePointCrawler with the specified configuration.
      *
@@ -69,6 +133,14 @@ public class SharePointCrawler {
         validate(config);
         this.client = createClient(config);
         this.config = config;
+        this.resultQueue = new ArrayBlockingQueue<>(Math.max(config.getResultQueueSize(), 1));
+        this.changeTokenStore = createChangeTokenStore(config);
+        this.sharePointGroupCache = new BoundedCache<>(config.getGroupCacheSize(), config.getGroupCacheExpire());
+        this.metadataStore = createMetadataStore(config);
+        this.fingerprintStore = createFingerprintStore(config);
+        this.folderStore = createFolderStore(config);
+        // listed items are also tracked to drop the fingerprints of deleted documents
+        this.itemIdTracker = config.isDeleteRemovedItems() || fingerprintStore != null ? new ItemIdTracker() : null;
         setFirstCrawl(config);
         if (crawlingQueue.isEmpty()) {
             logger.error("Failed to start crawl.");
@@ -101,23 +173,82 @@ public class SharePointCrawler {
         if ("2013".equals(config.getSharePointVersion())) {
             builder.apply2013();
         }
+        if (config.getMaxConcurrentRequests() > 0) {
+            builder.setMaxConcurrentRequests(config.getMaxConcurrentRequests());
+        }
+        builder.setAdaptiveConcurrency(config.isAdaptiveConcurrency()).setMinConcurrentRequests(config.getMinConcurrentRequests());
+        builder.setMaxConnectionsPerRoute(config.getMaxConnectionsPerRoute())
+                .setMaxConnectionsTotal(config.getMaxConnectionsTotal())
+                .setIdleConnectionTimeout(config.getIdleConnectionTimeout())
+                .setValidateAfterInactivity(config.getValidateAfterInactivity())
+                .setKeepAliveTimeout(config.getKeepAliveTimeout());
         return builder.build();
     }
 
+    private ChangeTokenStore createChangeTokenStore(final CrawlerConfig config) {
+        if (!config.isIncremental()) {
+            return null;
+        }
+        if ("2013".equals(config.getSharePointVersion())) {
+            logger.warn("Incremental crawling is not supported for SharePoint 2013. Crawl all items.");
+            return null;
+        }
+        if (StringUtils.isBlank(config.getChangeTokenFile())) {
+            logger.warn("change_token.file param is required for incremental crawling. Crawl all items.");
+            return null;
+        }
+        return new ChangeTokenStore(Paths.get(config.getChangeTokenFile()), config.getFullCrawlInterval());
+    }
+
+    private MetadataStore createMetadataStore(final CrawlerConfig config) {
+        if (StringUtils.isBlank(config.getMetadataFile())) {
+            return null;
+        }
+        return new MetadataStore(Paths.get(config.getMetadataFile()), config.getSiteName());
+    }
+
+    private FingerprintStore createFingerprintStore(final CrawlerConfig config) {
+        if (StringUtils.isBlank(config.getFingerprintFile())) {
+            if (config.isListModifiedFilter()) {
+                logger.warn("fingerprint.file param is required for listing modified items. Crawl all items.");
+            }
+            return null;
+        }
+        return new FingerprintStore(Paths.get(config.getFingerprintFile()), config.getSiteName());
+    }
+
+    private FolderStore createFolderStore(final CrawlerConfig config) {
+        if (StringUtils.isBlank(config.getFolderFile())) {
+            return null;
+        }
+        if (fingerprintStore == null) {
+            logger.warn("fingerprint.file param is required for skipping unchanged folders. Enumerate all folders.");
+            return null;
+        }
+        return new FolderStore(Paths.get(config.getFolderFile()), config.getSiteName());
+    }
+
     private void setFirstCrawl(final CrawlerConfig crawlerConfig) {
-        final Map<String, GetListItemRoleResponse.SharePointGroup> sharePointGroupCache = new ConcurrentHashMap<>();
+        final PrincipalCache principalCache =
+                new PrincipalCache(config.getPrincipalCacheSize(), config.getGroupCacheSize(), config.getGroupCacheExpire());
+        final Map<String, CompletableFuture<List<String>>> roleScopeCache = new ConcurrentHashMap<>();
         if (crawlerConfig.getInitialListId() == null && crawlerConfig.getInitialListName() == null
                 && crawlerConfig.getInitialDocLibPath() == null) {
-            crawlingQueue.offer(new SiteCrawl(client, crawlerConfig, sharePointGroupCache));
+            crawlingQueue.offer(new SiteCrawl(client, crawlerConfig, sharePointGroupCache, principalCache, formUrlCache, roleScopeCache,
+                    changeTokenStore, metadataStore, fingerprintStore, folderStore, itemIdTracker));
         } else {
             if (crawlerConfig.getInitialListId() != null || crawlerConfig.getInitialListName() != null) {
                 crawlingQueue.offer(new ListCrawl(client, crawlerConfig.getInitialListId(), crawlerConfig.getInitialListName(),
-                        crawlerConfig.listItemNumPerPages, sharePointGroupCache, crawlerConfig.isSubPage(), crawlerConfig.isSkipRole(),
-                        crawlerConfig.getListContentIncludeFields(), crawlerConfig.getListContentExcludeFields()));
+                        crawlerConfig.listItemNumPerPages, sharePointGroupCache, principalCache, formUrlCache, roleScopeCache,
+                        crawlerConfig.isSubPage(), crawlerConfig.isSkipRole(), crawlerConfig.getListContentIncludeFields(),
+                        crawlerConfig.getListContentExcludeFields(), crawlerConfig.isListItemValuesInPage(),
+                        crawlerConfig.isListItemAttachmentsInPage(), changeTokenStore, fingerprintStore,
+                        crawlerConfig.isListModifiedFilter(), itemIdTracker));
             }
             if (crawlerConfig.getInitialDocLibPath() != null) {
-                crawlingQueue.offer(
-                        new FolderCrawl(client, crawlerConfig.getInitialDocLibPath(), crawlerConfig.isSkipRole(), sharePointGroupCache));
+                crawlingQueue.offer(new FolderCrawl(client, crawlerConfig.getInitialDocLibPath(), crawlerConfig.isSkipRole(),
+                        sharePointGroupCache, principalCache, formUrlCache, roleScopeCache, changeTokenStore, fingerprintStore,
+                        folderStore, itemIdTracker));
             }
         }
     }
@@ -128,57 +259,460 @@ public class SharePointCrawler {
      * @return true if there are more targets to crawl
      */
     public boolean hasCrawlTarget() {
+        if (executorService != null) {
+            return !resultQueue.isEmpty() || workerLatch.getCount() > 0;
+        }
         return !crawlingQueue.isEmpty();
     }
 
     /**
      * Performs a crawl operation.
+     * When more than one crawler thread or virtual threads are configured, crawl tasks are executed by other threads
+     * and this method returns the next data map handed off by them.
      *
      * @param dataConfig the data configuration
      * @return a pair containing the crawled data map and stats key, or null if no data
      */
     public Pair<Map<String, Object>, StatsKeyObject> doCrawl(final DataConfig dataConfig) {
+        if (config.isVirtualThread() || config.getThreadCount() > 1) {
+            return doConcurrentCrawl(dataConfig);
+        }
         final CrawlerStatsHelper crawlerStatsHelper = ComponentUtil.getCrawlerStatsHelper();
         while (!crawlingQueue.isEmpty()) {
             final SharePointCrawl crawl = crawlingQueue.poll();
             if (crawl == null) {
                 continue;
             }
-            final StatsKeyObject statsKey = crawl.getStatsKey();
-            crawlerStatsHelper.begin(statsKey);
-            int retryCount = 0;
-            while (retryCount <= config.getRetryLimit()) {
+            final Map<String, Object> dataMap = processCrawl(crawl, dataConfig, crawlerStatsHelper);
+            if (dataMap != null) {
+                return new Pair<>(dataMap, crawl.getStatsKey());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Stores the change tokens reached by this crawl for the next incremental crawl.
+     * Nothing is stored if a crawl task failed, so that the changes it covered are read again by the next crawl.
+     * This should be called only after all crawl targets have been processed.
+     */
+    public void commitChangeTokens() {
+        if (changeTokenStore == null) {
+            return;
+        }
+        if (failedCount.sum() > 0) {
+            logger.warn("{} crawl tasks failed. Skip storing change tokens.", failedCount.sum());
+            return;
+        }
+        changeTokenStore.commit();
+    }
+
+    /**
+     * Stores the fingerprints of the documents indexed by this crawl for the next crawl.
+     * This should be called only after all crawl targets have been processed,
+     * because a fingerprint is recorded before its document is indexed.
+     * The crawl times of lists are not stored, and fingerprints of deleted documents are not dropped, if a crawl task failed.
+     */
+    public void commitFingerprints() {
+        if (fingerprintStore == null) {
+            return;
+        }
+        if (failedCount.sum() > 0) {
+            logger.warn("{} crawl tasks failed. Skip storing crawl times of lists.", failedCount.sum());
+        }
+        fingerprintStore.commit(failedCount.sum() == 0, itemIdTracker.getListedListIds());
+    }
+
+    /**
+     * Stores the folders enumerated by this crawl for the next crawl.
+     * This should be called only after all crawl targets have been processed,
+     * because a folder is recorded before its files are indexed.
+     */
+    public void commitFolders() {
+        if (folderStore != null) {
+            folderStore.commit();
+        }
+    }
+
+    /**
+     * Deletes the indexed documents of items that were not listed by this crawl, as they were deleted in SharePoint.
+     * Only lists whose items were all listed are checked, and nothing is deleted if a crawl task failed.
+     * This should be called only after all crawl targets have been processed.
+     *
+     * @param dataConfig the data configuration the documents were indexed with
+     */
+    public void deleteRemovedDocuments(final DataConfig dataConfig) {
+        if (!config.isDeleteRemovedItems()) {
+            return;
+        }
+        if (failedCount.sum() > 0) {
+            logger.warn("{} crawl tasks failed. Skip deleting documents of removed items.", failedCount.sum());
+            return;
+        }
+        final FessConfig fessConfig = ComponentUtil.getFessConfig();
+        itemIdTracker.getListedItems().forEach((listId, itemIds) -> {
+            try {
+                final long count = ComponentUtil.getSearchEngineClient()
+                        .deleteByQuery(fessConfig.getIndexDocumentUpdateIndex(), buildRemovedItemsQuery(dataConfig, listId, itemIds));
+                if (logger.isInfoEnabled() && count > 0) {
+                    logger.info("Deleted {} documents of removed items. [listId:{}] [listedItems:{}]", count, listId, itemIds.length);
+                }
+            } catch (final Exception e) {
+                logger.warn("Failed to delete documents of removed items. [listId:{}]", listId, e);
+            }
+        });
+    }
+
+    /**
+     * Builds the query matching the indexed documents of a list whose items were not listed.
+     *
+     * @param dataConfig the data configuration the documents were indexed with
+     * @param listId the list ID
+     * @param itemIds the sorted IDs of the listed items
+     * @return the query
+     */
+    static BoolQueryBuilder buildRemovedItemsQuery(final DataConfig dataConfig, final String listId, final int[] itemIds) {
+        final BoolQueryBuilder queryBuilder = QueryBuilders.boolQuery()
+                .filter(QueryBuilders.termQuery(ComponentUtil.getFessConfig().getIndexFieldConfigId(), dataConfig.getConfigId()))
+                .filter(QueryBuilders.termQuery(SharePointCrawl.LIST_ID_FIELD, listId));
+        for (int i = 0; i < itemIds.length; i += MAX_TERMS_COUNT) {
+            queryBuilder.mustNot(QueryBuilders.termsQuery(SharePointCrawl.ITEM_ID_FIELD,
+                    Arrays.stream(itemIds, i, Math.min(i + MAX_TERMS_COUNT, itemIds.length)).mapToObj(String::valueOf).toList()));
+        }
+        return queryBuilder;
+    }
+
+    /**
+     * Sets the fields of this crawl session, such as the segment and expiration time,
+     * that are set on indexed documents refreshed without being indexed again.
+     *
+     * @param refreshFields the fields and values
+     */
+    public void setRefreshFields(final Map<String, Object> refreshFields) {
+        this.refreshFields = refreshFields;
+    }
+
+    /**
+     * Stores the metadata resolved by this crawl for the next crawl.
+     * Unlike change tokens, metadata is valid even if the crawl did not finish.
+     */
+    public void commitMetadata() {
+        if (metadataStore == null) {
+            return;
+        }
+        formUrlCache.forEach((listId, future) -> {
+            final String formUrl = future.isDone() && !future.isCompletedExceptionally() ? future.join() : null;
+            if (StringUtils.isNotEmpty(formUrl)) {
+                metadataStore.put(MetadataStore.FORM_URL, listId, formUrl);
+            }
+        });
+        metadataStore.commit();
+    }
+
+    /**
+     * Stops the crawler threads and releases data maps that have not been consumed.
+     */
+    public void close() {
+        if (logger.isInfoEnabled()) {
+            logger.info("SharePoint group cache: {}", sharePointGroupCache.getStats());
+            logger.info("Throttled requests: {} [wait:{}ms]", throttleCount.sum(), throttleWaitTime.sum());
+        }
+        if (executorService == null) {
+            return;
+        }
+        executorService.shutdownNow();
+        try {
+            if (!executorService.awaitTermination(config.getSocketTimeout(), TimeUnit.MILLISECONDS)) {
+                logger.warn("Crawler threads did not terminate.");
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        final CrawlerStatsHelper crawlerStatsHelper = ComponentUtil.getCrawlerStatsHelper();
+        CrawlResult result;
+        while ((result = resultQueue.poll()) != null) {
+            if (result.statsKey != null) {
+                crawlerStatsHelper.discard(result.statsKey);
+            }
+        }
+    }
+
+    private Pair<Map<String, Object>, StatsKeyObject> doConcurrentCrawl(final DataConfig dataConfig) {
+        if (executorService == null) {
+            startWorkers(dataConfig);
+        }
+        try {
+            while (hasCrawlTarget()) {
+                final CrawlResult result = resultQueue.poll(RESULT_POLL_INTERVAL, TimeUnit.MILLISECONDS);
+                if (result == null) {
+                    continue;
+                }
+                if (result.exception != null) {
+                    throw result.exception;
+                }
+                return new Pair<>(result.dataMap, result.statsKey);
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Interrupted while waiting for crawled data.");
+            close();
+        }
+        return null;
+    }
+
+    private void startWorkers(final DataConfig dataConfig) {
+        if (config.isVirtualThread()) {
+            startVirtualThreads(dataConfig);
+            return;
+        }
+        final int threadCount = config.getThreadCount();
+        final AtomicInteger threadNumber = new AtomicInteger();
+        workerLatch = new CountDownLatch(threadCount);
+        executorService = Executors.newFixedThreadPool(threadCount, r -> {
+            final Thread thread = new Thread(r, "SharePointCrawler-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (logger.isInfoEnabled()) {
+            logger.info("Starting {} crawler threads.", threadCount);
+        }
+        for (int i = 0; i < threadCount; i++) {
+            executorService.execute(() -> runWorker(dataConfig));
+        }
+    }
+
+    /**
+     * Runs each crawl task on its own virtual thread, ignoring the thread count.
+     * The number of tasks running at once is bounded by the HTTP request limit,
+     * as each task waits on at most one request at a time.
+     */
+    private void startVirtualThreads(final DataConfig dataConfig) {
+        final int maxTasks = config.getMaxConcurrentRequests() > 0 ? config.getMaxConcurrentRequests() : config.getMaxConnectionsPerRoute();
+        final Semaphore taskPermits = new Semaphore(Math.max(1, maxTasks));
+        workerLatch = new CountDownLatch(1);
+        executorService = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("SharePointCrawler-", 1).factory());
+        if (logger.isInfoEnabled()) {
+            logger.info("Starting crawl tasks on virtual threads. [maxTasks:{}]", taskPermits.availablePermits());
+        }
+        executorService.execute(() -> runDispatcher(dataConfig, taskPermits));
+    }
+
+    private void runWorker(final DataConfig dataConfig) {
+        final CrawlerStatsHelper crawlerStatsHelper = ComponentUtil.getCrawlerStatsHelper();
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                // count this worker as active before polling so that a crawl adding new tasks is never missed
+                activeCount.incrementAndGet();
+                final SharePointCrawl crawl = crawlingQueue.poll();
+                if (crawl == null) {
+                    if (activeCount.decrementAndGet() == 0 && crawlingQueue.isEmpty()) {
+                        break;
+                    }
+                    Thread.sleep(WORKER_IDLE_INTERVAL);
+                    continue;
+                }
                 try {
-                    final Map<String, Object> dataMap = crawl.doCrawl(dataConfig, crawlingQueue);
-                    crawlerStatsHelper.record(statsKey, StatsAction.ACCESSED);
-                    if (dataMap != null) {
-                        return new Pair<>(dataMap, statsKey);
+                    runTask(crawl, dataConfig, crawlerStatsHelper);
+                } finally {
+                    activeCount.decrementAndGet();
+                }
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            workerLatch.countDown();
+        }
+    }
+
+    private void runDispatcher(final DataConfig dataConfig, final Semaphore taskPermits) {
+        final CrawlerStatsHelper crawlerStatsHelper = ComponentUtil.getCrawlerStatsHelper();
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                taskPermits.acquire();
+                // count the next task as active before polling; the count is handed over to the thread running it
+                activeCount.incrementAndGet();
+                final SharePointCrawl crawl = crawlingQueue.poll();
+                if (crawl == null) {
+                    taskPermits.release();
+                    if (activeCount.decrementAndGet() == 0 && crawlingQueue.isEmpty()) {
+                        break;
                     }
+                    Thread.sleep(WORKER_IDLE_INTERVAL);
+                    continue;
+                }
+                try {
+                    executorService.execute(() -> {
+                        try {
+                            runTask(crawl, dataConfig, crawlerStatsHelper);
+                        } catch (final InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        } finally {
+                            activeCount.decrementAndGet();
+                            taskPermits.release();
+                        }
+                    });
+                } catch (final RejectedExecutionException e) {
+                    // the crawler is closing
+                    activeCount.decrementAndGet();
+                    taskPermits.release();
                     break;
-                } catch (final SharePointServerException e) {
-                    if (retryCount + 1 <= config.getRetryLimit()) {
-                        logger.warn("Api server error: {}  [Retry:{}]", e.getMessage(), retryCount);
-                    } else {
-                        logger.warn("Api server error: {}", e.getMessage(), e);
-                    }
-                } catch (final SharePointClientException e) {
-                    if (retryCount + 1 <= config.getRetryLimit()) {
-                        logger.warn("Error occured: {}  [Retry:{}]", e.getMessage(), retryCount);
-                    } else {
-                        logger.warn("Error occured. {}", e.getMessage(), e);
-                    }
-                } catch (final Exception e) {
-                    crawlerStatsHelper.discard(statsKey);
-                    throw new DataStoreCrawlingException(statsKey.getId(), "Failed to crawl " + statsKey.getId(), e);
                 }
-                retryCount++;
-                crawlerStatsHelper.record(statsKey, StatsAction.EXCEPTION.name().toLowerCase(Locale.ENGLISH) + "@" + retryCount);
             }
-            crawlerStatsHelper.done(statsKey);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            workerLatch.countDown();
+        }
+    }
+
+    private void runTask(final SharePointCrawl crawl, final DataConfig dataConfig, final CrawlerStatsHelper crawlerStatsHelper)
+            throws InterruptedException {
+        try {
+            final Map<String, Object> dataMap = processCrawl(crawl, dataConfig, crawlerStatsHelper);
+            if (dataMap != null) {
+                resultQueue.put(new CrawlResult(dataMap, crawl.getStatsKey(), null));
+            }
+        } catch (final DataStoreCrawlingException e) {
+            resultQueue.put(new CrawlResult(null, null, e));
+        }
+    }
+
+    private Map<String, Object> processCrawl(final SharePointCrawl crawl, final DataConfig dataConfig,
+            final CrawlerStatsHelper crawlerStatsHelper) {
+        final StatsKeyObject statsKey = crawl.getStatsKey();
+        crawlerStatsHelper.begin(statsKey);
+        int retryCount = 0;
+        int throttledCount = 0;
+        while (retryCount <= config.getRetryLimit()) {
+            if (!waitForThrottle(statsKey, crawlerStatsHelper)) {
+                break;
+            }
+            try {
+                crawl.setRefreshFields(refreshFields);
+                final Map<String, Object> dataMap = crawl.doCrawl(dataConfig, crawlingQueue);
+                if (crawl.getFailedCount() > 0) {
+                    failedCount.increment();
+                }
+                crawlerStatsHelper.record(statsKey, StatsAction.ACCESSED);
+                if (dataMap != null) {
+                    return dataMap;
+                }
+                crawlerStatsHelper.done(statsKey);
+                return null;
+            } catch (final SharePointServerException e) {
+                if (e.isThrottled() && throttledCount < config.getThrottleRetryLimit()) {
+                    throttledCount++;
+                    final long waitTime = Math.max(e.getRetryAfter(), getRetryInterval(throttledCount));
+                    logger.warn("Api server throttled: {}  [Wait:{}ms] [Throttled:{}]", e.getMessage(), waitTime, throttledCount);
+                    throttle(waitTime);
+                    crawlerStatsHelper.record(statsKey, "throttled@" + e.getStatusCode());
+                    continue;
+                }
+                if (retryCount + 1 <= config.getRetryLimit()) {
+                    logger.warn("Api server error: {}  [Retry:{}]", e.getMessage(), retryCount);
+                } else {
+                    logger.warn("Api server error: {}", e.getMessage(), e);
+                }
+            } catch (final SharePointClientException e) {
+                if (retryCount + 1 <= config.getRetryLimit()) {
+                    logger.warn("Error occured: {}  [Retry:{}]", e.getMessage(), retryCount);
+                } else {
+                    logger.warn("Error occured. {}", e.getMessage(), e);
+                }
+            } catch (final Exception e) {
+                crawlerStatsHelper.discard(statsKey);
+                failedCount.increment();
+                throw new DataStoreCrawlingException(statsKey.getId(), "Failed to crawl " + statsKey.getId(), e);
+            }
+            retryCount++;
+            crawlerStatsHelper.record(statsKey, StatsAction.EXCEPTION.name().toLowerCase(Locale.ENGLISH) + "@" + retryCount);
+            if (retryCount <= config.getRetryLimit() && !sleep(getRetryInterval(retryCount))) {
+                break;
+            }
         }
+        failedCount.increment();
+        crawlerStatsHelper.done(statsKey);
         return null;
     }
 
+    /**
+     * Returns the interval before a retry, growing exponentially with the number of attempts.
+     * The interval is jittered between half and all of the exponential value so that workers
+     * failing at the same time do not retry at the same time.
+     *
+     * @param attempt the number of failed attempts, starting from 1
+     * @return the interval in milliseconds
+     */
+    protected long getRetryInterval(final int attempt) {
+        final long baseInterval = config.getRetryInterval();
+        if (baseInterval <= 0) {
+            return 0L;
+        }
+        final long maxInterval = Math.max(config.getMaxRetryInterval(), baseInterval);
+        long interval = baseInterval;
+        for (int i = 1; i < attempt && interval < maxInterval; i++) {
+            interval *= 2;
+        }
+        interval = Math.min(interval, maxInterval);
+        return interval / 2 + ThreadLocalRandom.current().nextLong(interval / 2 + 1);
+    }
+
+    /**
+     * Pauses all crawler threads for the given time, because the SharePoint host throttled a request.
+     *
+     * @param waitTime the time in milliseconds
+     */
+    private void throttle(final long waitTime) {
+        throttleCount.increment();
+        final long until = System.currentTimeMillis() + waitTime;
+        throttledUntil.accumulateAndGet(until, Math::max);
+    }
+
+    private boolean waitForThrottle(final StatsKeyObject statsKey, final CrawlerStatsHelper crawlerStatsHelper) {
+        final long waitTime = throttledUntil.get() - System.currentTimeMillis();
+        if (waitTime <= 0) {
+            return true;
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("Waiting {}ms for the throttled host.", waitTime);
+        }
+        throttleWaitTime.add(waitTime);
+        if (!sleep(waitTime)) {
+            return false;
+        }
+        crawlerStatsHelper.record(statsKey, "throttle_wait");
+        return true;
+    }
+
+    private boolean sleep(final long time) {
+        if (time <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(time);
+            return true;
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Data map or failure handed off from a crawler thread.
+     */
+    private static class CrawlResult {
+        private final Map<String, Object> dataMap;
+        private final StatsKeyObject statsKey;
+        private final DataStoreCrawlingException exception;
+
+        private CrawlResult(final Map<String, Object> dataMap, final StatsKeyObject statsKey,
+                final DataStoreCrawlingException exception) {
+            this.dataMap = dataMap;
+            this.statsKey = statsKey;
+            this.exception = exception;
+        }
+    }
+
     /**
      * Configuration class for SharePointCrawler.
      */
@@ -206,12 +740,39 @@ public class SharePointCrawler {
         private int listItemNumPerPages = 100;
         private String sharePointVersion = null;
         private int retryLimit = 2;
+        private long retryInterval = 1000L;
+        private long maxRetryInterval = 60000L;
+        private int throttleRetryLimit = 10;
         private boolean isSubPage = false;
         private List<String> listContentIncludeFields = new ArrayList<>();
         private List<String> listContentExcludeFields = new ArrayList<>();
+        private boolean listItemValuesInPage = false;
+        private boolean listItemAttachmentsInPage = false;
         private boolean skipRole = false;
         private List<String> excludeList = new ArrayList<>();
         private List<String> excludeFolder = new ArrayList<>();
+        private int threadCount = 1;
+        private int resultQueueSize = 100;
+        private boolean virtualThread = false;
+        private int maxConcurrentRequests = 0;
+        private boolean adaptiveConcurrency = false;
+        private int minConcurrentRequests = 1;
+        private int maxConnectionsPerRoute = 20;
+        private int maxConnectionsTotal = 200;
+        private long idleConnectionTimeout = 60000L;
+        private int validateAfterInactivity = 2000;
+        private long keepAliveTimeout = 0L;
+        private boolean incremental = false;
+        private String changeTokenFile = null;
+        private long fullCrawlInterval = 86400000L;
+        private int groupCacheSize = 10000;
+        private long groupCacheExpire = 0L;
+        private int principalCacheSize = 100000;
+        private String metadataFile = null;
+        private String fingerprintFile = null;
+        private String folderFile = null;
+        private boolean listModifiedFilter = false;
+        private boolean deleteRemovedItems = false;
 
         /**
          * Returns the SharePoint server URL.
@@ -504,6 +1065,60 @@ public class SharePointCrawler {
             this.retryLimit = retryLimit;
         }
 
+        /**
+         * Returns the interval before the first retry, doubled for each further retry.
+         *
+         * @return the interval in milliseconds
+         */
+        public long getRetryInterval() {
+            return retryInterval;
+        }
+
+        /**
+         * Sets the interval before the first retry, doubled for each further retry.
+         *
+         * @param retryInterval the interval in milliseconds, or 0 to retry immediately
+         */
+        public void setRetryInterval(final long retryInterval) {
+            this.retryInterval = retryInterval;
+        }
+
+        /**
+         * Returns the maximum interval between retries.
+         *
+         * @return the interval in milliseconds
+         */
+        public long getMaxRetryInterval() {
+            return maxRetryInterval;
+        }
+
+        /**
+         * Sets the maximum interval between retries.
+         *
+         * @param maxRetryInterval the interval in milliseconds
+         */
+        public void setMaxRetryInterval(final long maxRetryInterval) {
+            this.maxRetryInterval = maxRetryInterval;
+        }
+
+        /**
+         * Returns the number of times a throttled request is retried without counting toward the retry limit.
+         *
+         * @return the limit
+         */
+        public int getThrottleRetryLimit() {
+            return throttleRetryLimit;
+        }
+
+        /**
+         * Sets the number of times a throttled request is retried without counting toward the retry limit.
+         *
+         * @param throttleRetryLimit the limit
+         */
+        public void setThrottleRetryLimit(final int throttleRetryLimit) {
+            this.throttleRetryLimit = throttleRetryLimit;
+        }
+
         /**
          * Returns whether to crawl sub pages.
          *
@@ -558,6 +1173,42 @@ public class SharePointCrawler {
             this.listContentExcludeFields = Arrays.asList(listContentExcludeFields.trim().split(","));
         }
 
+        /**
+         * Returns whether list item values are retrieved with the list item pages.
+         *
+         * @return true if the values are retrieved with the pages
+         */
+        public boolean isListItemValuesInPage() {
+            return listItemValuesInPage;
+        }
+
+        /**
+         * Sets whether list item values are retrieved with the list item pages.
+         *
+         * @param listItemValuesInPage true to retrieve the values with the pages
+         */
+        public void setListItemValuesInPage(final boolean listItemValuesInPage) {
+            this.listItemValuesInPage = listItemValuesInPage;
+        }
+
+        /**
+         * Returns whether list item attachment files are retrieved with the list item pages.
+         *
+         * @return true if the attachment files are retrieved with the pages
+         */
+        public boolean isListItemAttachmentsInPage() {
+            return listItemAttachmentsInPage;
+        }
+
+        /**
+         * Sets whether list item attachment files are retrieved with the list item pages.
+         *
+         * @param listItemAttachmentsInPage true to retrieve the attachment files with the pages
+         */
+        public void setListItemAttachmentsInPage(final boolean listItemAttachmentsInPage) {
+            this.listItemAttachmentsInPage = listItemAttachmentsInPage;
+        }
+
         /**
          * Returns the lists to exclude.
          *
@@ -611,5 +1262,402 @@ public class SharePointCrawler {
         public void setSkipRole(final boolean skipRole) {
             this.skipRole = skipRole;
         }
+
+        /**
+         * Returns the number of crawler threads.
+         *
+         * @return the thread count
+         */
+        public int getThreadCount() {
+            return threadCount;
+        }
+
+        /**
+         * Sets the number of crawler threads.
+         *
+         * @param threadCount the thread count
+         */
+        public void setThreadCount(final int threadCount) {
+            this.threadCount = threadCount;
+        }
+
+        /**
+         * Returns the capacity of the queue handing crawled data to the indexer.
+         *
+         * @return the queue size
+         */
+        public int getResultQueueSize() {
+            return resultQueueSize;
+        }
+
+        /**
+         * Sets the capacity of the queue handing crawled data to the indexer.
+         *
+         * @param resultQueueSize the queue size
+         */
+        public void setResultQueueSize(final int resultQueueSize) {
+            this.resultQueueSize = resultQueueSize;
+        }
+
+        /**
+         * Returns whether crawl tasks run on virtual threads.
+         *
+         * @return true if virtual threads are used
+         */
+        public boolean isVirtualThread() {
+            return virtualThread;
+        }
+
+        /**
+         * Sets whether crawl tasks run on virtual threads.
+         *
+         * @param virtualThread true to use virtual threads
+         */
+        public void setVirtualThread(final boolean virtualThread) {
+            this.virtualThread = virtualThread;
+        }
+
+        /**
+         * Returns the maximum number of in-flight HTTP requests.
+         *
+         * @return the limit, or 0 if unlimited
+         */
+        public int getMaxConcurrentRequests() {
+            return maxConcurrentRequests;
+        }
+
+        /**
+         * Sets the maximum number of in-flight HTTP requests.
+         *
+         * @param maxConcurrentRequests the limit, or 0 if unlimited
+         */
+        public void setMaxConcurrentRequests(final int maxConcurrentRequests) {
+            this.maxConcurrentRequests = maxConcurrentRequests;
+        }
+
+        /**
+         * Returns whether the number of in-flight HTTP requests adapts to each host.
+         *
+         * @return true if the limit adapts
+         */
+        public boolean isAdaptiveConcurrency() {
+            return adaptiveConcurrency;
+        }
+
+        /**
+         * Sets whether the number of in-flight HTTP requests adapts to each host.
+         *
+         * @param adaptiveConcurrency true to adapt the limit
+         */
+        public void setAdaptiveConcurrency(final boolean adaptiveConcurrency) {
+            this.adaptiveConcurrency = adaptiveConcurrency;
+        }
+
+        /**
+         * Returns the lowest number of in-flight HTTP requests per host when the limit adapts.
+         *
+         * @return the minimum number of in-flight requests
+         */
+        public int getMinConcurrentRequests() {
+            return minConcurrentRequests;
+        }
+
+        /**
+         * Sets the lowest number of in-flight HTTP requests per host when the limit adapts.
+         *
+         * @param minConcurrentRequests the minimum number of in-flight requests
+         */
+        public void setMinConcurrentRequests(final int minConcurrentRequests) {
+            this.minConcurrentRequests = minConcurrentRequests;
+        }
+
+        /**
+         * Returns the maximum number of pooled HTTP connections per route.
+         *
+         * @return the maximum number of connections per route
+         */
+        public int getMaxConnectionsPerRoute() {
+            return maxConnectionsPerRoute;
+        }
+
+        /**
+         * Sets the maximum number of pooled HTTP connections per route.
+         *
+         * @param maxConnectionsPerRoute the maximum number of connections per route
+         */
+        public void setMaxConnectionsPerRoute(final int maxConnectionsPerRoute) {
+            this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+        }
+
+        /**
+         * Returns the maximum number of pooled HTTP connections in total.
+         *
+         * @return the maximum number of connections
+         */
+        public int getMaxConnectionsTotal() {
+            return maxConnectionsTotal;
+        }
+
+        /**
+         * Sets the maximum number of pooled HTTP connections in total.
+         *
+         * @param maxConnectionsTotal the maximum number of connections
+         */
+        public void setMaxConnectionsTotal(final int maxConnectionsTotal) {
+            this.maxConnectionsTotal = maxConnectionsTotal;
+        }
+
+        /**
+         * Returns the time after which idle HTTP connections are evicted.
+         *
+         * @return the idle time in milliseconds, or 0 if disabled
+         */
+        public long getIdleConnectionTimeout() {
+            return idleConnectionTimeout;
+        }
+
+        /**
+         * Sets the time after which idle HTTP connections are evicted.
+         *
+         * @param idleConnectionTimeout the idle time in milliseconds, or 0 to disable
+         */
+        public void setIdleConnectionTimeout(final long idleConnectionTimeout) {
+            this.idleConnectionTimeout = idleConnectionTimeout;
+        }
+
+        /**
+         * Returns the period of inactivity after which pooled connections are validated.
+         *
+         * @return the period in milliseconds
+         */
+        public int getValidateAfterInactivity() {
+            return validateAfterInactivity;
+        }
+
+        /**
+         * Sets the period of inactivity after which pooled connections are validated.
+         *
+         * @param validateAfterInactivity the period in milliseconds
+         */
+        public void setValidateAfterInactivity(final int validateAfterInactivity) {
+            this.validateAfterInactivity = validateAfterInactivity;
+        }
+
+        /**
+         * Returns the maximum time HTTP connections are kept alive.
+         *
+         * @return the keep-alive time in milliseconds, or 0 to follow the server
+         */
+        public long getKeepAliveTimeout() {
+            return keepAliveTimeout;
+        }
+
+        /**
+         * Sets the maximum time HTTP connections are kept alive.
+         *
+         * @param keepAliveTimeout the keep-alive time in milliseconds, or 0 to follow the server
+         */
+        public void setKeepAliveTimeout(final long keepAliveTimeout) {
+            this.keepAliveTimeout = keepAliveTimeout;
+        }
+
+        /**
+         * Returns whether lists crawled before are read from their change log.
+         *
+         * @return true if incremental crawling is enabled
+         */
+        public boolean isIncremental() {
+            return incremental;
+        }
+
+        /**
+         * Sets whether lists crawled before are read from their change log.
+         *
+         * @param incremental true to enable incremental crawling
+         */
+        public void setIncremental(final boolean incremental) {
+            this.incremental = incremental;
+        }
+
+        /**
+         * Returns the file storing change tokens between crawls.
+         *
+         * @return the change token file path
+         */
+        public String getChangeTokenFile() {
+            return changeTokenFile;
+        }
+
+        /**
+         * Sets the file storing change tokens between crawls.
+         *
+         * @param changeTokenFile the change token file path
+         */
+        public void setChangeTokenFile(final String changeTokenFile) {
+            this.changeTokenFile = changeTokenFile;
+        }
+
+        /**
+         * Returns the interval after which a list read from its change log is crawled fully again.
+         *
+         * @return the interval in milliseconds, or 0 to crawl lists fully only once
+         */
+        public long getFullCrawlInterval() {
+            return fullCrawlInterval;
+        }
+
+        /**
+         * Sets the interval after which a list read from its change log is crawled fully again.
+         *
+         * @param fullCrawlInterval the interval in milliseconds, or 0 to crawl lists fully only once
+         */
+        public void setFullCrawlInterval(final long fullCrawlInterval) {
+            this.fullCrawlInterval = fullCrawlInterval;
+        }
+
+        /**
+         * Returns the maximum number of SharePoint groups kept in the group cache.
+         *
+         * @return the group cache size
+         */
+        public int getGroupCacheSize() {
+            return groupCacheSize;
+        }
+
+        /**
+         * Sets the maximum number of SharePoint groups kept in the group cache.
+         *
+         * @param groupCacheSize the group cache size
+         */
+        public void setGroupCacheSize(final int groupCacheSize) {
+            this.groupCacheSize = groupCacheSize;
+        }
+
+        /**
+         * Returns the time after which a cached SharePoint group expires.
+         *
+         * @return the expiration time in milliseconds, or 0 if groups do not expire
+         */
+        public long getGroupCacheExpire() {
+            return groupCacheExpire;
+        }
+
+        /**
+         * Sets the time after which a cached SharePoint group expires.
+         *
+         * @param groupCacheExpire the expiration time in milliseconds, or 0 if groups do not expire
+         */
+        public void setGroupCacheExpire(final long groupCacheExpire) {
+            this.groupCacheExpire = groupCacheExpire;
+        }
+
+        /**
+         * Returns the maximum number of principals whose search roles are kept in the principal cache.
+         *
+         * @return the principal cache size
+         */
+        public int getPrincipalCacheSize() {
+            return principalCacheSize;
+        }
+
+        /**
+         * Sets the maximum number of principals whose search roles are kept in the principal cache.
+         *
+         * @param principalCacheSize the principal cache size
+         */
+        public void setPrincipalCacheSize(final int principalCacheSize) {
+            this.principalCacheSize = principalCacheSize;
+        }
+
+        /**
+         * Returns the file storing metadata between crawls.
+         *
+         * @return the metadata file path
+         */
+        public String getMetadataFile() {
+            return metadataFile;
+        }
+
+        /**
+         * Sets the file storing metadata between crawls.
+         *
+         * @param metadataFile the metadata file path
+         */
+        public void setMetadataFile(final String metadataFile) {
+            this.metadataFile = metadataFile;
+        }
+
+        /**
+         * Returns the file storing the fingerprints of indexed documents between crawls.
+         *
+         * @return the fingerprint file path
+         */
+        public String getFingerprintFile() {
+            return fingerprintFile;
+        }
+
+        /**
+         * Sets the file storing the fingerprints of indexed documents between crawls.
+         *
+         * @param fingerprintFile the fingerprint file path
+         */
+        public void setFingerprintFile(final String fingerprintFile) {
+            this.fingerprintFile = fingerprintFile;
+        }
+
+        /**
+         * Returns the file storing the document library folders enumerated by earlier crawls.
+         *
+         * @return the folder file path
+         */
+        public String getFolderFile() {
+            return folderFile;
+        }
+
+        /**
+         * Sets the file storing the document library folders enumerated by earlier crawls.
+         *
+         * @param folderFile the folder file path
+         */
+        public void setFolderFile(final String folderFile) {
+            this.folderFile = folderFile;
+        }
+
+        /**
+         * Returns whether only list items modified since the last finished crawl are listed.
+         *
+         * @return true to list only modified items
+         */
+        public boolean isListModifiedFilter() {
+            return listModifiedFilter;
+        }
+
+        /**
+         * Sets whether only list items modified since the last finished crawl are listed.
+         * This requires the fingerprint file, which stores the crawl time of each list.
+         *
+         * @param listModifiedFilter true to list only modified items
+         */
+        public void setListModifiedFilter(final boolean listModifiedFilter) {
+            this.listModifiedFilter = listModifiedFilter;
+        }
+
+        /**
+         * Returns whether documents of items deleted in SharePoint are deleted at the end of a crawl.
+         *
+         * @return true to delete documents of removed items
+         */
+        public boolean isDeleteRemovedItems() {
+            return deleteRemovedItems;
+        }
+
+        /**
+         * Sets whether documents of items deleted in SharePoint are deleted at the end of a crawl.
+         *
+         * @param deleteRemovedItems true to delete documents of removed items
+         */
+        public void setDeleteRemovedItems(final boolean deleteRemovedItems) {
+            this.deleteRemovedItems = deleteRemovedItems;
+        }
     }
 }
@@ -27,6 +27,7 @@ import org.codelibs.fess.crawler.exception.CrawlingAccessException;
 import org.codelibs.fess.crawler.exception.MultipleCrawlingAccessException;
 import org.codelibs.fess.ds.AbstractDataStore;
 import org.codelibs.fess.ds.callback.IndexUpdateCallback;
+import org.codelibs.fess.ds.sharepoint.crawl.SharePointCrawl;
 import org.codelibs.fess.entity.DataStoreParams;
 import org.codelibs.fess.exception.DataStoreCrawlingException;
 import org.codelibs.fess.helper.CrawlerStatsHelper;
@@ -57,10 +58,9 @@ public class SharePointDataStore extends AbstractDataStore {
     @Override
     protected void storeData(final DataConfig dataConfig, final IndexUpdateCallback callback, final DataStoreParams paramMap,
             final Map<String, String> scriptMap, final Map<String, Object> defaultDataMap) {
-        final FessConfig fessConfig = ComponentUtil.getFessConfig();
         final CrawlerStatsHelper crawlerStatsHelper = ComponentUtil.getCrawlerStatsHelper();
-        final String roleField = fessConfig.getIndexFieldRole();
         final SharePointCrawler crawler = createCrawler(paramMap);
+        crawler.setRefreshFields(createRefreshFields(defaultDataMap));
         final long readInterval = getReadInterval(paramMap);
         final String scriptType = getScriptType(paramMap);
         boolean running = true;
@@ -71,23 +71,10 @@ public class SharePointDataStore extends AbstractDataStore {
                     logger.debug("result: {}", result);
                 }
                 if (result != null) {
-                    final Map<String, Object> dataMap = new HashMap<>(defaultDataMap);
                     final Map<String, Object> resultMap = result.getFirst();
                     final StatsKeyObject statsKey = result.getSecond();
                     try {
-                        if (dataMap.containsKey(roleField) && resultMap.containsKey(roleField)) {
-                            final List<Object> roles = new ArrayList<>();
-                            if (dataMap.get(roleField) instanceof List<?> roleList) {
-                                roles.addAll(roleList);
-                            }
-                            if (resultMap.get(roleField) instanceof List<?> roleList) {
-                                roles.addAll(roleList);
-                            }
-                            dataMap.put(roleField, roles);
-                        } else {
-                            dataMap.put(roleField, resultMap.get(roleField));
-                        }
-                        resultMap.remove(roleField);
+                        final Map<String, Object> dataMap = createDataMap(defaultDataMap, resultMap);
                         crawlerStatsHelper.record(statsKey, StatsAction.PREPARED);
                         for (final Map.Entry<String, String> entry : scriptMap.entrySet()) {
                             final Object convertValue = convertValue(scriptType, entry.getValue(), resultMap);
@@ -123,9 +110,68 @@ public class SharePointDataStore extends AbstractDataStore {
                 sleep(readInterval);
             }
         }
+        crawler.close();
+        crawler.commitMetadata();
+        if (running) {
+            crawler.commitChangeTokens();
+            crawler.commitFingerprints();
+            crawler.commitFolders();
+            crawler.deleteRemovedDocuments(dataConfig);
+        }
         callback.commit();
     }
 
+    /**
+     * Creates the document to index from the default fields and the crawled data, before the script is applied.
+     * The roles of both are merged, and the list and item IDs are always indexed,
+     * as documents of refreshed and deleted items are found by them.
+     *
+     * @param defaultDataMap the default fields of the data config
+     * @param resultMap the crawled data, from which the roles are removed
+     * @return the document
+     */
+    protected Map<String, Object> createDataMap(final Map<String, Object> defaultDataMap, final Map<String, Object> resultMap) {
+        final String roleField = ComponentUtil.getFessConfig().getIndexFieldRole();
+        final Map<String, Object> dataMap = new HashMap<>(defaultDataMap);
+        if (dataMap.containsKey(roleField) && resultMap.containsKey(roleField)) {
+            final List<Object> roles = new ArrayList<>();
+            if (dataMap.get(roleField) instanceof List<?> roleList) {
+                roles.addAll(roleList);
+            }
+            if (resultMap.get(roleField) instanceof List<?> roleList) {
+                roles.addAll(roleList);
+            }
+            dataMap.put(roleField, roles);
+        } else {
+            dataMap.put(roleField, resultMap.get(roleField));
+        }
+        resultMap.remove(roleField);
+        for (final String field : List.of(SharePointCrawl.LIST_ID_FIELD, SharePointCrawl.ITEM_ID_FIELD)) {
+            if (resultMap.get(field) != null) {
+                dataMap.put(field, resultMap.get(field));
+            }
+        }
+        return dataMap;
+    }
+
+    /**
+     * Creates the fields of this crawl session that are set on documents refreshed without being indexed again,
+     * so that Fess does not remove them as documents of an earlier crawl.
+     *
+     * @param defaultDataMap the default fields of the data config
+     * @return the segment and expiration time fields found in the default fields
+     */
+    protected Map<String, Object> createRefreshFields(final Map<String, Object> defaultDataMap) {
+        final FessConfig fessConfig = ComponentUtil.getFessConfig();
+        final Map<String, Object> refreshFields = new HashMap<>();
+        for (final String field : List.of(fessConfig.getIndexFieldSegment(), fessConfig.getIndexFieldExpires())) {
+            if (defaultDataMap.get(field) != null) {
+                refreshFields.put(field, defaultDataMap.get(field));
+            }
+        }
+        return refreshFields;
+    }
+
     private SharePointCrawler createCrawler(final DataStoreParams paramMap) {
         final SharePointCrawler.CrawlerConfig config = new SharePointCrawler.CrawlerConfig();
         config.setUrl(paramMap.getAsString("url"));
@@ -164,6 +210,12 @@ public class SharePointDataStore extends AbstractDataStore {
         if (paramMap.containsKey("list.item.content.exclude_fields")) {
             config.setListContentExcludeFields(paramMap.getAsString("list.item.content.exclude_fields"));
         }
+        if (paramMap.containsKey("list.items.include_values")) {
+            config.setListItemValuesInPage(Boolean.parseBoolean(paramMap.getAsString("list.items.include_values")));
+        }
+        if (paramMap.containsKey("list.items.include_attachments")) {
+            config.setListItemAttachmentsInPage(Boolean.parseBoolean(paramMap.getAsString("list.items.include_attachments")));
+        }
         if (paramMap.containsKey("list.is_sub_page")) {
             config.setSubPage(Boolean.parseBoolean(paramMap.getAsString("list.is_sub_page")));
         }
@@ -179,9 +231,84 @@ public class SharePointDataStore extends AbstractDataStore {
         if (paramMap.containsKey("retry_limit")) {
             config.setRetryLimit(Integer.parseInt(paramMap.getAsString("retry_limit")));
         }
+        if (paramMap.containsKey("retry.interval")) {
+            config.setRetryInterval(Long.parseLong(paramMap.getAsString("retry.interval")));
+        }
+        if (paramMap.containsKey("retry.max_interval")) {
+            config.setMaxRetryInterval(Long.parseLong(paramMap.getAsString("retry.max_interval")));
+        }
+        if (paramMap.containsKey("retry.throttle_limit")) {
+            config.setThrottleRetryLimit(Integer.parseInt(paramMap.getAsString("retry.throttle_limit")));
+        }
         if (paramMap.containsKey("role.skip")) {
             config.setSkipRole(Boolean.parseBoolean(paramMap.getAsString("role.skip")));
         }
+        if (paramMap.containsKey("crawler.thread_count")) {
+            config.setThreadCount(Integer.parseInt(paramMap.getAsString("crawler.thread_count")));
+        }
+        if (paramMap.containsKey("crawler.result_queue_size")) {
+            config.setResultQueueSize(Integer.parseInt(paramMap.getAsString("crawler.result_queue_size")));
+        }
+        if (paramMap.containsKey("crawler.thread_mode")) {
+            config.setVirtualThread("virtual".equalsIgnoreCase(paramMap.getAsString("crawler.thread_mode")));
+        }
+        if (paramMap.containsKey("http.max_concurrent_requests")) {
+            config.setMaxConcurrentRequests(Integer.parseInt(paramMap.getAsString("http.max_concurrent_requests")));
+        }
+        if (paramMap.containsKey("http.adaptive_concurrency")) {
+            config.setAdaptiveConcurrency(Boolean.parseBoolean(paramMap.getAsString("http.adaptive_concurrency")));
+        }
+        if (paramMap.containsKey("http.min_concurrent_requests")) {
+            config.setMinConcurrentRequests(Integer.parseInt(paramMap.getAsString("http.min_concurrent_requests")));
+        }
+        if (paramMap.containsKey("http.max_connections_per_route")) {
+            config.setMaxConnectionsPerRoute(Integer.parseInt(paramMap.getAsString("http.max_connections_per_route")));
+        }
+        if (paramMap.containsKey("http.max_connections_total")) {
+            config.setMaxConnectionsTotal(Integer.parseInt(paramMap.getAsString("http.max_connections_total")));
+        }
+        if (paramMap.containsKey("http.idle_connection_timeout")) {
+            config.setIdleConnectionTimeout(Long.parseLong(paramMap.getAsString("http.idle_connection_timeout")));
+        }
+        if (paramMap.containsKey("http.validate_after_inactivity")) {
+            config.setValidateAfterInactivity(Integer.parseInt(paramMap.getAsString("http.validate_after_inactivity")));
+        }
+        if (paramMap.containsKey("http.keep_alive_timeout")) {
+            config.setKeepAliveTimeout(Long.parseLong(paramMap.getAsString("http.keep_alive_timeout")));
+        }
+        if (paramMap.containsKey("crawler.incremental")) {
+            config.setIncremental(Boolean.parseBoolean(paramMap.getAsString("crawler.incremental")));
+        }
+        if (paramMap.containsKey("change_token.file")) {
+            config.setChangeTokenFile(paramMap.getAsString("change_token.file"));
+        }
+        if (paramMap.containsKey("crawler.incremental.full_crawl_interval")) {
+            config.setFullCrawlInterval(Long.parseLong(paramMap.getAsString("crawler.incremental.full_crawl_interval")));
+        }
+        if (paramMap.containsKey("role.group_cache_size")) {
+            config.setGroupCacheSize(Integer.parseInt(paramMap.getAsString("role.group_cache_size")));
+        }
+        if (paramMap.containsKey("role.group_cache_expire")) {
+            config.setGroupCacheExpire(Long.parseLong(paramMap.getAsString("role.group_cache_expire")));
+        }
+        if (paramMap.containsKey("role.principal_cache_size")) {
+            config.setPrincipalCacheSize(Integer.parseInt(paramMap.getAsString("role.principal_cache_size")));
+        }
+        if (paramMap.containsKey("metadata.file")) {
+            config.setMetadataFile(paramMap.getAsString("metadata.file"));
+        }
+        if (paramMap.containsKey("fingerprint.file")) {
+            config.setFingerprintFile(paramMap.getAsString("fingerprint.file"));
+        }
+        if (paramMap.containsKey("folder.file")) {
+            config.setFolderFile(paramMap.getAsString("folder.file"));
+        }
+        if (paramMap.containsKey("list.items.modified_filter")) {
+            config.setListModifiedFilter(Boolean.parseBoolean(paramMap.getAsString("list.items.modified_filter")));
+        }
+        if (paramMap.containsKey("crawler.delete_removed_items")) {
+            config.setDeleteRemovedItems(Boolean.parseBoolean(paramMap.getAsString("crawler.delete_removed_items")));
+        }
         return new SharePointCrawler(config);
     }
 }
@@ -0,0 +1,323 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.ds.sharepoint.cache;
+
+import java.util.AbstractMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Thread-safe map holding at most a fixed number of entries.
+ * The least recently used entry is evicted when the cache is full, and entries can optionally expire
+ * a fixed time after they were stored. Hits, misses, evictions and load times are recorded so that the
+ * cache can be sized from the statistics of a crawl.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public class BoundedCache<K, V> extends AbstractMap<K, V> {
+
+    private final int maximumSize;
+
+    private final long expireAfterWrite;
+
+    private final LinkedHashMap<K, CacheEntry<V>> entries;
+
+    private final ConcurrentHashMap<K, Loading<V>> loadings = new ConcurrentHashMap<>();
+
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder missCount = new LongAdder();
+
+    private final LongAdder evictionCount = new LongAdder();
+
+    private final LongAdder loadCount = new LongAdder();
+
+    private final LongAdder totalLoadTime = new LongAdder();
+
+    /**
+     * Creates a new BoundedCache.
+     *
+     * @param maximumSize the maximum number of entries, at least 1
+     * @param expireAfterWrite the time in milliseconds after which an entry expires, or 0 to keep entries until evicted
+     */
+    public BoundedCache(final int maximumSize, final long expireAfterWrite) {
+        this.maximumSize = Math.max(maximumSize, 1);
+        this.expireAfterWrite = Math.max(expireAfterWrite, 0L);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<K, CacheEntry<V>> eldest) {
+                if (size() > BoundedCache.this.maximumSize) {
+                    evictionCount.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public V get(final Object key) {
+        final V value = getIfPresent(key);
+        if (value != null) {
+            hitCount.increment();
+        } else {
+            missCount.increment();
+        }
+        return value;
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+        return getIfPresent(key) != null;
+    }
+
+    @Override
+    public V put(final K key, final V value) {
+        final CacheEntry<V> entry;
+        synchronized (entries) {
+            entry = entries.put(key, new CacheEntry<>(value, System.currentTimeMillis()));
+        }
+        return entry != null ? entry.value : null;
+    }
+
+    @Override
+    public V putIfAbsent(final K key, final V value) {
+        synchronized (entries) {
+            final V current = getIfPresent(key);
+            if (current != null) {
+                return current;
+            }
+            entries.put(key, new CacheEntry<>(value, System.currentTimeMillis()));
+            return null;
+        }
+    }
+
+    /**
+     * Returns the cached value, loading and storing it if it is not cached.
+     * The mapping function runs without holding the lock of this cache, so it may read and update this cache,
+     * e.g. to load nested values. Concurrent calls for a key being loaded wait for that load instead of loading
+     * the value again, and get its exception if it fails. If a value was stored for the key during the load,
+     * that value is kept.
+     *
+     * @param key the key
+     * @param mappingFunction the function loading the value
+     * @return the cached or loaded value, or null if the function returns null
+     */
+    @Override
+    public V computeIfAbsent(final K key, final Function<? super K, ? extends V> mappingFunction) {
+        final V value = get(key);
+        if (value != null) {
+            return value;
+        }
+        final Loading<V> loading = new Loading<>(Thread.currentThread());
+        final Loading<V> inFlight = loadings.putIfAbsent(key, loading);
+        if (inFlight != null) {
+            if (inFlight.thread != Thread.currentThread()) {
+                return CoalescingLoader.await(inFlight.future);
+            }
+            // the key is loaded again while loading it, e.g. by a group nested in itself
+            return mappingFunction.apply(key);
+        }
+        try {
+            final V loaded = load(key, mappingFunction);
+            loading.future.complete(loaded);
+            return loaded;
+        } catch (final RuntimeException | Error e) {
+            loading.future.completeExceptionally(e);
+            throw e;
+        } finally {
+            loadings.remove(key, loading);
+        }
+    }
+
+    private V load(final K key, final Function<? super K, ? extends V> mappingFunction) {
+        final V current = getIfPresent(key);
+        if (current != null) {
+            // loaded by a call that finished after the lookup of this call
+            return current;
+        }
+        final long startTime = System.nanoTime();
+        final V loaded = mappingFunction.apply(key);
+        totalLoadTime.add(System.nanoTime() - startTime);
+        loadCount.increment();
+        if (loaded == null) {
+            return null;
+        }
+        final V stored = putIfAbsent(key, loaded);
+        return stored != null ? stored : loaded;
+    }
+
+    @Override
+    public V remove(final Object key) {
+        final CacheEntry<V> entry;
+        synchronized (entries) {
+            entry = entries.remove(key);
+        }
+        return entry != null ? entry.value : null;
+    }
+
+    @Override
+    public boolean remove(final Object key, final Object value) {
+        synchronized (entries) {
+            final CacheEntry<V> entry = entries.get(key);
+            if (entry == null || !Objects.equals(entry.value, value)) {
+                return false;
+            }
+            entries.remove(key);
+            return true;
+        }
+    }
+
+    @Override
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    @Override
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Returns a snapshot of the entries. Changes to the returned set are not reflected in this cache.
+     *
+     * @return the entries of this cache
+     */
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        synchronized (entries) {
+            return entries.entrySet()
+                    .stream()
+                    .map(e -> Map.entry(e.getKey(), e.getValue().value))
+                    .collect(Collectors.toUnmodifiableSet());
+        }
+    }
+
+    /**
+     * Returns the number of lookups that found a value.
+     *
+     * @return the hit count
+     */
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    /**
+     * Returns the number of lookups that did not find a value.
+     *
+     * @return the miss count
+     */
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * Returns the ratio of lookups that found a value.
+     *
+     * @return the hit rate between 0 and 1, or 1 if nothing was looked up
+     */
+    public double getHitRate() {
+        final long hits = getHitCount();
+        final long lookups = hits + getMissCount();
+        return lookups == 0 ? 1.0 : (double) hits / lookups;
+    }
+
+    /**
+     * Returns the number of entries evicted because the cache was full or the entry expired.
+     *
+     * @return the eviction count
+     */
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    /**
+     * Returns the number of values loaded by {@link #computeIfAbsent(Object, Function)}.
+     *
+     * @return the load count
+     */
+    public long getLoadCount() {
+        return loadCount.sum();
+    }
+
+    /**
+     * Returns the total time spent loading values, in nanoseconds.
+     *
+     * @return the total load time
+     */
+    public long getTotalLoadTime() {
+        return totalLoadTime.sum();
+    }
+
+    /**
+     * Returns a summary of the statistics of this cache for logging.
+     *
+     * @return the statistics
+     */
+    public String getStats() {
+        return "size=" + size() + ", maximumSize=" + maximumSize + ", hits=" + getHitCount() + ", misses="
+                + getMissCount() + ", hitRate=" + String.format("%.3f", getHitRate()) + ", evictions=" + getEvictionCount()
+                + ", loads=" + getLoadCount() + ", loadTime=" + getTotalLoadTime() / 1_000_000L + "ms";
+    }
+
+    private V getIfPresent(final Object key) {
+        synchronized (entries) {
+            final CacheEntry<V> entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (expireAfterWrite > 0 && System.currentTimeMillis() - entry.writeTime >= expireAfterWrite) {
+                entries.remove(key);
+                evictionCount.increment();
+                return null;
+            }
+            return entry.value;
+        }
+    }
+
+    private static final class Loading<V> {
+        private final Thread thread;
+        private final CompletableFuture<V> future = new CompletableFuture<>();
+
+        private Loading(final Thread thread) {
+            this.thread = thread;
+        }
+    }
+
+    private static final class CacheEntry<V> {
+        private final V value;
+        private final long writeTime;
+
+        private CacheEntry(final V value, final long writeTime) {
+            this.value = value;
+            this.writeTime = writeTime;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.ds.sharepoint.cache;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Loads values into a concurrent map of futures, so that concurrent lookups of a key that is not cached yet
+ * wait for the first lookup to load it instead of loading it again.
+ * Unlike {@link Map#computeIfAbsent(Object, java.util.function.Function)} on a ConcurrentHashMap,
+ * no lock of the map is held while a value is loaded, so slow loads such as SharePoint requests
+ * do not block lookups of other keys.
+ */
+public final class CoalescingLoader {
+
+    private CoalescingLoader() {
+        // Utility class
+    }
+
+    /**
+     * Returns the value cached for a key, loading it if it is not cached.
+     * If the load fails, the exception is thrown to every waiting caller and the key is not cached.
+     *
+     * @param <K> the key type
+     * @param <V> the value type
+     * @param cache the concurrent map holding the loaded or loading values
+     * @param key the key
+     * @param loader the loader of the value, which may return null
+     * @return the value
+     */
+    public static <K, V> V load(final Map<K, CompletableFuture<V>> cache, final K key, final Supplier<V> loader) {
+        final CompletableFuture<V> future = new CompletableFuture<>();
+        final CompletableFuture<V> loading = cache.putIfAbsent(key, future);
+        if (loading != null) {
+            return await(loading);
+        }
+        try {
+            final V value = loader.get();
+            future.complete(value);
+            return value;
+        } catch (final RuntimeException | Error e) {
+            cache.remove(key, future);
+            future.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Waits for a value being loaded, rethrowing the exception of a failed load as is.
+     *
+     * @param <V> the value type
+     * @param future the future of the value
+     * @return the value
+     */
+    public static <V> V await(final CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (final CompletionException e) {
+            if (e.getCause() instanceof final RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof final Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.ds.sharepoint.cache;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Crawl-wide cache of the search roles resolved for each principal, keyed by principal ID.
+ * Users, security groups and SharePoint groups are all cached, so a principal is resolved once per crawl
+ * however many items it appears on. Concurrent lookups of a principal that is not cached yet wait for
+ * the first lookup to load it instead of loading it again. The flattened search roles of SharePoint groups
+ * are also kept by group ID, so a group nested in many other groups is flattened once.
+ * Both are held in {@link BoundedCache}s, so the memory used on sites with many principals is bounded.
+ */
+public class PrincipalCache {
+
+    private final Map<String, CompletableFuture<Set<String>>> principalRoles;
+
+    private final Map<String, Set<String>> sharePointGroupRoles;
+
+    /**
+     * Creates a new empty PrincipalCache without a size limit.
+     */
+    public PrincipalCache() {
+        this(Integer.MAX_VALUE, Integer.MAX_VALUE, 0L);
+    }
+
+    /**
+     * Creates a new empty PrincipalCache.
+     *
+     * @param principalCacheSize the maximum number of principals kept
+     * @param groupCacheSize the maximum number of SharePoint groups whose flattened roles are kept
+     * @param expireAfterWrite the time in milliseconds after which cached roles expire, or 0 to keep them until evicted
+     */
+    public PrincipalCache(final int principalCacheSize, final int groupCacheSize, final long expireAfterWrite) {
+        principalRoles = new BoundedCache<>(principalCacheSize, expireAfterWrite);
+        sharePointGroupRoles = new BoundedCache<>(groupCacheSize, expireAfterWrite);
+    }
+
+    /**
+     * Returns the search roles of a principal, loading them if they are not cached.
+     * If the load fails, the exception is thrown to every waiting caller and the principal is not cached.
+     *
+     * @param principalId the principal ID
+     * @param loader the loader resolving the search roles of the principal
+     * @return the immutable set of search roles
+     */
+    public Set<String> get(final String principalId, final Supplier<Set<String>> loader) {
+        return CoalescingLoader.load(principalRoles, principalId, () -> Set.copyOf(loader.get()));
+    }
+
+    /**
+     * Returns the flattened search roles of a SharePoint group, including the roles of its nested groups.
+     *
+     * @param groupId the SharePoint group ID
+     * @return the immutable set of search roles, or null if the group is not cached
+     */
+    public Set<String> getSharePointGroupRoles(final String groupId) {
+        return sharePointGroupRoles.get(groupId);
+    }
+
+    /**
+     * Caches the flattened search roles of a SharePoint group.
+     * If the group was cached meanwhile, the cached roles are kept and returned.
+     *
+     * @param groupId the SharePoint group ID
+     * @param roles the search roles of the group and its nested groups
+     * @return the immutable set of search roles cached for the group
+     */
+    public Set<String> putSharePointGroupRoles(final String groupId, final Set<String> roles) {
+        final Set<String> groupRoles = Set.copyOf(roles);
+        final Set<String> cached = sharePointGroupRoles.putIfAbsent(groupId, groupRoles);
+        return cached != null ? cached : groupRoles;
+    }
+
+    /**
+     * Returns the number of cached principals, including those being loaded.
+     *
+     * @return the number of principals
+     */
+    public int size() {
+        return principalRoles.size();
+    }
+}
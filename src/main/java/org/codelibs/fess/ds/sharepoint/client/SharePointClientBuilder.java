@@ -15,14 +15,20 @@
  */
 package org.codelibs.fess.ds.sharepoint.client;
 
+import java.util.concurrent.TimeUnit;
+
 import org.apache.http.auth.AuthScope;
 import org.apache.http.client.CredentialsProvider;
 import org.apache.http.client.config.RequestConfig;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.BasicCredentialsProvider;
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.DefaultHttpRequestRetryHandler;
 import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.codelibs.fess.ds.sharepoint.client.credential.SharePointCredential;
+import org.codelibs.fess.ds.sharepoint.client.http.ConcurrencyLimitedHttpClient;
 import org.codelibs.fess.ds.sharepoint.client.oauth.OAuth;
 
 /**
@@ -36,6 +42,14 @@ public class SharePointClientBuilder {
     private RequestConfig requestConfig = null;
     private CloseableHttpClient httpClient = null;
     private int retryCount = 0;
+    private int maxConcurrentRequests = 0;
+    private boolean adaptiveConcurrency = false;
+    private int minConcurrentRequests = 1;
+    private int maxConnectionsPerRoute = 20;
+    private int maxConnectionsTotal = 200;
+    private long idleConnectionTimeout = 60000L;
+    private int validateAfterInactivity = 2000;
+    private long keepAliveTimeout = 0L;
     private boolean verson2013 = false;
 
     /**
@@ -121,6 +135,101 @@ public class SharePointClientBuilder {
         return this;
     }
 
+    /**
+     * Sets the maximum number of in-flight requests.
+     * A value of 0 or less means no limit.
+     *
+     * @param maxConcurrentRequests the maximum number of in-flight requests
+     * @return this builder instance
+     */
+    public SharePointClientBuilder setMaxConcurrentRequests(final int maxConcurrentRequests) {
+        this.maxConcurrentRequests = maxConcurrentRequests;
+        return this;
+    }
+
+    /**
+     * Sets whether the number of in-flight requests adapts to each host.
+     * The limit of a host grows while its responses stay healthy and shrinks on 429/503 responses,
+     * failures or rising latency, up to the maximum number of in-flight requests
+     * or, if not set, the maximum number of connections per route.
+     *
+     * @param adaptiveConcurrency true to adapt the limit
+     * @return this builder instance
+     */
+    public SharePointClientBuilder setAdaptiveConcurrency(final boolean adaptiveConcurrency) {
+        this.adaptiveConcurrency = adaptiveConcurrency;
+        return this;
+    }
+
+    /**
+     * Sets the lowest number of in-flight requests an adaptive limit decreases to.
+     *
+     * @param minConcurrentRequests the minimum number of in-flight requests
+     * @return this builder instance
+     */
+    public SharePointClientBuilder setMinConcurrentRequests(final int minConcurrentRequests) {
+        this.minConcurrentRequests = minConcurrentRequests;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of pooled connections per route.
+     *
+     * @param maxConnectionsPerRoute the maximum number of connections per route
+     * @return this builder instance
+     */
+    public SharePointClientBuilder setMaxConnectionsPerRoute(final int maxConnectionsPerRoute) {
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of pooled connections in total.
+     *
+     * @param maxConnectionsTotal the maximum number of connections
+     * @return this builder instance
+     */
+    public SharePointClientBuilder setMaxConnectionsTotal(final int maxConnectionsTotal) {
+        this.maxConnectionsTotal = maxConnectionsTotal;
+        return this;
+    }
+
+    /**
+     * Sets the time after which idle pooled connections are evicted.
+     * A value of 0 or less disables the eviction of idle connections.
+     *
+     * @param idleConnectionTimeout the idle time in milliseconds
+     * @return this builder instance
+     */
+    public SharePointClientBuilder setIdleConnectionTimeout(final long idleConnectionTimeout) {
+        this.idleConnectionTimeout = idleConnectionTimeout;
+        return this;
+    }
+
+    /**
+     * Sets the period of inactivity after which pooled connections are validated before reuse.
+     * A value of 0 or less disables the validation.
+     *
+     * @param validateAfterInactivity the period in milliseconds
+     * @return this builder instance
+     */
+    public SharePointClientBuilder setValidateAfterInactivity(final int validateAfterInactivity) {
+        this.validateAfterInactivity = validateAfterInactivity;
+        return this;
+    }
+
+    /**
+     * Sets how long connections are kept alive when the server does not send a Keep-Alive timeout.
+     * The server's timeout is capped by this value. A value of 0 or less uses the server's timeout only.
+     *
+     * @param keepAliveTimeout the keep-alive time in milliseconds
+     * @return this builder instance
+     */
+    public SharePointClientBuilder setKeepAliveTimeout(final long keepAliveTimeout) {
+        this.keepAliveTimeout = keepAliveTimeout;
+        return this;
+    }
+
     /**
      * Configures the builder to use SharePoint 2013 API.
      *
@@ -145,11 +254,27 @@ public class SharePointClientBuilder {
     }
 
     private CloseableHttpClient buildHttpClient() {
-        if (httpClient != null) {
-            return httpClient;
+        final CloseableHttpClient client = httpClient != null ? httpClient : createHttpClient();
+        if (adaptiveConcurrency) {
+            final int maxLimit = maxConcurrentRequests > 0 ? maxConcurrentRequests : maxConnectionsPerRoute;
+            return new ConcurrencyLimitedHttpClient(client, Math.max(minConcurrentRequests, maxLimit / 4), minConcurrentRequests,
+                    maxLimit);
+        }
+        if (maxConcurrentRequests > 0) {
+            return new ConcurrencyLimitedHttpClient(client, maxConcurrentRequests);
         }
+        return client;
+    }
+
+    private CloseableHttpClient createHttpClient() {
 
-        final HttpClientBuilder builder = HttpClientBuilder.create();
+        final HttpClientBuilder builder = HttpClientBuilder.create().setConnectionManager(createConnectionManager());
+        if (idleConnectionTimeout > 0) {
+            builder.evictExpiredConnections().evictIdleConnections(idleConnectionTimeout, TimeUnit.MILLISECONDS);
+        }
+        if (keepAliveTimeout > 0) {
+            builder.setKeepAliveStrategy(createKeepAliveStrategy());
+        }
         if (requestConfig != null) {
             builder.setDefaultRequestConfig(requestConfig);
         } else {
@@ -167,4 +292,22 @@ public class SharePointClientBuilder {
         }
         return builder.build();
     }
+
+    private PoolingHttpClientConnectionManager createConnectionManager() {
+        final PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(maxConnectionsTotal);
+        connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+        connectionManager.setValidateAfterInactivity(validateAfterInactivity);
+        return connectionManager;
+    }
+
+    private ConnectionKeepAliveStrategy createKeepAliveStrategy() {
+        return (response, context) -> {
+            final long duration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            if (duration > 0 && duration < keepAliveTimeout) {
+                return duration;
+            }
+            return keepAliveTimeout;
+        };
+    }
 }
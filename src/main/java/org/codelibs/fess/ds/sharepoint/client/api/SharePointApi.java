@@ -21,7 +21,11 @@ import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import javax.xml.XMLConstants;
@@ -29,8 +33,14 @@ import javax.xml.parsers.SAXParser;
 import javax.xml.parsers.SAXParserFactory;
 
 import org.apache.commons.lang3.StringUtils;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.client.utils.DateUtils;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.util.EntityUtils;
 import org.apache.logging.log4j.LogManager;
@@ -43,6 +53,9 @@ import org.codelibs.fess.ds.sharepoint.client.exception.SharePointServerExceptio
 import org.codelibs.fess.ds.sharepoint.client.oauth.OAuth;
 import org.xml.sax.helpers.DefaultHandler;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 /**
@@ -90,6 +103,16 @@ public abstract class SharePointApi<T extends SharePointApiResponse> {
      */
     public abstract T execute();
 
+    /**
+     * Returns this request as a part of an OData $batch request.
+     * APIs that send a single GET request with a JSON response override this method.
+     *
+     * @return the batch part, or null if this API cannot be sent in a batch
+     */
+    public BatchPart<T> toBatchPart() {
+        return null;
+    }
+
     /**
      * Executes an HTTP request expecting a JSON response from SharePoint.
      *
@@ -99,30 +122,61 @@ public abstract class SharePointApi<T extends SharePointApiResponse> {
      * @throws SharePointClientException if there is a client-side error
      */
     protected JsonResponse doJsonRequest(final HttpRequestBase httpRequest) {
+        return doJsonRequest(httpRequest, null);
+    }
+
+    /**
+     * Executes an HTTP request expecting a JSON response from SharePoint and decodes the entity as a stream.
+     * When a value consumer is given, each element of the top-level "value" array is passed to it
+     * as soon as it is decoded and is not kept in the returned response.
+     *
+     * @param httpRequest the HTTP request to execute
+     * @param valueConsumer the consumer of "value" elements, or null to keep them in the response
+     * @return a JsonResponse containing the top-level fields of the response body
+     * @throws SharePointServerException if the server returns an error response
+     * @throws SharePointClientException if there is a client-side error
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    protected JsonResponse doJsonRequest(final HttpRequestBase httpRequest, final Consumer<Map<String, Object>> valueConsumer) {
+        return doJsonRequest(httpRequest, (Class) Map.class, valueConsumer);
+    }
+
+    /**
+     * Executes an HTTP request expecting a JSON response from SharePoint and binds each element
+     * of the top-level "value" array to the given type as soon as it is decoded.
+     * Binding to a typed class avoids building an intermediate map for every element.
+     *
+     * @param <V> the type of "value" elements
+     * @param httpRequest the HTTP request to execute
+     * @param valueType the class to bind "value" elements to
+     * @param valueConsumer the consumer of "value" elements, or null to keep them in the response
+     * @return a JsonResponse containing the top-level fields of the response body
+     * @throws SharePointServerException if the server returns an error response
+     * @throws SharePointClientException if there is a client-side error
+     */
+    protected <V> JsonResponse doJsonRequest(final HttpRequestBase httpRequest, final Class<V> valueType,
+            final Consumer<V> valueConsumer) {
         httpRequest.addHeader("Accept", "application/json");
         if (oAuth != null) {
             oAuth.apply(httpRequest);
         }
         try (CloseableHttpResponse httpResponse = client.execute(httpRequest)) {
-            final String body = EntityUtils.toString(httpResponse.getEntity());
-            if (logger.isDebugEnabled()) {
-                logger.debug("API's ResponseBody. [url:{}] [body:{}]", httpRequest.getURI().toString(), body);
-            }
+            final int statusCode = httpResponse.getStatusLine().getStatusCode();
             if (isErrorResponse(httpResponse)) {
-                @SuppressWarnings("unchecked")
-                final Map<String, Object> bodyMap = StringUtil.isNotBlank(body) ? objectMapper.readValue(body, Map.class) : null;
-                throw new SharePointServerException("Api returned error. code:" + httpResponse.getStatusLine().getStatusCode() + "url:"
-                        + httpRequest.getURI().toString() + " body:" + bodyMap, httpResponse.getStatusLine().getStatusCode());
+                final String body = httpResponse.getEntity() != null ? EntityUtils.toString(httpResponse.getEntity()) : null;
+                throw new SharePointServerException("Api returned error. code:" + statusCode + "url:" + httpRequest.getURI().toString()
+                        + " body:" + formatErrorBody(body), statusCode, getRetryAfter(httpResponse));
             }
 
-            @SuppressWarnings("unchecked")
-            final Map<String, Object> bodyMap = objectMapper.readValue(body, Map.class);
-            if (body.contains("odata.error")) {
+            final Map<String, Object> bodyMap = parseJson(httpResponse.getEntity(), valueType, valueConsumer);
+            if (logger.isDebugEnabled()) {
+                logger.debug("API's ResponseBody. [url:{}] [body:{}]", httpRequest.getURI().toString(), bodyMap);
+            }
+            if (bodyMap.containsKey("odata.error")) {
                 throw new SharePointServerException(
-                        "Api returned error. " + " url:" + httpRequest.getURI().toString() + " body:" + bodyMap.toString(),
-                        httpResponse.getStatusLine().getStatusCode());
+                        "Api returned error. " + " url:" + httpRequest.getURI().toString() + " body:" + bodyMap.toString(), statusCode);
             }
-            return new JsonResponse(body, bodyMap, httpResponse.getStatusLine().getStatusCode());
+            return new JsonResponse(bodyMap, statusCode);
         } catch (final SharePointServerException e) {
             throw e;
         } catch (final Exception e) {
@@ -130,6 +184,77 @@ public abstract class SharePointApi<T extends SharePointApiResponse> {
         }
     }
 
+    // throttled and gateway responses often have an HTML or plain text body, which is logged as is
+    private String formatErrorBody(final String body) {
+        if (StringUtil.isBlank(body)) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(body, Map.class).toString();
+        } catch (final Exception e) {
+            return body;
+        }
+    }
+
+    private <V> Map<String, Object> parseJson(final HttpEntity entity, final Class<V> valueType, final Consumer<V> valueConsumer)
+            throws Exception {
+        final Map<String, Object> bodyMap = new LinkedHashMap<>();
+        if (entity == null) {
+            return bodyMap;
+        }
+        try (InputStream in = entity.getContent(); JsonParser parser = objectMapper.getFactory().createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new SharePointClientException("Response body is not a JSON object.");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String fieldName = parser.getCurrentName();
+                final JsonToken token = parser.nextToken();
+                if (valueConsumer != null && "value".equals(fieldName) && token == JsonToken.START_ARRAY) {
+                    JsonToken valueToken;
+                    while ((valueToken = parser.nextToken()) != JsonToken.END_ARRAY && valueToken != null) {
+                        if (valueToken == JsonToken.START_OBJECT) {
+                            valueConsumer.accept(parser.readValueAs(valueType));
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                } else {
+                    bodyMap.put(fieldName, parser.readValueAs(Object.class));
+                }
+            }
+        }
+        return bodyMap;
+    }
+
+    /**
+     * Creates a JsonResponse from a body that was not read from an HTTP entity of its own,
+     * such as a part of an OData $batch response.
+     *
+     * @param url the URL of the request, used in error messages
+     * @param body the JSON response body
+     * @param statusCode the HTTP status code of the response
+     * @return a JsonResponse containing the parsed body
+     * @throws SharePointServerException if the response is an error response
+     * @throws SharePointClientException if the body cannot be parsed
+     */
+    protected JsonResponse createJsonResponse(final String url, final String body, final int statusCode) {
+        if (statusCode >= 400) {
+            throw new SharePointServerException("Api returned error. code:" + statusCode + "url:" + url + " body:" + body, statusCode);
+        }
+        try {
+            final Map<String, Object> bodyMap = StringUtil.isNotBlank(body)
+                    ? parseJson(new StringEntity(body, ContentType.APPLICATION_JSON), Object.class, null) : new LinkedHashMap<>();
+            if (bodyMap.containsKey("odata.error")) {
+                throw new SharePointServerException("Api returned error. " + " url:" + url + " body:" + body, statusCode);
+            }
+            return new JsonResponse(bodyMap, statusCode);
+        } catch (final SharePointServerException e) {
+            throw e;
+        } catch (final Exception e) {
+            throw new SharePointClientException("Failed to parse response. " + e.getMessage(), e);
+        }
+    }
+
     /**
      * Executes an HTTP request expecting an XML response from SharePoint.
      *
@@ -147,7 +272,8 @@ public abstract class SharePointApi<T extends SharePointApiResponse> {
             }
             if (isErrorResponse(httpResponse)) {
                 throw new SharePointServerException("Api returned error. code:" + httpResponse.getStatusLine().getStatusCode() + "url:"
-                        + httpRequest.getURI().toString() + " body:" + body, httpResponse.getStatusLine().getStatusCode());
+                        + httpRequest.getURI().toString() + " body:" + body, httpResponse.getStatusLine().getStatusCode(),
+                        getRetryAfter(httpResponse));
             }
 
             if (body.contains("odata.error")) {
@@ -175,6 +301,36 @@ public abstract class SharePointApi<T extends SharePointApiResponse> {
         return false;
     }
 
+    /**
+     * Returns the time the server asked to wait before retrying, from the Retry-After header.
+     * The header is either a number of seconds or an HTTP date.
+     *
+     * @param response the HTTP response
+     * @return the time in milliseconds, or -1 if the header is missing or invalid
+     */
+    protected long getRetryAfter(final HttpResponse response) {
+        final Header header = response.getFirstHeader("Retry-After");
+        if (header == null || StringUtils.isBlank(header.getValue())) {
+            return -1L;
+        }
+        final String value = header.getValue().trim();
+        if (StringUtils.isNumeric(value)) {
+            try {
+                return Long.parseLong(value) * 1000L;
+            } catch (final NumberFormatException e) {
+                return -1L;
+            }
+        }
+        final Date date = DateUtils.parseDate(value);
+        if (date == null) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Invalid Retry-After header: {}", value);
+            }
+            return -1L;
+        }
+        return Math.max(date.getTime() - System.currentTimeMillis(), 0L);
+    }
+
     /**
      * URL-encodes a relative URL path by encoding each path segment separately.
      * This method properly handles path separators and converts + to %20.
@@ -191,35 +347,78 @@ public abstract class SharePointApi<T extends SharePointApiResponse> {
                 .replace("+", "%20");
     }
 
+    /**
+     * A GET request that is sent as a part of an OData $batch request,
+     * with the function that builds the API response from the part of the batch response.
+     *
+     * @param <T> the response type
+     */
+    public static class BatchPart<T> {
+        private final String url;
+        private final Function<JsonResponse, T> responseBuilder;
+
+        /**
+         * Constructs a new BatchPart.
+         *
+         * @param url the absolute URL of the GET request
+         * @param responseBuilder the function building the API response from the JSON response
+         */
+        public BatchPart(final String url, final Function<JsonResponse, T> responseBuilder) {
+            this.url = url;
+            this.responseBuilder = responseBuilder;
+        }
+
+        /**
+         * Returns the absolute URL of the GET request.
+         *
+         * @return the request URL
+         */
+        public String getUrl() {
+            return url;
+        }
+
+        /**
+         * Builds the API response from the JSON response of this part.
+         *
+         * @param jsonResponse the JSON response of this part
+         * @return the API response
+         */
+        public T buildResponse(final JsonResponse jsonResponse) {
+            return responseBuilder.apply(jsonResponse);
+        }
+    }
+
     /**
      * Represents a JSON response from a SharePoint API call.
      * Contains the raw response body, parsed JSON map, and HTTP status code.
      */
     public static class JsonResponse {
-        private final String body;
         private final Map<String, Object> bodyMap;
         private final int statusCode;
 
         /**
          * Constructs a new JsonResponse.
          *
-         * @param body the raw response body as a string
          * @param bodyMap the parsed JSON response as a map
          * @param statusCode the HTTP status code
          */
-        private JsonResponse(final String body, final Map<String, Object> bodyMap, final int statusCode) {
-            this.body = body;
+        private JsonResponse(final Map<String, Object> bodyMap, final int statusCode) {
             this.bodyMap = bodyMap;
             this.statusCode = statusCode;
         }
 
         /**
-         * Returns the raw response body as a string.
+         * Returns the response body serialized from the parsed JSON map.
+         * The body is not kept as a string, so this is intended for logging only.
          *
-         * @return the raw response body
+         * @return the response body
          */
         public String getBody() {
-            return body;
+            try {
+                return objectMapper.writeValueAsString(bodyMap);
+            } catch (final JsonProcessingException e) {
+                return String.valueOf(bodyMap);
+            }
         }
 
         /**
@@ -231,6 +430,22 @@ public abstract class SharePointApi<T extends SharePointApiResponse> {
             return bodyMap;
         }
 
+        /**
+         * Returns the URL of the next page of a collection given by the server.
+         *
+         * @return the next link, or null if this is the last page or the server does not page the collection
+         */
+        public String getNextLink() {
+            Object nextLink = bodyMap.get("odata.nextLink");
+            if (nextLink == null) {
+                nextLink = bodyMap.get("@odata.nextLink");
+            }
+            if (nextLink == null && bodyMap.get("d") instanceof final Map<?, ?> d) {
+                nextLink = d.get("__next");
+            }
+            return nextLink != null ? nextLink.toString() : null;
+        }
+
         /**
          * Determines if this response indicates an error condition.
          *
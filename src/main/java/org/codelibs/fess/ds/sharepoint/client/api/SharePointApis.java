@@ -15,12 +15,17 @@
  */
 package org.codelibs.fess.ds.sharepoint.client.api;
 
+import java.util.concurrent.atomic.AtomicBoolean;
+
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.codelibs.fess.ds.sharepoint.client.api.batch.Batch;
 import org.codelibs.fess.ds.sharepoint.client.api.doclib.getfiles.GetFiles;
 import org.codelibs.fess.ds.sharepoint.client.api.doclib.getfolder.GetFolder;
 import org.codelibs.fess.ds.sharepoint.client.api.doclib.getfolders.GetFolders;
 import org.codelibs.fess.ds.sharepoint.client.api.doclib.getlistitem.GetDoclibListItem;
 import org.codelibs.fess.ds.sharepoint.client.api.file.getfile.GetFile;
+import org.codelibs.fess.ds.sharepoint.client.api.list.getlistchanges.GetListChangeToken;
+import org.codelibs.fess.ds.sharepoint.client.api.list.getlistchanges.GetListChanges;
 import org.codelibs.fess.ds.sharepoint.client.api.list.getlistforms.GetForms;
 import org.codelibs.fess.ds.sharepoint.client.api.list.getlistitem.GetListItemAttachments;
 import org.codelibs.fess.ds.sharepoint.client.api.list.getlistitem.GetListItemRole;
@@ -50,6 +55,8 @@ public class SharePointApis {
     protected final String siteUrl;
     /** OAuth authentication handler */
     protected final OAuth oAuth;
+    /** Whether users of SharePoint groups are expanded with role assignments, cleared once the server rejects it */
+    protected final AtomicBoolean expandGroupUsers = new AtomicBoolean(true);
 
     /**
      * Constructs a new SharePointApis instance.
@@ -91,6 +98,15 @@ public class SharePointApis {
         return new DocLibApis();
     }
 
+    /**
+     * Gets the API for sending several requests in one OData $batch request.
+     *
+     * @return Batch instance for batch operations
+     */
+    public Batch batch() {
+        return new Batch(client, siteUrl, oAuth);
+    }
+
     /**
      * API handler for SharePoint list-related operations.
      * Provides access to list metadata, list items, attachments, and form operations.
@@ -156,7 +172,7 @@ public class SharePointApis {
          * @return GetListItemRole instance for role assignment operations
          */
         public GetListItemRole getListItemRole() {
-            return new GetListItemRole(client, siteUrl, oAuth);
+            return new GetListItemRole(client, siteUrl, oAuth).setExpandGroupUsers(expandGroupUsers);
         }
 
         /**
@@ -167,6 +183,24 @@ public class SharePointApis {
         public GetForms getForms() {
             return new GetForms(client, siteUrl, oAuth);
         }
+
+        /**
+         * Gets the API for retrieving item changes of a list.
+         *
+         * @return GetListChanges instance for change log operations
+         */
+        public GetListChanges getListChanges() {
+            return new GetListChanges(client, siteUrl, oAuth);
+        }
+
+        /**
+         * Gets the API for retrieving the current change token of a list.
+         *
+         * @return GetListChangeToken instance for change token operations
+         */
+        public GetListChangeToken getListChangeToken() {
+            return new GetListChangeToken(client, siteUrl, oAuth);
+        }
     }
 
     /**
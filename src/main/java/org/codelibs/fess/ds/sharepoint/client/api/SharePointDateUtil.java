@@ -0,0 +1,71 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.ds.sharepoint.client.api;
+
+import java.text.ParseException;
+import java.text.ParsePosition;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Date;
+
+/**
+ * Utility class for parsing dates returned by SharePoint APIs.
+ * The formatters are immutable and thread-safe, so they are shared instead of being created per response.
+ */
+public final class SharePointDateUtil {
+
+    /** Format of the Created/Modified fields in REST API responses, e.g. 2024-01-02T03:04:05Z. */
+    public static final DateTimeFormatter API_DATE_TIME = DateTimeFormatter.ofPattern("uuuu-MM-dd'T'HH:mm:ss'Z'");
+
+    /** Format of date fields in FieldValuesAsText, e.g. 2024/01/02 3:04. */
+    public static final DateTimeFormatter FIELD_VALUE_DATE_TIME = DateTimeFormatter.ofPattern("uuuu/M/d H:mm");
+
+    /** Format of date fields in FieldValuesAsText of SharePoint 2013, e.g. 01/02/2024 3:04. */
+    public static final DateTimeFormatter FIELD_VALUE_DATE_TIME_2013 = DateTimeFormatter.ofPattern("M/d/uuuu H:mm");
+
+    private SharePointDateUtil() {
+        // Utility class
+    }
+
+    /**
+     * Parses a date string with the given formatter in the default time zone.
+     * Trailing text after the date is ignored.
+     *
+     * @param formatter the formatter to parse with
+     * @param text the date string
+     * @return the parsed date
+     * @throws ParseException if the text cannot be parsed
+     */
+    public static Date parse(final DateTimeFormatter formatter, final String text) throws ParseException {
+        if (text == null) {
+            throw new ParseException("Date is null.", 0);
+        }
+        try {
+            final LocalDateTime dateTime = LocalDateTime.from(formatter.parse(text, new ParsePosition(0)));
+            return Date.from(dateTime.atZone(ZoneId.systemDefault()).toInstant());
+        } catch (final DateTimeParseException e) {
+            final ParseException pe = new ParseException("Unparseable date: \"" + text + "\"", e.getErrorIndex());
+            pe.initCause(e);
+            throw pe;
+        } catch (final RuntimeException e) {
+            final ParseException pe = new ParseException("Unparseable date: \"" + text + "\"", 0);
+            pe.initCause(e);
+            throw pe;
+        }
+    }
+}
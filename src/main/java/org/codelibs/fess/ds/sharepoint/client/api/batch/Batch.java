@@ -0,0 +1,293 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.ds.sharepoint.client.api.batch;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.util.EntityUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.codelibs.fess.ds.sharepoint.client.api.SharePointApi;
+import org.codelibs.fess.ds.sharepoint.client.api.SharePointApiResponse;
+import org.codelibs.fess.ds.sharepoint.client.exception.SharePointClientException;
+import org.codelibs.fess.ds.sharepoint.client.exception.SharePointServerException;
+import org.codelibs.fess.ds.sharepoint.client.oauth.OAuth;
+
+/**
+ * API class for sending several GET requests in one OData $batch request.
+ * Requests are added with {@link #add(SharePointApi)} and their responses are read from the returned results
+ * after {@link #execute()}. Requests that cannot be batched, and all requests when the batch request fails,
+ * are executed one by one.
+ */
+public class Batch extends SharePointApi<BatchResponse> {
+    private static final Logger logger = LogManager.getLogger(Batch.class);
+
+    private static final String API_PATH = "_api/$batch";
+
+    private static final String CRLF = "\r\n";
+
+    private final List<Entry<?>> entries = new ArrayList<>();
+
+    private int maxParts = 100;
+
+    /**
+     * Constructs a new Batch instance.
+     *
+     * @param client the HTTP client for making requests
+     * @param siteUrl the SharePoint site URL
+     * @param oAuth the OAuth authentication handler
+     */
+    public Batch(final CloseableHttpClient client, final String siteUrl, final OAuth oAuth) {
+        super(client, siteUrl, oAuth);
+    }
+
+    /**
+     * Sets the maximum number of requests sent in one $batch request.
+     * SharePoint Online accepts up to 100 requests in a batch.
+     *
+     * @param maxParts the maximum number of requests per batch
+     * @return this instance for method chaining
+     */
+    public Batch setMaxParts(final int maxParts) {
+        this.maxParts = maxParts;
+        return this;
+    }
+
+    /**
+     * Adds a request to this batch.
+     *
+     * @param <R> the response type
+     * @param api the request to add
+     * @return the result filled when this batch is executed
+     */
+    public <R extends SharePointApiResponse> BatchResponse.Result<R> add(final SharePointApi<R> api) {
+        final Entry<R> entry = new Entry<>(api);
+        entries.add(entry);
+        return entry.result;
+    }
+
+    /**
+     * Executes all requests added to this batch.
+     *
+     * @return the response containing the result of each request
+     */
+    @Override
+    public BatchResponse execute() {
+        final List<Entry<?>> parts = new ArrayList<>();
+        for (final Entry<?> entry : entries) {
+            if (entry.part == null) {
+                entry.executeAlone();
+                continue;
+            }
+            parts.add(entry);
+            if (parts.size() >= maxParts) {
+                executeParts(parts);
+                parts.clear();
+            }
+        }
+        executeParts(parts);
+
+        final List<BatchResponse.Result<?>> results = new ArrayList<>();
+        entries.forEach(entry -> results.add(entry.result));
+        return new BatchResponse(results);
+    }
+
+    private void executeParts(final List<Entry<?>> parts) {
+        if (parts.isEmpty()) {
+            return;
+        }
+        if (parts.size() == 1) {
+            parts.get(0).executeAlone();
+            return;
+        }
+        final List<String> bodies;
+        try {
+            bodies = doBatchRequest(parts);
+        } catch (final SharePointServerException | SharePointClientException e) {
+            logger.warn("Batch request failed. Execute {} requests one by one.", parts.size(), e);
+            parts.forEach(Entry::executeAlone);
+            return;
+        }
+        for (int i = 0; i < parts.size(); i++) {
+            final Entry<?> entry = parts.get(i);
+            if (i < bodies.size()) {
+                entry.complete(bodies.get(i));
+            } else {
+                entry.result.setException(new SharePointClientException("No response in batch. url:" + entry.part.getUrl()));
+            }
+        }
+    }
+
+    private List<String> doBatchRequest(final List<Entry<?>> parts) {
+        final String boundary = "batch_" + UUID.randomUUID().toString();
+        final StringBuilder buf = new StringBuilder(parts.size() * 256);
+        for (final Entry<?> entry : parts) {
+            buf.append("--").append(boundary).append(CRLF);
+            buf.append("Content-Type: application/http").append(CRLF);
+            buf.append("Content-Transfer-Encoding: binary").append(CRLF);
+            buf.append(CRLF);
+            buf.append("GET ").append(entry.part.getUrl()).append(" HTTP/1.1").append(CRLF);
+            buf.append("Accept: application/json").append(CRLF);
+            buf.append(CRLF);
+        }
+        buf.append("--").append(boundary).append("--").append(CRLF);
+
+        final String buildUrl = siteUrl + API_PATH;
+        if (logger.isDebugEnabled()) {
+            logger.debug("buildUrl: {} parts: {}", buildUrl, parts.size());
+        }
+        final HttpPost httpPost = new HttpPost(buildUrl);
+        httpPost.setEntity(new StringEntity(buf.toString(), ContentType.create("multipart/mixed", StandardCharsets.UTF_8)));
+        httpPost.setHeader("Content-Type", "multipart/mixed; boundary=" + boundary);
+        httpPost.addHeader("Accept", "multipart/mixed");
+        if (oAuth != null) {
+            oAuth.apply(httpPost);
+        }
+        try (CloseableHttpResponse httpResponse = client.execute(httpPost)) {
+            final int statusCode = httpResponse.getStatusLine().getStatusCode();
+            final HttpEntity entity = httpResponse.getEntity();
+            final String body = entity != null ? EntityUtils.toString(entity, StandardCharsets.UTF_8) : null;
+            if (isErrorResponse(httpResponse)) {
+                throw new SharePointServerException("Api returned error. code:" + statusCode + "url:" + buildUrl + " body:" + body,
+                        statusCode, getRetryAfter(httpResponse));
+            }
+            final Header contentType = entity != null ? entity.getContentType() : null;
+            final String responseBoundary = getBoundary(contentType != null ? contentType.getValue() : null);
+            if (responseBoundary == null || body == null) {
+                throw new SharePointClientException("Batch response is not multipart. url:" + buildUrl);
+            }
+            return splitParts(body, responseBoundary);
+        } catch (final SharePointServerException | SharePointClientException e) {
+            throw e;
+        } catch (final Exception e) {
+            throw new SharePointClientException("Request failure. " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Extracts the boundary parameter from a multipart content type.
+     *
+     * @param contentType the content type header value
+     * @return the boundary, or null if not found
+     */
+    protected static String getBoundary(final String contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        for (final String param : contentType.split(";")) {
+            final String value = param.trim();
+            if (value.regionMatches(true, 0, "boundary=", 0, "boundary=".length())) {
+                return value.substring("boundary=".length()).replace("\"", "");
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Splits a multipart batch response into the HTTP responses of its parts.
+     *
+     * @param body the batch response body
+     * @param boundary the multipart boundary
+     * @return the HTTP response of each part, in order
+     */
+    protected static List<String> splitParts(final String body, final String boundary) {
+        final List<String> parts = new ArrayList<>();
+        final String delimiter = "--" + boundary;
+        int start = body.indexOf(delimiter);
+        while (start >= 0) {
+            start += delimiter.length();
+            if (body.startsWith("--", start)) {
+                break;
+            }
+            final int end = body.indexOf(delimiter, start);
+            final String part = end >= 0 ? body.substring(start, end) : body.substring(start);
+            final int httpStart = part.indexOf("HTTP/");
+            if (httpStart >= 0) {
+                parts.add(part.substring(httpStart));
+            }
+            start = end;
+        }
+        return parts;
+    }
+
+    /**
+     * Parses the status code of an HTTP response in a batch part.
+     *
+     * @param httpResponse the HTTP response of the part
+     * @return the status code
+     */
+    protected static int getStatusCode(final String httpResponse) {
+        final int lineEnd = httpResponse.indexOf('\n');
+        final String[] statusLine = (lineEnd >= 0 ? httpResponse.substring(0, lineEnd) : httpResponse).trim().split(" ");
+        if (statusLine.length < 2) {
+            throw new SharePointClientException("Invalid status line in batch response: " + statusLine[0]);
+        }
+        return Integer.parseInt(statusLine[1]);
+    }
+
+    /**
+     * Returns the body of an HTTP response in a batch part.
+     *
+     * @param httpResponse the HTTP response of the part
+     * @return the response body
+     */
+    protected static String getBody(final String httpResponse) {
+        final String normalized = httpResponse.replace("\r\n", "\n");
+        final int bodyStart = normalized.indexOf("\n\n");
+        if (bodyStart < 0) {
+            return null;
+        }
+        return normalized.substring(bodyStart + 2).trim();
+    }
+
+    private class Entry<R extends SharePointApiResponse> {
+        private final SharePointApi<R> api;
+        private final SharePointApi.BatchPart<R> part;
+        private final BatchResponse.Result<R> result = new BatchResponse.Result<>();
+
+        Entry(final SharePointApi<R> api) {
+            this.api = api;
+            this.part = api.toBatchPart();
+        }
+
+        void executeAlone() {
+            try {
+                result.setResponse(api.execute());
+            } catch (final RuntimeException e) {
+                result.setException(e);
+            }
+        }
+
+        void complete(final String httpResponse) {
+            try {
+                final JsonResponse jsonResponse = createJsonResponse(part.getUrl(), getBody(httpResponse), getStatusCode(httpResponse));
+                result.setResponse(part.buildResponse(jsonResponse));
+            } catch (final RuntimeException e) {
+                result.setException(e);
+            }
+        }
+    }
+}
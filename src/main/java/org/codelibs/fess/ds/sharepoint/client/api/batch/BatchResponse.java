@@ -0,0 +1,122 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.ds.sharepoint.client.api.batch;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.codelibs.fess.ds.sharepoint.client.api.SharePointApiResponse;
+
+/**
+ * Response class for OData $batch requests.
+ * Holds the result of each request added to the batch, in the order they were added.
+ */
+public class BatchResponse implements SharePointApiResponse {
+    private final List<Result<?>> results;
+
+    /**
+     * Constructs a new BatchResponse.
+     *
+     * @param results the results of the requests in the batch
+     */
+    public BatchResponse(final List<Result<?>> results) {
+        this.results = Collections.unmodifiableList(new ArrayList<>(results));
+    }
+
+    /**
+     * Returns the results of the requests in the batch.
+     *
+     * @return the list of results
+     */
+    public List<Result<?>> getResults() {
+        return results;
+    }
+
+    /**
+     * Result of a request sent in a batch.
+     * It holds either the API response or the exception thrown while executing the request.
+     *
+     * @param <T> the response type
+     */
+    public static class Result<T> {
+        private T response;
+        private RuntimeException exception;
+        private boolean done;
+
+        /**
+         * Constructs a new pending Result.
+         */
+        protected Result() {
+            // Filled when the batch is executed
+        }
+
+        /**
+         * Returns the response of the request.
+         *
+         * @return the API response
+         * @throws RuntimeException the exception thrown while executing the request
+         * @throws IllegalStateException if the batch has not been executed yet
+         */
+        public T get() {
+            if (!done) {
+                throw new IllegalStateException("Batch is not executed.");
+            }
+            if (exception != null) {
+                throw exception;
+            }
+            return response;
+        }
+
+        /**
+         * Checks whether the request succeeded.
+         *
+         * @return true if the response is available
+         */
+        public boolean isSuccess() {
+            return done && exception == null;
+        }
+
+        /**
+         * Returns the exception thrown while executing the request.
+         *
+         * @return the exception, or null if the request succeeded or has not been executed yet
+         */
+        public RuntimeException getException() {
+            return exception;
+        }
+
+        /**
+         * Sets the response of the request.
+         *
+         * @param response the API response
+         */
+        protected void setResponse(final T response) {
+            this.response = response;
+            done = true;
+        }
+
+        /**
+         * Sets the exception thrown while executing the request.
+         *
+         * @param exception the exception
+         */
+        protected void setException(final RuntimeException exception) {
+            this.exception = exception;
+            done = true;
+        }
+    }
+}
@@ -31,10 +31,16 @@ public class GetFiles extends SharePointApi<GetFilesResponse> {
 
     private static final String API_PATH = "_api/web/GetFolderByServerRelativePath(decodedUrl='{{url}}')/Files";
     private static final String PAGING_PARAM = "%24skip={{start}}&%24top={{num}}";
+    // HasUniqueRoleAssignments and FileDirRef are returned only when selected
+    private static final String EXPAND_LIST_ITEM_PARAM = "%24select=*,ListItemAllFields/*,ListItemAllFields/HasUniqueRoleAssignments,"
+            + "ListItemAllFields/FileDirRef,ListItemAllFields/FieldValuesAsText"
+            + "&%24expand=ListItemAllFields,ListItemAllFields/FieldValuesAsText";
 
     private String serverRelativeUrl = null;
     private int num = 100;
     private int start = 0;
+    private boolean expandListItem = false;
+    private String nextLink = null;
 
     /**
      * Constructs a GetFiles API instance.
@@ -80,6 +86,30 @@ public class GetFiles extends SharePointApi<GetFilesResponse> {
         return this;
     }
 
+    /**
+     * Sets whether to retrieve the list item and its field values as text of each file in the same request,
+     * including whether the item has unique permissions and the folder containing it.
+     *
+     * @param expandListItem true to expand ListItemAllFields and its FieldValuesAsText
+     * @return this GetFiles instance for method chaining
+     */
+    public GetFiles setExpandListItem(final boolean expandListItem) {
+        this.expandListItem = expandListItem;
+        return this;
+    }
+
+    /**
+     * Sets the next link returned with the previous page.
+     * When set, the link is requested as is and the other parameters are ignored.
+     *
+     * @param nextLink the next link, or null to page with start and num
+     * @return this GetFiles instance for method chaining
+     */
+    public GetFiles setNextLink(final String nextLink) {
+        this.nextLink = nextLink;
+        return this;
+    }
+
     @Override
     public GetFilesResponse execute() {
         if (serverRelativeUrl == null) {
@@ -91,16 +121,20 @@ public class GetFiles extends SharePointApi<GetFilesResponse> {
             logger.debug("buildUrl: {}", buildUrl);
         }
         final HttpGet httpGet = new HttpGet(buildUrl);
-        final SharePointApi.JsonResponse jsonResponse = doJsonRequest(httpGet);
-        try {
-            return GetFilesResponse.build(jsonResponse);
-        } catch (final Exception e) {
-            throw new SharePointClientException(e);
-        }
+        final GetFilesResponse response = new GetFilesResponse();
+        response.setNextLink(doJsonRequest(httpGet, GetFilesResponse.FileValue.class, response::addFile).getNextLink());
+        return response;
     }
 
     private String buildUrl() {
-        return siteUrl + "/" + API_PATH.replace("{{url}}", encodeRelativeUrl(serverRelativeUrl)) + "?"
+        if (nextLink != null) {
+            return nextLink;
+        }
+        final String url = siteUrl + "/" + API_PATH.replace("{{url}}", encodeRelativeUrl(serverRelativeUrl)) + "?"
                 + PAGING_PARAM.replace("{{start}}", String.valueOf(start)).replace("{{num}}", String.valueOf(num));
+        if (expandListItem) {
+            return url + "&" + EXPAND_LIST_ITEM_PARAM;
+        }
+        return url;
     }
 }
@@ -16,9 +16,9 @@
 package org.codelibs.fess.ds.sharepoint.client.api.doclib.getfiles;
 
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -27,8 +27,12 @@ import org.apache.logging.log4j.Logger;
 import org.codelibs.core.lang.StringUtil;
 import org.codelibs.fess.ds.sharepoint.client.api.SharePointApi;
 import org.codelibs.fess.ds.sharepoint.client.api.SharePointApiResponse;
+import org.codelibs.fess.ds.sharepoint.client.api.SharePointDateUtil;
 import org.codelibs.fess.util.DocumentUtil;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
 /**
  * Response class for SharePoint document library file retrieval operations.
  * Contains a list of files retrieved from a SharePoint document library.
@@ -39,6 +43,9 @@ public class GetFilesResponse implements SharePointApiResponse {
     /** List of files retrieved from the SharePoint document library */
     protected final List<DocLibFile> files = new ArrayList<>();
 
+    /** URL of the next page given by the server */
+    private String nextLink = null;
+
     /**
      * Default constructor for GetFilesResponse.
      * Creates an empty response instance that can be populated with file data.
@@ -56,6 +63,24 @@ public class GetFilesResponse implements SharePointApiResponse {
         return files;
     }
 
+    /**
+     * Returns the URL of the next page given by the server.
+     *
+     * @return the next link, or null if not given
+     */
+    public String getNextLink() {
+        return nextLink;
+    }
+
+    /**
+     * Sets the URL of the next page given by the server.
+     *
+     * @param nextLink the next link, or null if not given
+     */
+    public void setNextLink(final String nextLink) {
+        this.nextLink = nextLink;
+    }
+
     /**
      * Builds a GetFilesResponse from a JSON response received from SharePoint API.
      *
@@ -68,41 +93,113 @@ public class GetFilesResponse implements SharePointApiResponse {
         final List<Map<String, Object>> results = (List<Map<String, Object>>) jsonMap.get("value");
 
         final GetFilesResponse response = new GetFilesResponse();
-        results.stream().forEach(result -> {
-            final DocLibFile docLibFile = createDocLibFile(result);
-            response.files.add(docLibFile);
-        });
+        results.stream().forEach(response::addFile);
 
         return response;
     }
 
+    /**
+     * Adds a file from an element of the "value" array of the SharePoint API response.
+     *
+     * @param dataMap map containing file data from SharePoint API
+     */
+    public void addFile(final Map<String, Object> dataMap) {
+        files.add(createDocLibFile(dataMap));
+    }
+
+    /**
+     * Adds a file from an element of the "value" array bound to {@link FileValue}.
+     *
+     * @param fileValue file data from SharePoint API
+     */
+    public void addFile(final FileValue fileValue) {
+        final DocLibFile docLibFile = createDocLibFile(fileValue.name, fileValue.title != null ? fileValue.title : StringUtil.EMPTY,
+                fileValue.serverRelativeUrl, fileValue.timeCreated, fileValue.timeLastModified, fileValue.listItemAllFields);
+        setVersion(docLibFile, fileValue.uniqueId, fileValue.etag, fileValue.length);
+        files.add(docLibFile);
+    }
+
     /**
      * Creates a DocLibFile instance from SharePoint API data map.
      *
      * @param dataMap map containing file data from SharePoint API
      * @return DocLibFile instance with populated file information
      */
+    @SuppressWarnings("unchecked")
     protected static DocLibFile createDocLibFile(final Map<String, Object> dataMap) {
+        final DocLibFile docLibFile = createDocLibFile(DocumentUtil.getValue(dataMap, "Name", String.class),
+                DocumentUtil.getValue(dataMap, "Title", String.class, StringUtil.EMPTY),
+                DocumentUtil.getValue(dataMap, "ServerRelativeUrl", String.class),
+                DocumentUtil.getValue(dataMap, "TimeCreated", String.class),
+                DocumentUtil.getValue(dataMap, "TimeLastModified", String.class),
+                dataMap.get("ListItemAllFields") instanceof Map<?, ?> listItemMap ? (Map<String, Object>) listItemMap : null);
+        final Object length = dataMap.get("Length");
+        setVersion(docLibFile, DocumentUtil.getValue(dataMap, "UniqueId", String.class),
+                DocumentUtil.getValue(dataMap, "ETag", String.class), length != null ? length.toString() : null);
+        return docLibFile;
+    }
+
+    private static void setVersion(final DocLibFile docLibFile, final String uniqueId, final String etag, final String length) {
+        docLibFile.uniqueId = uniqueId;
+        docLibFile.etag = etag;
+        if (length != null) {
+            try {
+                docLibFile.length = Long.parseLong(length);
+            } catch (final NumberFormatException e) {
+                logger.warn("Failed to parse length: {}", length);
+            }
+        }
+    }
+
+    private static DocLibFile createDocLibFile(final String fileName, final String title, final String serverRelativeUrl,
+            final String created, final String modified, final Map<String, Object> listItem) {
         final DocLibFile docLibFile = new DocLibFile();
-        docLibFile.fileName = DocumentUtil.getValue(dataMap, "Name", String.class);
-        docLibFile.title = DocumentUtil.getValue(dataMap, "Title", String.class, StringUtil.EMPTY);
-        docLibFile.serverRelativeUrl = DocumentUtil.getValue(dataMap, "ServerRelativeUrl", String.class);
-        final SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
+        docLibFile.fileName = fileName;
+        docLibFile.title = title;
+        docLibFile.serverRelativeUrl = serverRelativeUrl;
         try {
-            final String created = DocumentUtil.getValue(dataMap, "TimeCreated", String.class);
             if (created != null) {
-                docLibFile.created = sdf.parse(created);
+                docLibFile.created = SharePointDateUtil.parse(SharePointDateUtil.API_DATE_TIME, created);
             }
-            final String modified = DocumentUtil.getValue(dataMap, "TimeLastModified", String.class);
             if (modified != null) {
-                docLibFile.modified = sdf.parse(modified);
+                docLibFile.modified = SharePointDateUtil.parse(SharePointDateUtil.API_DATE_TIME, modified);
             }
         } catch (final ParseException e) {
             logger.warn("Failed to parse date.", e);
         }
+        if (listItem != null) {
+            docLibFile.itemId = DocumentUtil.getValue(listItem, "Id", String.class);
+            docLibFile.listId = getListId(DocumentUtil.getValue(listItem, "odata.editLink", String.class));
+            docLibFile.uniqueRoleAssignments = listItem.get("HasUniqueRoleAssignments") instanceof Boolean unique ? unique : null;
+            docLibFile.fileDirRef = DocumentUtil.getValue(listItem, "FileDirRef", String.class);
+            // the same text values as GetListItemValue returns, so lookup, user and rich text fields are indexed as displayed
+            if (listItem.get("FieldValuesAsText") instanceof Map<?, ?> fieldValues) {
+                final Map<String, String> listValues = new HashMap<>();
+                fieldValues.forEach((key, value) -> {
+                    if (value != null) {
+                        listValues.put(key.toString(), value.toString());
+                    }
+                });
+                docLibFile.listValues = listValues;
+            }
+        }
         return docLibFile;
     }
 
+    /**
+     * Extracts the list ID from the OData edit link of a list item.
+     *
+     * @param editLink the OData edit link containing the list GUID
+     * @return the list ID, or null if not available
+     */
+    protected static String getListId(final String editLink) {
+        if (editLink == null || !editLink.contains("(guid'")) {
+            return null;
+        }
+        final int start = editLink.indexOf("(guid'") + "(guid'".length();
+        return editLink.substring(start, editLink.indexOf("')", start));
+    }
+
     /**
      * Represents a file in a SharePoint document library with metadata.
      */
@@ -112,6 +209,14 @@ public class GetFilesResponse implements SharePointApiResponse {
         private String serverRelativeUrl;
         private Date created;
         private Date modified;
+        private String listId;
+        private String itemId;
+        private Map<String, String> listValues;
+        private Boolean uniqueRoleAssignments;
+        private String fileDirRef;
+        private String uniqueId;
+        private String etag;
+        private long length = -1;
 
         /**
          * Default constructor for DocLibFile.
@@ -166,5 +271,122 @@ public class GetFilesResponse implements SharePointApiResponse {
             return modified;
         }
 
+        /**
+         * Gets the ID of the list containing the file.
+         * Available only when list item fields are expanded.
+         *
+         * @return the list ID, or null if not retrieved
+         */
+        public String getListId() {
+            return listId;
+        }
+
+        /**
+         * Gets the list item ID of the file.
+         * Available only when list item fields are expanded.
+         *
+         * @return the item ID, or null if not retrieved
+         */
+        public String getItemId() {
+            return itemId;
+        }
+
+        /**
+         * Gets the list item field values of the file.
+         * Available only when list item fields are expanded.
+         *
+         * @return the field values, or null if not retrieved
+         */
+        public Map<String, String> getListValues() {
+            return listValues;
+        }
+
+        /**
+         * Returns whether the list item of the file has unique role assignments.
+         * Available only when list item fields are expanded.
+         *
+         * @return true if permission inheritance is broken, false if inherited, or null if unknown
+         */
+        public Boolean getUniqueRoleAssignments() {
+            return uniqueRoleAssignments;
+        }
+
+        /**
+         * Gets the server-relative URL of the folder containing the file.
+         * Available only when list item fields are expanded.
+         *
+         * @return the folder URL, or null if not retrieved
+         */
+        public String getFileDirRef() {
+            return fileDirRef;
+        }
+
+        /**
+         * Gets the unique ID of the file.
+         *
+         * @return the unique ID, or null if not retrieved
+         */
+        public String getUniqueId() {
+            return uniqueId;
+        }
+
+        /**
+         * Gets the ETag of the file, which changes with each version of the file.
+         *
+         * @return the ETag, or null if not retrieved
+         */
+        public String getEtag() {
+            return etag;
+        }
+
+        /**
+         * Gets the size of the file.
+         *
+         * @return the size in bytes, or -1 if not retrieved
+         */
+        public long getLength() {
+            return length;
+        }
+
+        /**
+         * Checks whether the list item of the file was retrieved with the file.
+         *
+         * @return true if list item fields are available
+         */
+        public boolean hasListItem() {
+            return listId != null && itemId != null && listValues != null;
+        }
+    }
+
+    /**
+     * Element of the "value" array of the SharePoint API response, bound directly by Jackson.
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class FileValue {
+        @JsonProperty("Name")
+        String name;
+        @JsonProperty("Title")
+        String title;
+        @JsonProperty("ServerRelativeUrl")
+        String serverRelativeUrl;
+        @JsonProperty("TimeCreated")
+        String timeCreated;
+        @JsonProperty("TimeLastModified")
+        String timeLastModified;
+        @JsonProperty("ListItemAllFields")
+        Map<String, Object> listItemAllFields;
+        @JsonProperty("UniqueId")
+        String uniqueId;
+        @JsonProperty("ETag")
+        String etag;
+        @JsonProperty("Length")
+        String length;
+
+        /**
+         * Default constructor used by Jackson.
+         */
+        public FileValue() {
+            // Populated by Jackson
+        }
     }
 }
@@ -16,12 +16,12 @@
 package org.codelibs.fess.ds.sharepoint.client.api.doclib.getfolder;
 
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.Map;
 
 import org.codelibs.fess.ds.sharepoint.client.api.SharePointApi;
 import org.codelibs.fess.ds.sharepoint.client.api.SharePointApiResponse;
+import org.codelibs.fess.ds.sharepoint.client.api.SharePointDateUtil;
 import org.codelibs.fess.ds.sharepoint.client.exception.SharePointClientException;
 import org.codelibs.fess.util.DocumentUtil;
 
@@ -149,15 +149,14 @@ public class GetFolderResponse implements SharePointApiResponse {
         response.name = DocumentUtil.getValue(jsonMap, "Name", String.class);
         response.exists = DocumentUtil.getValue(jsonMap, "Exists", Boolean.class, false);
         response.serverRelativeUrl = DocumentUtil.getValue(jsonMap, "ServerRelativeUrl", String.class);
-        final SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
         try {
             final String created = DocumentUtil.getValue(jsonMap, "TimeCreated", String.class);
             if (created != null) {
-                response.created = sdf.parse(created);
+                response.created = SharePointDateUtil.parse(SharePointDateUtil.API_DATE_TIME, created);
             }
             final String modified = DocumentUtil.getValue(jsonMap, "TimeLastModified", String.class);
             if (modified != null) {
-                response.modified = sdf.parse(modified);
+                response.modified = SharePointDateUtil.parse(SharePointDateUtil.API_DATE_TIME, modified);
             }
         } catch (final ParseException e) {
             throw new SharePointClientException(e);
@@ -43,6 +43,8 @@ public class GetFolders extends SharePointApi<GetFoldersResponse> {
     private int num = 100;
     /** Starting index for pagination (default: 0) */
     private int start = 0;
+    /** Next link of the previous page, requested instead of start and num */
+    private String nextLink = null;
 
     /**
      * Constructs a new GetFolders API instance.
@@ -88,6 +90,18 @@ public class GetFolders extends SharePointApi<GetFoldersResponse> {
         return this;
     }
 
+    /**
+     * Sets the next link returned with the previous page.
+     * When set, the link is requested as is and start and num are ignored.
+     *
+     * @param nextLink the next link, or null to page with start and num
+     * @return this instance for method chaining
+     */
+    public GetFolders setNextLink(final String nextLink) {
+        this.nextLink = nextLink;
+        return this;
+    }
+
     /**
      * Executes the API request to retrieve folders from SharePoint.
      *
@@ -105,12 +119,9 @@ public class GetFolders extends SharePointApi<GetFoldersResponse> {
             logger.debug("buildUrl: {}", buildUrl);
         }
         final HttpGet httpGet = new HttpGet(buildUrl);
-        final JsonResponse jsonResponse = doJsonRequest(httpGet);
-        try {
-            return GetFoldersResponse.build(jsonResponse);
-        } catch (final Exception e) {
-            throw new SharePointClientException(e);
-        }
+        final GetFoldersResponse response = new GetFoldersResponse();
+        response.setNextLink(doJsonRequest(httpGet, response::addFolder).getNextLink());
+        return response;
     }
 
     /**
@@ -119,6 +130,9 @@ public class GetFolders extends SharePointApi<GetFoldersResponse> {
      * @return the complete URL with parameters
      */
     private String buildUrl() {
+        if (nextLink != null) {
+            return nextLink;
+        }
         return siteUrl + "/" + API_PATH.replace("{{url}}", encodeRelativeUrl(serverRelativeUrl)) + "?"
                 + PAGING_PARAM.replace("{{start}}", String.valueOf(start)).replace("{{num}}", String.valueOf(num));
     }
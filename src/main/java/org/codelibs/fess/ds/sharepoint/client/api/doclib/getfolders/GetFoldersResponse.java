@@ -31,6 +31,8 @@ public class GetFoldersResponse implements SharePointApiResponse {
     /** List of folder responses */
     private final List<GetFolderResponse> folders = new ArrayList<>();
 
+    private String nextLink = null;
+
     /**
      * Default constructor for GetFoldersResponse.
      * Creates an empty response instance that can be populated with folder data.
@@ -60,10 +62,34 @@ public class GetFoldersResponse implements SharePointApiResponse {
         final List<Map<String, Object>> results = (List<Map<String, Object>>) jsonMap.get("value");
 
         final GetFoldersResponse response = new GetFoldersResponse();
-        results.stream().forEach(result -> {
-            final GetFolderResponse folderResponse = GetFolderResponse.buildFromMap(result);
-            response.folders.add(folderResponse);
-        });
+        results.stream().forEach(response::addFolder);
         return response;
     }
+
+    /**
+     * Adds a folder from an element of the "value" array of the SharePoint API response.
+     *
+     * @param dataMap map containing folder data from SharePoint API
+     */
+    public void addFolder(final Map<String, Object> dataMap) {
+        folders.add(GetFolderResponse.buildFromMap(dataMap));
+    }
+
+    /**
+     * Returns the URL of the next page given by the server.
+     *
+     * @return the next link, or null if not given
+     */
+    public String getNextLink() {
+        return nextLink;
+    }
+
+    /**
+     * Sets the URL of the next page given by the server.
+     *
+     * @param nextLink the next link, or null if not given
+     */
+    public void setNextLink(final String nextLink) {
+        this.nextLink = nextLink;
+    }
 }
@@ -77,7 +77,18 @@ public class GetDoclibListItem extends SharePointApi<GetDoclibListItemResponse>
             logger.debug("buildUrl: {}", buildUrl);
         }
         final HttpGet httpGet = new HttpGet(buildUrl);
-        final JsonResponse jsonResponse = doJsonRequest(httpGet);
+        return buildResponse(doJsonRequest(httpGet));
+    }
+
+    @Override
+    public BatchPart<GetDoclibListItemResponse> toBatchPart() {
+        if (serverRelativeUrl == null) {
+            throw new SharePointClientException("serverRelativeUrl is required.");
+        }
+        return new BatchPart<>(buildUrl(), this::buildResponse);
+    }
+
+    private GetDoclibListItemResponse buildResponse(final JsonResponse jsonResponse) {
         final Map<String, Object> bodyMap = jsonResponse.getBodyAsMap();
         try {
             final String itemId = DocumentUtil.getValue(bodyMap, "Id", String.class);
@@ -15,20 +15,27 @@
  */
 package org.codelibs.fess.ds.sharepoint.client.api.file.getfile;
 
+import java.util.Date;
+
+import org.apache.http.HttpHeaders;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.utils.DateUtils;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.util.EntityUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.codelibs.fess.ds.sharepoint.client.api.SharePointApi;
 import org.codelibs.fess.ds.sharepoint.client.exception.SharePointClientException;
+import org.codelibs.fess.ds.sharepoint.client.exception.SharePointServerException;
 import org.codelibs.fess.ds.sharepoint.client.oauth.OAuth;
 
 /**
  * SharePoint API client for downloading individual files from SharePoint.
  * This class provides functionality to retrieve file content by server-relative URL
  * using SharePoint's REST API.
+ * When the ETag or modified time of a previously downloaded version is given,
+ * the file is downloaded only if it has changed.
  */
 public class GetFile extends SharePointApi<GetFileResponse> {
     /** Logger for this class. */
@@ -37,6 +44,12 @@ public class GetFile extends SharePointApi<GetFileResponse> {
     /** The server-relative URL of the file to download. */
     private String serverRelativeUrl = null;
 
+    /** The ETag of the previously downloaded version, or null. */
+    private String ifNoneMatch = null;
+
+    /** The modified time of the previously downloaded version, or null. */
+    private Date ifModifiedSince = null;
+
     /**
      * Constructs a new GetFile API client.
      *
@@ -59,6 +72,30 @@ public class GetFile extends SharePointApi<GetFileResponse> {
         return this;
     }
 
+    /**
+     * Sets the ETag of the previously downloaded version of the file.
+     * If the file still has this ETag, the response is not modified and has no content.
+     *
+     * @param etag the ETag, or null to download the file unconditionally
+     * @return this instance for method chaining
+     */
+    public GetFile setIfNoneMatch(final String etag) {
+        this.ifNoneMatch = etag;
+        return this;
+    }
+
+    /**
+     * Sets the modified time of the previously downloaded version of the file.
+     * If the file has not been modified since then, the response is not modified and has no content.
+     *
+     * @param modified the modified time, or null to download the file unconditionally
+     * @return this instance for method chaining
+     */
+    public GetFile setIfModifiedSince(final Date modified) {
+        this.ifModifiedSince = modified;
+        return this;
+    }
+
     /**
      * Executes the file download request to SharePoint.
      *
@@ -78,21 +115,43 @@ public class GetFile extends SharePointApi<GetFileResponse> {
         }
         final HttpGet httpGet = new HttpGet(buildUrl);
         httpGet.addHeader("Accept", "application/json");
+        addConditionalHeaders(httpGet);
         if (oAuth != null) {
             oAuth.apply(httpGet);
         }
         try {
             final CloseableHttpResponse httpResponse = client.execute(httpGet);
             if (isErrorResponse(httpResponse)) {
-                throw new SharePointClientException("GetFile Request failure. status:" + httpResponse.getStatusLine().getStatusCode()
-                        + " body:" + EntityUtils.toString(httpResponse.getEntity()));
+                final String body;
+                try (httpResponse) {
+                    body = EntityUtils.toString(httpResponse.getEntity());
+                }
+                throw new SharePointServerException(
+                        "GetFile Request failure. status:" + httpResponse.getStatusLine().getStatusCode() + " body:" + body,
+                        httpResponse.getStatusLine().getStatusCode(), getRetryAfter(httpResponse));
             }
             return new GetFileResponse(httpResponse);
+        } catch (final SharePointServerException e) {
+            throw e;
         } catch (final Exception e) {
             throw new SharePointClientException("GetFile Request failure.", e);
         }
     }
 
+    /**
+     * Adds the headers making the request conditional on the previously downloaded version.
+     *
+     * @param httpGet the download request
+     */
+    protected void addConditionalHeaders(final HttpGet httpGet) {
+        if (ifNoneMatch != null) {
+            httpGet.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        if (ifModifiedSince != null) {
+            httpGet.addHeader(HttpHeaders.IF_MODIFIED_SINCE, DateUtils.formatDate(ifModifiedSince));
+        }
+    }
+
     /**
      * Builds the SharePoint REST API URL for downloading a file by server-relative path.
      *
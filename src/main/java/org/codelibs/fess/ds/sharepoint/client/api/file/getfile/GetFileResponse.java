@@ -23,18 +23,21 @@ import java.io.InputStream;
 
 import org.apache.commons.io.output.DeferredFileOutputStream;
 import org.apache.http.HttpEntity;
+import org.apache.http.HttpStatus;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.util.EntityUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.codelibs.core.io.CopyUtil;
 import org.codelibs.fess.ds.sharepoint.client.api.SharePointApiResponse;
+import org.codelibs.fess.ds.sharepoint.client.exception.SharePointClientException;
 
 /**
  * Response wrapper for SharePoint file download operations.
  * This class handles the HTTP response from SharePoint file download requests
  * and provides access to the file content as an InputStream. It manages
  * memory-efficient streaming by using deferred file output for large files.
+ * A response to a conditional request may be not modified, in which case it has no content.
  */
 public class GetFileResponse implements SharePointApiResponse {
     /** Logger for this class. */
@@ -61,6 +64,15 @@ public class GetFileResponse implements SharePointApiResponse {
         this.httpResponse = httpResponse;
     }
 
+    /**
+     * Checks whether the file has not changed since the version given in a conditional request.
+     *
+     * @return true if the response is 304 Not Modified and has no content
+     */
+    public boolean isNotModified() {
+        return httpResponse.getStatusLine() != null && httpResponse.getStatusLine().getStatusCode() == HttpStatus.SC_NOT_MODIFIED;
+    }
+
     /**
      * Gets the file content as an InputStream.
      * For files smaller than the cache size threshold (1MB), content is stored in memory.
@@ -68,8 +80,12 @@ public class GetFileResponse implements SharePointApiResponse {
      *
      * @return an InputStream containing the file content
      * @throws IOException if an error occurs while reading the file content
+     * @throws SharePointClientException if the response is not modified
      */
     public InputStream getFileContent() throws IOException {
+        if (isNotModified()) {
+            throw new SharePointClientException("The file is not modified and has no content.");
+        }
         if (responseData == null && responseFile == null) {
             HttpEntity entity = null;
             try (DeferredFileOutputStream out =
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.ds.sharepoint.client.api.list.getlistchanges;
+
+import java.util.Map;
+
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.codelibs.fess.ds.sharepoint.client.api.SharePointApi;
+import org.codelibs.fess.ds.sharepoint.client.exception.SharePointClientException;
+import org.codelibs.fess.ds.sharepoint.client.oauth.OAuth;
+import org.codelibs.fess.util.DocumentUtil;
+
+/**
+ * API class for retrieving the current change token of a SharePoint list.
+ * The list is identified by its ID or by the server-relative URL of its root folder.
+ */
+public class GetListChangeToken extends SharePointApi<GetListChangeTokenResponse> {
+    private static final Logger logger = LogManager.getLogger(GetListChangeToken.class);
+
+    private static final String API_BY_LIST_ID_PATH = "_api/Web/Lists(guid'{{id}}')";
+    private static final String API_BY_URL_PATH = "_api/Web/GetList('{{url}}')";
+    private static final String SELECT_PARAM = "%24select=Id,CurrentChangeToken";
+
+    private String listId = null;
+    private String serverRelativeUrl = null;
+
+    /**
+     * Constructs a new GetListChangeToken instance.
+     *
+     * @param client the HTTP client for making requests
+     * @param siteUrl the SharePoint site URL
+     * @param oAuth the OAuth authentication handler
+     */
+    public GetListChangeToken(final CloseableHttpClient client, final String siteUrl, final OAuth oAuth) {
+        super(client, siteUrl, oAuth);
+    }
+
+    /**
+     * Sets the list ID of the SharePoint list.
+     *
+     * @param listId the unique identifier of the SharePoint list
+     * @return this instance for method chaining
+     */
+    public GetListChangeToken setListId(final String listId) {
+        this.listId = listId;
+        return this;
+    }
+
+    /**
+     * Sets the server-relative URL of the root folder of the SharePoint list.
+     *
+     * @param serverRelativeUrl the server-relative URL of the list
+     * @return this instance for method chaining
+     */
+    public GetListChangeToken setServerRelativeUrl(final String serverRelativeUrl) {
+        this.serverRelativeUrl = serverRelativeUrl;
+        return this;
+    }
+
+    @Override
+    public GetListChangeTokenResponse execute() {
+        final String apiPath;
+        if (listId != null) {
+            apiPath = API_BY_LIST_ID_PATH.replace("{{id}}", listId);
+        } else if (serverRelativeUrl != null) {
+            apiPath = API_BY_URL_PATH.replace("{{url}}", encodeRelativeUrl(serverRelativeUrl));
+        } else {
+            throw new SharePointClientException("listId/serverRelativeUrl is required.");
+        }
+        final String buildUrl = siteUrl + "/" + apiPath + "?" + SELECT_PARAM;
+        if (logger.isDebugEnabled()) {
+            logger.debug("buildUrl: {}", buildUrl);
+        }
+        final HttpGet httpGet = new HttpGet(buildUrl);
+        final JsonResponse jsonResponse = doJsonRequest(httpGet);
+        final Map<String, Object> jsonMap = jsonResponse.getBodyAsMap();
+        final String id = DocumentUtil.getValue(jsonMap, "Id", String.class);
+        if (jsonMap.get("CurrentChangeToken") instanceof Map<?, ?> tokenMap && tokenMap.get("StringValue") != null) {
+            return new GetListChangeTokenResponse(id, tokenMap.get("StringValue").toString());
+        }
+        throw new SharePointClientException("CurrentChangeToken is not found. body:" + jsonResponse.getBody());
+    }
+}
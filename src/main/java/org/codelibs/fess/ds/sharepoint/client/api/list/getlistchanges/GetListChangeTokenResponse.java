@@ -0,0 +1,55 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.ds.sharepoint.client.api.list.getlistchanges;
+
+import org.codelibs.fess.ds.sharepoint.client.api.SharePointApiResponse;
+
+/**
+ * Response class for GetListChangeToken API.
+ */
+public class GetListChangeTokenResponse implements SharePointApiResponse {
+    private final String listId;
+    private final String changeToken;
+
+    /**
+     * Constructor.
+     *
+     * @param listId the ID of the list
+     * @param changeToken the current change token of the list
+     */
+    public GetListChangeTokenResponse(final String listId, final String changeToken) {
+        this.listId = listId;
+        this.changeToken = changeToken;
+    }
+
+    /**
+     * Gets the ID of the list.
+     *
+     * @return the list ID
+     */
+    public String getListId() {
+        return listId;
+    }
+
+    /**
+     * Gets the current change token of the list.
+     *
+     * @return the change token
+     */
+    public String getChangeToken() {
+        return changeToken;
+    }
+}
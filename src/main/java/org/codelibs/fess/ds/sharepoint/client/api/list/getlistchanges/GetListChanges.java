@@ -0,0 +1,129 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.ds.sharepoint.client.api.list.getlistchanges;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.codelibs.fess.ds.sharepoint.client.api.SharePointApi;
+import org.codelibs.fess.ds.sharepoint.client.exception.SharePointClientException;
+import org.codelibs.fess.ds.sharepoint.client.oauth.OAuth;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * API class for retrieving item and permission changes of a SharePoint list from its change log.
+ * Changes are returned in order after the given change token.
+ */
+public class GetListChanges extends SharePointApi<GetListChangesResponse> {
+    private static final Logger logger = LogManager.getLogger(GetListChanges.class);
+
+    private static final String API_PATH = "_api/Web/Lists(guid'{{id}}')/GetChanges";
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private String listId = null;
+    private String changeToken = null;
+
+    /**
+     * Constructs a new GetListChanges instance.
+     *
+     * @param client the HTTP client for making requests
+     * @param siteUrl the SharePoint site URL
+     * @param oAuth the OAuth authentication handler
+     */
+    public GetListChanges(final CloseableHttpClient client, final String siteUrl, final OAuth oAuth) {
+        super(client, siteUrl, oAuth);
+    }
+
+    /**
+     * Sets the list ID of the SharePoint list.
+     *
+     * @param listId the unique identifier of the SharePoint list
+     * @return this instance for method chaining
+     */
+    public GetListChanges setListId(final String listId) {
+        this.listId = listId;
+        return this;
+    }
+
+    /**
+     * Sets the change token after which changes are retrieved.
+     *
+     * @param changeToken the string value of the change token
+     * @return this instance for method chaining
+     */
+    public GetListChanges setChangeToken(final String changeToken) {
+        this.changeToken = changeToken;
+        return this;
+    }
+
+    @Override
+    public GetListChangesResponse execute() {
+        if (listId == null || changeToken == null) {
+            throw new SharePointClientException("listId/changeToken is required.");
+        }
+        final String buildUrl = siteUrl + "/" + API_PATH.replace("{{id}}", listId);
+        if (logger.isDebugEnabled()) {
+            logger.debug("buildUrl: {}", buildUrl);
+        }
+        final HttpPost httpPost = new HttpPost(buildUrl);
+        httpPost.setEntity(new StringEntity(buildQuery(), ContentType.create("application/json;odata=verbose", "UTF-8")));
+        final JsonResponse jsonResponse = doJsonRequest(httpPost);
+        return GetListChangesResponse.build(jsonResponse);
+    }
+
+    /**
+     * Builds the request body containing the change query.
+     *
+     * @return the change query as JSON
+     */
+    protected String buildQuery() {
+        final Map<String, Object> token = new LinkedHashMap<>();
+        token.put("__metadata", Map.of("type", "SP.ChangeToken"));
+        token.put("StringValue", changeToken);
+        final Map<String, Object> query = new LinkedHashMap<>();
+        query.put("__metadata", Map.of("type", "SP.ChangeQuery"));
+        query.put("Item", true);
+        query.put("Add", true);
+        query.put("Update", true);
+        query.put("SystemUpdate", true);
+        query.put("DeleteObject", true);
+        query.put("Rename", true);
+        query.put("Move", true);
+        query.put("Restore", true);
+        // permission changes of items and of the list itself, which change the roles of indexed documents
+        query.put("RoleAssignmentAdd", true);
+        query.put("RoleAssignmentDelete", true);
+        query.put("SecurityPolicy", true);
+        query.put("Group", true);
+        query.put("GroupMembershipAdd", true);
+        query.put("GroupMembershipDelete", true);
+        query.put("ChangeTokenStart", token);
+        try {
+            return objectMapper.writeValueAsString(Map.of("query", query));
+        } catch (final JsonProcessingException e) {
+            throw new SharePointClientException("Failed to build a change query.", e);
+        }
+    }
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.ds.sharepoint.client.api.list.getlistchanges;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.codelibs.fess.ds.sharepoint.client.api.SharePointApi;
+import org.codelibs.fess.ds.sharepoint.client.api.SharePointApiResponse;
+import org.codelibs.fess.util.DocumentUtil;
+
+/**
+ * Response class for GetListChanges API containing the item and permission changes of a list.
+ */
+public class GetListChangesResponse implements SharePointApiResponse {
+    private final List<Change> changes;
+
+    /**
+     * Constructs a new GetListChangesResponse with the provided changes.
+     *
+     * @param changes the changes in change log order
+     */
+    public GetListChangesResponse(final List<Change> changes) {
+        this.changes = changes;
+    }
+
+    /**
+     * Returns the changes in change log order.
+     *
+     * @return the list of changes
+     */
+    public List<Change> getChanges() {
+        return Collections.unmodifiableList(changes);
+    }
+
+    /**
+     * Returns the change token of the last change in this response.
+     *
+     * @return the last change token, or null if there are no changes
+     */
+    public String getLastChangeToken() {
+        for (int i = changes.size() - 1; i >= 0; i--) {
+            final String changeToken = changes.get(i).getChangeToken();
+            if (changeToken != null) {
+                return changeToken;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Builds a GetListChangesResponse from a JSON response.
+     *
+     * @param jsonResponse the JSON response from SharePoint
+     * @return the parsed response
+     */
+    @SuppressWarnings("unchecked")
+    public static GetListChangesResponse build(final SharePointApi.JsonResponse jsonResponse) {
+        final Map<String, Object> jsonMap = jsonResponse.getBodyAsMap();
+        final List<Change> changes = new ArrayList<>();
+        if (jsonMap.get("value") instanceof List<?> valueList) {
+            valueList.forEach(value -> {
+                if (value instanceof Map<?, ?> valueMap) {
+                    changes.add(createChange((Map<String, Object>) valueMap));
+                }
+            });
+        }
+        return new GetListChangesResponse(changes);
+    }
+
+    /**
+     * Creates a Change from a change entry of the response.
+     *
+     * @param valueMap the change entry
+     * @return the change
+     */
+    protected static Change createChange(final Map<String, Object> valueMap) {
+        String changeToken = null;
+        if (valueMap.get("ChangeToken") instanceof Map<?, ?> tokenMap && tokenMap.get("StringValue") != null) {
+            changeToken = tokenMap.get("StringValue").toString();
+        }
+        final int changeType = DocumentUtil.getValue(valueMap, "ChangeType", Integer.class, 0);
+        final String itemId = DocumentUtil.getValue(valueMap, "ItemId", String.class);
+        return new Change(changeType, itemId, changeToken);
+    }
+
+    /**
+     * Represents a single change in the change log.
+     * Permission changes of the list itself and group changes have no item ID.
+     */
+    public static class Change {
+        /** Change type of an added item. */
+        public static final int ADD = 1;
+        /** Change type of an updated item. */
+        public static final int UPDATE = 2;
+        /** Change type of a deleted item. */
+        public static final int DELETE_OBJECT = 3;
+        /** Change type of a renamed item. */
+        public static final int RENAME = 4;
+        /** Change type of an item moved out of the list. */
+        public static final int MOVE_AWAY = 5;
+        /** Change type of an item moved into the list. */
+        public static final int MOVE_INTO = 6;
+        /** Change type of a restored item. */
+        public static final int RESTORE = 7;
+        /** Change type of a role definition added to the site. */
+        public static final int ROLE_ADD = 8;
+        /** Change type of a role definition removed from the site. */
+        public static final int ROLE_DELETE = 9;
+        /** Change type of a changed role definition. */
+        public static final int ROLE_UPDATE = 10;
+        /** Change type of a permission given to a user or group. */
+        public static final int ASSIGNMENT_ADD = 11;
+        /** Change type of a permission removed from a user or group. */
+        public static final int ASSIGNMENT_DELETE = 12;
+        /** Change type of a member added to a group. */
+        public static final int MEMBER_ADD = 13;
+        /** Change type of a member removed from a group. */
+        public static final int MEMBER_DELETE = 14;
+        /** Change type of an item updated without a new version. */
+        public static final int SYSTEM_UPDATE = 15;
+        /** Change type of broken permission inheritance. */
+        public static final int SCOPE_ADD = 17;
+        /** Change type of restored permission inheritance. */
+        public static final int SCOPE_DELETE = 18;
+
+        private final int changeType;
+        private final String itemId;
+        private final String changeToken;
+
+        /**
+         * Constructs a new Change.
+         *
+         * @param changeType the change type
+         * @param itemId the ID of the changed item
+         * @param changeToken the change token of this change
+         */
+        public Change(final int changeType, final String itemId, final String changeToken) {
+            this.changeType = changeType;
+            this.itemId = itemId;
+            this.changeToken = changeToken;
+        }
+
+        /**
+         * Returns the change type.
+         *
+         * @return the change type
+         */
+        public int getChangeType() {
+            return changeType;
+        }
+
+        /**
+         * Returns the ID of the changed item.
+         *
+         * @return the item ID
+         */
+        public String getItemId() {
+            return itemId;
+        }
+
+        /**
+         * Returns the change token of this change.
+         *
+         * @return the change token
+         */
+        public String getChangeToken() {
+            return changeToken;
+        }
+
+        /**
+         * Returns whether the item was removed from the list.
+         *
+         * @return true if the item was deleted or moved away
+         */
+        public boolean isDeleted() {
+            return changeType == DELETE_OBJECT || changeType == MOVE_AWAY;
+        }
+
+        /**
+         * Returns whether the item was added or its content may have changed.
+         *
+         * @return true if the item needs to be crawled again
+         */
+        public boolean isUpdated() {
+            return switch (changeType) {
+            case ADD, UPDATE, RENAME, MOVE_INTO, RESTORE, SYSTEM_UPDATE -> true;
+            default -> false;
+            };
+        }
+
+        /**
+         * Returns whether the permissions of the item, or of the list if there is no item ID, may have changed.
+         *
+         * @return true if the roles of the indexed documents need to be resolved again
+         */
+        public boolean isSecurityChanged() {
+            return switch (changeType) {
+            case ROLE_ADD, ROLE_DELETE, ROLE_UPDATE, ASSIGNMENT_ADD, ASSIGNMENT_DELETE, MEMBER_ADD, MEMBER_DELETE, SCOPE_ADD,
+                    SCOPE_DELETE ->
+                true;
+            default -> false;
+            };
+        }
+    }
+}
@@ -45,12 +45,21 @@ public class GetListItemAttachmentsResponse implements SharePointApiResponse {
      * @return a new GetListItemAttachmentsResponse instance populated with attachment data
      */
     public static GetListItemAttachmentsResponse build(final SharePointApi.JsonResponse jsonResponse) {
-        final GetListItemAttachmentsResponse response = new GetListItemAttachmentsResponse();
-
         final Map<String, Object> jsonMap = jsonResponse.getBodyAsMap();
 
         @SuppressWarnings("unchecked")
         final List<Map<String, Object>> valueList = (List<Map<String, Object>>) jsonMap.get("value");
+        return build(valueList);
+    }
+
+    /**
+     * Builds a GetListItemAttachmentsResponse from the AttachmentFiles of a list item.
+     *
+     * @param valueList the attachment files of the list item
+     * @return a new GetListItemAttachmentsResponse instance populated with attachment data
+     */
+    public static GetListItemAttachmentsResponse build(final List<Map<String, Object>> valueList) {
+        final GetListItemAttachmentsResponse response = new GetListItemAttachmentsResponse();
         valueList.stream().forEach(value -> {
             final String fileName = value.get("FileName").toString();
             final String serverRelativeUrl = value.get("ServerRelativeUrl").toString();
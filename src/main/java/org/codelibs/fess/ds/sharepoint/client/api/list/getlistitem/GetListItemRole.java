@@ -18,6 +18,8 @@ package org.codelibs.fess.ds.sharepoint.client.api.list.getlistitem;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.impl.client.CloseableHttpClient;
@@ -25,6 +27,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.codelibs.fess.ds.sharepoint.client.api.SharePointApi;
 import org.codelibs.fess.ds.sharepoint.client.exception.SharePointClientException;
+import org.codelibs.fess.ds.sharepoint.client.exception.SharePointServerException;
 import org.codelibs.fess.ds.sharepoint.client.oauth.OAuth;
 import org.codelibs.fess.util.DocumentUtil;
 
@@ -38,10 +41,14 @@ public class GetListItemRole extends SharePointApi<GetListItemRoleResponse> {
 
     private static final String PAGING_PARAM = "%24skip={{start}}&%24top={{num}}";
     private static final int PAGE_SISE = 200;
+    private static final String EXPAND_PARAM = "%24expand=Member,RoleDefinitionBindings";
+    private static final String EXPAND_PARAM_WITH_USERS = "%24expand=Member,Member/Users,RoleDefinitionBindings";
 
     private String listId = null;
     private String itemId = null;
     private Map<String, GetListItemRoleResponse.SharePointGroup> sharePointGroupCache = null;
+    private AtomicBoolean expandGroupUsers = new AtomicBoolean(true);
+    private boolean resolveMembers = true;
 
     /**
      * Constructs a new GetListItemRole instance.
@@ -69,6 +76,9 @@ public class GetListItemRole extends SharePointApi<GetListItemRoleResponse> {
 
     /**
      * Sets the SharePoint group cache to improve performance by avoiding duplicate API calls.
+     * Groups are loaded with {@link Map#computeIfAbsent(Object, java.util.function.Function)}, and loading a group
+     * loads its nested groups, so the map must allow updates while a value is computed, as
+     * {@link org.codelibs.fess.ds.sharepoint.cache.BoundedCache} does.
      *
      * @param sharePointGroupCache a map of SharePoint groups keyed by principal ID
      * @return this GetListItemRole instance for method chaining
@@ -78,6 +88,32 @@ public class GetListItemRole extends SharePointApi<GetListItemRoleResponse> {
         return this;
     }
 
+    /**
+     * Sets the flag telling whether users of SharePoint groups are expanded with the role assignments.
+     * The flag is cleared when the server rejects the expansion, so sharing it between instances
+     * lets the requests for other items skip the rejected request.
+     *
+     * @param expandGroupUsers the shared flag, true until the server has rejected the expansion
+     * @return this GetListItemRole instance for method chaining
+     */
+    public GetListItemRole setExpandGroupUsers(final AtomicBoolean expandGroupUsers) {
+        this.expandGroupUsers = expandGroupUsers;
+        return this;
+    }
+
+    /**
+     * Sets whether the members of role assignments are resolved.
+     * When disabled, the role assignments are returned by {@link GetListItemRoleResponse#getRoleAssignments()}
+     * and their members are resolved with {@link #resolvePrincipal(GetListItemRoleResponse.RoleAssignment)}.
+     *
+     * @param resolveMembers true to resolve members (default), false to return the role assignments
+     * @return this GetListItemRole instance for method chaining
+     */
+    public GetListItemRole setResolveMembers(final boolean resolveMembers) {
+        this.resolveMembers = resolveMembers;
+        return this;
+    }
+
     @Override
     public GetListItemRoleResponse execute() {
         if (listId == null || itemId == null) {
@@ -85,16 +121,23 @@ public class GetListItemRole extends SharePointApi<GetListItemRoleResponse> {
         }
         final GetListItemRoleResponse response = new GetListItemRoleResponse();
         int start = 0;
+        String buildUrl = buildRoleAssignmentsPageUrl(start, PAGE_SISE);
         while (true) {
-            final GetListItemRoleResponse getListItemRoleResponse = executeInternal(start, PAGE_SISE);
-            if (getListItemRoleResponse.getUsers().isEmpty() && getListItemRoleResponse.getSharePointGroups().isEmpty()
-                    && getListItemRoleResponse.getSecurityGroups().isEmpty()) {
-                break;
-            }
+            final List<Map<String, Object>> values = new ArrayList<>();
+            final String nextLink = requestRoleAssignments(buildUrl, start, values);
+            final GetListItemRoleResponse getListItemRoleResponse = buildRoleResponse(values);
             getListItemRoleResponse.getUsers().stream().forEach(response::addUser);
             getListItemRoleResponse.getSharePointGroups().stream().forEach(response::addSharePointGroup);
             getListItemRoleResponse.getSecurityGroups().stream().forEach(response::addSecurityGroup);
-            start += PAGE_SISE;
+            getListItemRoleResponse.getRoleAssignments().stream().forEach(response::addRoleAssignment);
+            start += values.size();
+            if (nextLink != null) {
+                buildUrl = nextLink;
+            } else if (values.size() < PAGE_SISE) {
+                break;
+            } else {
+                buildUrl = buildRoleAssignmentsPageUrl(start, PAGE_SISE);
+            }
         }
         return response;
     }
@@ -107,64 +150,136 @@ public class GetListItemRole extends SharePointApi<GetListItemRoleResponse> {
      * @return a GetListItemRoleResponse containing the role assignments for this page
      */
     protected GetListItemRoleResponse executeInternal(final int start, final int num) {
-        final String buildUrl = buildRoleAssignmentsUrl() + "?" + getPagingParam(start, num) + "&%24expand=RoleDefinitionBindings";
+        final List<Map<String, Object>> values = new ArrayList<>();
+        requestRoleAssignments(buildRoleAssignmentsPageUrl(start, num), values);
+        return buildRoleResponse(values);
+    }
+
+    private String requestRoleAssignments(final String buildUrl, final int start, final List<Map<String, Object>> values) {
+        try {
+            return requestRoleAssignments(buildUrl, values);
+        } catch (final SharePointServerException e) {
+            if (e.getStatusCode() != 400) {
+                throw e;
+            }
+            if (expandGroupUsers.getAndSet(false) && logger.isDebugEnabled()) {
+                logger.debug("Failed to expand users of groups. Get them per group. [listId:{}] [itemId:{}]", listId, itemId, e);
+            }
+            final String retryUrl = buildRoleAssignmentsPageUrl(start, PAGE_SISE);
+            if (retryUrl.equals(buildUrl)) {
+                throw e;
+            }
+            values.clear();
+            return requestRoleAssignments(retryUrl, values);
+        }
+    }
+
+    /**
+     * Requests a page of role assignments.
+     *
+     * @param buildUrl the URL of the page
+     * @param values the list to add the role assignments of the page to
+     * @return the next link given by the server, or null if not given
+     */
+    protected String requestRoleAssignments(final String buildUrl, final List<Map<String, Object>> values) {
         if (logger.isDebugEnabled()) {
             logger.debug("buildUrl: {}", buildUrl);
         }
         final HttpGet httpGet = new HttpGet(buildUrl);
-        final JsonResponse jsonResponse = doJsonRequest(httpGet);
+        return doJsonRequest(httpGet, values::add).getNextLink();
+    }
 
+    /**
+     * Builds the response from role assignments.
+     * Members expanded in the role assignments are used as is, and the others are retrieved one by one.
+     * When members are not resolved, the role assignments are returned as they are.
+     *
+     * @param values the role assignments
+     * @return a GetListItemRoleResponse containing the members of the role assignments
+     */
+    @SuppressWarnings("unchecked")
+    protected GetListItemRoleResponse buildRoleResponse(final List<Map<String, Object>> values) {
         final GetListItemRoleResponse response = new GetListItemRoleResponse();
-        final Map<String, Object> bodyMap = jsonResponse.getBodyAsMap();
-        @SuppressWarnings("unchecked")
-        final List<Map<String, Object>> values = (List<Map<String, Object>>) bodyMap.get("value");
-        values.stream()
-                .filter(value -> !isLimitedAccessOnly(value))
-                .map(value -> (value.get("PrincipalId").toString()))
-                .forEach(principalId -> {
-                    if (sharePointGroupCache != null && sharePointGroupCache.containsKey(principalId)) {
-                        response.addSharePointGroup(sharePointGroupCache.get(principalId));
-                        return;
-                    }
-                    final String buildMemberUrl = buildMemberUrl(itemId, principalId);
-                    if (logger.isDebugEnabled()) {
-                        logger.debug("buildMemberUrl: {}", buildMemberUrl);
-                    }
-                    final HttpGet memberRequest = new HttpGet(buildMemberUrl);
-                    final JsonResponse memberResponse = doJsonRequest(memberRequest);
-                    final Map<String, Object> memberResponseMap = memberResponse.getBodyAsMap();
-                    final String id = DocumentUtil.getValue(memberResponseMap, "Id", String.class);
-                    final int principalType = DocumentUtil.getValue(memberResponseMap, "PrincipalType", Integer.class, 0);
-                    switch (principalType) {
-                    case 1:
-                        // User
-                        final GetListItemRoleResponse.User user =
-                                new GetListItemRoleResponse.User(id, DocumentUtil.getValue(memberResponseMap, "Title", String.class),
-                                        DocumentUtil.getValue(memberResponseMap, "LoginName", String.class));
-                        response.addUser(user);
-                        break;
-                    case 4:
-                        // Security Group
-                        final GetListItemRoleResponse.SecurityGroup securityGroup = new GetListItemRoleResponse.SecurityGroup(id,
-                                DocumentUtil.getValue(memberResponseMap, "Title", String.class),
-                                DocumentUtil.getValue(memberResponseMap, "LoginName", String.class));
-                        response.addSecurityGroup(securityGroup);
-                        break;
-                    case 8:
-                        final GetListItemRoleResponse.SharePointGroup sharePointGroup =
-                                buildSharePointGroup(id, DocumentUtil.getValue(memberResponseMap, "Title", String.class));
-                        response.addSharePointGroup(sharePointGroup);
-                        if (sharePointGroupCache != null) {
-                            sharePointGroupCache.put(principalId, sharePointGroup);
-                        }
-                        break;
-                    default:
-                        break;
-                    }
-                });
+        values.stream().filter(value -> !isLimitedAccessOnly(value)).forEach(value -> {
+            final String principalId = value.get("PrincipalId").toString();
+            final Map<String, Object> member = value.get("Member") instanceof Map ? (Map<String, Object>) value.get("Member") : null;
+            if (resolveMembers) {
+                resolvePrincipal(principalId, member, response);
+            } else {
+                response.addRoleAssignment(new GetListItemRoleResponse.RoleAssignment(principalId, member));
+            }
+        });
         return response;
     }
 
+    /**
+     * Resolves the member of a role assignment returned when members are not resolved.
+     *
+     * @param roleAssignment the role assignment
+     * @return a GetListItemRoleResponse containing only the member of the role assignment
+     */
+    public GetListItemRoleResponse resolvePrincipal(final GetListItemRoleResponse.RoleAssignment roleAssignment) {
+        final GetListItemRoleResponse response = new GetListItemRoleResponse();
+        resolvePrincipal(roleAssignment.getPrincipalId(), roleAssignment.getMember(), response);
+        return response;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void resolvePrincipal(final String principalId, final Map<String, Object> member, final GetListItemRoleResponse response) {
+        if (sharePointGroupCache != null && sharePointGroupCache.containsKey(principalId)) {
+            final GetListItemRoleResponse.SharePointGroup cachedGroup = sharePointGroupCache.get(principalId);
+            if (cachedGroup != null) {
+                response.addSharePointGroup(cachedGroup);
+                return;
+            }
+        }
+        final Map<String, Object> memberResponseMap = member != null ? member : getMember(principalId);
+        final String id = DocumentUtil.getValue(memberResponseMap, "Id", String.class);
+        final int principalType = DocumentUtil.getValue(memberResponseMap, "PrincipalType", Integer.class, 0);
+        switch (principalType) {
+        case 1:
+            // User
+            final GetListItemRoleResponse.User user =
+                    new GetListItemRoleResponse.User(id, DocumentUtil.getValue(memberResponseMap, "Title", String.class),
+                            DocumentUtil.getValue(memberResponseMap, "LoginName", String.class));
+            response.addUser(user);
+            break;
+        case 4:
+            // Security Group
+            final GetListItemRoleResponse.SecurityGroup securityGroup = new GetListItemRoleResponse.SecurityGroup(id,
+                    DocumentUtil.getValue(memberResponseMap, "Title", String.class),
+                    DocumentUtil.getValue(memberResponseMap, "LoginName", String.class));
+            response.addSecurityGroup(securityGroup);
+            break;
+        case 8:
+            final String title = DocumentUtil.getValue(memberResponseMap, "Title", String.class);
+            response.addSharePointGroup(getSharePointGroup(principalId,
+                    () -> memberResponseMap.get("Users") instanceof List
+                            ? buildSharePointGroup(id, title, (List<Map<String, Object>>) memberResponseMap.get("Users"))
+                            : buildSharePointGroup(id, title)));
+            break;
+        default:
+            break;
+        }
+    }
+
+    private GetListItemRoleResponse.SharePointGroup getSharePointGroup(final String principalId,
+            final Supplier<GetListItemRoleResponse.SharePointGroup> loader) {
+        if (sharePointGroupCache == null) {
+            return loader.get();
+        }
+        return sharePointGroupCache.computeIfAbsent(principalId, key -> loader.get());
+    }
+
+    private Map<String, Object> getMember(final String principalId) {
+        final String buildMemberUrl = buildMemberUrl(itemId, principalId);
+        if (logger.isDebugEnabled()) {
+            logger.debug("buildMemberUrl: {}", buildMemberUrl);
+        }
+        final HttpGet memberRequest = new HttpGet(buildMemberUrl);
+        return doJsonRequest(memberRequest).getBodyAsMap();
+    }
+
     /**
      * Builds the base URL for list-related API calls.
      *
@@ -183,6 +298,19 @@ public class GetListItemRole extends SharePointApi<GetListItemRoleResponse> {
         return buildBaseUrl() + "Items(" + itemId + ")/RoleAssignments";
     }
 
+    /**
+     * Builds the URL for retrieving a page of role assignments with their members and role definition bindings.
+     * Users of SharePoint groups are expanded as well unless the server has rejected it.
+     *
+     * @param start the starting index
+     * @param num the number of role assignments to retrieve
+     * @return the complete URL for the page of role assignments
+     */
+    protected String buildRoleAssignmentsPageUrl(final int start, final int num) {
+        return buildRoleAssignmentsUrl() + "?" + getPagingParam(start, num) + "&"
+                + (expandGroupUsers.get() ? EXPAND_PARAM_WITH_USERS : EXPAND_PARAM);
+    }
+
     /**
      * Builds the URL for retrieving member information by principal ID.
      *
@@ -270,6 +398,20 @@ public class GetListItemRole extends SharePointApi<GetListItemRoleResponse> {
         @SuppressWarnings("unchecked")
         final List<Map<String, Object>> users = (List<Map<String, Object>>) usersResponseMap.get("value");
         usersList.addAll(users);
+        return buildSharePointGroup(id, title, usersList);
+    }
+
+    /**
+     * Builds a SharePointGroup object from users of the group that have already been retrieved.
+     *
+     * @param id the ID of the SharePoint group
+     * @param title the title of the SharePoint group
+     * @param usersList the users of the SharePoint group
+     * @return a fully populated SharePointGroup object
+     */
+    protected GetListItemRoleResponse.SharePointGroup buildSharePointGroup(final String id, final String title,
+            final List<Map<String, Object>> usersList) {
+        final GetListItemRoleResponse.SharePointGroup sharePointGroup = new GetListItemRoleResponse.SharePointGroup(id, title);
         usersList.forEach(user -> {
             final String userId = DocumentUtil.getValue(user, "Id", String.class);
             final String userTitle = DocumentUtil.getValue(user, "Title", String.class);
@@ -289,15 +431,7 @@ public class GetListItemRole extends SharePointApi<GetListItemRoleResponse> {
                 break;
             case 8:
                 // SharePoint Group
-                if (sharePointGroupCache != null && sharePointGroupCache.containsKey(userId)) {
-                    sharePointGroup.addSharePointGroup(sharePointGroupCache.get(userId));
-                } else {
-                    final GetListItemRoleResponse.SharePointGroup userSharePointGroup = buildSharePointGroup(userId, title);
-                    sharePointGroup.addSharePointGroup(userSharePointGroup);
-                    if (sharePointGroupCache != null) {
-                        sharePointGroupCache.put(userId, userSharePointGroup);
-                    }
-                }
+                sharePointGroup.addSharePointGroup(getSharePointGroup(userId, () -> buildSharePointGroup(userId, title)));
                 break;
             default:
                 break;
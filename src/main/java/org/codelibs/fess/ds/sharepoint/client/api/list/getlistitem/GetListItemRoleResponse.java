@@ -18,6 +18,7 @@ package org.codelibs.fess.ds.sharepoint.client.api.list.getlistitem;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 import org.codelibs.fess.ds.sharepoint.client.api.SharePointApiResponse;
 
@@ -30,6 +31,7 @@ public class GetListItemRoleResponse implements SharePointApiResponse {
     private final List<SharePointGroup> sharePointGroups = new ArrayList<>();
     private final List<User> users = new ArrayList<>();
     private final List<SecurityGroup> securityGroups = new ArrayList<>();
+    private final List<RoleAssignment> roleAssignments = new ArrayList<>();
 
     /**
      * Constructs a new GetListItemRoleResponse.
@@ -91,6 +93,61 @@ public class GetListItemRoleResponse implements SharePointApiResponse {
         securityGroups.add(securityGroup);
     }
 
+    /**
+     * Gets the role assignments whose members have not been resolved.
+     *
+     * @return a list of RoleAssignment objects
+     */
+    public List<RoleAssignment> getRoleAssignments() {
+        return roleAssignments;
+    }
+
+    /**
+     * Adds a role assignment whose member has not been resolved.
+     *
+     * @param roleAssignment the role assignment to add
+     */
+    public void addRoleAssignment(final RoleAssignment roleAssignment) {
+        roleAssignments.add(roleAssignment);
+    }
+
+    /**
+     * Represents a role assignment of a list item whose member has not been resolved yet.
+     */
+    public static class RoleAssignment {
+        private final String principalId;
+        private final Map<String, Object> member;
+
+        /**
+         * Constructs a new RoleAssignment.
+         *
+         * @param principalId the principal ID of the member
+         * @param member the member expanded in the role assignment, or null if not expanded
+         */
+        public RoleAssignment(final String principalId, final Map<String, Object> member) {
+            this.principalId = principalId;
+            this.member = member;
+        }
+
+        /**
+         * Gets the principal ID of the member.
+         *
+         * @return the principal ID
+         */
+        public String getPrincipalId() {
+            return principalId;
+        }
+
+        /**
+         * Gets the member expanded in the role assignment.
+         *
+         * @return the member, or null if not expanded
+         */
+        public Map<String, Object> getMember() {
+            return member;
+        }
+    }
+
     /**
      * Represents a SharePoint group that has access to a list item.
      * A SharePoint group can contain users, security groups, and other SharePoint groups.
@@ -82,7 +82,18 @@ public class GetListItemValue extends SharePointApi<GetListItemValueResponse> {
             logger.debug("buildUrl: {}", buildUrl);
         }
         final HttpGet httpGet = new HttpGet(buildUrl);
-        final JsonResponse jsonResponse = doJsonRequest(httpGet);
+        return buildResponse(doJsonRequest(httpGet));
+    }
+
+    @Override
+    public BatchPart<GetListItemValueResponse> toBatchPart() {
+        if (listId == null || itemId == null) {
+            throw new SharePointClientException("listId/itemId is required.");
+        }
+        return new BatchPart<>(buildUrl(), this::buildResponse);
+    }
+
+    private GetListItemValueResponse buildResponse(final JsonResponse jsonResponse) {
         try {
             return GetListItemValueResponse.build(jsonResponse);
         } catch (final Exception e) {
@@ -16,7 +16,6 @@
 package org.codelibs.fess.ds.sharepoint.client.api.list.getlistitem;
 
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
@@ -25,6 +24,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.codelibs.core.lang.StringUtil;
 import org.codelibs.fess.ds.sharepoint.client.api.SharePointApi;
 import org.codelibs.fess.ds.sharepoint.client.api.SharePointApiResponse;
+import org.codelibs.fess.ds.sharepoint.client.api.SharePointDateUtil;
 import org.codelibs.fess.util.DocumentUtil;
 
 /**
@@ -210,15 +210,25 @@ public class GetListItemValueResponse implements SharePointApiResponse {
      * @throws ParseException if date parsing fails
      */
     public static GetListItemValueResponse build(final SharePointApi.JsonResponse jsonResponse) throws ParseException {
-        final Map<String, Object> jsonMap = jsonResponse.getBodyAsMap();
-        final SimpleDateFormat sdf = new SimpleDateFormat("yyyy/MM/dd HH:mm");
+        return build(jsonResponse.getBodyAsMap());
+    }
 
+    /**
+     * Builds a GetListItemValueResponse from the FieldValuesAsText map of a list item.
+     *
+     * @param jsonMap the field values of the list item
+     * @return the parsed response containing item field values
+     * @throws ParseException if date parsing fails
+     */
+    public static GetListItemValueResponse build(final Map<String, Object> jsonMap) throws ParseException {
         final GetListItemValueResponse response = new GetListItemValueResponse();
         response.id = DocumentUtil.getValue(jsonMap, "ID", String.class);
         response.title = DocumentUtil.getValue(jsonMap, "Title", String.class,
                 DocumentUtil.getValue(jsonMap, "FileLeafRef", String.class, StringUtil.EMPTY));
-        response.modified = sdf.parse(DocumentUtil.getValue(jsonMap, "Modified", String.class));
-        response.created = sdf.parse(DocumentUtil.getValue(jsonMap, "Created", String.class));
+        response.modified = SharePointDateUtil.parse(SharePointDateUtil.FIELD_VALUE_DATE_TIME,
+                DocumentUtil.getValue(jsonMap, "Modified", String.class));
+        response.created = SharePointDateUtil.parse(SharePointDateUtil.FIELD_VALUE_DATE_TIME,
+                DocumentUtil.getValue(jsonMap, "Created", String.class));
         response.author = DocumentUtil.getValue(jsonMap, "Author", String.class);
         response.editor = DocumentUtil.getValue(jsonMap, "Editor", String.class);
         response.fileRef = DocumentUtil.getValue(jsonMap, "FileRef", String.class, StringUtil.EMPTY);
@@ -16,11 +16,13 @@
 package org.codelibs.fess.ds.sharepoint.client.api.list.getlistitems;
 
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.impl.client.CloseableHttpClient;
@@ -28,9 +30,14 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.codelibs.core.lang.StringUtil;
 import org.codelibs.fess.ds.sharepoint.client.api.SharePointApi;
+import org.codelibs.fess.ds.sharepoint.client.api.SharePointDateUtil;
+import org.codelibs.fess.ds.sharepoint.client.api.list.getlistitem.GetListItemAttachmentsResponse;
+import org.codelibs.fess.ds.sharepoint.client.api.list.getlistitem.GetListItemValueResponse;
 import org.codelibs.fess.ds.sharepoint.client.exception.SharePointClientException;
 import org.codelibs.fess.ds.sharepoint.client.oauth.OAuth;
-import org.codelibs.fess.util.DocumentUtil;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 
 /**
  * API class for retrieving list items from SharePoint.
@@ -41,14 +48,24 @@ public class GetListItems extends SharePointApi<GetListItemsResponse> {
 
     private static final String API_PATH = "_api/Web/Lists(guid'{{id}}')/Items";
     private static final String PAGING_PARAM = "%24top={{num}}&%24skiptoken=Paged=TRUE%26p_ID={{start}}";
-    private static final String SELECT_PARAM = "%24select=Title,Id,Attachments,Created,Modified";
-    private static final String SELECT_PARAM_SITE_PAGE = "%24select=Id,Created,Modified";
+    private static final String SELECT_PARAM = "%24select=Title,Id,Attachments,Created,Modified,HasUniqueRoleAssignments,FileDirRef";
+    private static final String MODIFIED_FILTER_PARAM = "%24filter=Modified%20gt%20datetime%27{{modified}}%27&%24orderby=ID";
+    private static final String SELECT_PARAM_SITE_PAGE = "%24select=Id,Created,Modified,HasUniqueRoleAssignments,FileDirRef";
+    private static final String FIELD_VALUES = "FieldValuesAsText";
+    private static final String ATTACHMENT_FILES = "AttachmentFiles";
+    private static final List<String> REQUIRED_VALUE_FIELDS = List.of("ID", "Title", "FileLeafRef", "Modified", "Created", "Author",
+            "Editor", "FileRef", "FileDirRef", "ParentItemID", "ParentFolderID", "FSObjType", "Attachments", "Order");
 
     private String listId = null;
     private final String listName = null;
     private int num = 100;
     private int start = 0;
     private boolean isSubPage = false;
+    private boolean expandValues = false;
+    private List<String> valueFields = null;
+    private boolean expandAttachments = false;
+    private String nextLink = null;
+    private Date modifiedSince = null;
 
     /**
      * Constructs a new GetListItems instance.
@@ -72,7 +89,8 @@ public class GetListItems extends SharePointApi<GetListItemsResponse> {
         if (listId == null && listName == null) {
             throw new SharePointClientException("ListID|ListName is required.");
         }
-        final String pagingParam = PAGING_PARAM.replace("{{num}}", String.valueOf(num)).replace("{{start}}", String.valueOf(start));
+        final String pagingParam = PAGING_PARAM.replace("{{num}}", String.valueOf(num)).replace("{{start}}", String.valueOf(start))
+                + buildFilterParam();
         final String selectParam;
         if (isSubPage) {
             selectParam = SELECT_PARAM_SITE_PAGE;
@@ -80,13 +98,37 @@ public class GetListItems extends SharePointApi<GetListItemsResponse> {
             selectParam = SELECT_PARAM;
         }
 
-        final String buildUrl = siteUrl + "/" + API_PATH.replace("{{id}}", listId) + "?" + pagingParam + "&" + selectParam;
+        final List<String> expands = new ArrayList<>();
+        if (expandValues) {
+            expands.add(FIELD_VALUES);
+        }
+        if (expandAttachments) {
+            expands.add(ATTACHMENT_FILES);
+        }
+        final String buildUrl;
+        if (nextLink != null) {
+            buildUrl = nextLink;
+        } else if (expands.isEmpty()) {
+            buildUrl = siteUrl + "/" + API_PATH.replace("{{id}}", listId) + "?" + pagingParam + "&" + selectParam;
+        } else {
+            final String expandSelect = expands.stream()
+                    .map(expand -> FIELD_VALUES.equals(expand) ? buildValueSelect() : expand)
+                    .collect(Collectors.joining(","));
+            buildUrl = siteUrl + "/" + API_PATH.replace("{{id}}", listId) + "?" + pagingParam + "&" + selectParam + "," + expandSelect
+                    + "&%24expand=" + String.join(",", expands);
+        }
         if (logger.isDebugEnabled()) {
             logger.debug("buildUrl: {}", buildUrl);
         }
         final HttpGet httpGet = new HttpGet(buildUrl);
-        final JsonResponse jsonResponse = doJsonRequest(httpGet);
-        return buildResponse(jsonResponse);
+        final List<GetListItemsResponse.ListItem> listItems = new ArrayList<>();
+        final JsonResponse jsonResponse = doJsonRequest(httpGet, ListItemValue.class, value -> {
+            final GetListItemsResponse.ListItem listItem = createListItem(value);
+            if (listItem != null) {
+                listItems.add(listItem);
+            }
+        });
+        return new GetListItemsResponse(listItems, jsonResponse.getNextLink());
     }
 
     /**
@@ -122,6 +164,31 @@ public class GetListItems extends SharePointApi<GetListItemsResponse> {
         return this;
     }
 
+    /**
+     * Sets the next link returned with the previous page.
+     * When set, the link is requested as is and the other parameters are ignored.
+     *
+     * @param nextLink the next link, or null to page with start and num
+     * @return this instance for method chaining
+     */
+    public GetListItems setNextLink(final String nextLink) {
+        this.nextLink = nextLink;
+        return this;
+    }
+
+    /**
+     * Sets the time after which the items to retrieve were modified.
+     * Items are then ordered by ID, which is always indexed, so that large lists stay under the list view threshold
+     * as long as the Modified column is indexed too.
+     *
+     * @param modifiedSince the time after which items were modified, or null to retrieve all items
+     * @return this instance for method chaining
+     */
+    public GetListItems setModifiedSince(final Date modifiedSince) {
+        this.modifiedSince = modifiedSince;
+        return this;
+    }
+
     /**
      * Sets whether this request is for a sub-page, which affects the field selection.
      *
@@ -134,54 +201,157 @@ public class GetListItems extends SharePointApi<GetListItemsResponse> {
     }
 
     /**
-     * Builds the response object from the JSON response received from SharePoint.
+     * Sets whether the field values of each item are retrieved with the page.
+     * The values are expanded from FieldValuesAsText, so no request per item is needed to build its content.
      *
-     * @param jsonResponse the JSON response from the SharePoint API
-     * @return the parsed response containing list items
+     * @param expandValues true to retrieve the field values with the page, false otherwise
+     * @return this instance for method chaining
+     */
+    public GetListItems setExpandValues(final boolean expandValues) {
+        this.expandValues = expandValues;
+        return this;
+    }
+
+    /**
+     * Sets the field names to retrieve when the field values are expanded.
+     * Fields required to index the item are always retrieved.
+     *
+     * @param valueFields the field names, or null/empty to retrieve all fields
+     * @return this instance for method chaining
+     */
+    public GetListItems setValueFields(final List<String> valueFields) {
+        this.valueFields = valueFields;
+        return this;
+    }
+
+    /**
+     * Sets whether the attachment files of each item are retrieved with the page.
+     *
+     * @param expandAttachments true to retrieve the attachment files with the page, false otherwise
+     * @return this instance for method chaining
+     */
+    public GetListItems setExpandAttachments(final boolean expandAttachments) {
+        this.expandAttachments = expandAttachments;
+        return this;
+    }
+
+    /**
+     * Builds the filter parameter for items modified after the given time, appended to the paging parameter.
+     *
+     * @return the filter parameter starting with an ampersand, or an empty string if all items are retrieved
+     */
+    protected String buildFilterParam() {
+        if (modifiedSince == null) {
+            return StringUtil.EMPTY;
+        }
+        return "&" + MODIFIED_FILTER_PARAM.replace("{{modified}}",
+                SharePointDateUtil.API_DATE_TIME.format(modifiedSince.toInstant().atOffset(ZoneOffset.UTC)));
+    }
+
+    /**
+     * Builds the select parameter for the expanded field values.
+     *
+     * @return the select parameter value
+     */
+    protected String buildValueSelect() {
+        if (valueFields == null || valueFields.isEmpty()) {
+            return FIELD_VALUES;
+        }
+        return Stream.concat(REQUIRED_VALUE_FIELDS.stream(), valueFields.stream())
+                .distinct()
+                .map(field -> FIELD_VALUES + "/" + field)
+                .collect(Collectors.joining(","));
+    }
+
+    /**
+     * Creates a list item from an element of the "value" array of the SharePoint API response.
+     *
+     * @param value the item data from the SharePoint API
+     * @return the list item, or null if a required field is missing
      * @throws SharePointClientException if parsing fails
      */
-    @SuppressWarnings("unchecked")
-    private GetListItemsResponse buildResponse(final JsonResponse jsonResponse) {
-        final Map<String, Object> jsonMap = jsonResponse.getBodyAsMap();
-        final SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
+    protected static GetListItemsResponse.ListItem createListItem(final ListItemValue value) {
+        try {
+            final String title = value.title != null ? value.title : StringUtil.EMPTY;
+            if (value.id == null) {
+                logger.warn("Id field does not contain. Skip item. {}", value);
+                return null;
+            }
+            if (value.editLink == null) {
+                logger.warn("odate.editLink field does not contain. Skip item. {}", value);
+                return null;
+            }
+            final boolean attachments = value.attachments != null ? value.attachments : false;
+            if (value.created == null) {
+                logger.warn("Created field does not contain. Skip item. {}", value);
+                return null;
+            }
+            final Date created = SharePointDateUtil.parse(SharePointDateUtil.API_DATE_TIME, value.created);
+            if (value.modified == null) {
+                logger.warn("Modified field does not contain. Skip item. {}", value);
+                return null;
+            }
+            final Date modified = SharePointDateUtil.parse(SharePointDateUtil.API_DATE_TIME, value.modified);
 
-        final List<GetListItemsResponse.ListItem> listItems = new ArrayList<>();
-        final List<Map<String, Object>> valueList = (List<Map<String, Object>>) jsonMap.get("value");
-        valueList.forEach(value -> {
-            try {
-                final String title = DocumentUtil.getValue(value, "Title", String.class, StringUtil.EMPTY);
-                final String id = DocumentUtil.getValue(value, "Id", String.class);
-                if (id == null) {
-                    logger.warn("Id field does not contain. Skip item. {}", jsonResponse.getBody());
-                    return;
-                }
-                final String editLink = DocumentUtil.getValue(value, "odata.editLink", String.class);
-                if (editLink == null) {
-                    logger.warn("odate.editLink field does not contain. Skip item. {}", jsonResponse.getBody());
-                    return;
-                }
-                final boolean attachments = DocumentUtil.getValue(value, "Attachments", Boolean.class, Boolean.FALSE);
-                final String createdObj = DocumentUtil.getValue(value, "Created", String.class);
-                if (createdObj == null) {
-                    logger.warn("Created field does not contain. Skip item. {}", jsonResponse.getBody());
-                    return;
-                }
-                final Date created = sdf.parse(createdObj);
-                final String modifiedObj = DocumentUtil.getValue(value, "Modified", String.class);
-                if (modifiedObj == null) {
-                    logger.warn("Modified field does not contain. Skip item. {}", jsonResponse.getBody());
-                    return;
-                }
-                final Date modified = sdf.parse(modifiedObj);
-
-                final GetListItemsResponse.ListItem listItem =
-                        new GetListItemsResponse.ListItem(id, editLink, title, attachments, created, modified);
-                listItems.add(listItem);
-            } catch (final ParseException e) {
-                throw new SharePointClientException("Failed to get item info.", e);
+            return new GetListItemsResponse.ListItem(value.id, value.editLink, title, attachments, created, modified,
+                    value.uniqueRoleAssignments, value.fileDirRef, createItemValue(value),
+                    value.attachmentFiles != null ? GetListItemAttachmentsResponse.build(value.attachmentFiles) : null);
+        } catch (final ParseException e) {
+            throw new SharePointClientException("Failed to get item info.", e);
+        }
+    }
+
+    private static GetListItemValueResponse createItemValue(final ListItemValue value) {
+        if (value.fieldValuesAsText == null) {
+            return null;
+        }
+        try {
+            return GetListItemValueResponse.build(value.fieldValuesAsText);
+        } catch (final Exception e) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Failed to parse field values. They are retrieved when the item is crawled. {}", value, e);
             }
-        });
+            return null;
+        }
+    }
 
-        return new GetListItemsResponse(listItems);
+    /**
+     * Element of the "value" array of the SharePoint API response, bound directly by Jackson.
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    protected static class ListItemValue {
+        @JsonProperty("Id")
+        String id;
+        @JsonProperty("odata.editLink")
+        String editLink;
+        @JsonProperty("Title")
+        String title;
+        @JsonProperty("Attachments")
+        Boolean attachments;
+        @JsonProperty("Created")
+        String created;
+        @JsonProperty("Modified")
+        String modified;
+        @JsonProperty("HasUniqueRoleAssignments")
+        Boolean uniqueRoleAssignments;
+        @JsonProperty("FileDirRef")
+        String fileDirRef;
+        @JsonProperty(FIELD_VALUES)
+        Map<String, Object> fieldValuesAsText;
+        @JsonProperty(ATTACHMENT_FILES)
+        List<Map<String, Object>> attachmentFiles;
+
+        /**
+         * Default constructor used by Jackson.
+         */
+        protected ListItemValue() {
+            // Populated by Jackson
+        }
+
+        @Override
+        public String toString() {
+            return "[Id:" + id + "] [odata.editLink:" + editLink + "] [Title:" + title + "] [Created:" + created + "] [Modified:"
+                    + modified + "]";
+        }
     }
 }
@@ -19,6 +19,8 @@ import java.util.Date;
 import java.util.List;
 
 import org.codelibs.fess.ds.sharepoint.client.api.SharePointApiResponse;
+import org.codelibs.fess.ds.sharepoint.client.api.list.getlistitem.GetListItemAttachmentsResponse;
+import org.codelibs.fess.ds.sharepoint.client.api.list.getlistitem.GetListItemValueResponse;
 
 /**
  * Response class for GetListItems API containing the retrieved list items.
@@ -29,13 +31,27 @@ public class GetListItemsResponse implements SharePointApiResponse {
     /** The list of items retrieved from SharePoint. */
     protected final List<ListItem> listItems;
 
+    /** The URL of the next page given by the server. */
+    protected final String nextLink;
+
     /**
      * Constructs a new GetListItemsResponse with the provided list items.
      *
      * @param listItems the list of items retrieved from SharePoint
      */
     public GetListItemsResponse(final List<ListItem> listItems) {
+        this(listItems, null);
+    }
+
+    /**
+     * Constructs a new GetListItemsResponse with the provided list items and the next link of the page.
+     *
+     * @param listItems the list of items retrieved from SharePoint
+     * @param nextLink the URL of the next page, or null if not given
+     */
+    public GetListItemsResponse(final List<ListItem> listItems, final String nextLink) {
         this.listItems = listItems;
+        this.nextLink = nextLink;
     }
 
     /**
@@ -47,6 +63,15 @@ public class GetListItemsResponse implements SharePointApiResponse {
         return listItems;
     }
 
+    /**
+     * Returns the URL of the next page given by the server.
+     *
+     * @return the next link, or null if not given
+     */
+    public String getNextLink() {
+        return nextLink;
+    }
+
     /**
      * Represents a single item from a SharePoint list.
      * Contains the essential metadata and properties of a list item.
@@ -58,6 +83,10 @@ public class GetListItemsResponse implements SharePointApiResponse {
         private final boolean attachments;
         private final Date created;
         private final Date modified;
+        private final Boolean uniqueRoleAssignments;
+        private final String fileDirRef;
+        private final GetListItemValueResponse itemValue;
+        private final GetListItemAttachmentsResponse attachmentFiles;
 
         /**
          * Constructs a new ListItem with the specified properties.
@@ -71,12 +100,72 @@ public class GetListItemsResponse implements SharePointApiResponse {
          */
         public ListItem(final String id, final String editLink, final String title, final boolean attachments, final Date created,
                 final Date modified) {
+            this(id, editLink, title, attachments, created, modified, null, null);
+        }
+
+        /**
+         * Constructs a new ListItem with the specified properties and permission scope information.
+         *
+         * @param id the unique identifier of the list item
+         * @param editLink the edit link for the item
+         * @param title the title of the item
+         * @param attachments true if the item has attachments, false otherwise
+         * @param created the creation date of the item
+         * @param modified the last modification date of the item
+         * @param uniqueRoleAssignments true if the item has unique permissions, or null if unknown
+         * @param fileDirRef the server-relative URL of the folder containing the item
+         */
+        public ListItem(final String id, final String editLink, final String title, final boolean attachments, final Date created,
+                final Date modified, final Boolean uniqueRoleAssignments, final String fileDirRef) {
+            this(id, editLink, title, attachments, created, modified, uniqueRoleAssignments, fileDirRef, null);
+        }
+
+        /**
+         * Constructs a new ListItem with the specified properties and the field values retrieved with the item.
+         *
+         * @param id the unique identifier of the list item
+         * @param editLink the edit link for the item
+         * @param title the title of the item
+         * @param attachments true if the item has attachments, false otherwise
+         * @param created the creation date of the item
+         * @param modified the last modification date of the item
+         * @param uniqueRoleAssignments true if the item has unique permissions, or null if unknown
+         * @param fileDirRef the server-relative URL of the folder containing the item
+         * @param itemValue the field values of the item, or null if not retrieved
+         */
+        public ListItem(final String id, final String editLink, final String title, final boolean attachments, final Date created,
+                final Date modified, final Boolean uniqueRoleAssignments, final String fileDirRef,
+                final GetListItemValueResponse itemValue) {
+            this(id, editLink, title, attachments, created, modified, uniqueRoleAssignments, fileDirRef, itemValue, null);
+        }
+
+        /**
+         * Constructs a new ListItem with the specified properties and the field values and attachment files retrieved with the item.
+         *
+         * @param id the unique identifier of the list item
+         * @param editLink the edit link for the item
+         * @param title the title of the item
+         * @param attachments true if the item has attachments, false otherwise
+         * @param created the creation date of the item
+         * @param modified the last modification date of the item
+         * @param uniqueRoleAssignments true if the item has unique permissions, or null if unknown
+         * @param fileDirRef the server-relative URL of the folder containing the item
+         * @param itemValue the field values of the item, or null if not retrieved
+         * @param attachmentFiles the attachment files of the item, or null if not retrieved
+         */
+        public ListItem(final String id, final String editLink, final String title, final boolean attachments, final Date created,
+                final Date modified, final Boolean uniqueRoleAssignments, final String fileDirRef,
+                final GetListItemValueResponse itemValue, final GetListItemAttachmentsResponse attachmentFiles) {
             this.id = id;
             this.editLink = editLink;
             this.title = title;
             this.attachments = attachments;
             this.created = created;
             this.modified = modified;
+            this.uniqueRoleAssignments = uniqueRoleAssignments;
+            this.fileDirRef = fileDirRef;
+            this.itemValue = itemValue;
+            this.attachmentFiles = attachmentFiles;
         }
 
         /**
@@ -132,5 +221,41 @@ public class GetListItemsResponse implements SharePointApiResponse {
         public Date getModified() {
             return modified;
         }
+
+        /**
+         * Returns whether the list item has unique role assignments.
+         *
+         * @return true if permission inheritance is broken, false if inherited, or null if unknown
+         */
+        public Boolean getUniqueRoleAssignments() {
+            return uniqueRoleAssignments;
+        }
+
+        /**
+         * Returns the server-relative URL of the folder containing the list item.
+         *
+         * @return the folder URL, or null if unknown
+         */
+        public String getFileDirRef() {
+            return fileDirRef;
+        }
+
+        /**
+         * Returns the field values of the list item retrieved with the item.
+         *
+         * @return the field values, or null if not retrieved
+         */
+        public GetListItemValueResponse getItemValue() {
+            return itemValue;
+        }
+
+        /**
+         * Returns the attachment files of the list item retrieved with the item.
+         *
+         * @return the attachment files, or null if not retrieved
+         */
+        public GetListItemAttachmentsResponse getAttachmentFiles() {
+            return attachmentFiles;
+        }
     }
 }
@@ -38,11 +38,14 @@ public class GetList extends SharePointApi<GetListResponse> {
 
     private static final String API_BY_LIST_ID_PATH = "_api/web/lists(guid'{list_guid}')";
     private static final String API_BY_LIST_NAME_PATH = "_api/web/lists/GetByTitle('{list_name}')";
+    private static final String API_BY_URL_PATH = "_api/web/GetList('{url}')";
 
     /** The GUID of the SharePoint list to retrieve. */
     protected String listId = null;
     /** The name of the SharePoint list to retrieve. */
     protected String listName = null;
+    /** The server-relative URL of the root folder of the SharePoint list to retrieve. */
+    protected String serverRelativeUrl = null;
 
     /**
      * Constructs a new GetList instance.
@@ -77,6 +80,17 @@ public class GetList extends SharePointApi<GetListResponse> {
         return this;
     }
 
+    /**
+     * Sets the server-relative URL of the root folder of the list to retrieve, e.g. of a document library.
+     *
+     * @param serverRelativeUrl the server-relative URL of the list
+     * @return this GetList instance for method chaining
+     */
+    public GetList setServerRelativeUrl(final String serverRelativeUrl) {
+        this.serverRelativeUrl = serverRelativeUrl;
+        return this;
+    }
+
     @Override
     public GetListResponse execute() {
         final String apiPath;
@@ -84,8 +98,10 @@ public class GetList extends SharePointApi<GetListResponse> {
             apiPath = API_BY_LIST_ID_PATH.replace("{list_guid}", listId);
         } else if (StringUtils.isNotBlank(listName)) {
             apiPath = API_BY_LIST_NAME_PATH.replace("{list_name}", URLEncoder.encode(listName, StandardCharsets.UTF_8).replace("+", "%20"));
+        } else if (StringUtils.isNotBlank(serverRelativeUrl)) {
+            apiPath = API_BY_URL_PATH.replace("{url}", encodeRelativeUrl(serverRelativeUrl));
         } else {
-            throw new SharePointClientException("[GetList] listId/listName is required.");
+            throw new SharePointClientException("[GetList] listId/listName/serverRelativeUrl is required.");
         }
 
         final String buildUrl = siteUrl + "/" + apiPath;
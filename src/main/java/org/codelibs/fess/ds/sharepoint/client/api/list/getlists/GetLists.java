@@ -35,6 +35,8 @@ public class GetLists extends SharePointApi<GetListsResponse> {
 
     private static final String API_PATH = "_api/lists";
 
+    private static final String ETAG = "odata.etag";
+
     /**
      * Constructor.
      *
@@ -78,8 +80,9 @@ public class GetLists extends SharePointApi<GetListsResponse> {
             }
             final boolean noCrawl = DocumentUtil.getValue(value, "NoCrawl", Boolean.class, Boolean.FALSE);
             final boolean hidden = DocumentUtil.getValue(value, "Hidden", Boolean.class, Boolean.FALSE);
+            final String etag = DocumentUtil.getValue(value, value.containsKey(ETAG) ? ETAG : "@" + ETAG, String.class);
             final GetListsResponse.SharePointList sharePointList =
-                    new GetListsResponse.SharePointList(id, title, noCrawl, hidden, entityTypeName);
+                    new GetListsResponse.SharePointList(id, title, noCrawl, hidden, entityTypeName, etag);
             sharePointLists.add(sharePointList);
         });
 
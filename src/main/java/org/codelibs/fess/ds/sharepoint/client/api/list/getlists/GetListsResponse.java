@@ -53,6 +53,7 @@ public class GetListsResponse implements SharePointApiResponse {
         private final boolean noCrawl;
         private final boolean hidden;
         private final String entityTypeName;
+        private final String etag;
 
         /**
          * Constructor.
@@ -65,11 +66,27 @@ public class GetListsResponse implements SharePointApiResponse {
          */
         public SharePointList(final String id, final String listName, final boolean noCrawl, final boolean hidden,
                 final String entityTypeName) {
+            this(id, listName, noCrawl, hidden, entityTypeName, null);
+        }
+
+        /**
+         * Constructor.
+         *
+         * @param id the list ID
+         * @param listName the list name
+         * @param noCrawl whether crawling is disabled
+         * @param hidden whether the list is hidden
+         * @param entityTypeName the entity type name
+         * @param etag the ETag of the list, or null if not returned
+         */
+        public SharePointList(final String id, final String listName, final boolean noCrawl, final boolean hidden,
+                final String entityTypeName, final String etag) {
             this.id = id;
             this.listName = listName;
             this.noCrawl = noCrawl;
             this.hidden = hidden;
             this.entityTypeName = entityTypeName;
+            this.etag = etag;
         }
 
         /**
@@ -116,6 +133,15 @@ public class GetListsResponse implements SharePointApiResponse {
         public String getEntityTypeName() {
             return entityTypeName;
         }
+
+        /**
+         * Gets the ETag of the list, which changes when the list is updated.
+         *
+         * @return the ETag, or null if not returned
+         */
+        public String getEtag() {
+            return etag;
+        }
     }
 
 }
@@ -31,6 +31,9 @@ public class SharePointServerException extends RuntimeException {
     /** HTTP status code returned by the SharePoint server */
     private final int statusCode;
 
+    /** Time in milliseconds the server asked to wait before retrying, or -1 if not given */
+    private final long retryAfter;
+
     /**
      * Constructs a new SharePointServerException with the specified message and status code.
      *
@@ -38,8 +41,20 @@ public class SharePointServerException extends RuntimeException {
      * @param statusCode the HTTP status code returned by the SharePoint server
      */
     public SharePointServerException(final String message, final int statusCode) {
+        this(message, statusCode, -1L);
+    }
+
+    /**
+     * Constructs a new SharePointServerException with the wait time requested by the Retry-After header.
+     *
+     * @param message the detail message explaining the server error
+     * @param statusCode the HTTP status code returned by the SharePoint server
+     * @param retryAfter the time in milliseconds to wait before retrying, or -1 if not given
+     */
+    public SharePointServerException(final String message, final int statusCode, final long retryAfter) {
         super(message);
         this.statusCode = statusCode;
+        this.retryAfter = retryAfter;
     }
 
     /**
@@ -50,4 +65,22 @@ public class SharePointServerException extends RuntimeException {
     public int getStatusCode() {
         return statusCode;
     }
+
+    /**
+     * Gets the time the server asked to wait before retrying, from the Retry-After header.
+     *
+     * @return the time in milliseconds, or -1 if not given
+     */
+    public long getRetryAfter() {
+        return retryAfter;
+    }
+
+    /**
+     * Checks if the server throttled the request (429 Too Many Requests or 503 Service Unavailable).
+     *
+     * @return true if the request was throttled
+     */
+    public boolean isThrottled() {
+        return statusCode == 429 || statusCode == 503;
+    }
 }
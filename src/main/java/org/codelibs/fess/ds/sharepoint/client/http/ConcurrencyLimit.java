@@ -0,0 +1,228 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.ds.sharepoint.client.http;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Limit of in-flight requests to a SharePoint host.
+ * A fixed limit never changes. An adaptive limit follows AIMD (additive increase, multiplicative decrease):
+ * it grows by one request per round of successful requests while the limit is in use, is halved when the
+ * host throttles a request (429/503) or a request fails, and is reduced when the 95th percentile latency
+ * rises well above the lowest percentile seen.
+ */
+public class ConcurrencyLimit {
+    private static final Logger logger = LogManager.getLogger(ConcurrencyLimit.class);
+
+    private static final double THROTTLE_DECREASE_FACTOR = 0.5;
+
+    private static final double LATENCY_DECREASE_FACTOR = 0.75;
+
+    private static final double LATENCY_TOLERANCE = 2.0;
+
+    private static final double BASELINE_DRIFT = 1.05;
+
+    private static final int LATENCY_WINDOW_SIZE = 64;
+
+    private static final long DECREASE_INTERVAL = TimeUnit.SECONDS.toNanos(1);
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final ReentrantLock lock = new ReentrantLock(true);
+
+    private final Condition available = lock.newCondition();
+
+    private final long[] latencies = new long[LATENCY_WINDOW_SIZE];
+
+    private double limit;
+
+    private int inFlight;
+
+    private int latencyCount;
+
+    private long baselineLatency = Long.MAX_VALUE;
+
+    private long lastDecreaseTime = System.nanoTime() - DECREASE_INTERVAL;
+
+    /**
+     * Creates a new ConcurrencyLimit.
+     *
+     * @param initialLimit the initial number of in-flight requests
+     * @param minLimit the lowest number of in-flight requests an adaptive limit decreases to
+     * @param maxLimit the highest number of in-flight requests an adaptive limit increases to
+     */
+    protected ConcurrencyLimit(final int initialLimit, final int minLimit, final int maxLimit) {
+        this.minLimit = Math.max(minLimit, 1);
+        this.maxLimit = Math.max(maxLimit, this.minLimit);
+        this.limit = Math.min(Math.max(initialLimit, this.minLimit), this.maxLimit);
+    }
+
+    /**
+     * Creates a limit that never changes.
+     *
+     * @param limit the number of in-flight requests
+     * @return the fixed limit
+     */
+    public static ConcurrencyLimit fixed(final int limit) {
+        return new ConcurrencyLimit(limit, limit, limit);
+    }
+
+    /**
+     * Creates a limit adapting to the responses of the host.
+     *
+     * @param initialLimit the initial number of in-flight requests
+     * @param minLimit the lowest number of in-flight requests
+     * @param maxLimit the highest number of in-flight requests
+     * @return the adaptive limit
+     */
+    public static ConcurrencyLimit adaptive(final int initialLimit, final int minLimit, final int maxLimit) {
+        return new ConcurrencyLimit(initialLimit, minLimit, maxLimit);
+    }
+
+    /**
+     * Waits until a request can be started and counts it as in flight.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void acquire() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (inFlight >= (int) limit) {
+                available.await();
+            }
+            inFlight++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Counts a request as finished.
+     */
+    public void release() {
+        lock.lock();
+        try {
+            inFlight--;
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Records the response of a request.
+     *
+     * @param statusCode the HTTP status code
+     * @param latency the time until the response headers were received, in nanoseconds
+     */
+    public void onResponse(final int statusCode, final long latency) {
+        if (minLimit == maxLimit) {
+            return;
+        }
+        if (statusCode == 429 || statusCode == 503) {
+            decrease(THROTTLE_DECREASE_FACTOR, "throttled");
+            return;
+        }
+        lock.lock();
+        try {
+            latencies[latencyCount++] = latency;
+            if (latencyCount == LATENCY_WINDOW_SIZE) {
+                latencyCount = 0;
+                final long[] sorted = latencies.clone();
+                Arrays.sort(sorted);
+                final long p95 = sorted[(int) Math.ceil(LATENCY_WINDOW_SIZE * 0.95) - 1];
+                final boolean rising = baselineLatency != Long.MAX_VALUE && p95 > baselineLatency * LATENCY_TOLERANCE;
+                baselineLatency = baselineLatency == Long.MAX_VALUE ? p95 : Math.min(p95, (long) (baselineLatency * BASELINE_DRIFT));
+                if (rising) {
+                    decrease(LATENCY_DECREASE_FACTOR, "latency");
+                    return;
+                }
+            }
+            if (inFlight >= limit / 2 && limit < maxLimit) {
+                final int previous = (int) limit;
+                limit = Math.min(limit + 1.0 / limit, maxLimit);
+                if ((int) limit > previous) {
+                    available.signal();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Records a request that failed without a response.
+     */
+    public void onFailure() {
+        if (minLimit != maxLimit) {
+            decrease(THROTTLE_DECREASE_FACTOR, "failure");
+        }
+    }
+
+    /**
+     * Returns the current number of requests allowed in flight.
+     *
+     * @return the limit
+     */
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of requests that can be started without waiting.
+     *
+     * @return the available permits
+     */
+    public int getAvailablePermits() {
+        lock.lock();
+        try {
+            return Math.max((int) limit - inFlight, 0);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void decrease(final double factor, final String reason) {
+        lock.lock();
+        try {
+            final long now = System.nanoTime();
+            if (now - lastDecreaseTime < DECREASE_INTERVAL) {
+                return;
+            }
+            lastDecreaseTime = now;
+            final double previous = limit;
+            limit = Math.max(limit * factor, minLimit);
+            if (logger.isDebugEnabled()) {
+                logger.debug("Decreased concurrency limit: {} -> {} [reason:{}]", (int) previous, (int) limit, reason);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+}
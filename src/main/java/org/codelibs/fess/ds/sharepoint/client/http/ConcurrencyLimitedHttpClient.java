@@ -0,0 +1,389 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.ds.sharepoint.client.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import org.apache.http.Header;
+import org.apache.http.HeaderIterator;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.ProtocolVersion;
+import org.apache.http.StatusLine;
+import org.apache.http.client.ClientProtocolException;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.conn.EofSensorInputStream;
+import org.apache.http.conn.EofSensorWatcher;
+import org.apache.http.entity.HttpEntityWrapper;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.params.HttpParams;
+import org.apache.http.protocol.HttpContext;
+
+/**
+ * HTTP client wrapper that limits the number of in-flight requests.
+ * A permit is held from sending a request until its response body has been read or closed,
+ * or the response is closed, so downloads are counted but the processing of a body read into a buffer or spool file is not.
+ * With an adaptive limit, each host gets its own {@link ConcurrencyLimit} driven by the status and latency of its responses.
+ */
+public class ConcurrencyLimitedHttpClient extends CloseableHttpClient {
+    private final CloseableHttpClient httpClient;
+
+    private final Supplier<ConcurrencyLimit> limitFactory;
+
+    private final Map<String, ConcurrencyLimit> limits = new ConcurrentHashMap<>();
+
+    private final ConcurrencyLimit sharedLimit;
+
+    /**
+     * Creates a new ConcurrencyLimitedHttpClient with a fixed limit shared by all hosts.
+     *
+     * @param httpClient the HTTP client to delegate to
+     * @param maxConcurrentRequests the maximum number of in-flight requests
+     */
+    public ConcurrencyLimitedHttpClient(final CloseableHttpClient httpClient, final int maxConcurrentRequests) {
+        this.httpClient = httpClient;
+        this.limitFactory = null;
+        this.sharedLimit = ConcurrencyLimit.fixed(maxConcurrentRequests);
+    }
+
+    /**
+     * Creates a new ConcurrencyLimitedHttpClient with an adaptive limit per host.
+     *
+     * @param httpClient the HTTP client to delegate to
+     * @param initialConcurrentRequests the initial number of in-flight requests per host
+     * @param minConcurrentRequests the lowest number of in-flight requests per host
+     * @param maxConcurrentRequests the highest number of in-flight requests per host
+     */
+    public ConcurrencyLimitedHttpClient(final CloseableHttpClient httpClient, final int initialConcurrentRequests,
+            final int minConcurrentRequests, final int maxConcurrentRequests) {
+        this.httpClient = httpClient;
+        this.limitFactory = () -> ConcurrencyLimit.adaptive(initialConcurrentRequests, minConcurrentRequests, maxConcurrentRequests);
+        this.sharedLimit = null;
+    }
+
+    /**
+     * Returns the number of requests that can be started without waiting, summed over all hosts.
+     *
+     * @return the available permits
+     */
+    public int getAvailablePermits() {
+        if (sharedLimit != null) {
+            return sharedLimit.getAvailablePermits();
+        }
+        return limits.values().stream().mapToInt(ConcurrencyLimit::getAvailablePermits).sum();
+    }
+
+    /**
+     * Returns the current limit of in-flight requests to the host.
+     *
+     * @param target the host
+     * @return the limit
+     */
+    public int getLimit(final HttpHost target) {
+        return getConcurrencyLimit(target).getLimit();
+    }
+
+    /**
+     * Returns the limits of in-flight requests keyed by host.
+     *
+     * @return the limits
+     */
+    public Map<String, Integer> getLimits() {
+        final Map<String, Integer> result = new TreeMap<>();
+        if (sharedLimit != null) {
+            result.put("*", sharedLimit.getLimit());
+        } else {
+            limits.forEach((host, limit) -> result.put(host, limit.getLimit()));
+        }
+        return result;
+    }
+
+    private ConcurrencyLimit getConcurrencyLimit(final HttpHost target) {
+        if (sharedLimit != null) {
+            return sharedLimit;
+        }
+        return limits.computeIfAbsent(target != null ? target.toHostString() : "", host -> limitFactory.get());
+    }
+
+    @Override
+    protected CloseableHttpResponse doExecute(final HttpHost target, final HttpRequest request, final HttpContext context)
+            throws IOException, ClientProtocolException {
+        final ConcurrencyLimit limit = getConcurrencyLimit(target);
+        try {
+            limit.acquire();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a request permit.");
+        }
+        final long startTime = System.nanoTime();
+        final CloseableHttpResponse response;
+        try {
+            response = httpClient.execute(target, request, context);
+        } catch (final IOException | RuntimeException e) {
+            limit.onFailure();
+            limit.release();
+            throw e;
+        }
+        final StatusLine statusLine = response.getStatusLine();
+        limit.onResponse(statusLine != null ? statusLine.getStatusCode() : 0, System.nanoTime() - startTime);
+        return new PermitReleasingResponse(response, limit);
+    }
+
+    @Override
+    public void close() throws IOException {
+        httpClient.close();
+    }
+
+    @Override
+    @Deprecated
+    public HttpParams getParams() {
+        return httpClient.getParams();
+    }
+
+    @Override
+    @Deprecated
+    public ClientConnectionManager getConnectionManager() {
+        return httpClient.getConnectionManager();
+    }
+
+    /**
+     * Response wrapper that releases the request permit when its body has been read to the end or closed,
+     * when it has no body, or when it is closed.
+     */
+    private static class PermitReleasingResponse implements CloseableHttpResponse, EofSensorWatcher {
+        private final CloseableHttpResponse response;
+
+        private final ConcurrencyLimit limit;
+
+        private final AtomicBoolean released = new AtomicBoolean(false);
+
+        private PermitReleasingResponse(final CloseableHttpResponse response, final ConcurrencyLimit limit) {
+            this.response = response;
+            this.limit = limit;
+            final HttpEntity entity = response.getEntity();
+            if (entity == null) {
+                release();
+            } else {
+                response.setEntity(new PermitReleasingEntity(entity, this));
+            }
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                limit.release();
+            }
+        }
+
+        @Override
+        public boolean eofDetected(final InputStream wrapped) throws IOException {
+            release();
+            return true;
+        }
+
+        @Override
+        public boolean streamClosed(final InputStream wrapped) throws IOException {
+            release();
+            return true;
+        }
+
+        @Override
+        public boolean streamAbort(final InputStream wrapped) throws IOException {
+            release();
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                response.close();
+            } finally {
+                release();
+            }
+        }
+
+        @Override
+        public StatusLine getStatusLine() {
+            return response.getStatusLine();
+        }
+
+        @Override
+        public void setStatusLine(final StatusLine statusline) {
+            response.setStatusLine(statusline);
+        }
+
+        @Override
+        public void setStatusLine(final ProtocolVersion ver, final int code) {
+            response.setStatusLine(ver, code);
+        }
+
+        @Override
+        public void setStatusLine(final ProtocolVersion ver, final int code, final String reason) {
+            response.setStatusLine(ver, code, reason);
+        }
+
+        @Override
+        public void setStatusCode(final int code) {
+            response.setStatusCode(code);
+        }
+
+        @Override
+        public void setReasonPhrase(final String reason) {
+            response.setReasonPhrase(reason);
+        }
+
+        @Override
+        public HttpEntity getEntity() {
+            return response.getEntity();
+        }
+
+        @Override
+        public void setEntity(final HttpEntity entity) {
+            response.setEntity(entity);
+        }
+
+        @Override
+        public Locale getLocale() {
+            return response.getLocale();
+        }
+
+        @Override
+        public void setLocale(final Locale loc) {
+            response.setLocale(loc);
+        }
+
+        @Override
+        public ProtocolVersion getProtocolVersion() {
+            return response.getProtocolVersion();
+        }
+
+        @Override
+        public boolean containsHeader(final String name) {
+            return response.containsHeader(name);
+        }
+
+        @Override
+        public Header[] getHeaders(final String name) {
+            return response.getHeaders(name);
+        }
+
+        @Override
+        public Header getFirstHeader(final String name) {
+            return response.getFirstHeader(name);
+        }
+
+        @Override
+        public Header getLastHeader(final String name) {
+            return response.getLastHeader(name);
+        }
+
+        @Override
+        public Header[] getAllHeaders() {
+            return response.getAllHeaders();
+        }
+
+        @Override
+        public void addHeader(final Header header) {
+            response.addHeader(header);
+        }
+
+        @Override
+        public void addHeader(final String name, final String value) {
+            response.addHeader(name, value);
+        }
+
+        @Override
+        public void setHeader(final Header header) {
+            response.setHeader(header);
+        }
+
+        @Override
+        public void setHeader(final String name, final String value) {
+            response.setHeader(name, value);
+        }
+
+        @Override
+        public void setHeaders(final Header[] headers) {
+            response.setHeaders(headers);
+        }
+
+        @Override
+        public void removeHeader(final Header header) {
+            response.removeHeader(header);
+        }
+
+        @Override
+        public void removeHeaders(final String name) {
+            response.removeHeaders(name);
+        }
+
+        @Override
+        public HeaderIterator headerIterator() {
+            return response.headerIterator();
+        }
+
+        @Override
+        public HeaderIterator headerIterator(final String name) {
+            return response.headerIterator(name);
+        }
+
+        @Override
+        @Deprecated
+        public HttpParams getParams() {
+            return response.getParams();
+        }
+
+        @Override
+        @Deprecated
+        public void setParams(final HttpParams params) {
+            response.setParams(params);
+        }
+    }
+
+    /**
+     * Entity wrapper whose content stream tells the response when it has been read to the end or closed.
+     */
+    private static class PermitReleasingEntity extends HttpEntityWrapper {
+        private final EofSensorWatcher watcher;
+
+        private PermitReleasingEntity(final HttpEntity entity, final EofSensorWatcher watcher) {
+            super(entity);
+            this.watcher = watcher;
+        }
+
+        @Override
+        public InputStream getContent() throws IOException {
+            return new EofSensorInputStream(wrappedEntity.getContent(), watcher);
+        }
+
+        @Override
+        public void writeTo(final OutputStream outStream) throws IOException {
+            try (InputStream in = getContent()) {
+                in.transferTo(outStream);
+            }
+        }
+    }
+}
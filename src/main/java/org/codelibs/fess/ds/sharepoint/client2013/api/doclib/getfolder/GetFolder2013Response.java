@@ -16,11 +16,11 @@
 package org.codelibs.fess.ds.sharepoint.client2013.api.doclib.getfolder;
 
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.HashMap;
 import java.util.Map;
 
 import org.codelibs.fess.ds.sharepoint.client.api.SharePointApi;
+import org.codelibs.fess.ds.sharepoint.client.api.SharePointDateUtil;
 import org.codelibs.fess.ds.sharepoint.client.api.doclib.getfolder.GetFolderResponse;
 import org.codelibs.fess.ds.sharepoint.client.exception.SharePointClientException;
 import org.codelibs.fess.util.DocumentUtil;
@@ -79,12 +79,13 @@ public class GetFolder2013Response extends GetFolderResponse {
         response.name = DocumentUtil.getValue(dataMap, "Name", String.class);
         response.exists = DocumentUtil.getValue(dataMap, "Exists", Boolean.class, false);
         response.serverRelativeUrl = DocumentUtil.getValue(dataMap, "ServerRelativeUrl", String.class);
-        final SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
         try {
             if (dataMap.containsKey("TimeCreated")) {
-                response.created = sdf.parse(DocumentUtil.getValue(dataMap, "TimeCreated", String.class));
+                response.created = SharePointDateUtil.parse(SharePointDateUtil.API_DATE_TIME,
+                        DocumentUtil.getValue(dataMap, "TimeCreated", String.class));
             }
-            response.modified = sdf.parse(DocumentUtil.getValue(dataMap, "TimeLastModified", String.class));
+            response.modified = SharePointDateUtil.parse(SharePointDateUtil.API_DATE_TIME,
+                    DocumentUtil.getValue(dataMap, "TimeLastModified", String.class));
         } catch (final ParseException e) {
             throw new SharePointClientException(e);
         }
@@ -21,6 +21,7 @@ import java.util.Map;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.codelibs.fess.ds.sharepoint.client.api.doclib.getlistitem.GetDoclibListItem;
+import org.codelibs.fess.ds.sharepoint.client.api.doclib.getlistitem.GetDoclibListItemResponse;
 import org.codelibs.fess.ds.sharepoint.client.exception.SharePointClientException;
 import org.codelibs.fess.ds.sharepoint.client.oauth.OAuth;
 import org.codelibs.fess.util.DocumentUtil;
@@ -86,6 +87,16 @@ public class GetDoclibListItem2013 extends GetDoclibListItem {
         }
     }
 
+    /**
+     * SharePoint 2013 does not support OData $batch requests, so this request is always sent on its own.
+     *
+     * @return null
+     */
+    @Override
+    public BatchPart<GetDoclibListItemResponse> toBatchPart() {
+        return null;
+    }
+
     /**
      * Builds the SharePoint 2013 REST API URL for retrieving list item fields.
      * Uses the legacy GetFolderByServerRelativeUrl endpoint for SharePoint 2013 compatibility.
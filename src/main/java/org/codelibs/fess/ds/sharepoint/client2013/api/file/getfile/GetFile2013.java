@@ -21,6 +21,7 @@ import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.util.EntityUtils;
 import org.codelibs.fess.ds.sharepoint.client.api.file.getfile.GetFile;
 import org.codelibs.fess.ds.sharepoint.client.exception.SharePointClientException;
+import org.codelibs.fess.ds.sharepoint.client.exception.SharePointServerException;
 import org.codelibs.fess.ds.sharepoint.client.oauth.OAuth;
 
 /**
@@ -70,13 +71,21 @@ public class GetFile2013 extends GetFile {
 
         final HttpGet httpGet = new HttpGet(buildUrl());
         httpGet.addHeader("Accept", "application/json");
+        addConditionalHeaders(httpGet);
         try {
             final CloseableHttpResponse httpResponse = client.execute(httpGet);
             if (isErrorResponse(httpResponse)) {
-                throw new SharePointClientException("GetFile Request failure. status:" + httpResponse.getStatusLine().getStatusCode()
-                        + " body:" + EntityUtils.toString(httpResponse.getEntity()));
+                final String body;
+                try (httpResponse) {
+                    body = EntityUtils.toString(httpResponse.getEntity());
+                }
+                throw new SharePointServerException(
+                        "GetFile Request failure. status:" + httpResponse.getStatusLine().getStatusCode() + " body:" + body,
+                        httpResponse.getStatusLine().getStatusCode(), getRetryAfter(httpResponse));
             }
             return new GetFile2013Response(httpResponse);
+        } catch (final SharePointServerException e) {
+            throw e;
         } catch (final Exception e) {
             throw new SharePointClientException("Request failure.", e);
         }
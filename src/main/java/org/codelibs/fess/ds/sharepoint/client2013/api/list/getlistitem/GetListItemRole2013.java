@@ -19,6 +19,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.impl.client.CloseableHttpClient;
@@ -83,8 +84,11 @@ public class GetListItemRole2013 extends GetListItemRole {
                 .filter(principalId -> !isLimitedAccessOnly(principalId))
                 .forEach(principalId -> {
                     if (sharePointGroupCache != null && sharePointGroupCache.containsKey(principalId)) {
-                        response.addSharePointGroup(sharePointGroupCache.get(principalId));
-                        return;
+                        final GetListItemRole2013Response.SharePointGroup cachedGroup = sharePointGroupCache.get(principalId);
+                        if (cachedGroup != null) {
+                            response.addSharePointGroup(cachedGroup);
+                            return;
+                        }
                     }
                     final HttpGet memberRequest = new HttpGet(buildMemberUrl(principalId));
                     final XmlResponse memberResponse = doXmlRequest(memberRequest);
@@ -100,12 +104,8 @@ public class GetListItemRole2013 extends GetListItemRole {
                                         DocumentUtil.getValue(memberResponseMap, "LoginName", String.class));
                         response.addUser(user);
                     } else if (principalType == 8) {
-                        final GetListItemRole2013Response.SharePointGroup sharePointGroup =
-                                buildSharePointGroup(id, DocumentUtil.getValue(memberResponseMap, "Title", String.class));
-                        response.addSharePointGroup(sharePointGroup);
-                        if (sharePointGroupCache != null) {
-                            sharePointGroupCache.put(principalId, sharePointGroup);
-                        }
+                        response.addSharePointGroup(getSharePointGroup(principalId,
+                                () -> buildSharePointGroup(id, DocumentUtil.getValue(memberResponseMap, "Title", String.class))));
                     }
                 });
         return response;
@@ -163,6 +163,14 @@ public class GetListItemRole2013 extends GetListItemRole {
         return true;
     }
 
+    private GetListItemRole2013Response.SharePointGroup getSharePointGroup(final String principalId,
+            final Supplier<GetListItemRole2013Response.SharePointGroup> loader) {
+        if (sharePointGroupCache == null) {
+            return loader.get();
+        }
+        return sharePointGroupCache.computeIfAbsent(principalId, key -> loader.get());
+    }
+
     @Override
     protected GetListItemRole2013Response.SharePointGroup buildSharePointGroup(final String id, final String title) {
         // SharePointGroup
@@ -192,15 +200,7 @@ public class GetListItemRole2013 extends GetListItemRole {
                 sharePointGroup.addSecurityGroup(securityGroup);
                 break;
             case 8:
-                if (sharePointGroupCache != null && sharePointGroupCache.containsKey(userId)) {
-                    sharePointGroup.addSharePointGroup(sharePointGroupCache.get(userId));
-                } else {
-                    final GetListItemRole2013Response.SharePointGroup userSharePointGroup = buildSharePointGroup(userId, title);
-                    sharePointGroup.addSharePointGroup(userSharePointGroup);
-                    if (sharePointGroupCache != null) {
-                        sharePointGroupCache.put(userId, userSharePointGroup);
-                    }
-                }
+                sharePointGroup.addSharePointGroup(getSharePointGroup(userId, () -> buildSharePointGroup(userId, title)));
                 break;
             default:
                 break;
@@ -18,6 +18,7 @@ package org.codelibs.fess.ds.sharepoint.client2013.api.list.getlistitem;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.codelibs.fess.ds.sharepoint.client.api.list.getlistitem.GetListItemValue;
+import org.codelibs.fess.ds.sharepoint.client.api.list.getlistitem.GetListItemValueResponse;
 import org.codelibs.fess.ds.sharepoint.client.exception.SharePointClientException;
 import org.codelibs.fess.ds.sharepoint.client.oauth.OAuth;
 
@@ -86,6 +87,16 @@ public class GetListItemValue2013 extends GetListItemValue {
         }
     }
 
+    /**
+     * SharePoint 2013 does not support OData $batch requests, so this request is always sent on its own.
+     *
+     * @return null
+     */
+    @Override
+    public BatchPart<GetListItemValueResponse> toBatchPart() {
+        return null;
+    }
+
     /**
      * Builds the URL for the SharePoint 2013 API request.
      *
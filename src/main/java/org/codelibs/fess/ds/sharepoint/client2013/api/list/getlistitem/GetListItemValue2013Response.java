@@ -16,13 +16,13 @@
 package org.codelibs.fess.ds.sharepoint.client2013.api.list.getlistitem;
 
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 
 import org.codelibs.core.lang.StringUtil;
 import org.codelibs.fess.ds.sharepoint.client.api.SharePointApi;
+import org.codelibs.fess.ds.sharepoint.client.api.SharePointDateUtil;
 import org.codelibs.fess.ds.sharepoint.client.api.list.getlistitem.GetListItemValueResponse;
 import org.codelibs.fess.util.DocumentUtil;
 import org.xml.sax.Attributes;
@@ -230,13 +230,14 @@ public class GetListItemValue2013Response extends GetListItemValueResponse {
         final GetListItemValueDocHandler handler = new GetListItemValueDocHandler();
         xmlResponse.parseXml(handler);
         final Map<String, Object> dataMap = handler.getDataMap();
-        final SimpleDateFormat sdf = new SimpleDateFormat("MM/dd/yyyy HH:mm");
 
         final GetListItemValue2013Response response = new GetListItemValue2013Response();
         response.id = DocumentUtil.getValue(dataMap, "ID", String.class);
         response.title = DocumentUtil.getValue(dataMap, "Title", String.class, StringUtil.EMPTY);
-        response.modified = sdf.parse(DocumentUtil.getValue(dataMap, "Modified", String.class));
-        response.created = sdf.parse(DocumentUtil.getValue(dataMap, "Created", String.class));
+        response.modified = SharePointDateUtil.parse(SharePointDateUtil.FIELD_VALUE_DATE_TIME_2013,
+                DocumentUtil.getValue(dataMap, "Modified", String.class));
+        response.created = SharePointDateUtil.parse(SharePointDateUtil.FIELD_VALUE_DATE_TIME_2013,
+                DocumentUtil.getValue(dataMap, "Created", String.class));
         response.author = DocumentUtil.getValue(dataMap, "Author", String.class, StringUtil.EMPTY);
         response.editor = DocumentUtil.getValue(dataMap, "Editor", String.class, StringUtil.EMPTY);
         response.fileRef = DocumentUtil.getValue(dataMap, "FileRef", String.class, StringUtil.EMPTY);
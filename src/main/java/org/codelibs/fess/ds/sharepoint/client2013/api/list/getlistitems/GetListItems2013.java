@@ -16,7 +16,6 @@
 package org.codelibs.fess.ds.sharepoint.client2013.api.list.getlistitems;
 
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
@@ -28,6 +27,7 @@ import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.codelibs.core.lang.StringUtil;
+import org.codelibs.fess.ds.sharepoint.client.api.SharePointDateUtil;
 import org.codelibs.fess.ds.sharepoint.client.api.list.getlistitems.GetListItems;
 import org.codelibs.fess.ds.sharepoint.client.exception.SharePointClientException;
 import org.codelibs.fess.ds.sharepoint.client.oauth.OAuth;
@@ -77,7 +77,8 @@ public class GetListItems2013 extends GetListItems {
         if (listId == null && listName == null) {
             throw new SharePointClientException("ListID|ListName is required.");
         }
-        final String pagingParam = PAGING_PARAM.replace("{{num}}", String.valueOf(num)).replace("{{start}}", String.valueOf(start));
+        final String pagingParam = PAGING_PARAM.replace("{{num}}", String.valueOf(num)).replace("{{start}}", String.valueOf(start))
+                + buildFilterParam();
         final String selectParam;
         if (isSubPage) {
             selectParam = SELECT_PARAM_SITE_PAGE;
@@ -149,7 +150,6 @@ public class GetListItems2013 extends GetListItems {
         final GetListItemsDocHandler handler = new GetListItemsDocHandler();
         xmlResponse.parseXml(handler);
         final Map<String, Object> dataMap = handler.getDataMap();
-        final SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
 
         final List<GetListItems2013Response.ListItem> listItems = new ArrayList<>();
         @SuppressWarnings("unchecked")
@@ -173,13 +173,13 @@ public class GetListItems2013 extends GetListItems {
                     logger.warn("Created field does not contain. Skip item. {}", xmlResponse.getBody());
                     return;
                 }
-                final Date created = sdf.parse(createdObj);
+                final Date created = SharePointDateUtil.parse(SharePointDateUtil.API_DATE_TIME, createdObj);
                 final String modifiedObj = DocumentUtil.getValue(value, "Modified", String.class);
                 if (modifiedObj == null) {
                     logger.warn("Modified field does not contain. Skip item. {}", xmlResponse.getBody());
                     return;
                 }
-                final Date modified = sdf.parse(modifiedObj);
+                final Date modified = SharePointDateUtil.parse(SharePointDateUtil.API_DATE_TIME, modifiedObj);
 
                 final GetListItems2013Response.ListItem listItem =
                         new GetListItems2013Response.ListItem(id, editLink, title, attachments, created, modified);
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.ds.sharepoint.crawl;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Tracks the IDs of the items listed by a crawl per list, so that documents of items deleted in SharePoint can be found.
+ * Item IDs are kept as primitive integers, which is compact even for lists with millions of items.
+ * A list whose items were not all listed, for example because only modified items were requested, is marked as partial.
+ */
+public class ItemIdTracker {
+    private static final Logger logger = LogManager.getLogger(ItemIdTracker.class);
+
+    private final Map<String, IdSet> listedItems = new ConcurrentHashMap<>();
+
+    private final Set<String> partialLists = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Records item IDs listed for a list.
+     * Calling this with no item IDs records that the list was listed.
+     *
+     * @param listId the list ID
+     * @param itemIds the item IDs
+     */
+    public void addAll(final String listId, final Collection<String> itemIds) {
+        if (listId == null) {
+            return;
+        }
+        final IdSet idSet = listedItems.computeIfAbsent(listId, k -> new IdSet());
+        for (final String itemId : itemIds) {
+            try {
+                idSet.add(Integer.parseInt(itemId));
+            } catch (final NumberFormatException e) {
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Item ID is not a number. Deleted items of the list are not tracked. [listId:{}] [itemId:{}]", listId,
+                            itemId);
+                }
+                markPartial(listId);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Marks a list whose items were not all listed, so that no documents of the list are considered deleted.
+     *
+     * @param listId the list ID
+     */
+    public void markPartial(final String listId) {
+        if (listId != null) {
+            partialLists.add(listId);
+        }
+    }
+
+    /**
+     * Returns the IDs of the items listed for each list whose items were all listed.
+     *
+     * @return the sorted and distinct item IDs keyed by list ID
+     */
+    public Map<String, int[]> getListedItems() {
+        final Map<String, int[]> result = new HashMap<>();
+        listedItems.forEach((listId, idSet) -> {
+            if (!partialLists.contains(listId)) {
+                result.put(listId, idSet.toSortedArray());
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Returns the IDs of the lists whose items were all listed.
+     *
+     * @return the list IDs
+     */
+    public Set<String> getListedListIds() {
+        final Set<String> result = new HashSet<>(listedItems.keySet());
+        result.removeAll(partialLists);
+        return result;
+    }
+
+    /**
+     * Growable set of item IDs backed by a primitive array, sorted and deduplicated when read.
+     */
+    private static class IdSet {
+        private int[] ids = new int[16];
+        private int size = 0;
+
+        synchronized void add(final int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+
+        synchronized int[] toSortedArray() {
+            Arrays.sort(ids, 0, size);
+            int distinct = 0;
+            for (int i = 0; i < size; i++) {
+                if (distinct == 0 || ids[distinct - 1] != ids[i]) {
+                    ids[distinct++] = ids[i];
+                }
+            }
+            size = distinct;
+            return Arrays.copyOf(ids, size);
+        }
+    }
+}
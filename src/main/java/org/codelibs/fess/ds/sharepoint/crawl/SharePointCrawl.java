@@ -15,33 +15,75 @@
  */
 package org.codelibs.fess.ds.sharepoint.crawl;
 
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
+import org.codelibs.fess.ds.sharepoint.cache.CoalescingLoader;
+import org.codelibs.fess.ds.sharepoint.cache.PrincipalCache;
 import org.codelibs.fess.ds.sharepoint.client.SharePointClient;
+import org.codelibs.fess.ds.sharepoint.client.api.batch.Batch;
+import org.codelibs.fess.ds.sharepoint.client.api.batch.BatchResponse;
+import org.codelibs.fess.ds.sharepoint.client.api.list.PageType;
+import org.codelibs.fess.ds.sharepoint.client.api.list.getlistforms.GetForms;
+import org.codelibs.fess.ds.sharepoint.client.api.list.getlistforms.GetFormsResponse;
+import org.codelibs.fess.ds.sharepoint.client.api.list.getlistitem.GetListItemRole;
 import org.codelibs.fess.ds.sharepoint.client.api.list.getlistitem.GetListItemRoleResponse;
+import org.codelibs.fess.ds.sharepoint.client.api.list.getlistitem.GetListItemValueResponse;
+import org.codelibs.fess.ds.sharepoint.store.FingerprintStore;
 import org.codelibs.fess.helper.CrawlerStatsHelper.StatsKeyObject;
 import org.codelibs.fess.helper.SystemHelper;
+import org.codelibs.fess.mylasta.direction.FessConfig;
 import org.codelibs.fess.opensearch.config.exentity.DataConfig;
 import org.codelibs.fess.util.ComponentUtil;
+import org.opensearch.index.query.BoolQueryBuilder;
+import org.opensearch.index.query.QueryBuilder;
+import org.opensearch.index.query.QueryBuilders;
 
 /**
  * Abstract base class for SharePoint crawling operations.
  */
 public abstract class SharePointCrawl {
 
+    /** The field holding the list ID of a document, indexed whatever the script maps. */
+    public static final String LIST_ID_FIELD = "list_id";
+
+    /** The field holding the item ID of a document, indexed whatever the script maps. */
+    public static final String ITEM_ID_FIELD = "item_id";
+
     /** The SharePoint client for API access. */
     protected final SharePointClient client;
 
     /** The statistics key object for tracking crawl statistics. */
     protected StatsKeyObject statsKey;
 
+    /** The store to record the fingerprint of the crawled document in, or null. */
+    private FingerprintStore fingerprintStore;
+
+    /** The ID of the crawled document in the fingerprint store. */
+    private String fingerprintId;
+
+    /** The fingerprint of the crawled document seen in its listing. */
+    private FingerprintStore.Fingerprint fingerprint;
+
+    /** The fields set on refreshed documents in addition to the timestamp. */
+    private Map<String, Object> refreshFields = Collections.emptyMap();
+
+    /** The number of documents this crawl skipped because they could not be crawled. */
+    private int failedCount = 0;
+
     /**
      * Creates a new SharePointCrawl instance.
      *
@@ -60,22 +102,285 @@ public abstract class SharePointCrawl {
      */
     public abstract Map<String, Object> doCrawl(final DataConfig dataConfig, final Queue<SharePointCrawl> crawlingQueue);
 
+    /**
+     * Sets the fingerprint to record when the document of this crawl has been built.
+     *
+     * @param fingerprintStore the store to record the fingerprint in
+     * @param fingerprintId the ID of the document in the store
+     * @param fingerprint the fingerprint of the document seen in its listing
+     */
+    public void setFingerprint(final FingerprintStore fingerprintStore, final String fingerprintId,
+            final FingerprintStore.Fingerprint fingerprint) {
+        this.fingerprintStore = fingerprintStore;
+        this.fingerprintId = fingerprintId;
+        this.fingerprint = fingerprint;
+    }
+
+    /**
+     * Sets the fields of this crawl session, such as the segment and expiration time, that are set on documents
+     * refreshed without being indexed again, so that they are not removed as documents of an earlier crawl.
+     *
+     * @param refreshFields the fields and values
+     */
+    public void setRefreshFields(final Map<String, Object> refreshFields) {
+        this.refreshFields = refreshFields;
+    }
+
+    /**
+     * Records a document this crawl skipped because it could not be crawled, while the rest of the crawl goes on.
+     * A crawl with skipped documents is counted as a failed crawl task, so that change tokens are not stored.
+     */
+    protected void recordFailure() {
+        failedCount++;
+    }
+
+    /**
+     * Returns the number of documents this crawl skipped because they could not be crawled.
+     *
+     * @return the number of skipped documents
+     */
+    public int getFailedCount() {
+        return failedCount;
+    }
+
+    /**
+     * Records the fingerprint of the document of this crawl with the hash of its content, if a fingerprint was set.
+     *
+     * @param content the extracted content
+     */
+    protected void storeFingerprint(final String content) {
+        if (fingerprintStore != null) {
+            fingerprintStore.put(fingerprintId, fingerprint.withContentHash(FingerprintStore.hash(content)));
+        }
+    }
+
+    /**
+     * Returns the fingerprint recorded when the document of this crawl was last indexed.
+     *
+     * @return the fingerprint with the hash of the extracted content, or null if not available
+     */
+    protected FingerprintStore.Fingerprint getStoredFingerprint() {
+        if (fingerprintStore == null) {
+            return null;
+        }
+        final FingerprintStore.Fingerprint stored = fingerprintStore.get(fingerprintId);
+        return stored != null && stored.getContentHash() != null ? stored : null;
+    }
+
+    /**
+     * Refreshes the timestamp and the session fields of the indexed documents of unchanged list items,
+     * including their attachments, without indexing them again.
+     *
+     * @param dataConfig the data configuration the documents were indexed with
+     * @param listId the list ID
+     * @param itemIds the item IDs
+     * @return the number of updated documents
+     */
+    protected long refreshItemDocuments(final DataConfig dataConfig, final String listId, final Collection<String> itemIds) {
+        if (itemIds.isEmpty()) {
+            return 0;
+        }
+        return refreshDocuments(buildItemsQuery(dataConfig, listId, itemIds));
+    }
+
+    /**
+     * Refreshes the timestamp and the session fields of all indexed documents of a list, including attachments,
+     * for lists whose unchanged items were not listed by this crawl.
+     *
+     * @param dataConfig the data configuration the documents were indexed with
+     * @param listId the list ID
+     * @return the number of updated documents
+     */
+    protected long refreshListDocuments(final DataConfig dataConfig, final String listId) {
+        final FessConfig fessConfig = ComponentUtil.getFessConfig();
+        return refreshDocuments(QueryBuilders.boolQuery()
+                .filter(QueryBuilders.termQuery(fessConfig.getIndexFieldConfigId(), dataConfig.getConfigId()))
+                .filter(QueryBuilders.termQuery(LIST_ID_FIELD, listId)));
+    }
+
+    private long refreshDocuments(final QueryBuilder queryBuilder) {
+        final FessConfig fessConfig = ComponentUtil.getFessConfig();
+        final Map<String, Object> doc = new HashMap<>(refreshFields);
+        doc.put(fessConfig.getIndexFieldTimestamp(), ComponentUtil.getSystemHelper().getCurrentTime());
+        return ComponentUtil.getSearchEngineClient()
+                .updateByQuery(fessConfig.getIndexDocumentUpdateIndex(), option -> option.setQuery(queryBuilder).setFetchSource(false),
+                        (builder, hit) -> builder.setDoc(doc));
+    }
+
+    /**
+     * Deletes the indexed documents of a list item, including its attachments.
+     *
+     * @param dataConfig the data configuration the documents were indexed with
+     * @param listId the list ID
+     * @param itemId the item ID
+     * @return the number of deleted documents
+     */
+    protected long deleteItemDocuments(final DataConfig dataConfig, final String listId, final String itemId) {
+        return deleteItemDocuments(dataConfig, listId, List.of(itemId));
+    }
+
+    /**
+     * Deletes the indexed documents of list items, including their attachments, in one request.
+     *
+     * @param dataConfig the data configuration the documents were indexed with
+     * @param listId the list ID
+     * @param itemIds the item IDs
+     * @return the number of deleted documents
+     */
+    protected long deleteItemDocuments(final DataConfig dataConfig, final String listId, final Collection<String> itemIds) {
+        if (itemIds.isEmpty()) {
+            return 0;
+        }
+        return ComponentUtil.getSearchEngineClient()
+                .deleteByQuery(ComponentUtil.getFessConfig().getIndexDocumentUpdateIndex(), buildItemsQuery(dataConfig, listId, itemIds));
+    }
+
+    /**
+     * Builds the query matching the indexed documents of list items, including their attachments,
+     * whatever their URL, so that documents of renamed or moved items are found at their old URL.
+     *
+     * @param dataConfig the data configuration the documents were indexed with
+     * @param listId the list ID
+     * @param itemIds the item IDs
+     * @return the query
+     */
+    public static BoolQueryBuilder buildItemsQuery(final DataConfig dataConfig, final String listId, final Collection<String> itemIds) {
+        return QueryBuilders.boolQuery()
+                .filter(QueryBuilders.termQuery(ComponentUtil.getFessConfig().getIndexFieldConfigId(), dataConfig.getConfigId()))
+                .filter(QueryBuilders.termQuery(LIST_ID_FIELD, listId))
+                .filter(QueryBuilders.termsQuery(ITEM_ID_FIELD, itemIds));
+    }
+
+    /**
+     * Retrieves the field values of list items in OData $batch requests instead of one request per item.
+     *
+     * @param listId the list ID
+     * @param itemIds the item IDs
+     * @return the result of each item keyed by item ID
+     */
+    protected Map<String, BatchResponse.Result<GetListItemValueResponse>> getListItemValues(final String listId,
+            final Collection<String> itemIds) {
+        final Batch batch = client.api().batch();
+        final Map<String, BatchResponse.Result<GetListItemValueResponse>> results = new LinkedHashMap<>();
+        itemIds.forEach(
+                itemId -> results.put(itemId, batch.add(client.api().list().getListItemValue().setListId(listId).setItemId(itemId))));
+        batch.execute();
+        return results;
+    }
+
+    /**
+     * Retrieves the server-relative URL of the display form for a list.
+     * The URL is resolved once per list and shared through the given cache.
+     * Concurrent lookups of a list being resolved wait for the first lookup without locking the cache.
+     *
+     * @param listId the list ID, or null for the default list
+     * @param formUrlCache cache of display form URLs keyed by list ID
+     * @return server-relative URL of the display form, or null if not found
+     */
+    protected String getDisplayFormUrl(final String listId, final Map<String, CompletableFuture<String>> formUrlCache) {
+        if (formUrlCache == null) {
+            return fetchDisplayFormUrl(listId);
+        }
+        final String formUrl =
+                CoalescingLoader.load(formUrlCache, listId != null ? listId : StringUtils.EMPTY, () -> fetchDisplayFormUrl(listId));
+        return StringUtils.isEmpty(formUrl) ? null : formUrl;
+    }
+
+    /**
+     * Builds the web link of a document library file.
+     *
+     * @param listId the list ID of the document library
+     * @param filePath the server-relative URL of the file
+     * @param parentUrl the server-relative URL of the folder containing the file
+     * @param formUrlCache cache of display form URLs keyed by list ID
+     * @return the web link, or null if the library has no display form
+     */
+    protected String getDocLibWebLink(final String listId, final String filePath, final String parentUrl,
+            final Map<String, CompletableFuture<String>> formUrlCache) {
+        final String serverRelativeUrl = getDisplayFormUrl(listId, formUrlCache);
+        if (serverRelativeUrl == null) {
+            return null;
+        }
+        return client.getUrl() + serverRelativeUrl.substring(1).replace("DispForm", "AllItems") + "?id=" + filePath + "&parent="
+                + URLEncoder.encode(parentUrl, StandardCharsets.UTF_8);
+    }
+
+    private String fetchDisplayFormUrl(final String listId) {
+        final GetForms getForms = client.api().list().getForms();
+        if (listId != null) {
+            getForms.setListId(listId);
+        }
+        final GetFormsResponse getFormsResponse = getForms.execute();
+        return getFormsResponse.getForms()
+                .stream()
+                .filter(f -> f.getType() == PageType.DISPLAY_FORM)
+                .findFirst()
+                .map(GetFormsResponse.Form::getServerRelativeUrl)
+                .orElse(null);
+    }
+
+    /**
+     * Retrieves the roles for a list item, sharing them across items that inherit permissions.
+     * Items without unique role assignments have the same effective permissions as the other
+     * inheriting items in their folder, so their roles are resolved once per list and folder.
+     * Concurrent lookups of a folder being resolved wait for the first lookup without locking the cache.
+     *
+     * @param listId the list ID
+     * @param itemId the item ID
+     * @param uniqueRoleAssignments true if the item has unique permissions, or null if unknown
+     * @param scope the server-relative URL of the folder containing the item
+     * @param roleScopeCache cache of inherited roles keyed by list ID and folder
+     * @param sharePointGroupCache cache for SharePoint groups
+     * @param principalCache cache of search roles keyed by principal ID, or null to resolve every principal
+     * @param skipRole if true, returns an empty list without fetching roles
+     * @return list of role identifiers
+     */
+    protected List<String> getItemRoles(final String listId, final String itemId, final Boolean uniqueRoleAssignments,
+            final String scope, final Map<String, CompletableFuture<List<String>>> roleScopeCache,
+            final Map<String, GetListItemRoleResponse.SharePointGroup> sharePointGroupCache, final PrincipalCache principalCache,
+            final boolean skipRole) {
+        if (skipRole) {
+            return new ArrayList<>();
+        }
+        if (roleScopeCache == null || scope == null || !Boolean.FALSE.equals(uniqueRoleAssignments)) {
+            return getItemRoles(listId, itemId, sharePointGroupCache, principalCache, skipRole);
+        }
+        final List<String> roles = CoalescingLoader.load(roleScopeCache, listId + ":" + scope,
+                () -> getItemRoles(listId, itemId, sharePointGroupCache, principalCache, skipRole));
+        return new ArrayList<>(roles);
+    }
+
     /**
      * Retrieves the roles for a list item.
+     * With a principal cache, each principal of the item is resolved into search roles once per crawl.
      *
      * @param listId the list ID
      * @param itemId the item ID
      * @param sharePointGroupCache cache for SharePoint groups
+     * @param principalCache cache of search roles keyed by principal ID, or null to resolve every principal
      * @param skipRole if true, returns an empty list without fetching roles
      * @return list of role identifiers
      */
     protected List<String> getItemRoles(final String listId, final String itemId,
-            final Map<String, GetListItemRoleResponse.SharePointGroup> sharePointGroupCache, final boolean skipRole) {
+            final Map<String, GetListItemRoleResponse.SharePointGroup> sharePointGroupCache, final PrincipalCache principalCache,
+            final boolean skipRole) {
         if (skipRole) {
             return new ArrayList<>();
         }
-        final GetListItemRoleResponse getListItemRoleResponse =
-                client.api().list().getListItemRole().setId(listId, itemId).setSharePointGroupCache(sharePointGroupCache).execute();
+        final GetListItemRole getListItemRole =
+                client.api().list().getListItemRole().setId(listId, itemId).setSharePointGroupCache(sharePointGroupCache);
+        if (principalCache == null) {
+            return getRoles(getListItemRole.execute(), new PrincipalCache()).stream().collect(Collectors.toUnmodifiableList());
+        }
+        final GetListItemRoleResponse getListItemRoleResponse = getListItemRole.setResolveMembers(false).execute();
+        final Set<String> roles = getRoles(getListItemRoleResponse, principalCache);
+        getListItemRoleResponse.getRoleAssignments()
+                .forEach(roleAssignment -> roles.addAll(principalCache.get(roleAssignment.getPrincipalId(),
+                        () -> getRoles(getListItemRole.resolvePrincipal(roleAssignment), principalCache))));
+        return roles.stream().collect(Collectors.toUnmodifiableList());
+    }
+
+    private Set<String> getRoles(final GetListItemRoleResponse getListItemRoleResponse, final PrincipalCache principalCache) {
         final SystemHelper systemHelper = ComponentUtil.getSystemHelper();
         final Set<String> roles = new HashSet<>();
         // AD
@@ -118,14 +423,33 @@ public abstract class SharePointCrawl {
                 .map(systemHelper::getSearchRoleByGroup)
                 .forEach(roles::add);
         getListItemRoleResponse.getSharePointGroups()
-                .stream()
-                .flatMap(group -> getSharePointGroupTitles(group, sharePointGroupCache).stream())
-                .forEach(roles::add);
-        return roles.stream().collect(Collectors.toUnmodifiableList());
+                .forEach(group -> addSharePointGroupRoles(group, principalCache, new ArrayList<>(), roles));
+        return roles;
     }
 
-    private Set<String> getSharePointGroupTitles(final GetListItemRoleResponse.SharePointGroup sharePointGroup,
-            final Map<String, GetListItemRoleResponse.SharePointGroup> sharePointGroupCache) {
+    /**
+     * Adds the flattened search roles of a SharePoint group and its nested groups to the given roles.
+     * Complete role sets are memoized per group ID. A group referring back to a group on the current path is
+     * skipped, and the groups inside such a cycle are memoized only once the outermost group of the cycle is done.
+     *
+     * @param sharePointGroup the SharePoint group
+     * @param principalCache cache holding the flattened roles of SharePoint groups
+     * @param path IDs of the groups being flattened, outermost first
+     * @param roles the roles to add to
+     * @return the lowest path index referred to by a cycle, or {@link Integer#MAX_VALUE} if none
+     */
+    private int addSharePointGroupRoles(final GetListItemRoleResponse.SharePointGroup sharePointGroup,
+            final PrincipalCache principalCache, final List<String> path, final Set<String> roles) {
+        final String groupId = sharePointGroup.getId();
+        final Set<String> cachedRoles = principalCache.getSharePointGroupRoles(groupId);
+        if (cachedRoles != null) {
+            roles.addAll(cachedRoles);
+            return Integer.MAX_VALUE;
+        }
+        final int index = path.indexOf(groupId);
+        if (index >= 0) {
+            return index;
+        }
         final SystemHelper systemHelper = ComponentUtil.getSystemHelper();
         final Set<String> titles = new HashSet<>();
         // AD
@@ -168,11 +492,18 @@ public abstract class SharePointCrawl {
                 .map(systemHelper::getSearchRoleByGroup)
                 .forEach(titles::add);
 
-        sharePointGroup.getSharePointGroups()
-                .stream()
-                .flatMap(group -> getSharePointGroupTitles(group, sharePointGroupCache).stream())
-                .forEach(titles::add);
-        return titles;
+        path.add(groupId);
+        int lowestIndex = Integer.MAX_VALUE;
+        for (final GetListItemRoleResponse.SharePointGroup group : sharePointGroup.getSharePointGroups()) {
+            lowestIndex = Math.min(lowestIndex, addSharePointGroupRoles(group, principalCache, path, titles));
+        }
+        path.remove(path.size() - 1);
+        if (lowestIndex >= path.size()) {
+            roles.addAll(principalCache.putSharePointGroupRoles(groupId, titles));
+            return Integer.MAX_VALUE;
+        }
+        roles.addAll(titles);
+        return lowestIndex;
     }
 
     /**
@@ -21,16 +21,22 @@ import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.codelibs.fess.ds.sharepoint.SharePointCrawler;
+import org.codelibs.fess.ds.sharepoint.cache.PrincipalCache;
 import org.codelibs.fess.ds.sharepoint.client.SharePointClient;
 import org.codelibs.fess.ds.sharepoint.client.api.doclib.getfolders.GetFoldersResponse;
 import org.codelibs.fess.ds.sharepoint.client.api.list.getlistitem.GetListItemRoleResponse;
 import org.codelibs.fess.ds.sharepoint.client.api.list.getlists.GetListsResponse;
 import org.codelibs.fess.ds.sharepoint.crawl.doclib.FolderCrawl;
 import org.codelibs.fess.ds.sharepoint.crawl.list.ListCrawl;
+import org.codelibs.fess.ds.sharepoint.store.ChangeTokenStore;
+import org.codelibs.fess.ds.sharepoint.store.FingerprintStore;
+import org.codelibs.fess.ds.sharepoint.store.FolderStore;
+import org.codelibs.fess.ds.sharepoint.store.MetadataStore;
 import org.codelibs.fess.helper.CrawlerStatsHelper.StatsKeyObject;
 import org.codelibs.fess.opensearch.config.exentity.DataConfig;
 
@@ -54,6 +60,22 @@ public class SiteCrawl extends SharePointCrawl {
     private final SharePointCrawler.CrawlerConfig config;
     /** Cache for SharePoint group information to optimize role lookups */
     private final Map<String, GetListItemRoleResponse.SharePointGroup> sharePointGroupCache;
+    /** Cache for search roles keyed by principal ID */
+    private final PrincipalCache principalCache;
+    /** Cache for display form URLs keyed by list ID */
+    private final Map<String, CompletableFuture<String>> formUrlCache;
+    /** Cache for inherited roles keyed by list ID and folder */
+    private final Map<String, CompletableFuture<List<String>>> roleScopeCache;
+    /** Store of change tokens for incremental crawling, or null for a full crawl */
+    private final ChangeTokenStore changeTokenStore;
+    /** Store of metadata kept between crawls, or null to resolve all metadata again */
+    private final MetadataStore metadataStore;
+    /** Store of fingerprints of indexed documents, or null to crawl all documents */
+    private final FingerprintStore fingerprintStore;
+    /** Store of enumerated folders, or null to enumerate all folders */
+    private final FolderStore folderStore;
+    /** Tracker of listed item IDs to find deleted items, or null */
+    private final ItemIdTracker itemIdTracker;
 
     /**
      * Constructs a new SiteCrawl instance for crawling a SharePoint site.
@@ -61,13 +83,32 @@ public class SiteCrawl extends SharePointCrawl {
      * @param client SharePoint client for API operations
      * @param config crawler configuration containing site settings and filters
      * @param sharePointGroupCache cache for SharePoint group information
+     * @param principalCache cache for search roles keyed by principal ID
+     * @param formUrlCache cache for display form URLs keyed by list ID
+     * @param roleScopeCache cache for inherited roles keyed by list ID and folder
+     * @param changeTokenStore store of change tokens for incremental crawling, or null for a full crawl
+     * @param metadataStore store of metadata kept between crawls, or null to resolve all metadata again
+     * @param fingerprintStore store of fingerprints of indexed documents, or null to crawl all documents
+     * @param folderStore store of enumerated folders, or null to enumerate all folders
+     * @param itemIdTracker tracker of listed item IDs to find deleted items, or null
      */
     public SiteCrawl(final SharePointClient client, final SharePointCrawler.CrawlerConfig config,
-            final Map<String, GetListItemRoleResponse.SharePointGroup> sharePointGroupCache) {
+            final Map<String, GetListItemRoleResponse.SharePointGroup> sharePointGroupCache, final PrincipalCache principalCache,
+            final Map<String, CompletableFuture<String>> formUrlCache, final Map<String, CompletableFuture<List<String>>> roleScopeCache,
+            final ChangeTokenStore changeTokenStore, final MetadataStore metadataStore, final FingerprintStore fingerprintStore,
+            final FolderStore folderStore, final ItemIdTracker itemIdTracker) {
         super(client);
         this.config = config;
 
         this.sharePointGroupCache = sharePointGroupCache;
+        this.principalCache = principalCache;
+        this.formUrlCache = formUrlCache;
+        this.roleScopeCache = roleScopeCache;
+        this.changeTokenStore = changeTokenStore;
+        this.metadataStore = metadataStore;
+        this.fingerprintStore = fingerprintStore;
+        this.folderStore = folderStore;
+        this.itemIdTracker = itemIdTracker;
         statsKey = new StatsKeyObject("site#" + config.getSiteName());
     }
 
@@ -85,26 +126,46 @@ public class SiteCrawl extends SharePointCrawl {
         if (logger.isInfoEnabled()) {
             logger.info("[Crawling Site] [siteName:{}]", config.getSiteName());
         }
+        final GetListsResponse getListsResponse = client.api().list().getLists().execute();
+        if (metadataStore != null) {
+            loadFormUrls(getListsResponse);
+        }
         final Set<String> targetFolderName = new HashSet<>();
         final GetFoldersResponse getFoldersResponse =
                 client.api().doclib().getFolders().setServerRelativeUrl("/sites/" + config.getSiteName() + "/").execute();
         getFoldersResponse.getFolders().stream().filter(folder -> !isExcludeFolder(folder.getName())).forEach(folder -> {
             targetFolderName.add(folder.getName());
-            crawlingQueue.offer(new FolderCrawl(client, folder.getServerRelativeUrl(), config.isSkipRole(), sharePointGroupCache));
+            crawlingQueue.offer(new FolderCrawl(client, folder.getServerRelativeUrl(), config.isSkipRole(), sharePointGroupCache,
+                    principalCache, formUrlCache, roleScopeCache, changeTokenStore, fingerprintStore, folderStore, itemIdTracker));
         });
-        final GetListsResponse getListsResponse = client.api().list().getLists().execute();
         getListsResponse.getLists()
                 .stream()
                 .filter(list -> !list.isNoCrawl() && !list.isHidden())
                 .filter(list -> !targetFolderName.contains(list.getListName()))
                 .filter(list -> !isExcludeList(list.getEntityTypeName()))
                 .forEach(list -> crawlingQueue.offer(new ListCrawl(client, list.getId(), list.getListName(),
-                        config.getListItemNumPerPages(), sharePointGroupCache, isSubPageList(list.getEntityTypeName()), config.isSkipRole(),
-                        config.getListContentIncludeFields(), config.getListContentExcludeFields())));
-        crawlingQueue.offer(new FolderCrawl(client, "/sites/" + config.getSiteName() + "/Shared Documents", false, sharePointGroupCache));
+                        config.getListItemNumPerPages(), sharePointGroupCache, principalCache, formUrlCache, roleScopeCache,
+                        isSubPageList(list.getEntityTypeName()), config.isSkipRole(), config.getListContentIncludeFields(),
+                        config.getListContentExcludeFields(), config.isListItemValuesInPage(),
+                        config.isListItemAttachmentsInPage(), changeTokenStore, fingerprintStore, config.isListModifiedFilter(),
+                        itemIdTracker)));
+        crawlingQueue.offer(new FolderCrawl(client, "/sites/" + config.getSiteName() + "/Shared Documents", false, sharePointGroupCache,
+                principalCache, formUrlCache, roleScopeCache, changeTokenStore, fingerprintStore, folderStore, itemIdTracker));
         return null;
     }
 
+    private void loadFormUrls(final GetListsResponse getListsResponse) {
+        getListsResponse.getLists().forEach(list -> {
+            metadataStore.validate(MetadataStore.FORM_URL, list.getId(), list.getEtag());
+            final String formUrl = metadataStore.get(MetadataStore.FORM_URL, list.getId());
+            if (formUrl != null) {
+                formUrlCache.putIfAbsent(list.getId(), CompletableFuture.completedFuture(formUrl));
+            }
+        });
+        // GetLists returns every list of the site, so form URLs of lists not returned are dropped
+        metadataStore.setAllValidated(MetadataStore.FORM_URL);
+    }
+
     /**
      * Checks if a list should be excluded from crawling based on its entity type name.
      * Uses both default exclusion patterns and configuration-specific patterns.
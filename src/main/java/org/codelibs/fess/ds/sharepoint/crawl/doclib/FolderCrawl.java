@@ -15,26 +15,39 @@
  */
 package org.codelibs.fess.ds.sharepoint.crawl.doclib;
 
-import java.net.URLEncoder;
-import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.codelibs.fess.ds.sharepoint.cache.PrincipalCache;
 import org.codelibs.fess.ds.sharepoint.client.SharePointClient;
+import org.codelibs.fess.ds.sharepoint.client.api.batch.Batch;
+import org.codelibs.fess.ds.sharepoint.client.api.batch.BatchResponse;
 import org.codelibs.fess.ds.sharepoint.client.api.doclib.getfiles.GetFilesResponse;
 import org.codelibs.fess.ds.sharepoint.client.api.doclib.getfolder.GetFolderResponse;
 import org.codelibs.fess.ds.sharepoint.client.api.doclib.getfolders.GetFoldersResponse;
 import org.codelibs.fess.ds.sharepoint.client.api.doclib.getlistitem.GetDoclibListItemResponse;
-import org.codelibs.fess.ds.sharepoint.client.api.list.PageType;
-import org.codelibs.fess.ds.sharepoint.client.api.list.getlistforms.GetForms;
-import org.codelibs.fess.ds.sharepoint.client.api.list.getlistforms.GetFormsResponse;
 import org.codelibs.fess.ds.sharepoint.client.api.list.getlistitem.GetListItemRoleResponse;
 import org.codelibs.fess.ds.sharepoint.client.api.list.getlistitem.GetListItemValueResponse;
+import org.codelibs.fess.ds.sharepoint.client.api.list.getlistchanges.GetListChangeTokenResponse;
+import org.codelibs.fess.ds.sharepoint.client.exception.SharePointServerException;
+import org.codelibs.fess.ds.sharepoint.crawl.ItemIdTracker;
 import org.codelibs.fess.ds.sharepoint.crawl.SharePointCrawl;
 import org.codelibs.fess.ds.sharepoint.crawl.file.FileCrawl;
+import org.codelibs.fess.ds.sharepoint.crawl.list.ListChangesCrawl;
+import org.codelibs.fess.ds.sharepoint.store.ChangeTokenStore;
+import org.codelibs.fess.ds.sharepoint.store.FingerprintStore;
+import org.codelibs.fess.ds.sharepoint.store.FolderStore;
 import org.codelibs.fess.helper.CrawlerStatsHelper.StatsKeyObject;
 import org.codelibs.fess.opensearch.config.exentity.DataConfig;
 
@@ -48,7 +61,16 @@ public class FolderCrawl extends SharePointCrawl {
 
     private final String serverRelativeUrl;
     private final Map<String, GetListItemRoleResponse.SharePointGroup> sharePointGroupCache;
+    private final PrincipalCache principalCache;
+    private final Map<String, CompletableFuture<String>> formUrlCache;
+    private final Map<String, CompletableFuture<List<String>>> roleScopeCache;
     private final boolean skipRole;
+    private final ChangeTokenStore changeTokenStore;
+    private final FingerprintStore fingerprintStore;
+    private final FolderStore folderStore;
+    private final ItemIdTracker itemIdTracker;
+    private String listId;
+    private boolean listIdResolved = false;
 
     /**
      * Constructs a FolderCrawl instance for crawling a SharePoint document library folder.
@@ -57,25 +79,88 @@ public class FolderCrawl extends SharePointCrawl {
      * @param serverRelativeUrl the server-relative URL of the folder to crawl
      * @param skipRole whether to skip role/permission checking
      * @param sharePointGroupCache cache for SharePoint group information
+     * @param principalCache cache of search roles keyed by principal ID
+     * @param formUrlCache cache for display form URLs keyed by list ID
      */
     public FolderCrawl(final SharePointClient client, final String serverRelativeUrl, final boolean skipRole,
-            final Map<String, GetListItemRoleResponse.SharePointGroup> sharePointGroupCache) {
+            final Map<String, GetListItemRoleResponse.SharePointGroup> sharePointGroupCache, final PrincipalCache principalCache,
+            final Map<String, CompletableFuture<String>> formUrlCache) {
+        this(client, serverRelativeUrl, skipRole, sharePointGroupCache, principalCache, formUrlCache, null, null, null, null, null);
+    }
+
+    /**
+     * Constructs a FolderCrawl instance for the root folder of a document library.
+     * When a change token store is given, a library crawled before is read from its change log instead.
+     * When a fingerprint store is given, files unchanged since they were indexed are not downloaded again.
+     * When a folder store is given as well, folders unchanged since they were enumerated are not enumerated again.
+     *
+     * @param client the SharePoint client for API communication
+     * @param serverRelativeUrl the server-relative URL of the folder to crawl
+     * @param skipRole whether to skip role/permission checking
+     * @param sharePointGroupCache cache for SharePoint group information
+     * @param principalCache cache of search roles keyed by principal ID
+     * @param formUrlCache cache for display form URLs keyed by list ID
+     * @param roleScopeCache cache for inherited roles keyed by list ID and folder, or null to resolve the roles of every file
+     * @param changeTokenStore store of change tokens for incremental crawling, or null for a full crawl
+     * @param fingerprintStore store of fingerprints of indexed files, or null to download all files
+     * @param folderStore store of enumerated folders, or null to enumerate all folders
+     * @param itemIdTracker tracker of listed item IDs to find deleted files, or null
+     */
+    public FolderCrawl(final SharePointClient client, final String serverRelativeUrl, final boolean skipRole,
+            final Map<String, GetListItemRoleResponse.SharePointGroup> sharePointGroupCache, final PrincipalCache principalCache,
+            final Map<String, CompletableFuture<String>> formUrlCache, final Map<String, CompletableFuture<List<String>>> roleScopeCache,
+            final ChangeTokenStore changeTokenStore, final FingerprintStore fingerprintStore, final FolderStore folderStore,
+            final ItemIdTracker itemIdTracker) {
         super(client);
         this.serverRelativeUrl = serverRelativeUrl;
         this.sharePointGroupCache = sharePointGroupCache;
+        this.principalCache = principalCache;
+        this.formUrlCache = formUrlCache;
+        this.roleScopeCache = roleScopeCache;
         this.skipRole = skipRole;
+        this.changeTokenStore = changeTokenStore;
+        this.fingerprintStore = fingerprintStore;
+        this.folderStore = folderStore;
+        this.itemIdTracker = itemIdTracker;
         statsKey = new StatsKeyObject("folder#" + serverRelativeUrl);
     }
 
+    /**
+     * Sets the ID of the document library the folder belongs to, as resolved by the crawl of its parent folder.
+     *
+     * @param listId the list ID, or null if the folder is not in a document library
+     * @return this FolderCrawl instance for method chaining
+     */
+    public FolderCrawl setListId(final String listId) {
+        this.listId = listId;
+        this.listIdResolved = true;
+        return this;
+    }
+
     @Override
     public Map<String, Object> doCrawl(final DataConfig dataConfig, final Queue<SharePointCrawl> crawlingQueue) {
         if (logger.isInfoEnabled()) {
             logger.info("[Crawling DocLib Folder] serverRelativeUrl:{}", serverRelativeUrl);
         }
+        if (changeTokenStore != null && offerChangesCrawl(crawlingQueue)) {
+            return null;
+        }
 
+        if (!listIdResolved && (itemIdTracker != null || folderStore != null)) {
+            setListId(getLibraryListId());
+        }
         final GetFolderResponse getFolderResponse = client.api().doclib().getFolder().setServerRelativeUrl(serverRelativeUrl).execute();
+        if (pruneUnchangedFolder(getFolderResponse, dataConfig, crawlingQueue)) {
+            return null;
+        }
+        // an empty document library is recorded with the list ID taken from the library itself
+        final AtomicReference<String> folderListId = new AtomicReference<>(listId);
+        final AtomicBoolean hasFailedFiles = new AtomicBoolean(false);
+        final Map<String, String> folderFiles = new LinkedHashMap<>();
+        final List<String> subFolders = new ArrayList<>();
         if (getFolderResponse.getItemCount() > 0) {
             int foldersStart = 0;
+            String foldersNextLink = null;
             while (true) {
                 final GetFoldersResponse getFoldersResponse = client.api()
                         .doclib()
@@ -83,17 +168,21 @@ public class FolderCrawl extends SharePointCrawl {
                         .setServerRelativeUrl(serverRelativeUrl)
                         .setStart(foldersStart)
                         .setNum(PAGE_SIZE)
+                        .setNextLink(foldersNextLink)
                         .execute();
-                if (getFoldersResponse.getFolders().size() == 0) {
-                    break;
-                }
-                foldersStart += PAGE_SIZE;
+                foldersStart += getFoldersResponse.getFolders().size();
                 getFoldersResponse.getFolders().forEach(subFolder -> {
-                    crawlingQueue.offer(new FolderCrawl(client, subFolder.getServerRelativeUrl(), skipRole, sharePointGroupCache));
+                    subFolders.add(subFolder.getServerRelativeUrl());
+                    offerSubFolderCrawl(subFolder.getServerRelativeUrl(), listId, crawlingQueue);
                 });
+                foldersNextLink = getFoldersResponse.getNextLink();
+                if (foldersNextLink == null && getFoldersResponse.getFolders().size() < PAGE_SIZE) {
+                    break;
+                }
             }
 
             int filesStart = 0;
+            String filesNextLink = null;
             while (true) {
                 final GetFilesResponse getFilesResponse = client.api()
                         .doclib()
@@ -101,46 +190,184 @@ public class FolderCrawl extends SharePointCrawl {
                         .setServerRelativeUrl(serverRelativeUrl)
                         .setStart(filesStart)
                         .setNum(PAGE_SIZE)
+                        .setExpandListItem(true)
+                        .setNextLink(filesNextLink)
                         .execute();
-                if (getFilesResponse.getFiles().size() == 0) {
-                    break;
-                }
-                filesStart += PAGE_SIZE;
+                filesStart += getFilesResponse.getFiles().size();
+                final Map<String, BatchResponse.Result<GetDoclibListItemResponse>> doclibListItems = getDoclibListItems(
+                        getFilesResponse.getFiles().stream().filter(file -> !file.hasListItem()).collect(Collectors.toList()));
+                final Map<String, BatchResponse.Result<GetListItemValueResponse>> listItemValues = getDoclibListItemValues(doclibListItems);
+                final Map<String, List<String>> unchangedItems = new HashMap<>();
                 getFilesResponse.getFiles().forEach(file -> {
-                    final GetDoclibListItemResponse getDoclibListItemResponse =
-                            client.api().doclib().getListItem().setServerRelativeUrl(file.getServerRelativeUrl()).execute();
-                    final List<String> roles = getItemRoles(getDoclibListItemResponse.getListId(), getDoclibListItemResponse.getItemId(),
-                            sharePointGroupCache, skipRole);
-                    final GetListItemValueResponse getListItemValueResponse = client.api()
-                            .list()
-                            .getListItemValue()
-                            .setListId(getDoclibListItemResponse.getListId())
-                            .setItemId(getDoclibListItemResponse.getItemId())
-                            .execute();
-                    final Map<String, String> listValues = getListItemValueResponse.getValues();
-                    final String webLink =
-                            getWebLink(getDoclibListItemResponse.getListId(), file.getServerRelativeUrl(), serverRelativeUrl);
-                    crawlingQueue.offer(new FileCrawl(client, file.getFileName(), webLink, file.getServerRelativeUrl(), file.getCreated(),
-                            file.getModified(), roles, listValues, null));
+                    final String listId;
+                    final String itemId;
+                    final Map<String, String> listValues;
+                    final List<String> roles;
+                    if (file.hasListItem()) {
+                        listId = file.getListId();
+                        itemId = file.getItemId();
+                        listValues = file.getListValues();
+                        roles = getItemRoles(listId, itemId, file.getUniqueRoleAssignments(), file.getFileDirRef(), roleScopeCache,
+                                sharePointGroupCache, principalCache, skipRole);
+                    } else {
+                        final BatchResponse.Result<GetDoclibListItemResponse> doclibListItem =
+                                doclibListItems.get(file.getServerRelativeUrl());
+                        final BatchResponse.Result<GetListItemValueResponse> listItemValue =
+                                listItemValues.get(file.getServerRelativeUrl());
+                        // one failed sub-request skips its file, not the rest of the page
+                        if (doclibListItem == null || !doclibListItem.isSuccess() || listItemValue == null
+                                || !listItemValue.isSuccess()) {
+                            final RuntimeException cause = doclibListItem != null && doclibListItem.getException() != null
+                                    ? doclibListItem.getException() : listItemValue != null ? listItemValue.getException() : null;
+                            logger.warn("Failed to get the list item of a file. Skip it. [serverRelativeUrl:{}]",
+                                    file.getServerRelativeUrl(), cause);
+                            hasFailedFiles.set(true);
+                            recordFailure();
+                            return;
+                        }
+                        listId = doclibListItem.get().getListId();
+                        itemId = doclibListItem.get().getItemId();
+                        listValues = listItemValue.get().getValues();
+                        roles = getItemRoles(listId, itemId, sharePointGroupCache, principalCache, skipRole);
+                    }
+                    final String fingerprintId = file.getUniqueId() != null ? file.getUniqueId() : file.getServerRelativeUrl();
+                    folderFiles.put(itemId, fingerprintId);
+                    folderListId.compareAndSet(null, listId);
+                    final FingerprintStore.Fingerprint fingerprint =
+                            new FingerprintStore.Fingerprint(file.getEtag(), file.getModified() != null ? file.getModified().getTime() : -1,
+                                    file.getLength(), FingerprintStore.hashMetadata(roles, listValues)).withListId(listId);
+                    if (fingerprintStore != null && fingerprintStore.isUnchanged(fingerprintId, fingerprint)) {
+                        unchangedItems.computeIfAbsent(listId, k -> new ArrayList<>()).add(itemId);
+                        return;
+                    }
+                    final String webLink = getDocLibWebLink(listId, file.getServerRelativeUrl(), serverRelativeUrl, formUrlCache);
+                    final FileCrawl fileCrawl = new FileCrawl(client, file.getFileName(), webLink, file.getServerRelativeUrl(),
+                            file.getCreated(), file.getModified(), roles, listValues, null);
+                    fileCrawl.addProperty(LIST_ID_FIELD, listId);
+                    fileCrawl.addProperty(ITEM_ID_FIELD, itemId);
+                    if (fingerprintStore != null) {
+                        fileCrawl.setFingerprint(fingerprintStore, fingerprintId, fingerprint);
+                    }
+                    crawlingQueue.offer(fileCrawl);
                 });
+                unchangedItems.forEach((listId, itemIds) -> {
+                    final long count = refreshItemDocuments(dataConfig, listId, itemIds);
+                    if (logger.isDebugEnabled()) {
+                        logger.debug("Skipped {} unchanged files and refreshed {} documents. [listId:{}]", itemIds.size(), count, listId);
+                    }
+                });
+                filesNextLink = getFilesResponse.getNextLink();
+                if (filesNextLink == null && getFilesResponse.getFiles().size() < PAGE_SIZE) {
+                    break;
+                }
             }
         }
+        if (itemIdTracker != null) {
+            itemIdTracker.addAll(folderListId.get(), folderFiles.keySet());
+        }
+        // a folder with skipped files is enumerated again by the next crawl
+        if (folderStore != null && fingerprintStore != null && getFolderResponse.getModified() != null && !hasFailedFiles.get()) {
+            folderStore.put(serverRelativeUrl, new FolderStore.Folder(getFolderResponse.getModified().getTime(),
+                    getFolderResponse.getItemCount(), folderListId.get(), folderFiles, subFolders));
+        }
         return null;
     }
 
-    private String getWebLink(final String listId, final String filePath, final String parentUrl) {
-        final GetForms getForms = client.api().list().getForms();
-        if (listId != null) {
-            getForms.setListId(listId);
+    private boolean pruneUnchangedFolder(final GetFolderResponse getFolderResponse, final DataConfig dataConfig,
+            final Queue<SharePointCrawl> crawlingQueue) {
+        if (folderStore == null || fingerprintStore == null || getFolderResponse.getModified() == null) {
+            return false;
+        }
+        final FolderStore.Folder folder =
+                folderStore.getUnchanged(serverRelativeUrl, getFolderResponse.getModified().getTime(), getFolderResponse.getItemCount());
+        if (folder == null) {
+            return false;
         }
-        final GetFormsResponse getFormsResponse = getForms.execute();
-        final GetFormsResponse.Form form =
-                getFormsResponse.getForms().stream().filter(f -> f.getType() == PageType.DISPLAY_FORM).findFirst().orElse(null);
-        if (form == null) {
+        // a file whose document was not indexed, for example because its crawl failed, is crawled again
+        if (!folder.getFiles().values().stream().allMatch(fingerprintStore::isIndexed)) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Unchanged folder has files not indexed yet. Enumerate it again. [serverRelativeUrl:{}]", serverRelativeUrl);
+            }
+            return false;
+        }
+        final String folderListId = folder.getListId() != null ? folder.getListId() : listId;
+        folderStore.put(serverRelativeUrl, folder);
+        if (itemIdTracker != null) {
+            itemIdTracker.addAll(folderListId, folder.getFiles().keySet());
+        }
+        folder.getSubFolders().forEach(subFolder -> offerSubFolderCrawl(subFolder, folderListId, crawlingQueue));
+        final long count = folderListId != null ? refreshItemDocuments(dataConfig, folderListId, folder.getFiles().keySet()) : 0;
+        if (logger.isDebugEnabled()) {
+            logger.debug("Skipped unchanged folder with {} files and {} subfolders and refreshed {} documents. [serverRelativeUrl:{}]",
+                    folder.getFiles().size(), folder.getSubFolders().size(), count, serverRelativeUrl);
+        }
+        return true;
+    }
+
+    private void offerSubFolderCrawl(final String subFolderUrl, final String subFolderListId, final Queue<SharePointCrawl> crawlingQueue) {
+        crawlingQueue.offer(new FolderCrawl(client, subFolderUrl, skipRole, sharePointGroupCache, principalCache, formUrlCache,
+                roleScopeCache, null, fingerprintStore, folderStore, itemIdTracker).setListId(subFolderListId));
+    }
+
+    private String getLibraryListId() {
+        try {
+            return client.api().list().getList().setServerRelativeUrl(serverRelativeUrl).execute().getList().getId();
+        } catch (final SharePointServerException e) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("{} is not the root folder of a document library. Take the list ID from its files.", serverRelativeUrl, e);
+            }
             return null;
         }
-        final String serverRelativeUrl = form.getServerRelativeUrl();
-        return client.getUrl() + serverRelativeUrl.substring(1).replace("DispForm", "AllItems") + "?id=" + filePath + "&parent="
-                + URLEncoder.encode(parentUrl, StandardCharsets.UTF_8);
+    }
+
+    private Map<String, BatchResponse.Result<GetDoclibListItemResponse>> getDoclibListItems(final List<GetFilesResponse.DocLibFile> files) {
+        final Batch batch = client.api().batch();
+        final Map<String, BatchResponse.Result<GetDoclibListItemResponse>> results = new HashMap<>();
+        files.forEach(file -> results.put(file.getServerRelativeUrl(),
+                batch.add(client.api().doclib().getListItem().setServerRelativeUrl(file.getServerRelativeUrl()))));
+        batch.execute();
+        return results;
+    }
+
+    private Map<String, BatchResponse.Result<GetListItemValueResponse>> getDoclibListItemValues(
+            final Map<String, BatchResponse.Result<GetDoclibListItemResponse>> doclibListItems) {
+        final Batch batch = client.api().batch();
+        final Map<String, BatchResponse.Result<GetListItemValueResponse>> results = new HashMap<>();
+        doclibListItems.forEach((serverRelativeUrl, doclibListItem) -> {
+            if (doclibListItem.isSuccess()) {
+                results.put(serverRelativeUrl, batch.add(client.api()
+                        .list()
+                        .getListItemValue()
+                        .setListId(doclibListItem.get().getListId())
+                        .setItemId(doclibListItem.get().getItemId())));
+            }
+        });
+        batch.execute();
+        return results;
+    }
+
+    private boolean offerChangesCrawl(final Queue<SharePointCrawl> crawlingQueue) {
+        final GetListChangeTokenResponse response;
+        try {
+            response = client.api().list().getListChangeToken().setServerRelativeUrl(serverRelativeUrl).execute();
+        } catch (final SharePointServerException e) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("{} is not a document library. Crawl all files.", serverRelativeUrl, e);
+            }
+            return false;
+        }
+        setListId(response.getListId());
+        final String changeToken = changeTokenStore.getChangeToken(listId);
+        if (changeToken != null) {
+            // folders are enumerated again, as permission changes do not update their modified time
+            final FolderCrawl folderCrawl = new FolderCrawl(client, serverRelativeUrl, skipRole, sharePointGroupCache, principalCache,
+                    formUrlCache, roleScopeCache, null, fingerprintStore, null, itemIdTracker).setListId(listId);
+            crawlingQueue.offer(new ListChangesCrawl(client, listId, serverRelativeUrl, changeToken, true, false, skipRole,
+                    Collections.emptyList(), Collections.emptyList(), changeTokenStore, folderCrawl, sharePointGroupCache,
+                    principalCache, formUrlCache));
+            return true;
+        }
+        changeTokenStore.putFullCrawlChangeToken(listId, response.getChangeToken());
+        return false;
     }
 }
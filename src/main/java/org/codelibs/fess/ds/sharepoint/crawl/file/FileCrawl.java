@@ -32,16 +32,19 @@ import org.codelibs.fess.crawler.helper.MimeTypeHelper;
 import org.codelibs.fess.ds.sharepoint.client.SharePointClient;
 import org.codelibs.fess.ds.sharepoint.client.api.file.getfile.GetFileResponse;
 import org.codelibs.fess.ds.sharepoint.crawl.SharePointCrawl;
+import org.codelibs.fess.ds.sharepoint.store.FingerprintStore;
 import org.codelibs.fess.exception.DataStoreCrawlingException;
 import org.codelibs.fess.helper.CrawlerStatsHelper.StatsKeyObject;
 import org.codelibs.fess.helper.FileTypeHelper;
 import org.codelibs.fess.mylasta.direction.FessConfig;
 import org.codelibs.fess.opensearch.config.exentity.DataConfig;
 import org.codelibs.fess.util.ComponentUtil;
+import org.opensearch.index.query.QueryBuilders;
 
 /**
  * Crawling class for SharePoint file items.
  * Handles extraction and indexing of individual files from SharePoint document libraries.
+ * A file indexed before is requested conditionally, and its previous extraction is reused if it has not changed.
  */
 public class FileCrawl extends SharePointCrawl {
     private static final Logger logger = LogManager.getLogger(FileCrawl.class);
@@ -102,17 +105,88 @@ public class FileCrawl extends SharePointCrawl {
             logger.info("[Crawling File] [serverRelativeUrl:{}]", serverRelativeUrl);
         }
 
+        final FingerprintStore.Fingerprint previous = getStoredFingerprint();
+        if (previous != null) {
+            try (GetFileResponse getFileResponse = client.api()
+                    .file()
+                    .getFile()
+                    .setServerRelativeUrl(serverRelativeUrl)
+                    .setIfNoneMatch(previous.getEtag())
+                    .setIfModifiedSince(previous.getModified() >= 0 ? new Date(previous.getModified()) : null)
+                    .execute()) {
+                if (!getFileResponse.isNotModified()) {
+                    return buildDataMap(getFileResponse);
+                }
+            } catch (final IOException e) {
+                throw new DataStoreCrawlingException(serverRelativeUrl, "Failed to file: " + fileName, e);
+            }
+            final Map<String, Object> dataMap = reuseIndexedDocument(dataConfig, previous);
+            if (dataMap != null) {
+                return dataMap;
+            }
+            if (logger.isDebugEnabled()) {
+                logger.debug("Could not reuse the indexed content of {}. Download it again.", serverRelativeUrl);
+            }
+        }
+
         try (GetFileResponse getFileResponse = client.api().file().getFile().setServerRelativeUrl(serverRelativeUrl).execute()) {
-            return buildDataMap(dataConfig, getFileResponse);
+            return buildDataMap(getFileResponse);
         } catch (final IOException e) {
             throw new DataStoreCrawlingException(serverRelativeUrl, "Failed to file: " + fileName, e);
         }
     }
 
-    private Map<String, Object> buildDataMap(final DataConfig dataConfig, final GetFileResponse response) throws IOException {
+    private Map<String, Object> buildDataMap(final GetFileResponse response) throws IOException {
         final String mimeType = getMimeType(fileName, response);
+        final String text = getText(response, mimeType);
+        if (text == null) {
+            return buildDataMap(mimeType, StringUtil.EMPTY);
+        }
+        final Map<String, Object> dataMap = buildDataMap(mimeType, text);
+        storeFingerprint(text);
+        return dataMap;
+    }
+
+    /**
+     * Builds the document of a file not modified since it was indexed, from the content extracted then.
+     * The indexed content is reused only if it still ends with the current list values
+     * and the extracted text matches the hash recorded in the fingerprint.
+     *
+     * @param dataConfig the data configuration the document was indexed with
+     * @param previous the fingerprint recorded when the file was indexed
+     * @return the document, or null if the indexed content cannot be reused
+     */
+    private Map<String, Object> reuseIndexedDocument(final DataConfig dataConfig, final FingerprintStore.Fingerprint previous) {
+        final FessConfig fessConfig = ComponentUtil.getFessConfig();
+        final Map<String, Object> document = ComponentUtil.getSearchEngineClient()
+                .getDocument(fessConfig.getIndexDocumentSearchIndex(), builder -> {
+                    builder.setQuery(QueryBuilders.boolQuery()
+                            .filter(QueryBuilders.termQuery(fessConfig.getIndexFieldConfigId(), dataConfig.getConfigId()))
+                            .filter(QueryBuilders.termQuery(fessConfig.getIndexFieldUrl(), webUrl)));
+                    builder.setFetchSource(new String[] { fessConfig.getIndexFieldContent(), fessConfig.getIndexFieldMimetype() }, null);
+                    return true;
+                })
+                .orElse(null);
+        if (document == null || !(document.get(fessConfig.getIndexFieldContent()) instanceof String content)
+                || !(document.get(fessConfig.getIndexFieldMimetype()) instanceof String mimeType)) {
+            return null;
+        }
+        final String listValueText = getListValueText();
+        if (!content.endsWith(listValueText)) {
+            return null;
+        }
+        final String text = content.substring(0, content.length() - listValueText.length());
+        if (!FingerprintStore.hash(text).equals(previous.getContentHash())) {
+            return null;
+        }
+        final Map<String, Object> dataMap = buildDataMap(mimeType, text);
+        storeFingerprint(text);
+        return dataMap;
+    }
+
+    private Map<String, Object> buildDataMap(final String mimeType, final String text) {
         final String fileType = getFileType(mimeType);
-        final String content = getContent(response, mimeType);
+        final String content = text + getListValueText();
 
         final FessConfig fessConfig = ComponentUtil.getFessConfig();
         final Map<String, Object> dataMap = new HashMap<>();
@@ -147,9 +221,7 @@ public class FileCrawl extends SharePointCrawl {
         return dataMap;
     }
 
-    private String getContent(final GetFileResponse response, final String mimeType) {
-        final StringBuilder content = new StringBuilder(1000);
-
+    private String getText(final GetFileResponse response, final String mimeType) {
         try (final InputStream is = response.getFileContent()) {
             final String fileText = ComponentUtil.getExtractorFactory()
                     .builder(is, null)
@@ -157,9 +229,7 @@ public class FileCrawl extends SharePointCrawl {
                     .mimeType(mimeType)
                     .extract()
                     .getContent();
-            if (StringUtils.isNotBlank(fileText)) {
-                content.append(fileText);
-            }
+            return StringUtils.isNotBlank(fileText) ? fileText : StringUtil.EMPTY;
         } catch (final Exception e) {
             if (!ComponentUtil.getFessConfig().isCrawlerIgnoreContentException()) {
                 throw new DataStoreCrawlingException(serverRelativeUrl, "Failed to get contents: " + fileName, e);
@@ -169,14 +239,19 @@ public class FileCrawl extends SharePointCrawl {
             } else {
                 logger.warn("Could not get a text. {}", e.getMessage());
             }
+            return null;
         }
+    }
+
+    private String getListValueText() {
+        final StringBuilder buf = new StringBuilder();
         if (listValues.containsKey("Description") && StringUtils.isNotBlank(listValues.get("Description"))) {
-            content.append(' ').append(listValues.get("Description"));
+            buf.append(' ').append(listValues.get("Description"));
         }
         if (listValues.containsKey("Keywords") && StringUtils.isNotBlank(listValues.get("Keywords"))) {
-            content.append(' ').append(listValues.get("Keywords"));
+            buf.append(' ').append(listValues.get("Keywords"));
         }
-        return content.toString();
+        return buf.toString();
     }
 
     /**
@@ -22,13 +22,11 @@ import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.codelibs.fess.ds.sharepoint.client.SharePointClient;
-import org.codelibs.fess.ds.sharepoint.client.api.list.PageType;
-import org.codelibs.fess.ds.sharepoint.client.api.list.getlistforms.GetForms;
-import org.codelibs.fess.ds.sharepoint.client.api.list.getlistforms.GetFormsResponse;
 import org.codelibs.fess.ds.sharepoint.client.api.list.getlistitem.GetListItemAttachmentsResponse;
 import org.codelibs.fess.ds.sharepoint.crawl.SharePointCrawl;
 import org.codelibs.fess.ds.sharepoint.crawl.file.FileCrawl;
@@ -63,6 +61,8 @@ public class ItemAttachmentsCrawl extends SharePointCrawl {
     private final Date modified;
     /** Access roles inherited from the parent list item */
     private final List<String> roles;
+    /** Cache for display form URLs keyed by list ID */
+    private final Map<String, CompletableFuture<String>> formUrlCache;
 
     /**
      * Constructs a new ItemAttachmentsCrawl instance for crawling list item attachments.
@@ -74,9 +74,10 @@ public class ItemAttachmentsCrawl extends SharePointCrawl {
      * @param created creation date of the parent list item
      * @param modified last modification date of the parent list item
      * @param roles access roles inherited from the parent list item
+     * @param formUrlCache cache for display form URLs keyed by list ID
      */
     public ItemAttachmentsCrawl(final SharePointClient client, final String listId, final String listName, final String itemId,
-            final Date created, final Date modified, final List<String> roles) {
+            final Date created, final Date modified, final List<String> roles, final Map<String, CompletableFuture<String>> formUrlCache) {
         super(client);
         this.itemId = itemId;
         this.listId = listId;
@@ -84,6 +85,7 @@ public class ItemAttachmentsCrawl extends SharePointCrawl {
         this.created = created;
         this.modified = modified;
         this.roles = roles;
+        this.formUrlCache = formUrlCache;
         statsKey = new StatsKeyObject("item_attachment#" + listName + ":" + itemId);
     }
 
@@ -103,15 +105,26 @@ public class ItemAttachmentsCrawl extends SharePointCrawl {
         }
 
         final GetListItemAttachmentsResponse response = client.api().list().getListItemAttachments().setId(listId, itemId).execute();
+        offerFileCrawls(response, crawlingQueue);
+        return null;
+    }
+
+    /**
+     * Queues a FileCrawl task for each attachment file of the list item.
+     * Used directly when the attachment files were retrieved with the list item.
+     *
+     * @param response attachment files of the list item
+     * @param crawlingQueue queue for the file crawl tasks
+     */
+    void offerFileCrawls(final GetListItemAttachmentsResponse response, final Queue<SharePointCrawl> crawlingQueue) {
         response.getFiles().forEach(file -> {
             final FileCrawl fileCrawl = new FileCrawl(client, file.getFileName(), getWebLink(file.getFileName()),
                     file.getServerRelativeUrl(), created, modified, roles, Collections.emptyMap(), listName);
             fileCrawl.addProperty("list_name", listName);
-            fileCrawl.addProperty("list_id", listId);
-            fileCrawl.addProperty("item_id", itemId);
+            fileCrawl.addProperty(LIST_ID_FIELD, listId);
+            fileCrawl.addProperty(ITEM_ID_FIELD, itemId);
             crawlingQueue.offer(fileCrawl);
         });
-        return null;
     }
 
     /**
@@ -122,17 +135,10 @@ public class ItemAttachmentsCrawl extends SharePointCrawl {
      * @return web URL for accessing the attachment, or null if unable to generate
      */
     private String getWebLink(final String fileName) {
-        final GetForms getForms = client.api().list().getForms();
-        if (listId != null) {
-            getForms.setListId(listId);
-        }
-        final GetFormsResponse getFormsResponse = getForms.execute();
-        final GetFormsResponse.Form form =
-                getFormsResponse.getForms().stream().filter(f -> f.getType() == PageType.DISPLAY_FORM).findFirst().orElse(null);
-        if (form == null) {
+        final String serverRelativeUrl = getDisplayFormUrl(listId, formUrlCache);
+        if (serverRelativeUrl == null) {
             return null;
         }
-        final String serverRelativeUrl = form.getServerRelativeUrl();
         return client.getUrl() + serverRelativeUrl.substring(1) + "?ID=" + itemId + "&attachments="
                 + URLEncoder.encode(fileName, StandardCharsets.UTF_8);
     }
@@ -23,15 +23,13 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.codelibs.core.lang.StringUtil;
 import org.codelibs.fess.ds.sharepoint.client.SharePointClient;
-import org.codelibs.fess.ds.sharepoint.client.api.list.PageType;
-import org.codelibs.fess.ds.sharepoint.client.api.list.getlistforms.GetForms;
-import org.codelibs.fess.ds.sharepoint.client.api.list.getlistforms.GetFormsResponse;
 import org.codelibs.fess.ds.sharepoint.client.api.list.getlistitem.GetListItemValueResponse;
 import org.codelibs.fess.ds.sharepoint.crawl.SharePointCrawl;
 import org.codelibs.fess.helper.CrawlerStatsHelper.StatsKeyObject;
@@ -73,6 +71,10 @@ public class ItemCrawl extends SharePointCrawl {
     private final List<String> includeFields;
     /** Fields to exclude from content extraction */
     private final List<String> excludeFields;
+    /** Cache for display form URLs keyed by list ID */
+    private final Map<String, CompletableFuture<String>> formUrlCache;
+    /** Field values of the list item retrieved in advance, or null */
+    private final GetListItemValueResponse itemValue;
 
     /**
      * Constructs a new ItemCrawl instance for crawling a specific list item.
@@ -85,9 +87,31 @@ public class ItemCrawl extends SharePointCrawl {
      * @param isSubPage flag indicating if this is a subpage item
      * @param includeFields list of field names to include in content extraction
      * @param excludeFields list of field name patterns to exclude from content extraction
+     * @param formUrlCache cache for display form URLs keyed by list ID
      */
     public ItemCrawl(final SharePointClient client, final String listId, final String listName, final String itemId,
-            final List<String> roles, final boolean isSubPage, final List<String> includeFields, final List<String> excludeFields) {
+            final List<String> roles, final boolean isSubPage, final List<String> includeFields, final List<String> excludeFields,
+            final Map<String, CompletableFuture<String>> formUrlCache) {
+        this(client, listId, listName, itemId, roles, isSubPage, includeFields, excludeFields, formUrlCache, null);
+    }
+
+    /**
+     * Constructs a new ItemCrawl instance for a list item whose field values were already retrieved.
+     *
+     * @param client SharePoint client for API operations
+     * @param listId unique identifier of the SharePoint list
+     * @param listName display name of the SharePoint list
+     * @param itemId unique identifier of the list item to crawl
+     * @param roles access roles for the list item
+     * @param isSubPage flag indicating if this is a subpage item
+     * @param includeFields list of field names to include in content extraction
+     * @param excludeFields list of field name patterns to exclude from content extraction
+     * @param formUrlCache cache for display form URLs keyed by list ID
+     * @param itemValue field values of the list item, or null to retrieve them when crawled
+     */
+    public ItemCrawl(final SharePointClient client, final String listId, final String listName, final String itemId,
+            final List<String> roles, final boolean isSubPage, final List<String> includeFields, final List<String> excludeFields,
+            final Map<String, CompletableFuture<String>> formUrlCache, final GetListItemValueResponse itemValue) {
         super(client);
         this.listId = listId;
         this.listName = listName != null ? listName : StringUtil.EMPTY;
@@ -98,6 +122,8 @@ public class ItemCrawl extends SharePointCrawl {
         final List<String> exList = new ArrayList<>(excludeFields);
         exList.addAll(EXCLUDE_FIELDS);
         this.excludeFields = exList;
+        this.formUrlCache = formUrlCache;
+        this.itemValue = itemValue;
         statsKey = new StatsKeyObject("item#" + listName + ":" + itemId);
     }
 
@@ -116,7 +142,8 @@ public class ItemCrawl extends SharePointCrawl {
             logger.info("[Crawling ListItem] [listName:{}] [itemId:{}]", listName, itemId);
         }
 
-        final GetListItemValueResponse response = client.api().list().getListItemValue().setListId(listId).setItemId(itemId).execute();
+        final GetListItemValueResponse response =
+                itemValue != null ? itemValue : client.api().list().getListItemValue().setListId(listId).setItemId(itemId).execute();
         final String content = buildContent(response);
         final String webLink = getWebLink(response);
         final FessConfig fessConfig = ComponentUtil.getFessConfig();
@@ -148,8 +175,9 @@ public class ItemCrawl extends SharePointCrawl {
             dataMap.put(fessConfig.getIndexFieldRole(), roles);
         }
         dataMap.put("list_name", listName);
-        dataMap.put("list_id", listId);
-        dataMap.put("item_id", itemId);
+        dataMap.put(LIST_ID_FIELD, listId);
+        dataMap.put(ITEM_ID_FIELD, itemId);
+        storeFingerprint(content);
         return dataMap;
     }
 
@@ -260,17 +288,7 @@ public class ItemCrawl extends SharePointCrawl {
      * @return server-relative URL of the list's display form, or null if not found
      */
     private String getFormUrl() {
-        final GetForms getForms = client.api().list().getForms();
-        if (listId != null) {
-            getForms.setListId(listId);
-        }
-        final GetFormsResponse getFormsResponse = getForms.execute();
-        final GetFormsResponse.Form form =
-                getFormsResponse.getForms().stream().filter(f -> f.getType() == PageType.DISPLAY_FORM).findFirst().orElse(null);
-        if (form == null) {
-            return null;
-        }
-        return form.getServerRelativeUrl();
+        return getDisplayFormUrl(listId, formUrlCache);
     }
 
     /**
@@ -0,0 +1,239 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.ds.sharepoint.crawl.list;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.codelibs.fess.ds.sharepoint.cache.PrincipalCache;
+import org.codelibs.fess.ds.sharepoint.client.SharePointClient;
+import org.codelibs.fess.ds.sharepoint.client.api.batch.BatchResponse;
+import org.codelibs.fess.ds.sharepoint.client.api.list.getlistchanges.GetListChangesResponse;
+import org.codelibs.fess.ds.sharepoint.client.api.list.getlistitem.GetListItemRoleResponse;
+import org.codelibs.fess.ds.sharepoint.client.api.list.getlistitem.GetListItemValueResponse;
+import org.codelibs.fess.ds.sharepoint.client.exception.SharePointServerException;
+import org.codelibs.fess.ds.sharepoint.crawl.SharePointCrawl;
+import org.codelibs.fess.ds.sharepoint.crawl.file.FileCrawl;
+import org.codelibs.fess.ds.sharepoint.store.ChangeTokenStore;
+import org.codelibs.fess.helper.CrawlerStatsHelper.StatsKeyObject;
+import org.codelibs.fess.opensearch.config.exentity.DataConfig;
+
+/**
+ * Crawler implementation for the change log of a SharePoint list or document library.
+ * This class reads the item changes made after the stored change token, queues crawl tasks
+ * for added and updated items and for items whose permissions changed, and deletes the documents of removed items.
+ * When the permissions of the list itself changed, the whole list is crawled again.
+ *
+ * @see ListCrawl
+ * @see ChangeTokenStore
+ */
+public class ListChangesCrawl extends SharePointCrawl {
+    /** Logger for change log crawling operations */
+    private static final Logger logger = LogManager.getLogger(ListChangesCrawl.class);
+    /** Number of changed items whose field values are retrieved in one batch */
+    private static final int BATCH_SIZE = 100;
+
+    /** SharePoint list identifier */
+    private final String listId;
+    /** Display name of the SharePoint list */
+    private final String listName;
+    /** Change token of the last completed crawl */
+    private final String changeToken;
+    /** Flag indicating if the list is a document library */
+    private final boolean docLib;
+    /** Flag indicating if items should be treated as subpages */
+    private final boolean isSubPage;
+    /** Flag to skip role-based access control processing */
+    private final boolean skipRole;
+    /** Fields to include in content extraction for list items */
+    private final List<String> includeFields;
+    /** Fields to exclude from content extraction for list items */
+    private final List<String> excludeFields;
+    /** Store receiving the change token reached by this crawl */
+    private final ChangeTokenStore changeTokenStore;
+    /** Crawl of the whole list queued when the permissions of the list changed, or null */
+    private final SharePointCrawl listCrawl;
+    /** Cache for SharePoint group information to avoid repeated API calls */
+    private final Map<String, GetListItemRoleResponse.SharePointGroup> sharePointGroupCache;
+    /** Cache for search roles keyed by principal ID */
+    private final PrincipalCache principalCache;
+    /** Cache for display form URLs keyed by list ID */
+    private final Map<String, CompletableFuture<String>> formUrlCache;
+
+    /**
+     * Constructs a new ListChangesCrawl instance.
+     *
+     * @param client SharePoint client for API operations
+     * @param listId unique identifier of the SharePoint list
+     * @param listName display name of the SharePoint list
+     * @param changeToken change token of the last completed crawl
+     * @param docLib true if the list is a document library crawled as files
+     * @param isSubPage flag indicating if items should be treated as subpages
+     * @param skipRole flag to skip role-based access control processing
+     * @param includeFields list of field names to include in content extraction
+     * @param excludeFields list of field name patterns to exclude from content extraction
+     * @param changeTokenStore store receiving the change token reached by this crawl
+     * @param listCrawl crawl of the whole list queued when the permissions of the list changed, or null
+     * @param sharePointGroupCache cache for SharePoint group information
+     * @param principalCache cache for search roles keyed by principal ID
+     * @param formUrlCache cache for display form URLs keyed by list ID
+     */
+    public ListChangesCrawl(final SharePointClient client, final String listId, final String listName, final String changeToken,
+            final boolean docLib, final boolean isSubPage, final boolean skipRole, final List<String> includeFields,
+            final List<String> excludeFields, final ChangeTokenStore changeTokenStore, final SharePointCrawl listCrawl,
+            final Map<String, GetListItemRoleResponse.SharePointGroup> sharePointGroupCache, final PrincipalCache principalCache,
+            final Map<String, CompletableFuture<String>> formUrlCache) {
+        super(client);
+        this.listId = listId;
+        this.listName = listName;
+        this.changeToken = changeToken;
+        this.docLib = docLib;
+        this.isSubPage = isSubPage;
+        this.skipRole = skipRole;
+        this.includeFields = includeFields;
+        this.excludeFields = excludeFields;
+        this.changeTokenStore = changeTokenStore;
+        this.listCrawl = listCrawl;
+        this.sharePointGroupCache = sharePointGroupCache;
+        this.principalCache = principalCache;
+        this.formUrlCache = formUrlCache;
+        statsKey = new StatsKeyObject("list_changes#" + listName + ":" + listId);
+    }
+
+    /**
+     * Reads the change log of the list and queues crawl tasks for changed items.
+     *
+     * @param dataConfig data source configuration
+     * @param crawlingQueue queue for additional crawl tasks (items, attachments and files)
+     * @return null (this crawler only queues other tasks, doesn't create documents directly)
+     */
+    @Override
+    public Map<String, Object> doCrawl(final DataConfig dataConfig, final Queue<SharePointCrawl> crawlingQueue) {
+        if (logger.isInfoEnabled()) {
+            logger.info("[Crawling List Changes] [id:{}] [listName:{}]", listId, listName);
+        }
+
+        final Map<String, Boolean> changedItems = new LinkedHashMap<>();
+        final Set<String> relocatedItems = new HashSet<>();
+        boolean listSecurityChanged = false;
+        String currentToken = changeToken;
+        while (true) {
+            final GetListChangesResponse response =
+                    client.api().list().getListChanges().setListId(listId).setChangeToken(currentToken).execute();
+            for (final GetListChangesResponse.Change change : response.getChanges()) {
+                if (change.getItemId() == null) {
+                    // permissions of the list or membership of its groups, which may change the roles of every item
+                    listSecurityChanged |= change.isSecurityChanged();
+                } else if (change.isDeleted()) {
+                    changedItems.put(change.getItemId(), Boolean.TRUE);
+                } else if (change.isUpdated() || change.isSecurityChanged()) {
+                    changedItems.put(change.getItemId(), Boolean.FALSE);
+                    if (change.getChangeType() == GetListChangesResponse.Change.RENAME
+                            || change.getChangeType() == GetListChangesResponse.Change.MOVE_INTO) {
+                        relocatedItems.add(change.getItemId());
+                    }
+                }
+            }
+            final String lastToken = response.getLastChangeToken();
+            if (lastToken == null || lastToken.equals(currentToken)) {
+                break;
+            }
+            currentToken = lastToken;
+        }
+        if (logger.isInfoEnabled()) {
+            logger.info("[Crawling List Changes] [listName:{}] {} changed items", listName, changedItems.size());
+        }
+
+        final List<String> deletedItems = new ArrayList<>();
+        final List<String> updatedItems = new ArrayList<>();
+        changedItems.forEach((itemId, deleted) -> {
+            if (deleted || relocatedItems.contains(itemId)) {
+                deletedItems.add(itemId);
+            }
+            if (!deleted) {
+                updatedItems.add(itemId);
+            }
+        });
+        if (!deletedItems.isEmpty()) {
+            final long count = deleteItemDocuments(dataConfig, listId, deletedItems);
+            if (logger.isDebugEnabled()) {
+                logger.debug("Deleted {} documents of {} items. [listId:{}]", count, deletedItems.size(), listId);
+            }
+        }
+        if (listSecurityChanged && listCrawl != null) {
+            if (logger.isInfoEnabled()) {
+                logger.info("[Crawling List Changes] [listName:{}] Permissions of the list changed. Crawl all items.", listName);
+            }
+            changeTokenStore.putFullCrawlChangeToken(listId, currentToken);
+            crawlingQueue.offer(listCrawl);
+            return null;
+        }
+        for (int i = 0; i < updatedItems.size(); i += BATCH_SIZE) {
+            getListItemValues(listId, updatedItems.subList(i, Math.min(i + BATCH_SIZE, updatedItems.size())))
+                    .forEach((itemId, itemValue) -> offerItemCrawl(dataConfig, itemId, itemValue, crawlingQueue));
+        }
+        changeTokenStore.putChangeToken(listId, currentToken);
+        return null;
+    }
+
+    private void offerItemCrawl(final DataConfig dataConfig, final String itemId,
+            final BatchResponse.Result<GetListItemValueResponse> itemValue, final Queue<SharePointCrawl> crawlingQueue) {
+        final GetListItemValueResponse item;
+        try {
+            item = itemValue.get();
+        } catch (final SharePointServerException e) {
+            if (e.getStatusCode() != 404) {
+                throw e;
+            }
+            if (logger.isDebugEnabled()) {
+                logger.debug("Changed item no longer exists. [listId:{}] [itemId:{}]", listId, itemId);
+            }
+            deleteItemDocuments(dataConfig, listId, itemId);
+            return;
+        }
+        if (docLib) {
+            if (item.getFsObjType() != 0) {
+                return;
+            }
+            final List<String> roles = getItemRoles(listId, itemId, sharePointGroupCache, principalCache, skipRole);
+            final String webLink = getDocLibWebLink(listId, item.getFileRef(), item.getFileDirRef(), formUrlCache);
+            final FileCrawl fileCrawl = new FileCrawl(client, item.getFileLeafRef(), webLink, item.getFileRef(), item.getCreated(),
+                    item.getModified(), roles, item.getValues(), null);
+            fileCrawl.addProperty(LIST_ID_FIELD, listId);
+            fileCrawl.addProperty(ITEM_ID_FIELD, itemId);
+            crawlingQueue.offer(fileCrawl);
+            return;
+        }
+        if (item.getTitle().startsWith("$Resources")) {
+            return;
+        }
+        final List<String> roles = getItemRoles(listId, itemId, sharePointGroupCache, principalCache, skipRole);
+        crawlingQueue
+                .offer(new ItemCrawl(client, listId, listName, itemId, roles, isSubPage, includeFields, excludeFields, formUrlCache, item));
+        if (item.isHasAttachments()) {
+            crawlingQueue.offer(
+                    new ItemAttachmentsCrawl(client, listId, listName, itemId, item.getCreated(), item.getModified(), roles, formUrlCache));
+        }
+    }
+}
@@ -15,19 +15,31 @@
  */
 package org.codelibs.fess.ds.sharepoint.crawl.list;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.codelibs.fess.ds.sharepoint.cache.PrincipalCache;
 import org.codelibs.fess.ds.sharepoint.client.SharePointClient;
+import org.codelibs.fess.ds.sharepoint.client.api.batch.BatchResponse;
 import org.codelibs.fess.ds.sharepoint.client.api.list.getlistitem.GetListItemRoleResponse;
+import org.codelibs.fess.ds.sharepoint.client.api.list.getlistitem.GetListItemValueResponse;
 import org.codelibs.fess.ds.sharepoint.client.api.list.getlistitems.GetListItemsResponse;
 import org.codelibs.fess.ds.sharepoint.client.api.list.getlists.GetListResponse;
 import org.codelibs.fess.ds.sharepoint.client.api.list.getlists.GetListsResponse;
 import org.codelibs.fess.ds.sharepoint.client.exception.SharePointServerException;
+import org.codelibs.fess.ds.sharepoint.crawl.ItemIdTracker;
 import org.codelibs.fess.ds.sharepoint.crawl.SharePointCrawl;
+import org.codelibs.fess.ds.sharepoint.store.ChangeTokenStore;
+import org.codelibs.fess.ds.sharepoint.store.FingerprintStore;
 import org.codelibs.fess.helper.CrawlerStatsHelper.StatsKeyObject;
 import org.codelibs.fess.opensearch.config.exentity.DataConfig;
 
@@ -46,6 +58,8 @@ import org.codelibs.fess.opensearch.config.exentity.DataConfig;
 public class ListCrawl extends SharePointCrawl {
     /** Logger for list crawling operations */
     private static final Logger logger = LogManager.getLogger(ListCrawl.class);
+    /** Overlap of successive crawls for items modified while listing or clocks out of sync */
+    private static final long MODIFIED_SINCE_OVERLAP = 10 * 60 * 1000L;
 
     /** SharePoint list identifier */
     private final String id;
@@ -55,6 +69,12 @@ public class ListCrawl extends SharePointCrawl {
     private final int numberPerPage;
     /** Cache for SharePoint group information to avoid repeated API calls */
     private final Map<String, GetListItemRoleResponse.SharePointGroup> sharePointGroupCache;
+    /** Cache for search roles keyed by principal ID */
+    private final PrincipalCache principalCache;
+    /** Cache for display form URLs keyed by list ID */
+    private final Map<String, CompletableFuture<String>> formUrlCache;
+    /** Cache for inherited roles keyed by list ID and folder */
+    private final Map<String, CompletableFuture<List<String>>> roleScopeCache;
     /** Flag indicating if items should be treated as subpages */
     private final Boolean isSubPage;
     /** Flag to skip role-based access control processing */
@@ -63,6 +83,18 @@ public class ListCrawl extends SharePointCrawl {
     private final List<String> includeFields;
     /** Fields to exclude from content extraction for list items */
     private final List<String> excludeFields;
+    /** Flag to retrieve item values with each page of list items */
+    private boolean valuesInPage;
+    /** Flag to retrieve attachment files with each page of list items */
+    private boolean attachmentsInPage;
+    /** Store of change tokens for incremental crawling, or null for a full crawl */
+    private final ChangeTokenStore changeTokenStore;
+    /** Store of fingerprints of indexed items, or null to crawl all items */
+    private final FingerprintStore fingerprintStore;
+    /** Flag to list only items modified since the last finished crawl */
+    private final boolean modifiedFilter;
+    /** Tracker of listed item IDs to find deleted items, or null */
+    private final ItemIdTracker itemIdTracker;
 
     /**
      * Constructs a new ListCrawl instance for crawling a SharePoint list.
@@ -72,23 +104,44 @@ public class ListCrawl extends SharePointCrawl {
      * @param listName display name of the SharePoint list
      * @param numberPerPage number of items to retrieve per API call for pagination
      * @param sharePointGroupCache cache for SharePoint group information
+     * @param principalCache cache for search roles keyed by principal ID
+     * @param formUrlCache cache for display form URLs keyed by list ID
+     * @param roleScopeCache cache for inherited roles keyed by list ID and folder
      * @param isSubPage flag indicating if items should be treated as subpages
      * @param skipRole flag to skip role-based access control processing
      * @param includeFields list of field names to include in content extraction
      * @param excludeFields list of field name patterns to exclude from content extraction
+     * @param valuesInPage flag to retrieve item values with each page of list items instead of one request per item
+     * @param attachmentsInPage flag to retrieve attachment files with each page of list items instead of one request per item
+     * @param changeTokenStore store of change tokens for incremental crawling, or null for a full crawl
+     * @param fingerprintStore store of fingerprints of indexed items, or null to crawl all items
+     * @param modifiedFilter flag to list only items modified since the last finished crawl, which requires a fingerprint store
+     * @param itemIdTracker tracker of listed item IDs to find deleted items, or null
      */
     public ListCrawl(final SharePointClient client, final String id, final String listName, final int numberPerPage,
-            final Map<String, GetListItemRoleResponse.SharePointGroup> sharePointGroupCache, final boolean isSubPage,
-            final boolean skipRole, final List<String> includeFields, final List<String> excludeFields) {
+            final Map<String, GetListItemRoleResponse.SharePointGroup> sharePointGroupCache, final PrincipalCache principalCache,
+            final Map<String, CompletableFuture<String>> formUrlCache, final Map<String, CompletableFuture<List<String>>> roleScopeCache,
+            final boolean isSubPage, final boolean skipRole, final List<String> includeFields, final List<String> excludeFields,
+            final boolean valuesInPage, final boolean attachmentsInPage, final ChangeTokenStore changeTokenStore,
+            final FingerprintStore fingerprintStore, final boolean modifiedFilter, final ItemIdTracker itemIdTracker) {
         super(client);
         this.id = id;
         this.listName = listName;
         this.numberPerPage = numberPerPage;
         this.sharePointGroupCache = sharePointGroupCache;
+        this.principalCache = principalCache;
+        this.formUrlCache = formUrlCache;
+        this.roleScopeCache = roleScopeCache;
         this.isSubPage = isSubPage;
         this.skipRole = skipRole;
         this.includeFields = includeFields;
         this.excludeFields = excludeFields;
+        this.valuesInPage = valuesInPage;
+        this.attachmentsInPage = attachmentsInPage;
+        this.changeTokenStore = changeTokenStore;
+        this.fingerprintStore = fingerprintStore;
+        this.modifiedFilter = modifiedFilter;
+        this.itemIdTracker = itemIdTracker;
         statsKey = new StatsKeyObject("list#" + listName + ":" + id);
     }
 
@@ -111,49 +164,226 @@ public class ListCrawl extends SharePointCrawl {
         final GetListsResponse.SharePointList sharePointList = getListResponse.getList();
         final String listId = sharePointList.getId();
         final String listName = sharePointList.getListName();
-        for (int start = 0;; start += numberPerPage) {
-            GetListItemsResponse getListItemsResponse;
-            if (listId == null) {
+        if (changeTokenStore != null && listId != null) {
+            final String changeToken = changeTokenStore.getChangeToken(listId);
+            if (changeToken != null) {
+                final ListCrawl listCrawl = new ListCrawl(client, listId, listName, numberPerPage, sharePointGroupCache, principalCache,
+                        formUrlCache, roleScopeCache, isSubPage, skipRole, includeFields, excludeFields, valuesInPage, attachmentsInPage,
+                        null, fingerprintStore, false, itemIdTracker);
+                crawlingQueue.offer(new ListChangesCrawl(client, listId, listName, changeToken, false, isSubPage, skipRole, includeFields,
+                        excludeFields, changeTokenStore, listCrawl, sharePointGroupCache, principalCache, formUrlCache));
                 return null;
             }
+            changeTokenStore.putFullCrawlChangeToken(listId,
+                    client.api().list().getListChangeToken().setListId(listId).execute().getChangeToken());
+        }
+        if (listId == null) {
+            return null;
+        }
+        final long crawlTime = System.currentTimeMillis();
+        Date modifiedSince = getModifiedSince(listId);
+        int start = 0;
+        String nextLink = null;
+        while (true) {
+            final GetListItemsResponse getListItemsResponse;
+            try {
+                getListItemsResponse = getListItemsPage(listId, start, nextLink, modifiedSince);
+            } catch (final SharePointServerException e) {
+                if (modifiedSince == null || start != 0 || nextLink != null) {
+                    throw e;
+                }
+                // the list view threshold is exceeded if the Modified column of a large list is not indexed
+                logger.warn("Failed to filter list items by modified time. Crawl all items. [id:{}] [listName:{}]", id, listName, e);
+                modifiedSince = null;
+                continue;
+            }
+            if (getListItemsResponse.getListItems().isEmpty()) {
+                break;
+            }
+            if (itemIdTracker != null) {
+                itemIdTracker.addAll(listId, getListItemsResponse.getListItems()
+                        .stream()
+                        .map(GetListItemsResponse.ListItem::getId)
+                        .collect(Collectors.toList()));
+            }
+            final Map<String, List<String>> itemRoles = new HashMap<>();
+            final Map<String, FingerprintStore.Fingerprint> fingerprints = new HashMap<>();
+            final List<String> unchangedItemIds = new ArrayList<>();
+            final List<GetListItemsResponse.ListItem> listItems = new ArrayList<>();
+            getListItemsResponse.getListItems().stream().filter(item -> !item.getTitle().startsWith("$Resources")).forEach(item -> {
+                final List<String> roles = getItemRoles(listId, item.getId(), item.getUniqueRoleAssignments(), item.getFileDirRef(),
+                        roleScopeCache, sharePointGroupCache, principalCache, skipRole);
+                if (fingerprintStore != null) {
+                    final FingerprintStore.Fingerprint fingerprint = new FingerprintStore.Fingerprint(null,
+                            item.getModified() != null ? item.getModified().getTime() : -1, -1, FingerprintStore.hashMetadata(roles, null))
+                            .withListId(listId);
+                    if (fingerprintStore.isUnchanged(getFingerprintId(listId, item.getId()), fingerprint)) {
+                        unchangedItemIds.add(item.getId());
+                        return;
+                    }
+                    fingerprints.put(item.getId(), fingerprint);
+                }
+                itemRoles.put(item.getId(), roles);
+                listItems.add(item);
+            });
+            if (!unchangedItemIds.isEmpty()) {
+                final long count = refreshItemDocuments(dataConfig, listId, unchangedItemIds);
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Skipped {} unchanged items and refreshed {} documents. [listId:{}]", unchangedItemIds.size(), count,
+                            listId);
+                }
+            }
+            final Map<String, BatchResponse.Result<GetListItemValueResponse>> itemValues = getListItemValues(listId, listItems.stream()
+                    .filter(item -> item.getItemValue() == null)
+                    .map(GetListItemsResponse.ListItem::getId)
+                    .collect(Collectors.toList()));
+            listItems.forEach(item -> {
+                final List<String> roles = itemRoles.get(item.getId());
+                final ItemCrawl itemCrawl = new ItemCrawl(client, listId, listName, item.getId(), roles, isSubPage, includeFields,
+                        excludeFields, formUrlCache, getItemValue(item, itemValues.get(item.getId())));
+                if (fingerprintStore != null) {
+                    itemCrawl.setFingerprint(fingerprintStore, getFingerprintId(listId, item.getId()), fingerprints.get(item.getId()));
+                }
+                crawlingQueue.offer(itemCrawl);
+                if (item.getAttachmentFiles() != null) {
+                    new ItemAttachmentsCrawl(client, listId, listName, item.getId(), item.getCreated(), item.getModified(), roles,
+                            formUrlCache).offerFileCrawls(item.getAttachmentFiles(), crawlingQueue);
+                } else if (item.hasAttachments()) {
+                    crawlingQueue.offer(new ItemAttachmentsCrawl(client, listId, listName, item.getId(), item.getCreated(),
+                            item.getModified(), roles, formUrlCache));
+                }
+            });
+            nextLink = getListItemsResponse.getNextLink();
+            if (nextLink == null && getListItemsResponse.getListItems().size() < numberPerPage) {
+                break;
+            }
+            start = getLastItemId(getListItemsResponse);
+        }
+        if (itemIdTracker != null) {
+            if (modifiedSince != null) {
+                itemIdTracker.markPartial(listId);
+            } else {
+                itemIdTracker.addAll(listId, Collections.emptyList());
+            }
+        }
+        if (modifiedFilter && fingerprintStore != null) {
+            if (modifiedSince != null) {
+                final long count = refreshListDocuments(dataConfig, listId);
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Listed items modified since {} and refreshed {} documents. [listId:{}]", modifiedSince, count, listId);
+                }
+            }
+            fingerprintStore.putCrawlTime(listId, crawlTime);
+        }
+        return null;
+    }
+
+    /**
+     * Returns the time after which items are listed, with an overlap to the last finished crawl of the list.
+     *
+     * @param listId unique identifier of the SharePoint list
+     * @return the time, or null to list all items
+     */
+    private Date getModifiedSince(final String listId) {
+        if (!modifiedFilter || fingerprintStore == null) {
+            return null;
+        }
+        final long lastCrawlTime = fingerprintStore.getCrawlTime(listId);
+        return lastCrawlTime >= 0 ? new Date(lastCrawlTime - MODIFIED_SINCE_OVERLAP) : null;
+    }
+
+    private String getFingerprintId(final String listId, final String itemId) {
+        return "list/" + listId + "/" + itemId;
+    }
+
+    private GetListItemsResponse getListItemsPage(final String listId, final int start, final String nextLink,
+            final Date modifiedSince) {
+        try {
+            return getListItems(listId, isSubPage, start, nextLink, modifiedSince);
+        } catch (final SharePointServerException e) {
+            if (e.getStatusCode() != 400) {
+                throw e;
+            }
+            return getListItems(listId, true, start, null, modifiedSince);
+        }
+    }
+
+    /**
+     * Retrieves a page of list items, with their values and attachment files when enabled.
+     * The next link given with the previous page is followed when available.
+     * If the server rejects the expansion, they are retrieved per item for the rest of the list.
+     *
+     * @param listId unique identifier of the SharePoint list
+     * @param subPage flag indicating if items should be treated as subpages
+     * @param start ID of the last item of the previous page
+     * @param nextLink next link given with the previous page, or null to page by item ID
+     * @param modifiedSince time after which the items to list were modified, or null to list all items
+     * @return the page of list items
+     */
+    private GetListItemsResponse getListItems(final String listId, final boolean subPage, final int start, final String nextLink,
+            final Date modifiedSince) {
+        if (valuesInPage || attachmentsInPage) {
             try {
-                getListItemsResponse = client.api()
+                return client.api()
                         .list()
                         .getListItems()
                         .setListId(listId)
-                        .setSubPage(isSubPage)
+                        .setSubPage(subPage)
                         .setNum(numberPerPage)
                         .setStart(start)
+                        .setModifiedSince(modifiedSince)
+                        .setExpandValues(valuesInPage)
+                        .setValueFields(includeFields)
+                        .setExpandAttachments(attachmentsInPage)
+                        .setNextLink(nextLink)
                         .execute();
             } catch (final SharePointServerException e) {
                 if (e.getStatusCode() != 400) {
                     throw e;
                 }
-                getListItemsResponse = client.api()
+                logger.warn("Failed to expand list items. Get values and attachments per item. [id:{}] [listName:{}]", id, listName, e);
+                valuesInPage = false;
+                attachmentsInPage = false;
+                return client.api()
                         .list()
                         .getListItems()
                         .setListId(listId)
-                        .setSubPage(true)
+                        .setSubPage(subPage)
                         .setNum(numberPerPage)
                         .setStart(start)
+                        .setModifiedSince(modifiedSince)
                         .execute();
             }
-            if (getListItemsResponse.getListItems().isEmpty()) {
-                break;
-            }
-            getListItemsResponse.getListItems().forEach(item -> {
-                if (item.getTitle().startsWith("$Resources")) {
-                    return;
-                }
+        }
+        return client.api()
+                .list()
+                .getListItems()
+                .setListId(listId)
+                .setSubPage(subPage)
+                .setNum(numberPerPage)
+                .setStart(start)
+                .setModifiedSince(modifiedSince)
+                .setNextLink(nextLink)
+                .execute();
+    }
 
-                final List<String> roles = getItemRoles(listId, item.getId(), sharePointGroupCache, skipRole);
-                crawlingQueue.offer(new ItemCrawl(client, listId, listName, item.getId(), roles, isSubPage, includeFields, excludeFields));
-                if (item.hasAttachments()) {
-                    crawlingQueue.offer(
-                            new ItemAttachmentsCrawl(client, listId, listName, item.getId(), item.getCreated(), item.getModified(), roles));
-                }
-            });
+    /**
+     * Returns the ID of the last item of a page, from which the next page starts when no next link is given.
+     * Item IDs are not contiguous, so paging by the number of items would skip or repeat items.
+     *
+     * @param getListItemsResponse the page of list items
+     * @return the ID of the last item
+     */
+    private int getLastItemId(final GetListItemsResponse getListItemsResponse) {
+        final List<GetListItemsResponse.ListItem> listItems = getListItemsResponse.getListItems();
+        return Integer.parseInt(listItems.get(listItems.size() - 1).getId());
+    }
+
+    private GetListItemValueResponse getItemValue(final GetListItemsResponse.ListItem item,
+            final BatchResponse.Result<GetListItemValueResponse> itemValue) {
+        if (item.getItemValue() != null) {
+            return item.getItemValue();
         }
-        return null;
+        return itemValue != null && itemValue.isSuccess() ? itemValue.get() : null;
     }
 }
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.ds.sharepoint.store;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.codelibs.core.exception.IORuntimeException;
+
+/**
+ * File-based store of SharePoint change tokens keyed by list ID.
+ * Tokens recorded during a crawl are kept pending and written to the file only on {@link #commit()},
+ * so an interrupted crawl resumes from the tokens of the last completed crawl.
+ * The time of the last full crawl of each list is stored with its token, so that lists are crawled fully again
+ * after an interval and changes missing from the change log of a list, such as group membership changes, are picked up.
+ */
+public class ChangeTokenStore {
+    private static final Logger logger = LogManager.getLogger(ChangeTokenStore.class);
+
+    private static final char SEPARATOR = '\t';
+
+    private final Path path;
+
+    private final long fullCrawlInterval;
+
+    private final Map<String, String> changeTokens = new ConcurrentHashMap<>();
+
+    private final Map<String, String> pendingChangeTokens = new ConcurrentHashMap<>();
+
+    private final Map<String, Long> fullCrawlTimes = new ConcurrentHashMap<>();
+
+    private final Map<String, Long> pendingFullCrawlTimes = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new ChangeTokenStore without full crawl interval and loads the tokens from the given file if it exists.
+     *
+     * @param path the file to store change tokens in
+     */
+    public ChangeTokenStore(final Path path) {
+        this(path, 0L);
+    }
+
+    /**
+     * Creates a new ChangeTokenStore and loads the tokens from the given file if it exists.
+     *
+     * @param path the file to store change tokens in
+     * @param fullCrawlInterval the interval between full crawls of a list in milliseconds, or 0 to crawl lists fully only once
+     */
+    public ChangeTokenStore(final Path path, final long fullCrawlInterval) {
+        this.path = path;
+        this.fullCrawlInterval = fullCrawlInterval;
+        load();
+    }
+
+    /**
+     * Returns the change token of the last completed crawl for a list.
+     *
+     * @param listId the list ID
+     * @return the change token, or null if the list has not been crawled or is due for a full crawl
+     */
+    public String getChangeToken(final String listId) {
+        if (fullCrawlInterval > 0) {
+            final Long fullCrawlTime = fullCrawlTimes.get(listId);
+            if (fullCrawlTime == null || System.currentTimeMillis() - fullCrawlTime >= fullCrawlInterval) {
+                return null;
+            }
+        }
+        return changeTokens.get(listId);
+    }
+
+    /**
+     * Records the change token reached by reading the change log of a list in the current crawl.
+     *
+     * @param listId the list ID
+     * @param changeToken the change token
+     */
+    public void putChangeToken(final String listId, final String changeToken) {
+        if (listId != null && changeToken != null) {
+            pendingChangeTokens.put(listId, changeToken);
+        }
+    }
+
+    /**
+     * Records the change token taken before a list is crawled fully in the current crawl.
+     *
+     * @param listId the list ID
+     * @param changeToken the change token
+     */
+    public void putFullCrawlChangeToken(final String listId, final String changeToken) {
+        if (listId != null && changeToken != null) {
+            pendingFullCrawlTimes.put(listId, System.currentTimeMillis());
+            pendingChangeTokens.put(listId, changeToken);
+        }
+    }
+
+    /**
+     * Writes the change tokens recorded by the current crawl to the file.
+     */
+    public synchronized void commit() {
+        if (pendingChangeTokens.isEmpty()) {
+            return;
+        }
+        changeTokens.putAll(pendingChangeTokens);
+        pendingChangeTokens.clear();
+        fullCrawlTimes.putAll(pendingFullCrawlTimes);
+        pendingFullCrawlTimes.clear();
+        final Properties properties = new Properties();
+        changeTokens.forEach((listId, changeToken) -> {
+            final Long fullCrawlTime = fullCrawlTimes.get(listId);
+            properties.setProperty(listId, fullCrawlTime != null ? changeToken + SEPARATOR + fullCrawlTime : changeToken);
+        });
+        try {
+            final Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            final Path tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+            try (OutputStream out = Files.newOutputStream(tempPath)) {
+                properties.store(out, "SharePoint change tokens");
+            }
+            Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (final IOException e) {
+            throw new IORuntimeException(e);
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("Stored {} change tokens to {}", changeTokens.size(), path);
+        }
+    }
+
+    private void load() {
+        if (!Files.exists(path)) {
+            return;
+        }
+        final Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(path)) {
+            properties.load(in);
+        } catch (final IOException e) {
+            throw new IORuntimeException(e);
+        }
+        properties.stringPropertyNames().forEach(key -> {
+            final String value = properties.getProperty(key);
+            final int pos = value.indexOf(SEPARATOR);
+            if (pos < 0) {
+                changeTokens.put(key, value);
+                return;
+            }
+            changeTokens.put(key, value.substring(0, pos));
+            try {
+                fullCrawlTimes.put(key, Long.parseLong(value.substring(pos + 1)));
+            } catch (final NumberFormatException e) {
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Invalid full crawl time. [listId:{}] [value:{}]", key, value);
+                }
+            }
+        });
+        if (logger.isDebugEnabled()) {
+            logger.debug("Loaded {} change tokens from {}", changeTokens.size(), path);
+        }
+    }
+}
@@ -0,0 +1,452 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.ds.sharepoint.store;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.codelibs.core.exception.IORuntimeException;
+
+/**
+ * File-based store of the fingerprints of documents indexed by earlier crawls, keyed by site and document ID.
+ * A document whose ETag, modified time, size and metadata are the same as when it was indexed
+ * does not need to be downloaded and extracted again.
+ * The time each list was crawled is stored as well, so that only items modified since can be listed.
+ * Fingerprints of documents deleted in SharePoint are dropped once their list has been listed in full.
+ */
+public class FingerprintStore {
+    private static final Logger logger = LogManager.getLogger(FingerprintStore.class);
+
+    private static final char SEPARATOR = '\t';
+
+    private static final String CRAWL_TIME_PREFIX = "crawl_time/";
+
+    private final Path path;
+
+    private final String siteName;
+
+    private final Map<String, Fingerprint> storedFingerprints = new ConcurrentHashMap<>();
+
+    private final Map<String, Fingerprint> fingerprints = new ConcurrentHashMap<>();
+
+    private final Map<String, Long> storedCrawlTimes = new ConcurrentHashMap<>();
+
+    private final Map<String, Long> crawlTimes = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new FingerprintStore and loads the fingerprints from the given file if it exists.
+     *
+     * @param path the file to store fingerprints in
+     * @param siteName the site name the documents belong to
+     */
+    public FingerprintStore(final Path path, final String siteName) {
+        this.path = path;
+        this.siteName = siteName;
+        load();
+    }
+
+    /**
+     * Checks whether a document is unchanged since it was indexed.
+     * The stored fingerprint of an unchanged document is kept for the next crawl.
+     *
+     * @param id the document ID, such as the unique ID or server-relative URL of a file
+     * @param fingerprint the current fingerprint of the document, without content hash
+     * @return true if the document was indexed with the same fingerprint
+     */
+    public boolean isUnchanged(final String id, final Fingerprint fingerprint) {
+        if (id == null || fingerprint == null) {
+            return false;
+        }
+        final String key = buildKey(id);
+        final Fingerprint stored = storedFingerprints.get(key);
+        if (stored == null || stored.getContentHash() == null || !stored.isSameVersion(fingerprint)) {
+            return false;
+        }
+        fingerprints.putIfAbsent(key, fingerprint.getListId() != null ? stored.withListId(fingerprint.getListId()) : stored);
+        return true;
+    }
+
+    /**
+     * Checks whether a document was indexed by an earlier crawl, without comparing its current fingerprint.
+     * The stored fingerprint of an indexed document is kept for the next crawl.
+     *
+     * @param id the document ID
+     * @return true if the document was indexed
+     */
+    public boolean isIndexed(final String id) {
+        if (id == null) {
+            return false;
+        }
+        final String key = buildKey(id);
+        final Fingerprint stored = storedFingerprints.get(key);
+        if (stored == null || stored.getContentHash() == null) {
+            return false;
+        }
+        fingerprints.putIfAbsent(key, stored);
+        return true;
+    }
+
+    /**
+     * Records the fingerprint of a document indexed by this crawl.
+     *
+     * @param id the document ID
+     * @param fingerprint the fingerprint with the hash of the extracted content
+     */
+    public void put(final String id, final Fingerprint fingerprint) {
+        if (id != null && fingerprint != null) {
+            fingerprints.put(buildKey(id), fingerprint);
+        }
+    }
+
+    /**
+     * Returns the fingerprint of a document recorded by this crawl or stored by an earlier crawl.
+     *
+     * @param id the document ID
+     * @return the fingerprint, or null if not found
+     */
+    public Fingerprint get(final String id) {
+        if (id == null) {
+            return null;
+        }
+        final String key = buildKey(id);
+        final Fingerprint fingerprint = fingerprints.get(key);
+        return fingerprint != null ? fingerprint : storedFingerprints.get(key);
+    }
+
+    /**
+     * Returns the time the items of a list were listed by the last finished crawl.
+     *
+     * @param listId the list ID
+     * @return the crawl time in milliseconds, or -1 if the list has not been crawled
+     */
+    public long getCrawlTime(final String listId) {
+        if (listId == null) {
+            return -1;
+        }
+        final Long crawlTime = storedCrawlTimes.get(buildKey(CRAWL_TIME_PREFIX + listId));
+        return crawlTime != null ? crawlTime : -1;
+    }
+
+    /**
+     * Records the time the items of a list were listed by this crawl.
+     *
+     * @param listId the list ID
+     * @param crawlTime the crawl time in milliseconds
+     */
+    public void putCrawlTime(final String listId, final long crawlTime) {
+        if (listId != null) {
+            crawlTimes.put(buildKey(CRAWL_TIME_PREFIX + listId), crawlTime);
+        }
+    }
+
+    /**
+     * Writes the fingerprints to the file.
+     * If no crawl task failed, the stored fingerprints of documents not seen by this crawl are dropped
+     * when all items of their list were listed, as those documents have been deleted, and the crawl times
+     * of this crawl are written. Otherwise the stored fingerprints are kept, and the crawl times are not written
+     * because items whose crawl failed would not be listed again after a later crawl time.
+     *
+     * @param completed true if all crawl tasks of this crawl succeeded
+     * @param listedListIds the IDs of the lists whose items were all listed by this crawl
+     */
+    public synchronized void commit(final boolean completed, final Collection<String> listedListIds) {
+        final Properties properties = new Properties();
+        final Set<String> listIds = completed ? new HashSet<>(listedListIds) : Collections.emptySet();
+        final LongAdder prunedCount = new LongAdder();
+        storedFingerprints.forEach((key, fingerprint) -> {
+            if (fingerprint.getListId() != null && listIds.contains(fingerprint.getListId()) && !fingerprints.containsKey(key)) {
+                prunedCount.increment();
+                return;
+            }
+            properties.setProperty(key, fingerprint.toString());
+        });
+        fingerprints.forEach((key, fingerprint) -> properties.setProperty(key, fingerprint.toString()));
+        storedCrawlTimes.forEach((key, crawlTime) -> properties.setProperty(key, String.valueOf(crawlTime)));
+        if (completed) {
+            crawlTimes.forEach((key, crawlTime) -> properties.setProperty(key, String.valueOf(crawlTime)));
+        }
+        try {
+            final Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            final Path tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+            try (OutputStream out = Files.newOutputStream(tempPath)) {
+                properties.store(out, "SharePoint document fingerprints");
+            }
+            Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (final IOException e) {
+            throw new IORuntimeException(e);
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("Stored {} fingerprints to {} and dropped {} fingerprints of deleted documents", properties.size(), path,
+                    prunedCount.sum());
+        }
+    }
+
+    /**
+     * Computes the SHA-256 hash of a value.
+     *
+     * @param value the value
+     * @return the hexadecimal hash
+     */
+    public static String hash(final String value) {
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Computes the hash of metadata indexed with a document, independent of the order of its values.
+     *
+     * @param roles the search roles, or null
+     * @param values the field values, or null
+     * @return the hexadecimal hash
+     */
+    public static String hashMetadata(final Collection<String> roles, final Map<String, String> values) {
+        final StringBuilder buf = new StringBuilder();
+        if (roles != null) {
+            roles.stream().sorted().forEach(role -> buf.append(role).append('\n'));
+        }
+        buf.append('\n');
+        if (values != null) {
+            values.entrySet()
+                    .stream()
+                    .sorted(Map.Entry.comparingByKey())
+                    .forEach(entry -> buf.append(entry.getKey()).append('=').append(entry.getValue()).append('\n'));
+        }
+        return hash(buf.toString());
+    }
+
+    private String buildKey(final String id) {
+        return siteName + "/" + id;
+    }
+
+    private void load() {
+        if (!Files.exists(path)) {
+            return;
+        }
+        final Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(path)) {
+            properties.load(in);
+        } catch (final IOException e) {
+            throw new IORuntimeException(e);
+        }
+        properties.stringPropertyNames().forEach(key -> {
+            final String value = properties.getProperty(key);
+            // a crawl time is a single number, while a fingerprint has several fields
+            if (value.indexOf(SEPARATOR) < 0) {
+                try {
+                    storedCrawlTimes.put(key, Long.parseLong(value));
+                } catch (final NumberFormatException e) {
+                    // ignore a broken entry
+                }
+                return;
+            }
+            final Fingerprint fingerprint = Fingerprint.parse(value);
+            if (fingerprint != null) {
+                storedFingerprints.put(key, fingerprint);
+            }
+        });
+        if (logger.isDebugEnabled()) {
+            logger.debug("Loaded {} fingerprints from {}", storedFingerprints.size(), path);
+        }
+    }
+
+    /**
+     * Fingerprint of an indexed document.
+     */
+    public static class Fingerprint {
+        private final String etag;
+        private final long modified;
+        private final long size;
+        private final String metadataHash;
+        private final String contentHash;
+        private final String listId;
+
+        /**
+         * Creates a fingerprint of a document seen in a listing, before its content is retrieved.
+         *
+         * @param etag the ETag, or null if not available
+         * @param modified the modified time in milliseconds, or -1 if not available
+         * @param size the size in bytes, or -1 if not available
+         * @param metadataHash the hash of the metadata indexed with the document, or null
+         */
+        public Fingerprint(final String etag, final long modified, final long size, final String metadataHash) {
+            this(etag, modified, size, metadataHash, null);
+        }
+
+        /**
+         * Creates a fingerprint of a document.
+         *
+         * @param etag the ETag, or null if not available
+         * @param modified the modified time in milliseconds, or -1 if not available
+         * @param size the size in bytes, or -1 if not available
+         * @param metadataHash the hash of the metadata indexed with the document, or null
+         * @param contentHash the hash of the extracted content, or null if not indexed yet
+         */
+        public Fingerprint(final String etag, final long modified, final long size, final String metadataHash,
+                final String contentHash) {
+            this(etag, modified, size, metadataHash, contentHash, null);
+        }
+
+        private Fingerprint(final String etag, final long modified, final long size, final String metadataHash, final String contentHash,
+                final String listId) {
+            this.etag = etag;
+            this.modified = modified;
+            this.size = size;
+            this.metadataHash = metadataHash;
+            this.contentHash = contentHash;
+            this.listId = listId;
+        }
+
+        /**
+         * Returns a copy of this fingerprint with the hash of the extracted content.
+         *
+         * @param contentHash the hash of the extracted content
+         * @return the fingerprint
+         */
+        public Fingerprint withContentHash(final String contentHash) {
+            return new Fingerprint(etag, modified, size, metadataHash, contentHash, listId);
+        }
+
+        /**
+         * Returns a copy of this fingerprint with the ID of the list the document belongs to,
+         * so that the fingerprint can be dropped once the document has been deleted.
+         *
+         * @param listId the list ID
+         * @return the fingerprint
+         */
+        public Fingerprint withListId(final String listId) {
+            return new Fingerprint(etag, modified, size, metadataHash, contentHash, listId);
+        }
+
+        /**
+         * Checks whether this fingerprint has the same ETag, modified time, size and metadata as another.
+         *
+         * @param other the other fingerprint
+         * @return true if both describe the same version of the document
+         */
+        public boolean isSameVersion(final Fingerprint other) {
+            return Objects.equals(etag, other.etag) && modified == other.modified && size == other.size
+                    && Objects.equals(metadataHash, other.metadataHash);
+        }
+
+        /**
+         * Returns the ETag.
+         *
+         * @return the ETag, or null if not available
+         */
+        public String getEtag() {
+            return etag;
+        }
+
+        /**
+         * Returns the modified time.
+         *
+         * @return the modified time in milliseconds, or -1 if not available
+         */
+        public long getModified() {
+            return modified;
+        }
+
+        /**
+         * Returns the size.
+         *
+         * @return the size in bytes, or -1 if not available
+         */
+        public long getSize() {
+            return size;
+        }
+
+        /**
+         * Returns the hash of the metadata indexed with the document.
+         *
+         * @return the metadata hash, or null
+         */
+        public String getMetadataHash() {
+            return metadataHash;
+        }
+
+        /**
+         * Returns the hash of the content extracted from the document.
+         *
+         * @return the hash of the extracted content, or null if not indexed yet
+         */
+        public String getContentHash() {
+            return contentHash;
+        }
+
+        /**
+         * Returns the ID of the list the document belongs to.
+         *
+         * @return the list ID, or null if not known
+         */
+        public String getListId() {
+            return listId;
+        }
+
+        @Override
+        public String toString() {
+            return nullToEmpty(etag) + SEPARATOR + modified + SEPARATOR + size + SEPARATOR + nullToEmpty(metadataHash) + SEPARATOR
+                    + nullToEmpty(contentHash) + SEPARATOR + nullToEmpty(listId);
+        }
+
+        private static Fingerprint parse(final String value) {
+            final String[] values = value.split(String.valueOf(SEPARATOR), -1);
+            // fingerprints stored by earlier versions have no list ID
+            if (values.length != 5 && values.length != 6) {
+                return null;
+            }
+            try {
+                return new Fingerprint(emptyToNull(values[0]), Long.parseLong(values[1]), Long.parseLong(values[2]),
+                        emptyToNull(values[3]), emptyToNull(values[4]), values.length == 6 ? emptyToNull(values[5]) : null);
+            } catch (final NumberFormatException e) {
+                return null;
+            }
+        }
+
+        private static String nullToEmpty(final String value) {
+            return value != null ? value : "";
+        }
+
+        private static String emptyToNull(final String value) {
+            return value.isEmpty() ? null : value;
+        }
+    }
+}
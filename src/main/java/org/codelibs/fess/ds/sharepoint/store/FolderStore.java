@@ -0,0 +1,270 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.ds.sharepoint.store;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.codelibs.core.exception.IORuntimeException;
+
+/**
+ * File-based store of the document library folders enumerated by earlier crawls, keyed by site and server-relative URL.
+ * A folder whose modified time and item count are the same as when it was enumerated
+ * does not need to be enumerated again.
+ */
+public class FolderStore {
+    private static final Logger logger = LogManager.getLogger(FolderStore.class);
+
+    private static final char SEPARATOR = '\t';
+
+    // SharePoint does not allow '|' and ':' in file and folder names.
+    private static final char ENTRY_SEPARATOR = '|';
+
+    private static final char ID_SEPARATOR = ':';
+
+    private final Path path;
+
+    private final String siteName;
+
+    private final Map<String, Folder> storedFolders = new ConcurrentHashMap<>();
+
+    private final Map<String, Folder> folders = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new FolderStore and loads the folders from the given file if it exists.
+     *
+     * @param path the file to store folders in
+     * @param siteName the site name the folders belong to
+     */
+    public FolderStore(final Path path, final String siteName) {
+        this.path = path;
+        this.siteName = siteName;
+        load();
+    }
+
+    /**
+     * Returns the folder stored by an earlier crawl if it is unchanged.
+     *
+     * @param serverRelativeUrl the server-relative URL of the folder
+     * @param modified the current modified time of the folder in milliseconds
+     * @param itemCount the current number of files and subfolders in the folder
+     * @return the stored folder, or null if not found or changed
+     */
+    public Folder getUnchanged(final String serverRelativeUrl, final long modified, final int itemCount) {
+        if (serverRelativeUrl == null) {
+            return null;
+        }
+        final Folder stored = storedFolders.get(buildKey(serverRelativeUrl));
+        if (stored == null || stored.getModified() != modified || stored.getItemCount() != itemCount) {
+            return null;
+        }
+        return stored;
+    }
+
+    /**
+     * Records a folder enumerated or kept by this crawl.
+     *
+     * @param serverRelativeUrl the server-relative URL of the folder
+     * @param folder the folder
+     */
+    public void put(final String serverRelativeUrl, final Folder folder) {
+        if (serverRelativeUrl != null && folder != null) {
+            folders.put(buildKey(serverRelativeUrl), folder);
+        }
+    }
+
+    /**
+     * Writes the folders to the file, keeping the stored folders not seen by this crawl.
+     */
+    public synchronized void commit() {
+        final Properties properties = new Properties();
+        storedFolders.forEach((key, folder) -> properties.setProperty(key, folder.toString()));
+        folders.forEach((key, folder) -> properties.setProperty(key, folder.toString()));
+        try {
+            final Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            final Path tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+            try (OutputStream out = Files.newOutputStream(tempPath)) {
+                properties.store(out, "SharePoint document library folders");
+            }
+            Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (final IOException e) {
+            throw new IORuntimeException(e);
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("Stored {} folders to {}", properties.size(), path);
+        }
+    }
+
+    private String buildKey(final String serverRelativeUrl) {
+        return siteName + "/" + serverRelativeUrl;
+    }
+
+    private void load() {
+        if (!Files.exists(path)) {
+            return;
+        }
+        final Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(path)) {
+            properties.load(in);
+        } catch (final IOException e) {
+            throw new IORuntimeException(e);
+        }
+        properties.stringPropertyNames().forEach(key -> {
+            final Folder folder = Folder.parse(properties.getProperty(key));
+            if (folder != null) {
+                storedFolders.put(key, folder);
+            }
+        });
+        if (logger.isDebugEnabled()) {
+            logger.debug("Loaded {} folders from {}", storedFolders.size(), path);
+        }
+    }
+
+    /**
+     * Document library folder as enumerated by a crawl.
+     */
+    public static class Folder {
+        private final long modified;
+        private final int itemCount;
+        private final String listId;
+        private final Map<String, String> files;
+        private final List<String> subFolders;
+
+        /**
+         * Creates a folder.
+         *
+         * @param modified the modified time in milliseconds
+         * @param itemCount the number of files and subfolders
+         * @param listId the ID of the document library, or null if not known
+         * @param files the fingerprint IDs of the files keyed by item ID
+         * @param subFolders the server-relative URLs of the subfolders
+         */
+        public Folder(final long modified, final int itemCount, final String listId, final Map<String, String> files,
+                final List<String> subFolders) {
+            this.modified = modified;
+            this.itemCount = itemCount;
+            this.listId = listId;
+            this.files = Collections.unmodifiableMap(new LinkedHashMap<>(files));
+            this.subFolders = Collections.unmodifiableList(new ArrayList<>(subFolders));
+        }
+
+        /**
+         * Returns the modified time.
+         *
+         * @return the modified time in milliseconds
+         */
+        public long getModified() {
+            return modified;
+        }
+
+        /**
+         * Returns the number of files and subfolders.
+         *
+         * @return the item count
+         */
+        public int getItemCount() {
+            return itemCount;
+        }
+
+        /**
+         * Returns the ID of the document library.
+         *
+         * @return the list ID, or null if not known
+         */
+        public String getListId() {
+            return listId;
+        }
+
+        /**
+         * Returns the fingerprint IDs of the files keyed by item ID.
+         *
+         * @return the files
+         */
+        public Map<String, String> getFiles() {
+            return files;
+        }
+
+        /**
+         * Returns the server-relative URLs of the subfolders.
+         *
+         * @return the subfolders
+         */
+        public List<String> getSubFolders() {
+            return subFolders;
+        }
+
+        @Override
+        public String toString() {
+            final List<String> fileEntries = new ArrayList<>();
+            files.forEach((itemId, fingerprintId) -> fileEntries.add(itemId + ID_SEPARATOR + fingerprintId));
+            return String.valueOf(modified) + SEPARATOR + itemCount + SEPARATOR + (listId != null ? listId : "") + SEPARATOR
+                    + String.join(String.valueOf(ENTRY_SEPARATOR), fileEntries) + SEPARATOR
+                    + String.join(String.valueOf(ENTRY_SEPARATOR), subFolders);
+        }
+
+        private static Folder parse(final String value) {
+            final String[] values = value.split(String.valueOf(SEPARATOR), -1);
+            if (values.length != 5) {
+                return null;
+            }
+            try {
+                final Map<String, String> files = new LinkedHashMap<>();
+                for (final String entry : split(values[3])) {
+                    final int pos = entry.indexOf(ID_SEPARATOR);
+                    if (pos <= 0) {
+                        return null;
+                    }
+                    files.put(entry.substring(0, pos), entry.substring(pos + 1));
+                }
+                return new Folder(Long.parseLong(values[0]), Integer.parseInt(values[1]), values[2].isEmpty() ? null : values[2], files,
+                        split(values[4]));
+            } catch (final NumberFormatException e) {
+                return null;
+            }
+        }
+
+        private static List<String> split(final String value) {
+            if (value.isEmpty()) {
+                return Collections.emptyList();
+            }
+            final List<String> list = new ArrayList<>();
+            int start = 0;
+            int pos;
+            while ((pos = value.indexOf(ENTRY_SEPARATOR, start)) >= 0) {
+                list.add(value.substring(start, pos));
+                start = pos + 1;
+            }
+            list.add(value.substring(start));
+            return list;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.ds.sharepoint.store;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.codelibs.core.exception.IORuntimeException;
+
+/**
+ * File-based store of SharePoint metadata kept between crawls, keyed by site, metadata type and object ID.
+ * Each value is stored with the validator of its object, such as an ETag. A stored value is returned only after
+ * the current validator of the object has been confirmed with {@link #validate(String, String, String)},
+ * so values of objects changed since the last crawl are resolved again.
+ */
+public class MetadataStore {
+    private static final Logger logger = LogManager.getLogger(MetadataStore.class);
+
+    /** Metadata type of the server-relative URL of the display form of a list, validated by the list ETag. */
+    public static final String FORM_URL = "form_url";
+
+    private static final char SEPARATOR = '\t';
+
+    private final Path path;
+
+    private final String siteName;
+
+    private final Map<String, String[]> storedValues = new ConcurrentHashMap<>();
+
+    private final Map<String, String> validators = new ConcurrentHashMap<>();
+
+    private final Map<String, String> values = new ConcurrentHashMap<>();
+
+    private final Set<String> validatedTypes = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Creates a new MetadataStore and loads the metadata of a site from the given file if it exists.
+     *
+     * @param path the file to store metadata in
+     * @param siteName the site name the metadata belongs to
+     */
+    public MetadataStore(final Path path, final String siteName) {
+        this.path = path;
+        this.siteName = siteName;
+        load();
+    }
+
+    /**
+     * Confirms the current validator of an object.
+     * The stored value of the object becomes available if it was stored with the same validator.
+     *
+     * @param type the metadata type
+     * @param id the object ID
+     * @param validator the current validator of the object, such as its ETag
+     */
+    public void validate(final String type, final String id, final String validator) {
+        if (id == null || validator == null) {
+            return;
+        }
+        final String key = buildKey(type, id);
+        validators.put(key, validator);
+        final String[] stored = storedValues.get(key);
+        if (stored != null && validator.equals(stored[0])) {
+            values.putIfAbsent(key, stored[1]);
+        }
+    }
+
+    /**
+     * Records that the validators of all existing objects of a type have been confirmed by this crawl.
+     * Stored values of the other objects of the type, which no longer exist, are then dropped on commit.
+     *
+     * @param type the metadata type
+     */
+    public void setAllValidated(final String type) {
+        validatedTypes.add(type);
+    }
+
+    /**
+     * Returns the value of an object stored by an earlier crawl and still valid.
+     *
+     * @param type the metadata type
+     * @param id the object ID
+     * @return the value, or null if it is not stored or the object has changed
+     */
+    public String get(final String type, final String id) {
+        return id != null ? values.get(buildKey(type, id)) : null;
+    }
+
+    /**
+     * Records the value of an object. The value is stored only if the validator of the object was confirmed.
+     *
+     * @param type the metadata type
+     * @param id the object ID
+     * @param value the value
+     */
+    public void put(final String type, final String id, final String value) {
+        if (id != null && value != null && validators.containsKey(buildKey(type, id))) {
+            values.put(buildKey(type, id), value);
+        }
+    }
+
+    /**
+     * Writes the validated values to the file, keeping the stored values of objects not seen by this crawl
+     * unless all objects of their type were validated.
+     */
+    public synchronized void commit() {
+        final Properties properties = new Properties();
+        storedValues.forEach((key, stored) -> {
+            if (validators.containsKey(key) || validatedTypes.stream().noneMatch(type -> key.startsWith(buildKey(type, "")))) {
+                properties.setProperty(key, stored[0] + SEPARATOR + stored[1]);
+            }
+        });
+        values.forEach((key, value) -> properties.setProperty(key, validators.get(key) + SEPARATOR + value));
+        try {
+            final Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            final Path tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+            try (OutputStream out = Files.newOutputStream(tempPath)) {
+                properties.store(out, "SharePoint metadata");
+            }
+            Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (final IOException e) {
+            throw new IORuntimeException(e);
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("Stored {} metadata values to {}", properties.size(), path);
+        }
+    }
+
+    private String buildKey(final String type, final String id) {
+        return siteName + "/" + type + "/" + id;
+    }
+
+    private void load() {
+        if (!Files.exists(path)) {
+            return;
+        }
+        final Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(path)) {
+            properties.load(in);
+        } catch (final IOException e) {
+            throw new IORuntimeException(e);
+        }
+        properties.stringPropertyNames().forEach(key -> {
+            final String property = properties.getProperty(key);
+            final int index = property.indexOf(SEPARATOR);
+            if (index > 0) {
+                storedValues.put(key, new String[] { property.substring(0, index), property.substring(index + 1) });
+            }
+        });
+        if (logger.isDebugEnabled()) {
+            logger.debug("Loaded {} metadata values from {}", storedValues.size(), path);
+        }
+    }
+}
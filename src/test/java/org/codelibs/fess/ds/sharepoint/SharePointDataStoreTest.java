@@ -15,13 +15,28 @@
  */
 package org.codelibs.fess.ds.sharepoint;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 import org.junit.jupiter.api.TestInfo;
 
+import org.codelibs.fess.mylasta.direction.FessConfig;
+import org.codelibs.fess.opensearch.config.exentity.DataConfig;
 import org.codelibs.fess.util.ComponentUtil;
 import org.codelibs.fess.ds.sharepoint.UnitDsTestCase;
+import org.codelibs.fess.ds.sharepoint.crawl.SharePointCrawl;
 import org.junit.Test;
+import org.opensearch.index.query.BoolQueryBuilder;
+import org.opensearch.index.query.QueryBuilder;
+import org.opensearch.index.query.TermQueryBuilder;
+import org.opensearch.index.query.TermsQueryBuilder;
 
 public class SharePointDataStoreTest extends UnitDsTestCase {
+    private static final String DOCLIB_URL = "https://sp.example.com/sites/test/Shared%20Documents/";
+
     public SharePointDataStore dataStore;
 
     @Override
@@ -49,4 +64,143 @@ public class SharePointDataStoreTest extends UnitDsTestCase {
     @Test
     public void testCrawl() throws Exception {
     }
+
+    @Test
+    public void test_deleteRemovedDocuments_documentedScript() throws Exception {
+        ComponentUtil.setFessConfig(new FessConfig.SimpleImpl() {
+            @Override
+            public String getIndexFieldConfigId() {
+                return "config_id";
+            }
+
+            @Override
+            public String getIndexFieldRole() {
+                return "role";
+            }
+        });
+        final DataConfig dataConfig = new DataConfig();
+        dataConfig.setId("1");
+        final Map<String, Object> defaultDataMap = new HashMap<>();
+        defaultDataMap.put("config_id", dataConfig.getConfigId());
+        final List<Map<String, Object>> documents = new ArrayList<>();
+        for (final String itemId : new String[] { "1", "2" }) {
+            documents.add(indexDocument(defaultDataMap, "list1", itemId, DOCLIB_URL + itemId + ".txt"));
+        }
+        assertEquals("list1", documents.get(0).get("list_id"));
+        assertEquals("1", documents.get(0).get("item_id"));
+
+        // item 2 was removed from the list
+        final BoolQueryBuilder query = SharePointCrawler.buildRemovedItemsQuery(dataConfig, "list1", new int[] { 1 });
+        assertFalse(matches(query, documents.get(0)));
+        assertTrue(matches(query, documents.get(1)));
+        assertFalse(matches(SharePointCrawler.buildRemovedItemsQuery(dataConfig, "list2", new int[] { 1 }), documents.get(1)));
+    }
+
+    @Test
+    public void test_deleteItemDocuments_renamedItem() throws Exception {
+        ComponentUtil.setFessConfig(new FessConfig.SimpleImpl() {
+            @Override
+            public String getIndexFieldConfigId() {
+                return "config_id";
+            }
+
+            @Override
+            public String getIndexFieldRole() {
+                return "role";
+            }
+        });
+        final DataConfig dataConfig = new DataConfig();
+        dataConfig.setId("1");
+        final Map<String, Object> defaultDataMap = new HashMap<>();
+        defaultDataMap.put("config_id", dataConfig.getConfigId());
+        final Map<String, Object> oldDocument = indexDocument(defaultDataMap, "list1", "2", DOCLIB_URL + "old.txt");
+        final Map<String, Object> otherDocument = indexDocument(defaultDataMap, "list1", "1", DOCLIB_URL + "1.txt");
+
+        // item 2 was renamed, so its document at the old URL is deleted by the change log
+        final BoolQueryBuilder query = SharePointCrawl.buildItemsQuery(dataConfig, "list1", List.of("2"));
+        assertTrue(matches(query, oldDocument));
+        assertFalse(matches(query, otherDocument));
+    }
+
+    @Test
+    public void test_createRefreshFields() throws Exception {
+        ComponentUtil.setFessConfig(new FessConfig.SimpleImpl() {
+            @Override
+            public String getIndexFieldSegment() {
+                return "segment";
+            }
+
+            @Override
+            public String getIndexFieldExpires() {
+                return "expires";
+            }
+        });
+        final Map<String, Object> defaultDataMap = new HashMap<>();
+        defaultDataMap.put("config_id", "D1");
+        defaultDataMap.put("segment", "20261017000000");
+        defaultDataMap.put("expires", "2026-10-24T00:00:00.000Z");
+        assertEquals(Map.of("segment", "20261017000000", "expires", "2026-10-24T00:00:00.000Z"),
+                dataStore.createRefreshFields(defaultDataMap));
+
+        defaultDataMap.remove("expires");
+        assertEquals(Map.of("segment", "20261017000000"), dataStore.createRefreshFields(defaultDataMap));
+    }
+
+    private Map<String, Object> indexDocument(final Map<String, Object> defaultDataMap, final String listId, final String itemId,
+            final String url) {
+        // the document library script of README.md
+        final Map<String, String> scriptMap = new LinkedHashMap<>();
+        scriptMap.put("url", "url");
+        scriptMap.put("host", "host");
+        scriptMap.put("site", "site");
+        scriptMap.put("title", "title");
+        scriptMap.put("content", "content");
+        scriptMap.put("cache", "content");
+        scriptMap.put("digest", "digest");
+        scriptMap.put("content_length", "content.length()");
+        scriptMap.put("last_modified", "last_modified");
+        scriptMap.put("created", "created");
+        scriptMap.put("timestamp", "last_modified");
+        scriptMap.put("mimetype", "mimetype");
+        scriptMap.put("filetype", "filetype");
+
+        final Map<String, Object> resultMap = new HashMap<>();
+        resultMap.put("url", url);
+        resultMap.put("title", url.substring(url.lastIndexOf('/') + 1));
+        resultMap.put("content", "content " + itemId);
+        resultMap.put("role", List.of("1user"));
+        resultMap.put("list_id", listId);
+        resultMap.put("item_id", itemId);
+        final Map<String, Object> dataMap = dataStore.createDataMap(defaultDataMap, resultMap);
+        for (final Map.Entry<String, String> entry : scriptMap.entrySet()) {
+            final Object value = evaluate(entry.getValue(), resultMap);
+            if (value != null) {
+                dataMap.put(entry.getKey(), value);
+            }
+        }
+        return dataMap;
+    }
+
+    // evaluates the property references and length() calls the documented scripts consist of
+    private static Object evaluate(final String template, final Map<String, Object> paramMap) {
+        if (template.endsWith(".length()")) {
+            final Object value = paramMap.get(template.substring(0, template.length() - ".length()".length()));
+            return value != null ? value.toString().length() : null;
+        }
+        return paramMap.get(template);
+    }
+
+    private static boolean matches(final QueryBuilder query, final Map<String, Object> document) {
+        if (query instanceof final BoolQueryBuilder boolQuery) {
+            return boolQuery.filter().stream().allMatch(q -> matches(q, document))
+                    && boolQuery.mustNot().stream().noneMatch(q -> matches(q, document));
+        }
+        if (query instanceof final TermQueryBuilder termQuery) {
+            return termQuery.value().equals(document.get(termQuery.fieldName()));
+        }
+        if (query instanceof final TermsQueryBuilder termsQuery) {
+            return termsQuery.values().contains(document.get(termsQuery.fieldName()));
+        }
+        throw new IllegalArgumentException("Unsupported query: " + query);
+    }
 }
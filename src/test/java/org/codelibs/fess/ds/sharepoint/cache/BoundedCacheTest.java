@@ -0,0 +1,144 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.ds.sharepoint.cache;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.codelibs.fess.ds.sharepoint.UnitDsTestCase;
+import org.junit.jupiter.api.Test;
+
+public class BoundedCacheTest extends UnitDsTestCase {
+
+    @Override
+    protected String prepareConfigFile() {
+        return "test_app.xml";
+    }
+
+    @Override
+    protected boolean isSuppressTestCaseTransaction() {
+        return true;
+    }
+
+    @Test
+    public void test_evictLeastRecentlyUsed() {
+        final BoundedCache<String, String> cache = new BoundedCache<>(2, 0L);
+        cache.put("1", "a");
+        cache.put("2", "b");
+        assertEquals("a", cache.get("1"));
+        cache.put("3", "c");
+
+        assertEquals(2, cache.size());
+        assertNull(cache.get("2"));
+        assertEquals("a", cache.get("1"));
+        assertEquals("c", cache.get("3"));
+        assertEquals(3, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(0.75, cache.getHitRate(), 0.001);
+    }
+
+    @Test
+    public void test_expireAfterWrite() throws Exception {
+        final BoundedCache<String, String> cache = new BoundedCache<>(10, 50L);
+        cache.put("1", "a");
+        assertTrue(cache.containsKey("1"));
+        Thread.sleep(100L);
+
+        assertFalse(cache.containsKey("1"));
+        assertNull(cache.get("1"));
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+    }
+
+    @Test
+    public void test_computeIfAbsent() {
+        final BoundedCache<String, String> cache = new BoundedCache<>(10, 0L);
+        final String value = cache.computeIfAbsent("1", key -> "a" + cache.computeIfAbsent("2", nested -> "b"));
+
+        assertEquals("ab", value);
+        assertEquals("ab", cache.computeIfAbsent("1", key -> "c"));
+        assertEquals("b", cache.get("2"));
+        assertEquals(2, cache.getLoadCount());
+        assertEquals(2, cache.getMissCount());
+        assertEquals(2, cache.getHitCount());
+        assertTrue(cache.getTotalLoadTime() > 0);
+        assertNull(cache.computeIfAbsent("3", key -> null));
+        assertFalse(cache.containsKey("3"));
+    }
+
+    @Test
+    public void test_computeIfAbsent_concurrent() throws Exception {
+        final BoundedCache<String, String> cache = new BoundedCache<>(10, 0L);
+        final AtomicInteger loads = new AtomicInteger();
+        final CountDownLatch loading = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final Future<String> first = executor.submit(() -> cache.computeIfAbsent("1", key -> {
+                loads.incrementAndGet();
+                loading.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "a";
+            }));
+            assertTrue(loading.await(10, TimeUnit.SECONDS));
+            final Future<String> second = executor.submit(() -> cache.computeIfAbsent("1", key -> {
+                loads.incrementAndGet();
+                return "b";
+            }));
+            assertEquals("c", executor.submit(() -> cache.computeIfAbsent("2", key -> "c")).get(10, TimeUnit.SECONDS));
+            release.countDown();
+            assertEquals("a", first.get(10, TimeUnit.SECONDS));
+            assertEquals("a", second.get(10, TimeUnit.SECONDS));
+            assertEquals(1, loads.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void test_computeIfAbsent_failure() {
+        final BoundedCache<String, String> cache = new BoundedCache<>(10, 0L);
+        try {
+            cache.computeIfAbsent("1", key -> {
+                throw new IllegalStateException("failed");
+            });
+            fail();
+        } catch (final IllegalStateException e) {
+            assertEquals("failed", e.getMessage());
+        }
+        assertFalse(cache.containsKey("1"));
+        assertEquals("a", cache.computeIfAbsent("1", key -> "a"));
+    }
+
+    @Test
+    public void test_putIfAbsent_remove() {
+        final BoundedCache<String, String> cache = new BoundedCache<>(10, 0L);
+        assertNull(cache.putIfAbsent("1", "a"));
+        assertEquals("a", cache.putIfAbsent("1", "b"));
+        assertFalse(cache.remove("1", "b"));
+        assertTrue(cache.remove("1", "a"));
+        assertFalse(cache.containsKey("1"));
+    }
+}
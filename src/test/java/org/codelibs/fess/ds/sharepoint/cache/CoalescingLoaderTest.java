@@ -0,0 +1,84 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.ds.sharepoint.cache;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.codelibs.fess.ds.sharepoint.UnitDsTestCase;
+import org.junit.jupiter.api.Test;
+
+public class CoalescingLoaderTest extends UnitDsTestCase {
+
+    @Override
+    protected String prepareConfigFile() {
+        return "test_app.xml";
+    }
+
+    @Override
+    protected boolean isSuppressTestCaseTransaction() {
+        return true;
+    }
+
+    @Test
+    public void test_load_nullValue() {
+        final Map<String, CompletableFuture<String>> cache = new ConcurrentHashMap<>();
+        final AtomicInteger loads = new AtomicInteger();
+        assertNull(CoalescingLoader.load(cache, "list1", () -> {
+            loads.incrementAndGet();
+            return null;
+        }));
+        assertNull(CoalescingLoader.load(cache, "list1", () -> {
+            loads.incrementAndGet();
+            return "/Lists/a/DispForm.aspx";
+        }));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void test_load_otherKeyNotBlocked() throws Exception {
+        final Map<String, CompletableFuture<String>> cache = new ConcurrentHashMap<>();
+        final CountDownLatch loading = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final Future<String> first = executor.submit(() -> CoalescingLoader.load(cache, "list1", () -> {
+                loading.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "url1";
+            }));
+            assertTrue(loading.await(10, TimeUnit.SECONDS));
+            final Future<String> second = executor.submit(() -> CoalescingLoader.load(cache, "list2", () -> "url2"));
+            assertEquals("url2", second.get(10, TimeUnit.SECONDS));
+            assertFalse(first.isDone());
+            release.countDown();
+            assertEquals("url1", first.get(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
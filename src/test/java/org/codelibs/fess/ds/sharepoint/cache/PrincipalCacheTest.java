@@ -0,0 +1,138 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.ds.sharepoint.cache;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.codelibs.fess.ds.sharepoint.UnitDsTestCase;
+import org.junit.jupiter.api.Test;
+
+public class PrincipalCacheTest extends UnitDsTestCase {
+
+    @Override
+    protected String prepareConfigFile() {
+        return "test_app.xml";
+    }
+
+    @Override
+    protected boolean isSuppressTestCaseTransaction() {
+        return true;
+    }
+
+    @Test
+    public void test_get() {
+        final PrincipalCache cache = new PrincipalCache();
+        final AtomicInteger loads = new AtomicInteger();
+        final Set<String> roles = cache.get("10", () -> {
+            loads.incrementAndGet();
+            return new HashSet<>(Set.of("Ruser1", "Rgroup1"));
+        });
+        assertEquals(Set.of("Ruser1", "Rgroup1"), roles);
+        assertSame(roles, cache.get("10", () -> {
+            loads.incrementAndGet();
+            return Set.of();
+        }));
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.size());
+        try {
+            roles.add("Ruser2");
+            fail();
+        } catch (final UnsupportedOperationException e) {
+            // immutable
+        }
+    }
+
+    @Test
+    public void test_get_concurrent() throws Exception {
+        final PrincipalCache cache = new PrincipalCache();
+        final AtomicInteger loads = new AtomicInteger();
+        final CountDownLatch loading = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final Future<Set<String>> first = executor.submit(() -> cache.get("10", () -> {
+                loads.incrementAndGet();
+                loading.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return Set.of("Ruser1");
+            }));
+            assertTrue(loading.await(10, TimeUnit.SECONDS));
+            final Future<Set<String>> second = executor.submit(() -> cache.get("10", () -> {
+                loads.incrementAndGet();
+                return Set.of("Ruser2");
+            }));
+            release.countDown();
+            assertEquals(Set.of("Ruser1"), first.get(10, TimeUnit.SECONDS));
+            assertEquals(Set.of("Ruser1"), second.get(10, TimeUnit.SECONDS));
+            assertEquals(1, loads.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void test_get_failure() {
+        final PrincipalCache cache = new PrincipalCache();
+        try {
+            cache.get("10", () -> {
+                throw new IllegalStateException("failed");
+            });
+            fail();
+        } catch (final IllegalStateException e) {
+            assertEquals("failed", e.getMessage());
+        }
+        assertEquals(0, cache.size());
+        assertEquals(Set.of("Ruser1"), cache.get("10", () -> Set.of("Ruser1")));
+    }
+
+    @Test
+    public void test_sharePointGroupRoles() {
+        final PrincipalCache cache = new PrincipalCache();
+        assertNull(cache.getSharePointGroupRoles("20"));
+
+        final Set<String> roles = cache.putSharePointGroupRoles("20", new HashSet<>(Set.of("Ruser1", "Ruser2")));
+        assertEquals(Set.of("Ruser1", "Ruser2"), roles);
+        assertSame(roles, cache.getSharePointGroupRoles("20"));
+        assertSame(roles, cache.putSharePointGroupRoles("20", Set.of("Ruser3")));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void test_bounded() {
+        final PrincipalCache cache = new PrincipalCache(2, 1, 0L);
+        cache.get("10", () -> Set.of("Ruser1"));
+        cache.get("11", () -> Set.of("Ruser2"));
+        cache.get("12", () -> Set.of("Ruser3"));
+        assertEquals(2, cache.size());
+        assertEquals(Set.of("Ruser4"), cache.get("10", () -> Set.of("Ruser4")));
+
+        cache.putSharePointGroupRoles("20", Set.of("Ruser1"));
+        cache.putSharePointGroupRoles("21", Set.of("Ruser2"));
+        assertNull(cache.getSharePointGroupRoles("20"));
+        assertEquals(Set.of("Ruser2"), cache.getSharePointGroupRoles("21"));
+    }
+}
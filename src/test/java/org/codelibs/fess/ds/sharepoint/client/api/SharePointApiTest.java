@@ -15,13 +15,34 @@
  */
 package org.codelibs.fess.ds.sharepoint.client.api;
 
-import org.junit.jupiter.api.TestInfo;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
 
-import org.codelibs.fess.util.ComponentUtil;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.utils.DateUtils;
+import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.message.BasicStatusLine;
+import org.apache.http.params.HttpParams;
+import org.apache.http.protocol.HttpContext;
 import org.codelibs.fess.ds.sharepoint.UnitDsTestCase;
+import org.codelibs.fess.ds.sharepoint.client.exception.SharePointServerException;
+import org.codelibs.fess.util.ComponentUtil;
 import org.junit.Test;
+import org.junit.jupiter.api.TestInfo;
 
 public class SharePointApiTest extends UnitDsTestCase {
+
     @Override
     protected String prepareConfigFile() {
         return "test_app.xml";
@@ -130,4 +151,173 @@ public class SharePointApiTest extends UnitDsTestCase {
         assertEquals("value1", items.get(0));
         assertEquals("value2", items.get(1));
     }
+
+    @Test
+    public void test_doJsonRequest_streamValues() {
+        final TestApi api = new TestApi(new StubHttpClient(200,
+                "{\"odata.metadata\":\"meta\",\"value\":[{\"Id\":1,\"Title\":\"a\"},{\"Id\":2,\"Title\":\"b\"}],\"odata.nextLink\":\"next\"}"));
+        final List<Map<String, Object>> values = new ArrayList<>();
+        final SharePointApi.JsonResponse response = api.doJsonRequest(new HttpGet("http://localhost/_api/test"), values::add);
+        assertEquals(2, values.size());
+        assertEquals("a", values.get(0).get("Title"));
+        assertEquals("b", values.get(1).get("Title"));
+        assertFalse(response.getBodyAsMap().containsKey("value"));
+        assertEquals("next", response.getBodyAsMap().get("odata.nextLink"));
+        assertEquals("next", response.getNextLink());
+        assertFalse(response.isErrorResponse());
+    }
+
+    @Test
+    public void test_getNextLink_verbose() {
+        final TestApi api = new TestApi(new StubHttpClient(200, "{\"d\":{\"results\":[],\"__next\":\"http://localhost/_api/next\"}}"));
+        final SharePointApi.JsonResponse response = api.doJsonRequest(new HttpGet("http://localhost/_api/test"));
+        assertEquals("http://localhost/_api/next", response.getNextLink());
+    }
+
+    @Test
+    public void test_doJsonRequest_bodyMap() {
+        final TestApi api = new TestApi(new StubHttpClient(200, "{\"value\":[{\"Id\":1}],\"Title\":\"odata.error\"}"));
+        final SharePointApi.JsonResponse response = api.doJsonRequest(new HttpGet("http://localhost/_api/test"));
+        assertEquals(1, ((List<?>) response.getBodyAsMap().get("value")).size());
+        assertEquals("odata.error", response.getBodyAsMap().get("Title"));
+        assertTrue(response.getBody().contains("\"Title\":\"odata.error\""));
+        assertNull(response.getNextLink());
+    }
+
+    @Test
+    public void test_doJsonRequest_odataError() {
+        final TestApi api = new TestApi(new StubHttpClient(200, "{\"odata.error\":{\"code\":\"-1\"}}"));
+        try {
+            api.doJsonRequest(new HttpGet("http://localhost/_api/test"), value -> fail());
+            fail("SharePointServerException expected.");
+        } catch (final SharePointServerException e) {
+            assertEquals(200, e.getStatusCode());
+        }
+    }
+
+    @Test
+    public void test_doJsonRequest_errorStatus() {
+        final TestApi api = new TestApi(new StubHttpClient(404, "{\"odata.error\":{\"code\":\"-1\"}}"));
+        try {
+            api.doJsonRequest(new HttpGet("http://localhost/_api/test"));
+            fail("SharePointServerException expected.");
+        } catch (final SharePointServerException e) {
+            assertEquals(404, e.getStatusCode());
+        }
+    }
+
+    @Test
+    public void test_doJsonRequest_retryAfter() {
+        final StubHttpClient client = new StubHttpClient(429, "{\"odata.error\":{\"code\":\"-2147024860\"}}");
+        client.retryAfter = "120";
+        final TestApi api = new TestApi(client);
+        try {
+            api.doJsonRequest(new HttpGet("http://localhost/_api/test"));
+            fail("SharePointServerException expected.");
+        } catch (final SharePointServerException e) {
+            assertEquals(429, e.getStatusCode());
+            assertTrue(e.isThrottled());
+            assertEquals(120000L, e.getRetryAfter());
+        }
+    }
+
+    @Test
+    public void test_doJsonRequest_throttledWithoutJsonBody() {
+        final StubHttpClient client = new StubHttpClient(429, "<html><body>Too Many Requests</body></html>");
+        client.retryAfter = "30";
+        final TestApi api = new TestApi(client);
+        try {
+            api.doJsonRequest(new HttpGet("http://localhost/_api/test"));
+            fail("SharePointServerException expected.");
+        } catch (final SharePointServerException e) {
+            assertEquals(429, e.getStatusCode());
+            assertTrue(e.isThrottled());
+            assertEquals(30000L, e.getRetryAfter());
+            assertTrue(e.getMessage().contains("Too Many Requests"));
+        }
+
+        final TestApi plainTextApi = new TestApi(new StubHttpClient(503, "Service Unavailable"));
+        try {
+            plainTextApi.doJsonRequest(new HttpGet("http://localhost/_api/test"));
+            fail("SharePointServerException expected.");
+        } catch (final SharePointServerException e) {
+            assertEquals(503, e.getStatusCode());
+            assertTrue(e.isThrottled());
+        }
+    }
+
+    @Test
+    public void test_getRetryAfter() {
+        final TestApi api = new TestApi(new StubHttpClient(503, ""));
+        final StubResponse response = new StubResponse(503, "");
+        assertEquals(-1L, api.getRetryAfter(response));
+        response.setHeader("Retry-After", "5");
+        assertEquals(5000L, api.getRetryAfter(response));
+        response.setHeader("Retry-After", "Wed, 21 Oct 2015 07:28:00 GMT");
+        assertEquals(0L, api.getRetryAfter(response));
+        response.setHeader("Retry-After", DateUtils.formatDate(new Date(System.currentTimeMillis() + 60000L)));
+        final long retryAfter = api.getRetryAfter(response);
+        assertTrue(retryAfter > 50000L && retryAfter <= 60000L);
+        response.setHeader("Retry-After", "soon");
+        assertEquals(-1L, api.getRetryAfter(response));
+    }
+
+    private static class TestApi extends SharePointApi<SharePointApiResponse> {
+        TestApi(final CloseableHttpClient client) {
+            super(client, "http://localhost", null);
+        }
+
+        @Override
+        public SharePointApiResponse execute() {
+            return null;
+        }
+    }
+
+    private static class StubResponse extends BasicHttpResponse implements CloseableHttpResponse {
+        StubResponse(final int statusCode, final String body) {
+            super(new BasicStatusLine(HttpVersion.HTTP_1_1, statusCode, null));
+            setEntity(new StringEntity(body, ContentType.APPLICATION_JSON));
+        }
+
+        @Override
+        public void close() throws IOException {
+        }
+    }
+
+    private static class StubHttpClient extends CloseableHttpClient {
+        private final int statusCode;
+        private final String body;
+        private String retryAfter;
+
+        StubHttpClient(final int statusCode, final String body) {
+            this.statusCode = statusCode;
+            this.body = body;
+        }
+
+        @Override
+        protected CloseableHttpResponse doExecute(final HttpHost target, final HttpRequest request, final HttpContext context)
+                throws IOException {
+            final StubResponse response = new StubResponse(statusCode, body);
+            if (retryAfter != null) {
+                response.setHeader("Retry-After", retryAfter);
+            }
+            return response;
+        }
+
+        @Override
+        public void close() throws IOException {
+        }
+
+        @Override
+        @Deprecated
+        public HttpParams getParams() {
+            return null;
+        }
+
+        @Override
+        @Deprecated
+        public ClientConnectionManager getConnectionManager() {
+            return null;
+        }
+    }
 }
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.ds.sharepoint.client.api;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+
+import org.codelibs.fess.ds.sharepoint.UnitDsTestCase;
+import org.junit.jupiter.api.Test;
+
+public class SharePointDateUtilTest extends UnitDsTestCase {
+
+    @Override
+    protected String prepareConfigFile() {
+        return "test_app.xml";
+    }
+
+    @Override
+    protected boolean isSuppressTestCaseTransaction() {
+        return true;
+    }
+
+    @Test
+    public void test_parse_apiDateTime() throws Exception {
+        assertEquals(new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'").parse("2024-01-02T03:04:05Z"),
+                SharePointDateUtil.parse(SharePointDateUtil.API_DATE_TIME, "2024-01-02T03:04:05Z"));
+    }
+
+    @Test
+    public void test_parse_fieldValueDateTime() throws Exception {
+        assertEquals(new SimpleDateFormat("yyyy/MM/dd HH:mm").parse("2024/11/12 13:04"),
+                SharePointDateUtil.parse(SharePointDateUtil.FIELD_VALUE_DATE_TIME, "2024/11/12 13:04"));
+        assertEquals(new SimpleDateFormat("yyyy/MM/dd HH:mm").parse("2024/1/2 3:04"),
+                SharePointDateUtil.parse(SharePointDateUtil.FIELD_VALUE_DATE_TIME, "2024/1/2 3:04"));
+        assertEquals(new SimpleDateFormat("MM/dd/yyyy HH:mm").parse("1/2/2024 3:04"),
+                SharePointDateUtil.parse(SharePointDateUtil.FIELD_VALUE_DATE_TIME_2013, "1/2/2024 3:04"));
+    }
+
+    @Test
+    public void test_parse_invalid() {
+        try {
+            SharePointDateUtil.parse(SharePointDateUtil.API_DATE_TIME, "2024/01/02");
+            fail();
+        } catch (final ParseException e) {
+            // expected
+        }
+        try {
+            SharePointDateUtil.parse(SharePointDateUtil.API_DATE_TIME, null);
+            fail();
+        } catch (final ParseException e) {
+            // expected
+        }
+    }
+}
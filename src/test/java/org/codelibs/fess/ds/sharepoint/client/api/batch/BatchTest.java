@@ -0,0 +1,196 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.ds.sharepoint.client.api.batch;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.message.BasicStatusLine;
+import org.apache.http.params.HttpParams;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.EntityUtils;
+import org.codelibs.fess.ds.sharepoint.UnitDsTestCase;
+import org.codelibs.fess.ds.sharepoint.client.api.list.getlistitem.GetListItemValue;
+import org.codelibs.fess.ds.sharepoint.client.api.list.getlistitem.GetListItemValueResponse;
+import org.codelibs.fess.ds.sharepoint.client.exception.SharePointServerException;
+import org.junit.jupiter.api.Test;
+
+public class BatchTest extends UnitDsTestCase {
+
+    private static final String SITE_URL = "http://localhost/sites/test/";
+
+    private static final String BOUNDARY = "batchresponse_0123";
+
+    @Override
+    protected String prepareConfigFile() {
+        return "test_app.xml";
+    }
+
+    @Override
+    protected boolean isSuppressTestCaseTransaction() {
+        return true;
+    }
+
+    @Test
+    public void test_getBoundary() {
+        assertEquals(BOUNDARY, Batch.getBoundary("multipart/mixed; boundary=" + BOUNDARY));
+        assertEquals(BOUNDARY, Batch.getBoundary("multipart/mixed; Boundary=\"" + BOUNDARY + "\""));
+        assertNull(Batch.getBoundary("application/json"));
+        assertNull(Batch.getBoundary(null));
+    }
+
+    @Test
+    public void test_splitParts() {
+        final List<String> parts = Batch.splitParts(createBatchResponse(itemPart(200, "1"), itemPart(404, "2")), BOUNDARY);
+        assertEquals(2, parts.size());
+        assertEquals(200, Batch.getStatusCode(parts.get(0)));
+        assertTrue(Batch.getBody(parts.get(0)).startsWith("{\"ID\":\"1\""));
+        assertEquals(404, Batch.getStatusCode(parts.get(1)));
+    }
+
+    @Test
+    public void test_execute() throws Exception {
+        final StubHttpClient client = new StubHttpClient(createBatchResponse(itemPart(200, "1"), itemPart(404, "2"), itemPart(200, "3")));
+        final Batch batch = new Batch(client, SITE_URL, null);
+        final List<BatchResponse.Result<GetListItemValueResponse>> results = new ArrayList<>();
+        for (final String itemId : new String[] { "1", "2", "3" }) {
+            results.add(batch.add(new GetListItemValue(client, SITE_URL, null).setListId("abc").setItemId(itemId)));
+        }
+        final BatchResponse response = batch.execute();
+
+        assertEquals(1, client.requests.size());
+        assertEquals(SITE_URL + "_api/$batch", client.requests.get(0).getRequestLine().getUri());
+        final String requestBody = EntityUtils.toString(((HttpEntityEnclosingRequest) client.requests.get(0)).getEntity());
+        assertTrue(requestBody.contains("GET " + SITE_URL + "/_api/Web/Lists(guid'abc')/Items(2)/FieldValuesAsText HTTP/1.1"));
+
+        assertEquals(3, response.getResults().size());
+        assertTrue(results.get(0).isSuccess());
+        assertNull(results.get(0).getException());
+        assertEquals("1", results.get(0).get().getId());
+        assertEquals("Item 1", results.get(0).get().getTitle());
+        assertFalse(results.get(1).isSuccess());
+        assertEquals(404, ((SharePointServerException) results.get(1).getException()).getStatusCode());
+        try {
+            results.get(1).get();
+            fail();
+        } catch (final SharePointServerException e) {
+            assertEquals(404, e.getStatusCode());
+        }
+        assertEquals("3", results.get(2).get().getId());
+    }
+
+    @Test
+    public void test_execute_single() {
+        final StubHttpClient client = new StubHttpClient(createBatchResponse());
+        final Batch batch = new Batch(client, SITE_URL, null);
+        batch.add(new GetListItemValue(client, SITE_URL, null).setListId("abc").setItemId("1"));
+        batch.execute();
+
+        assertEquals(1, client.requests.size());
+        assertEquals("GET", client.requests.get(0).getRequestLine().getMethod());
+    }
+
+    @Test
+    public void test_execute_notExecuted() {
+        final StubHttpClient client = new StubHttpClient(createBatchResponse());
+        final BatchResponse.Result<GetListItemValueResponse> result =
+                new Batch(client, SITE_URL, null).add(new GetListItemValue(client, SITE_URL, null).setListId("abc").setItemId("1"));
+        try {
+            result.get();
+            fail();
+        } catch (final IllegalStateException e) {
+            // expected
+        }
+    }
+
+    private static String itemPart(final int statusCode, final String itemId) {
+        final String body = statusCode == 200
+                ? "{\"ID\":\"" + itemId + "\",\"Title\":\"Item " + itemId + "\",\"Modified\":\"2024/01/02 3:04\",\"Created\":\"2024/01/01 3:04\"}"
+                : "{\"odata.error\":{\"code\":\"-2147024809\"}}";
+        return "HTTP/1.1 " + statusCode + " OK\r\nCONTENT-TYPE: application/json;odata=minimalmetadata\r\n\r\n" + body;
+    }
+
+    private static String createBatchResponse(final String... parts) {
+        final StringBuilder buf = new StringBuilder();
+        for (final String part : parts) {
+            buf.append("--").append(BOUNDARY).append("\r\n");
+            buf.append("Content-Type: application/http\r\nContent-Transfer-Encoding: binary\r\n\r\n");
+            buf.append(part).append("\r\n");
+        }
+        buf.append("--").append(BOUNDARY).append("--\r\n");
+        return buf.toString();
+    }
+
+    private static class StubResponse extends BasicHttpResponse implements CloseableHttpResponse {
+        StubResponse(final String body, final String contentType) {
+            super(new BasicStatusLine(HttpVersion.HTTP_1_1, 200, "OK"));
+            final StringEntity entity = new StringEntity(body, "UTF-8");
+            entity.setContentType(contentType);
+            setEntity(entity);
+        }
+
+        @Override
+        public void close() throws IOException {
+            // nothing
+        }
+    }
+
+    private static class StubHttpClient extends CloseableHttpClient {
+        private final String batchResponse;
+        private final List<HttpRequest> requests = new ArrayList<>();
+
+        StubHttpClient(final String batchResponse) {
+            this.batchResponse = batchResponse;
+        }
+
+        @Override
+        protected CloseableHttpResponse doExecute(final HttpHost target, final HttpRequest request, final HttpContext context) {
+            requests.add(request);
+            if ("POST".equals(request.getRequestLine().getMethod())) {
+                return new StubResponse(batchResponse, "multipart/mixed; boundary=" + BOUNDARY);
+            }
+            return new StubResponse("{\"ID\":\"1\",\"Title\":\"Item 1\",\"Modified\":\"2024/01/02 3:04\",\"Created\":\"2024/01/01 3:04\"}",
+                    "application/json");
+        }
+
+        @Override
+        public void close() throws IOException {
+            // nothing
+        }
+
+        @Override
+        @Deprecated
+        public HttpParams getParams() {
+            return null;
+        }
+
+        @Override
+        @Deprecated
+        public ClientConnectionManager getConnectionManager() {
+            return null;
+        }
+    }
+}
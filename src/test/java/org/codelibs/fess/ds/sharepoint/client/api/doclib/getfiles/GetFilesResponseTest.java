@@ -0,0 +1,152 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.ds.sharepoint.client.api.doclib.getfiles;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.codelibs.fess.ds.sharepoint.UnitDsTestCase;
+import org.codelibs.fess.util.ComponentUtil;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class GetFilesResponseTest extends UnitDsTestCase {
+
+    @Override
+    protected String prepareConfigFile() {
+        return "test_app.xml";
+    }
+
+    @Override
+    protected boolean isSuppressTestCaseTransaction() {
+        return true;
+    }
+
+    @Override
+    public void tearDown(TestInfo testInfo) throws Exception {
+        ComponentUtil.setFessConfig(null);
+        super.tearDown(testInfo);
+    }
+
+    @Test
+    public void test_createDocLibFile_withoutListItem() {
+        final GetFilesResponse.DocLibFile file = GetFilesResponse.createDocLibFile(createFileMap());
+        assertEquals("test.docx", file.getFileName());
+        assertEquals("/sites/test/Shared Documents/test.docx", file.getServerRelativeUrl());
+        assertNotNull(file.getModified());
+        assertFalse(file.hasListItem());
+        assertNull(file.getListId());
+        assertNull(file.getItemId());
+        assertNull(file.getEtag());
+        assertEquals(-1L, file.getLength());
+        assertNull(file.getUniqueRoleAssignments());
+        assertNull(file.getFileDirRef());
+    }
+
+    @Test
+    public void test_createDocLibFile_withListItem() {
+        final Map<String, Object> listItem = new HashMap<>();
+        listItem.put("odata.editLink", "Web/Lists(guid'0a1b2c3d-0000-1111-2222-333344445555')/Items(12)");
+        listItem.put("Id", 12);
+        listItem.put("Title", "Test Document");
+        listItem.put("Description", "<div>desc</div>");
+        listItem.put("AuthorId", 7);
+        listItem.put("HasUniqueRoleAssignments", false);
+        listItem.put("FileDirRef", "/sites/test/Shared Documents");
+        final Map<String, Object> fieldValues = new HashMap<>();
+        fieldValues.put("Title", "Test Document");
+        fieldValues.put("Description", "desc");
+        fieldValues.put("Author", "Test User");
+        fieldValues.put("Checked", "Yes");
+        fieldValues.put("Keywords", null);
+        listItem.put("FieldValuesAsText", fieldValues);
+        final Map<String, Object> fileMap = createFileMap();
+        fileMap.put("ListItemAllFields", listItem);
+
+        final GetFilesResponse.DocLibFile file = GetFilesResponse.createDocLibFile(fileMap);
+        assertTrue(file.hasListItem());
+        assertEquals("0a1b2c3d-0000-1111-2222-333344445555", file.getListId());
+        assertEquals("12", file.getItemId());
+        assertEquals("Test Document", file.getListValues().get("Title"));
+        assertEquals("desc", file.getListValues().get("Description"));
+        assertEquals("Test User", file.getListValues().get("Author"));
+        assertEquals("Yes", file.getListValues().get("Checked"));
+        assertFalse(file.getListValues().containsKey("AuthorId"));
+        assertFalse(file.getListValues().containsKey("Keywords"));
+        assertEquals(Boolean.FALSE, file.getUniqueRoleAssignments());
+        assertEquals("/sites/test/Shared Documents", file.getFileDirRef());
+    }
+
+    @Test
+    public void test_createDocLibFile_withoutFieldValues() {
+        final Map<String, Object> listItem = new HashMap<>();
+        listItem.put("odata.editLink", "Web/Lists(guid'abc')/Items(12)");
+        listItem.put("Id", 12);
+        listItem.put("Title", "Test Document");
+        final Map<String, Object> fileMap = createFileMap();
+        fileMap.put("ListItemAllFields", listItem);
+
+        // values are retrieved by GetListItemValue instead
+        final GetFilesResponse.DocLibFile file = GetFilesResponse.createDocLibFile(fileMap);
+        assertFalse(file.hasListItem());
+        assertNull(file.getListValues());
+    }
+
+    @Test
+    public void test_addFile_fileValue() throws Exception {
+        final String json = "{\"Name\":\"test.docx\",\"ServerRelativeUrl\":\"/sites/test/Shared Documents/test.docx\","
+                + "\"TimeCreated\":\"2024-01-01T00:00:00Z\",\"TimeLastModified\":\"2024-01-02T00:00:00Z\",\"Length\":\"10\","
+                + "\"UniqueId\":\"f1\",\"ETag\":\"\\\"{F1},2\\\"\","
+                + "\"ListItemAllFields\":{\"odata.editLink\":\"Web/Lists(guid'abc')/Items(3)\",\"Id\":3,\"Title\":\"T\","
+                + "\"HasUniqueRoleAssignments\":true,\"FileDirRef\":\"/sites/test/Shared Documents\","
+                + "\"FieldValuesAsText\":{\"Title\":\"T\"}}}";
+        final GetFilesResponse.FileValue fileValue = new ObjectMapper().readValue(json, GetFilesResponse.FileValue.class);
+        final GetFilesResponse response = new GetFilesResponse();
+        response.addFile(fileValue);
+
+        final GetFilesResponse.DocLibFile file = response.getFiles().get(0);
+        assertEquals("test.docx", file.getFileName());
+        assertEquals("", file.getTitle());
+        assertEquals(GetFilesResponse.createDocLibFile(createFileMap()).getModified(), file.getModified());
+        assertTrue(file.hasListItem());
+        assertEquals("abc", file.getListId());
+        assertEquals("3", file.getItemId());
+        assertEquals("T", file.getListValues().get("Title"));
+        assertEquals("f1", file.getUniqueId());
+        assertEquals("\"{F1},2\"", file.getEtag());
+        assertEquals(10L, file.getLength());
+        assertEquals(Boolean.TRUE, file.getUniqueRoleAssignments());
+        assertEquals("/sites/test/Shared Documents", file.getFileDirRef());
+    }
+
+    @Test
+    public void test_getListId() {
+        assertNull(GetFilesResponse.getListId(null));
+        assertNull(GetFilesResponse.getListId("Web/Lists/Items(1)"));
+        assertEquals("abc", GetFilesResponse.getListId("Web/Lists(guid'abc')/Items(1)"));
+    }
+
+    private Map<String, Object> createFileMap() {
+        final Map<String, Object> fileMap = new HashMap<>();
+        fileMap.put("Name", "test.docx");
+        fileMap.put("ServerRelativeUrl", "/sites/test/Shared Documents/test.docx");
+        fileMap.put("TimeCreated", "2024-01-01T00:00:00Z");
+        fileMap.put("TimeLastModified", "2024-01-02T00:00:00Z");
+        return fileMap;
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.ds.sharepoint.client.api.file.getfile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.utils.DateUtils;
+import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.message.BasicStatusLine;
+import org.apache.http.params.HttpParams;
+import org.apache.http.protocol.HttpContext;
+import org.codelibs.fess.ds.sharepoint.UnitDsTestCase;
+import org.codelibs.fess.ds.sharepoint.client.exception.SharePointClientException;
+import org.junit.jupiter.api.Test;
+
+public class GetFileTest extends UnitDsTestCase {
+
+    @Override
+    protected String prepareConfigFile() {
+        return "test_app.xml";
+    }
+
+    @Override
+    protected boolean isSuppressTestCaseTransaction() {
+        return true;
+    }
+
+    @Test
+    public void test_execute_unconditional() throws Exception {
+        final StubHttpClient client = new StubHttpClient(200, "abc");
+        try (GetFileResponse response = new GetFile(client, "http://localhost/sites/test", null).setServerRelativeUrl("/sites/test/a.txt")
+                .execute()) {
+            assertFalse(response.isNotModified());
+            try (InputStream in = response.getFileContent()) {
+                assertEquals("abc", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        assertFalse(client.request.containsHeader("If-None-Match"));
+        assertFalse(client.request.containsHeader("If-Modified-Since"));
+    }
+
+    @Test
+    public void test_execute_notModified() throws Exception {
+        final StubHttpClient client = new StubHttpClient(304, "");
+        final Date modified = DateUtils.parseDate("Wed, 21 Oct 2015 07:28:00 GMT");
+        try (GetFileResponse response = new GetFile(client, "http://localhost/sites/test", null).setServerRelativeUrl("/sites/test/a.txt")
+                .setIfNoneMatch("\"{F1},2\"")
+                .setIfModifiedSince(modified)
+                .execute()) {
+            assertTrue(response.isNotModified());
+            try {
+                response.getFileContent();
+                fail("SharePointClientException expected.");
+            } catch (final SharePointClientException e) {
+                // expected
+            }
+        }
+        assertEquals("\"{F1},2\"", client.request.getFirstHeader("If-None-Match").getValue());
+        assertEquals("Wed, 21 Oct 2015 07:28:00 GMT", client.request.getFirstHeader("If-Modified-Since").getValue());
+    }
+
+    private static class StubResponse extends BasicHttpResponse implements CloseableHttpResponse {
+        StubResponse(final int statusCode, final String body) {
+            super(new BasicStatusLine(HttpVersion.HTTP_1_1, statusCode, null));
+            setEntity(new StringEntity(body, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void close() throws IOException {
+        }
+    }
+
+    private static class StubHttpClient extends CloseableHttpClient {
+        private final int statusCode;
+        private final String body;
+        private HttpRequest request;
+
+        StubHttpClient(final int statusCode, final String body) {
+            this.statusCode = statusCode;
+            this.body = body;
+        }
+
+        @Override
+        protected CloseableHttpResponse doExecute(final HttpHost target, final HttpRequest request, final HttpContext context)
+                throws IOException {
+            this.request = request;
+            return new StubResponse(statusCode, body);
+        }
+
+        @Override
+        public void close() throws IOException {
+        }
+
+        @Override
+        @Deprecated
+        public HttpParams getParams() {
+            return null;
+        }
+
+        @Override
+        @Deprecated
+        public ClientConnectionManager getConnectionManager() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.ds.sharepoint.client.api.list.getlistchanges;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.codelibs.fess.ds.sharepoint.UnitDsTestCase;
+import org.junit.jupiter.api.Test;
+
+public class GetListChangesResponseTest extends UnitDsTestCase {
+
+    @Override
+    protected String prepareConfigFile() {
+        return "test_app.xml";
+    }
+
+    @Override
+    protected boolean isSuppressTestCaseTransaction() {
+        return true;
+    }
+
+    @Test
+    public void test_createChange() {
+        final GetListChangesResponse.Change added = GetListChangesResponse.createChange(createChangeMap(1, 10, "token1"));
+        assertEquals("10", added.getItemId());
+        assertEquals("token1", added.getChangeToken());
+        assertTrue(added.isUpdated());
+        assertFalse(added.isDeleted());
+
+        final GetListChangesResponse.Change deleted = GetListChangesResponse.createChange(createChangeMap(3, 11, "token2"));
+        assertTrue(deleted.isDeleted());
+        assertFalse(deleted.isUpdated());
+
+        final GetListChangesResponse.Change movedAway = GetListChangesResponse.createChange(createChangeMap(5, 12, "token3"));
+        assertTrue(movedAway.isDeleted());
+
+        final GetListChangesResponse.Change roleAdded = GetListChangesResponse.createChange(createChangeMap(8, 13, "token4"));
+        assertFalse(roleAdded.isDeleted());
+        assertFalse(roleAdded.isUpdated());
+        assertTrue(roleAdded.isSecurityChanged());
+        assertFalse(added.isSecurityChanged());
+        assertFalse(deleted.isSecurityChanged());
+    }
+
+    @Test
+    public void test_createChange_security() {
+        final GetListChangesResponse.Change scopeAdded = GetListChangesResponse.createChange(createChangeMap(17, 10, "token1"));
+        assertEquals("10", scopeAdded.getItemId());
+        assertTrue(scopeAdded.isSecurityChanged());
+        assertFalse(scopeAdded.isUpdated());
+
+        final Map<String, Object> memberRemovedMap = new HashMap<>();
+        memberRemovedMap.put("ChangeType", 14);
+        memberRemovedMap.put("GroupId", 5);
+        memberRemovedMap.put("ChangeToken", Map.of("StringValue", "token2"));
+        final GetListChangesResponse.Change memberRemoved = GetListChangesResponse.createChange(memberRemovedMap);
+        assertNull(memberRemoved.getItemId());
+        assertTrue(memberRemoved.isSecurityChanged());
+        assertFalse(memberRemoved.isDeleted());
+    }
+
+    @Test
+    public void test_getLastChangeToken() {
+        assertNull(new GetListChangesResponse(List.of()).getLastChangeToken());
+        final GetListChangesResponse response = new GetListChangesResponse(List.of(new GetListChangesResponse.Change(1, "1", "token1"),
+                new GetListChangesResponse.Change(2, "2", "token2"), new GetListChangesResponse.Change(2, "3", null)));
+        assertEquals("token2", response.getLastChangeToken());
+    }
+
+    private Map<String, Object> createChangeMap(final int changeType, final int itemId, final String token) {
+        final Map<String, Object> map = new HashMap<>();
+        map.put("ChangeType", changeType);
+        map.put("ItemId", itemId);
+        map.put("ChangeToken", Map.of("StringValue", token));
+        return map;
+    }
+}
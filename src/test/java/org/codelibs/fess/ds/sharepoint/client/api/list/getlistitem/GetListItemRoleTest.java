@@ -19,8 +19,11 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 
 import org.codelibs.fess.ds.sharepoint.UnitDsTestCase;
+import org.codelibs.fess.ds.sharepoint.client.exception.SharePointServerException;
 import org.codelibs.fess.util.ComponentUtil;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInfo;
@@ -172,8 +175,117 @@ public class GetListItemRoleTest extends UnitDsTestCase {
         assertFalse(getListItemRole.isLimitedAccessOnly(roleAssignment));
     }
 
+    // === expandGroupUsers tests ===
+
+    @Test
+    public void test_requestRoleAssignments_sharedExpandFallback() {
+        final AtomicBoolean expandGroupUsers = new AtomicBoolean(true);
+        final List<String> requestedUrls = new ArrayList<>();
+        final Supplier<GetListItemRole> factory = () -> new GetListItemRole(null, "https://example.sharepoint.com/sites/test", null) {
+            @Override
+            protected String requestRoleAssignments(final String buildUrl, final List<Map<String, Object>> values) {
+                requestedUrls.add(buildUrl);
+                if (buildUrl.contains("Member/Users")) {
+                    throw new SharePointServerException("Bad Request", 400);
+                }
+                return null;
+            }
+        }.setId("list1", "1").setExpandGroupUsers(expandGroupUsers);
+
+        factory.get().execute();
+        assertEquals(2, requestedUrls.size());
+        assertTrue(requestedUrls.get(0).contains("Member/Users"));
+        assertFalse(requestedUrls.get(1).contains("Member/Users"));
+        assertFalse(expandGroupUsers.get());
+
+        // the fallback is learned once for all instances sharing the flag
+        requestedUrls.clear();
+        factory.get().execute();
+        assertEquals(1, requestedUrls.size());
+        assertFalse(requestedUrls.get(0).contains("Member/Users"));
+    }
+
+    // === buildRoleResponse tests ===
+
+    @Test
+    public void test_buildRoleResponse_expandedMembers() {
+        final Map<String, GetListItemRoleResponse.SharePointGroup> cache = new HashMap<>();
+        getListItemRole.setSharePointGroupCache(cache);
+        final List<Map<String, Object>> values = new ArrayList<>();
+        values.add(createRoleAssignment("11", createMember("11", 1, "User A", "i:0#.f|membership|a@example.com"), 2));
+        values.add(createRoleAssignment("12", createMember("12", 4, "Security Group", "c:0t.c|tenant|abc"), 3));
+        final Map<String, Object> group = createMember("13", 8, "Members", "Members");
+        group.put("Users", List.of(createMember("21", 1, "User B", "i:0#.f|membership|b@example.com")));
+        values.add(createRoleAssignment("13", group, 3));
+        values.add(createRoleAssignment("14", createMember("14", 1, "Guest", "guest"), 1));
+
+        final GetListItemRoleResponse response = getListItemRole.buildRoleResponse(values);
+        assertEquals(1, response.getUsers().size());
+        assertEquals("User A", response.getUsers().get(0).getTitle());
+        assertEquals(1, response.getSecurityGroups().size());
+        assertEquals("12", response.getSecurityGroups().get(0).getId());
+        assertEquals(1, response.getSharePointGroups().size());
+        final GetListItemRoleResponse.SharePointGroup sharePointGroup = response.getSharePointGroups().get(0);
+        assertEquals("Members", sharePointGroup.getTitle());
+        assertEquals(1, sharePointGroup.getUsers().size());
+        assertEquals("User B", sharePointGroup.getUsers().get(0).getTitle());
+        assertSame(sharePointGroup, cache.get("13"));
+    }
+
+    @Test
+    public void test_buildRoleResponse_cachedGroup() {
+        final Map<String, GetListItemRoleResponse.SharePointGroup> cache = new HashMap<>();
+        final GetListItemRoleResponse.SharePointGroup cached = new GetListItemRoleResponse.SharePointGroup("13", "Members");
+        cache.put("13", cached);
+        getListItemRole.setSharePointGroupCache(cache);
+        final List<Map<String, Object>> values = new ArrayList<>();
+        values.add(createRoleAssignment("13", null, 3));
+
+        final GetListItemRoleResponse response = getListItemRole.buildRoleResponse(values);
+        assertEquals(1, response.getSharePointGroups().size());
+        assertSame(cached, response.getSharePointGroups().get(0));
+    }
+
+    @Test
+    public void test_buildRoleResponse_unresolvedMembers() {
+        getListItemRole.setSharePointGroupCache(new HashMap<>());
+        getListItemRole.setResolveMembers(false);
+        final List<Map<String, Object>> values = new ArrayList<>();
+        values.add(createRoleAssignment("11", createMember("11", 1, "User A", "i:0#.f|membership|a@example.com"), 2));
+        values.add(createRoleAssignment("14", createMember("14", 1, "Guest", "guest"), 1));
+
+        final GetListItemRoleResponse response = getListItemRole.buildRoleResponse(values);
+        assertTrue(response.getUsers().isEmpty());
+        assertEquals(1, response.getRoleAssignments().size());
+        final GetListItemRoleResponse.RoleAssignment roleAssignment = response.getRoleAssignments().get(0);
+        assertEquals("11", roleAssignment.getPrincipalId());
+
+        final GetListItemRoleResponse resolved = getListItemRole.resolvePrincipal(roleAssignment);
+        assertEquals(1, resolved.getUsers().size());
+        assertEquals("User A", resolved.getUsers().get(0).getTitle());
+    }
+
     // === Helper methods ===
 
+    private Map<String, Object> createRoleAssignment(final String principalId, final Map<String, Object> member,
+            final int... roleTypeKinds) {
+        final Map<String, Object> roleAssignment = createRoleAssignment(roleTypeKinds);
+        roleAssignment.put("PrincipalId", principalId);
+        if (member != null) {
+            roleAssignment.put("Member", member);
+        }
+        return roleAssignment;
+    }
+
+    private Map<String, Object> createMember(final String id, final int principalType, final String title, final String loginName) {
+        final Map<String, Object> member = new HashMap<>();
+        member.put("Id", id);
+        member.put("PrincipalType", principalType);
+        member.put("Title", title);
+        member.put("LoginName", loginName);
+        return member;
+    }
+
     private Map<String, Object> createRoleAssignment(final int... roleTypeKinds) {
         final Map<String, Object> roleAssignment = new HashMap<>();
         final List<Map<String, Object>> bindings = new ArrayList<>();
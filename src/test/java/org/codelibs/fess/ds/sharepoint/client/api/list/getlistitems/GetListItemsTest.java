@@ -0,0 +1,124 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.ds.sharepoint.client.api.list.getlistitems;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Date;
+
+import org.codelibs.fess.ds.sharepoint.UnitDsTestCase;
+import org.codelibs.fess.ds.sharepoint.client.api.list.getlistitem.GetListItemAttachmentsResponse;
+import org.codelibs.fess.ds.sharepoint.client.api.list.getlistitem.GetListItemValueResponse;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class GetListItemsTest extends UnitDsTestCase {
+
+    @Override
+    protected String prepareConfigFile() {
+        return "test_app.xml";
+    }
+
+    @Override
+    protected boolean isSuppressTestCaseTransaction() {
+        return true;
+    }
+
+    @Test
+    public void test_buildValueSelect_allFields() {
+        final GetListItems getListItems = new GetListItems(null, "https://example.sharepoint.com/sites/test", null);
+        assertEquals("FieldValuesAsText", getListItems.buildValueSelect());
+        getListItems.setValueFields(Arrays.asList());
+        assertEquals("FieldValuesAsText", getListItems.buildValueSelect());
+    }
+
+    @Test
+    public void test_buildValueSelect_includeFields() {
+        final GetListItems getListItems = new GetListItems(null, "https://example.sharepoint.com/sites/test", null);
+        getListItems.setValueFields(Arrays.asList("Body", "Title"));
+        final String select = getListItems.buildValueSelect();
+        assertTrue(select.startsWith("FieldValuesAsText/ID,FieldValuesAsText/Title,"));
+        assertTrue(select.endsWith(",FieldValuesAsText/Order,FieldValuesAsText/Body"));
+        assertEquals(select.indexOf("FieldValuesAsText/Title,"), select.lastIndexOf("FieldValuesAsText/Title,"));
+    }
+
+    @Test
+    public void test_buildFilterParam() {
+        final GetListItems getListItems = new GetListItems(null, "https://example.sharepoint.com/sites/test", null);
+        assertEquals("", getListItems.buildFilterParam());
+        getListItems.setModifiedSince(Date.from(Instant.parse("2024-01-02T03:04:05Z")));
+        assertEquals("&%24filter=Modified%20gt%20datetime%272024-01-02T03:04:05Z%27&%24orderby=ID", getListItems.buildFilterParam());
+        getListItems.setModifiedSince(null);
+        assertEquals("", getListItems.buildFilterParam());
+    }
+
+    @Test
+    public void test_createListItem_withFieldValues() throws Exception {
+        final String json = "{\"Id\":\"3\",\"odata.editLink\":\"Web/Lists(guid'abc')/Items(3)\",\"Title\":\"Item\",\"Attachments\":false,"
+                + "\"Created\":\"2024-01-02T03:04:05Z\",\"Modified\":\"2024-01-03T03:04:05Z\",\"FileDirRef\":\"/sites/test/Lists/L\","
+                + "\"FieldValuesAsText\":{\"ID\":\"3\",\"Title\":\"Item\",\"Body\":\"text\",\"Created\":\"2024/1/2 3:04\","
+                + "\"Modified\":\"2024/1/3 3:04\",\"Order\":\"1,200\"}}";
+        final GetListItems.ListItemValue value = new ObjectMapper().readValue(json, GetListItems.ListItemValue.class);
+        final GetListItemsResponse.ListItem listItem = GetListItems.createListItem(value);
+        final GetListItemValueResponse itemValue = listItem.getItemValue();
+        assertNotNull(itemValue);
+        assertEquals("3", itemValue.getId());
+        assertEquals("Item", itemValue.getTitle());
+        assertEquals("text", itemValue.getValues().get("Body"));
+        assertEquals(1200L, itemValue.getOrder());
+        assertNotNull(itemValue.getModified());
+    }
+
+    @Test
+    public void test_createListItem_withoutFieldValues() throws Exception {
+        final String json = "{\"Id\":\"3\",\"odata.editLink\":\"Web/Lists(guid'abc')/Items(3)\",\"Title\":\"Item\","
+                + "\"Created\":\"2024-01-02T03:04:05Z\",\"Modified\":\"2024-01-03T03:04:05Z\"}";
+        final GetListItems.ListItemValue value = new ObjectMapper().readValue(json, GetListItems.ListItemValue.class);
+        final GetListItemsResponse.ListItem listItem = GetListItems.createListItem(value);
+        assertEquals("3", listItem.getId());
+        assertNull(listItem.getItemValue());
+        assertNull(listItem.getAttachmentFiles());
+    }
+
+    @Test
+    public void test_createListItem_withAttachmentFiles() throws Exception {
+        final String json = "{\"Id\":\"3\",\"odata.editLink\":\"Web/Lists(guid'abc')/Items(3)\",\"Title\":\"Item\",\"Attachments\":true,"
+                + "\"Created\":\"2024-01-02T03:04:05Z\",\"Modified\":\"2024-01-03T03:04:05Z\",\"AttachmentFiles\":["
+                + "{\"odata.type\":\"SP.Attachment\",\"FileName\":\"a.txt\","
+                + "\"ServerRelativeUrl\":\"/sites/test/Lists/L/Attachments/3/a.txt\"},"
+                + "{\"FileName\":\"b.pdf\",\"ServerRelativeUrl\":\"/sites/test/Lists/L/Attachments/3/b.pdf\"}]}";
+        final GetListItems.ListItemValue value = new ObjectMapper().readValue(json, GetListItems.ListItemValue.class);
+        final GetListItemsResponse.ListItem listItem = GetListItems.createListItem(value);
+        assertTrue(listItem.hasAttachments());
+        final GetListItemAttachmentsResponse attachmentFiles = listItem.getAttachmentFiles();
+        assertNotNull(attachmentFiles);
+        assertEquals(2, attachmentFiles.getFiles().size());
+        assertEquals("a.txt", attachmentFiles.getFiles().get(0).getFileName());
+        assertEquals("/sites/test/Lists/L/Attachments/3/b.pdf", attachmentFiles.getFiles().get(1).getServerRelativeUrl());
+    }
+
+    @Test
+    public void test_createListItem_invalidFieldValues() throws Exception {
+        final String json = "{\"Id\":\"3\",\"odata.editLink\":\"Web/Lists(guid'abc')/Items(3)\",\"Title\":\"Item\","
+                + "\"Created\":\"2024-01-02T03:04:05Z\",\"Modified\":\"2024-01-03T03:04:05Z\","
+                + "\"FieldValuesAsText\":{\"ID\":\"3\",\"Modified\":\"invalid\"}}";
+        final GetListItems.ListItemValue value = new ObjectMapper().readValue(json, GetListItems.ListItemValue.class);
+        final GetListItemsResponse.ListItem listItem = GetListItems.createListItem(value);
+        assertEquals("3", listItem.getId());
+        assertNull(listItem.getItemValue());
+    }
+}
@@ -127,4 +127,16 @@ public class SharePointServerExceptionTest extends UnitDsTestCase {
         }
         assertEquals(404, caughtStatusCode);
     }
+
+    @Test
+    public void test_retryAfter() {
+        final SharePointServerException exception = new SharePointServerException("Too Many Requests", 429, 30000L);
+        assertEquals(30000L, exception.getRetryAfter());
+        assertTrue(exception.isThrottled());
+        assertTrue(new SharePointServerException("Service Unavailable", 503).isThrottled());
+
+        final SharePointServerException notThrottled = new SharePointServerException("Internal Server Error", 500);
+        assertEquals(-1L, notThrottled.getRetryAfter());
+        assertFalse(notThrottled.isThrottled());
+    }
 }
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.ds.sharepoint.client.http;
+
+import org.codelibs.fess.ds.sharepoint.UnitDsTestCase;
+import org.junit.jupiter.api.Test;
+
+public class ConcurrencyLimitTest extends UnitDsTestCase {
+
+    @Override
+    protected String prepareConfigFile() {
+        return "test_app.xml";
+    }
+
+    @Override
+    protected boolean isSuppressTestCaseTransaction() {
+        return true;
+    }
+
+    @Test
+    public void test_fixed() throws Exception {
+        final ConcurrencyLimit limit = ConcurrencyLimit.fixed(2);
+        limit.acquire();
+        limit.onResponse(429, 0L);
+        limit.onFailure();
+        assertEquals(2, limit.getLimit());
+        assertEquals(1, limit.getAvailablePermits());
+        limit.release();
+        assertEquals(2, limit.getAvailablePermits());
+    }
+
+    @Test
+    public void test_additiveIncrease() throws Exception {
+        final ConcurrencyLimit limit = ConcurrencyLimit.adaptive(4, 1, 5);
+        limit.acquire();
+        limit.acquire();
+        limit.acquire();
+        for (int i = 0; i < 5; i++) {
+            limit.onResponse(200, 1000L);
+        }
+        assertEquals(5, limit.getLimit());
+        for (int i = 0; i < 10; i++) {
+            limit.onResponse(200, 1000L);
+        }
+        assertEquals(5, limit.getLimit());
+    }
+
+    @Test
+    public void test_noIncreaseWhenUnused() throws Exception {
+        final ConcurrencyLimit limit = ConcurrencyLimit.adaptive(4, 1, 8);
+        for (int i = 0; i < 20; i++) {
+            limit.onResponse(200, 1000L);
+        }
+        assertEquals(4, limit.getLimit());
+    }
+
+    @Test
+    public void test_multiplicativeDecrease() throws Exception {
+        final ConcurrencyLimit limit = ConcurrencyLimit.adaptive(8, 3, 16);
+        limit.onResponse(429, 1000L);
+        assertEquals(4, limit.getLimit());
+        limit.onResponse(503, 1000L);
+        limit.onFailure();
+        assertEquals(4, limit.getLimit());
+    }
+
+    @Test
+    public void test_decreaseOnFailure() throws Exception {
+        final ConcurrencyLimit limit = ConcurrencyLimit.adaptive(8, 6, 16);
+        limit.onFailure();
+        assertEquals(6, limit.getLimit());
+    }
+
+    @Test
+    public void test_decreaseOnRisingLatency() throws Exception {
+        final ConcurrencyLimit limit = ConcurrencyLimit.adaptive(8, 1, 8);
+        for (int i = 0; i < 64; i++) {
+            limit.onResponse(200, 1000L);
+        }
+        assertEquals(8, limit.getLimit());
+        for (int i = 0; i < 64; i++) {
+            limit.onResponse(200, 5000L);
+        }
+        assertEquals(6, limit.getLimit());
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.ds.sharepoint.client.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.message.BasicStatusLine;
+import org.apache.http.params.HttpParams;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.EntityUtils;
+import org.codelibs.fess.ds.sharepoint.UnitDsTestCase;
+import org.codelibs.fess.util.ComponentUtil;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+
+public class ConcurrencyLimitedHttpClientTest extends UnitDsTestCase {
+
+    @Override
+    protected String prepareConfigFile() {
+        return "test_app.xml";
+    }
+
+    @Override
+    protected boolean isSuppressTestCaseTransaction() {
+        return true;
+    }
+
+    @Override
+    public void tearDown(TestInfo testInfo) throws Exception {
+        ComponentUtil.setFessConfig(null);
+        super.tearDown(testInfo);
+    }
+
+    @Test
+    public void test_permitHeldUntilClose() throws Exception {
+        final ConcurrencyLimitedHttpClient client = new ConcurrencyLimitedHttpClient(new StubHttpClient(false), 2);
+        assertEquals(2, client.getAvailablePermits());
+
+        final CloseableHttpResponse response1 = client.execute(new HttpGet("http://localhost/a"));
+        assertEquals(1, client.getAvailablePermits());
+        final CloseableHttpResponse response2 = client.execute(new HttpGet("http://localhost/b"));
+        assertEquals(0, client.getAvailablePermits());
+
+        response1.close();
+        assertEquals(1, client.getAvailablePermits());
+        response1.close();
+        assertEquals(1, client.getAvailablePermits());
+        response2.close();
+        assertEquals(2, client.getAvailablePermits());
+    }
+
+    @Test
+    public void test_permitReleasedWhenBodyRead() throws Exception {
+        final ConcurrencyLimitedHttpClient client = new ConcurrencyLimitedHttpClient(new StubHttpClient(false), 2);
+
+        // a body read into a buffer or spool file does not hold the permit while it is processed
+        final CloseableHttpResponse response1 = client.execute(new HttpGet("http://localhost/a"));
+        assertEquals(1, client.getAvailablePermits());
+        assertEquals("body", EntityUtils.toString(response1.getEntity()));
+        assertEquals(2, client.getAvailablePermits());
+        response1.close();
+        assertEquals(2, client.getAvailablePermits());
+
+        final CloseableHttpResponse response2 = client.execute(new HttpGet("http://localhost/b"));
+        try (InputStream in = response2.getEntity().getContent()) {
+            assertEquals('b', in.read());
+            assertEquals(1, client.getAvailablePermits());
+        }
+        assertEquals(2, client.getAvailablePermits());
+        response2.close();
+        assertEquals(2, client.getAvailablePermits());
+    }
+
+    @Test
+    public void test_permitReleasedWithoutBody() throws Exception {
+        final StubHttpClient httpClient = new StubHttpClient(false);
+        httpClient.body = null;
+        final ConcurrencyLimitedHttpClient client = new ConcurrencyLimitedHttpClient(httpClient, 1);
+        final CloseableHttpResponse response = client.execute(new HttpGet("http://localhost/a"));
+        assertEquals(1, client.getAvailablePermits());
+        response.close();
+        assertEquals(1, client.getAvailablePermits());
+    }
+
+    @Test
+    public void test_permitReleasedOnFailure() throws Exception {
+        final ConcurrencyLimitedHttpClient client = new ConcurrencyLimitedHttpClient(new StubHttpClient(true), 1);
+        try {
+            client.execute(new HttpGet("http://localhost/a"));
+            fail("IOException expected.");
+        } catch (final IOException e) {
+            // expected
+        }
+        assertEquals(1, client.getAvailablePermits());
+    }
+
+    @Test
+    public void test_adaptiveLimitPerHost() throws Exception {
+        final ConcurrencyLimitedHttpClient client = new ConcurrencyLimitedHttpClient(new StubHttpClient(true), 4, 1, 8);
+        assertEquals(4, client.getLimit(new HttpHost("localhost")));
+        try {
+            client.execute(new HttpGet("http://localhost/a"));
+            fail("IOException expected.");
+        } catch (final IOException e) {
+            // expected
+        }
+        assertEquals(2, client.getLimit(new HttpHost("localhost")));
+        assertEquals(4, client.getLimit(new HttpHost("example.com")));
+        assertEquals(6, client.getAvailablePermits());
+    }
+
+    private static class StubResponse extends BasicHttpResponse implements CloseableHttpResponse {
+        StubResponse(final String body) {
+            super(new BasicStatusLine(HttpVersion.HTTP_1_1, 200, null));
+            if (body != null) {
+                setEntity(new StringEntity(body, ContentType.TEXT_PLAIN));
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+        }
+    }
+
+    private static class StubHttpClient extends CloseableHttpClient {
+        private final boolean failure;
+
+        private String body = "body";
+
+        StubHttpClient(final boolean failure) {
+            this.failure = failure;
+        }
+
+        @Override
+        protected CloseableHttpResponse doExecute(final HttpHost target, final HttpRequest request, final HttpContext context)
+                throws IOException {
+            if (failure) {
+                throw new IOException("failure");
+            }
+            return new StubResponse(body);
+        }
+
+        @Override
+        public void close() throws IOException {
+        }
+
+        @Override
+        @Deprecated
+        public HttpParams getParams() {
+            return null;
+        }
+
+        @Override
+        @Deprecated
+        public ClientConnectionManager getConnectionManager() {
+            return null;
+        }
+    }
+}
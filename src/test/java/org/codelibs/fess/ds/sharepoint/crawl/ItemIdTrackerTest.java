@@ -0,0 +1,79 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.ds.sharepoint.crawl;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.codelibs.fess.ds.sharepoint.UnitDsTestCase;
+import org.junit.jupiter.api.Test;
+
+public class ItemIdTrackerTest extends UnitDsTestCase {
+
+    @Override
+    protected String prepareConfigFile() {
+        return "test_app.xml";
+    }
+
+    @Override
+    protected boolean isSuppressTestCaseTransaction() {
+        return true;
+    }
+
+    @Test
+    public void test_getListedItems() {
+        final ItemIdTracker tracker = new ItemIdTracker();
+        tracker.addAll("list1", List.of("5", "3"));
+        tracker.addAll("list1", List.of("10", "3", "1"));
+        tracker.addAll("list2", Collections.emptyList());
+        tracker.addAll(null, List.of("1"));
+
+        final Map<String, int[]> listedItems = tracker.getListedItems();
+        assertEquals(2, listedItems.size());
+        assertEquals("[1, 3, 5, 10]", Arrays.toString(listedItems.get("list1")));
+        assertEquals(0, listedItems.get("list2").length);
+
+        // still sorted after more items are added
+        tracker.addAll("list1", List.of("2"));
+        assertEquals("[1, 2, 3, 5, 10]", Arrays.toString(tracker.getListedItems().get("list1")));
+    }
+
+    @Test
+    public void test_getListedItems_manyItems() {
+        final ItemIdTracker tracker = new ItemIdTracker();
+        tracker.addAll("list1", IntStream.rangeClosed(1, 1000).map(i -> 1001 - i).mapToObj(String::valueOf).collect(Collectors.toList()));
+        final int[] itemIds = tracker.getListedItems().get("list1");
+        assertEquals(1000, itemIds.length);
+        assertEquals(1, itemIds[0]);
+        assertEquals(1000, itemIds[999]);
+    }
+
+    @Test
+    public void test_markPartial() {
+        final ItemIdTracker tracker = new ItemIdTracker();
+        tracker.addAll("list1", List.of("1"));
+        tracker.markPartial("list1");
+        tracker.addAll("list2", List.of("1", "not-a-number"));
+        tracker.addAll("list3", List.of("1"));
+        assertEquals(List.of("list3"), List.copyOf(tracker.getListedItems().keySet()));
+        assertEquals(Set.of("list3"), tracker.getListedListIds());
+    }
+}
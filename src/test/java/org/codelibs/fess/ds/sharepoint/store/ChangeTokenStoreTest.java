@@ -0,0 +1,95 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.ds.sharepoint.store;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.codelibs.fess.ds.sharepoint.UnitDsTestCase;
+import org.junit.jupiter.api.Test;
+
+public class ChangeTokenStoreTest extends UnitDsTestCase {
+
+    @Override
+    protected String prepareConfigFile() {
+        return "test_app.xml";
+    }
+
+    @Override
+    protected boolean isSuppressTestCaseTransaction() {
+        return true;
+    }
+
+    @Test
+    public void test_commit() throws Exception {
+        final Path dir = Files.createTempDirectory("change_token");
+        final Path path = dir.resolve("sub/change_token.properties");
+        try {
+            final ChangeTokenStore store = new ChangeTokenStore(path);
+            assertNull(store.getChangeToken("list1"));
+
+            store.putChangeToken("list1", "1;3;list1;100;1");
+            store.putChangeToken("list2", null);
+            assertNull(store.getChangeToken("list1"));
+            assertFalse(Files.exists(path));
+
+            store.commit();
+            assertEquals("1;3;list1;100;1", store.getChangeToken("list1"));
+            assertNull(store.getChangeToken("list2"));
+
+            final ChangeTokenStore reloaded = new ChangeTokenStore(path);
+            assertEquals("1;3;list1;100;1", reloaded.getChangeToken("list1"));
+            reloaded.putChangeToken("list2", "1;3;list2;200;2");
+            reloaded.commit();
+
+            final ChangeTokenStore merged = new ChangeTokenStore(path);
+            assertEquals("1;3;list1;100;1", merged.getChangeToken("list1"));
+            assertEquals("1;3;list2;200;2", merged.getChangeToken("list2"));
+        } finally {
+            Files.deleteIfExists(path);
+            Files.deleteIfExists(path.getParent());
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    @Test
+    public void test_fullCrawlInterval() throws Exception {
+        final Path dir = Files.createTempDirectory("change_token");
+        final Path path = dir.resolve("change_token.properties");
+        try {
+            Files.writeString(path, "list1=1;3;list1;100;1\n");
+            assertNull(new ChangeTokenStore(path, 60000L).getChangeToken("list1"));
+            assertEquals("1;3;list1;100;1", new ChangeTokenStore(path).getChangeToken("list1"));
+
+            final ChangeTokenStore store = new ChangeTokenStore(path, 60000L);
+            store.putFullCrawlChangeToken("list1", "1;3;list1;200;2");
+            store.commit();
+            assertEquals("1;3;list1;200;2", store.getChangeToken("list1"));
+
+            final ChangeTokenStore reloaded = new ChangeTokenStore(path, 60000L);
+            assertEquals("1;3;list1;200;2", reloaded.getChangeToken("list1"));
+            reloaded.putChangeToken("list1", "1;3;list1;300;3");
+            reloaded.commit();
+            assertEquals("1;3;list1;300;3", new ChangeTokenStore(path, 60000L).getChangeToken("list1"));
+
+            Thread.sleep(10L);
+            assertNull(new ChangeTokenStore(path, 1L).getChangeToken("list1"));
+        } finally {
+            Files.deleteIfExists(path);
+            Files.deleteIfExists(dir);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.ds.sharepoint.store;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.codelibs.fess.ds.sharepoint.UnitDsTestCase;
+import org.junit.jupiter.api.Test;
+
+public class FingerprintStoreTest extends UnitDsTestCase {
+
+    @Override
+    protected String prepareConfigFile() {
+        return "test_app.xml";
+    }
+
+    @Override
+    protected boolean isSuppressTestCaseTransaction() {
+        return true;
+    }
+
+    @Test
+    public void test_commit() throws Exception {
+        final Path dir = Files.createTempDirectory("fingerprint");
+        final Path path = dir.resolve("fingerprint.properties");
+        try {
+            final FingerprintStore.Fingerprint file1 = new FingerprintStore.Fingerprint("\"{F1},1\"", 1000L, 10L, "m1");
+            final FingerprintStore.Fingerprint file2 = new FingerprintStore.Fingerprint("\"{F2},1\"", 2000L, 20L, "m2");
+            final FingerprintStore store = new FingerprintStore(path, "site1");
+            assertFalse(store.isUnchanged("file1", file1));
+            store.put("file1", file1.withContentHash(FingerprintStore.hash("content1")));
+            store.put("file2", file2);
+            store.commit(true, Set.of());
+
+            final FingerprintStore reloaded = new FingerprintStore(path, "site1");
+            assertTrue(reloaded.isUnchanged("file1", file1));
+            assertEquals(FingerprintStore.hash("content1"), reloaded.get("file1").getContentHash());
+            assertFalse(reloaded.isUnchanged("file1", new FingerprintStore.Fingerprint("\"{F1},2\"", 1000L, 10L, "m1")));
+            assertFalse(reloaded.isUnchanged("file1", new FingerprintStore.Fingerprint("\"{F1},1\"", 1001L, 10L, "m1")));
+            assertFalse(reloaded.isUnchanged("file1", new FingerprintStore.Fingerprint("\"{F1},1\"", 1000L, 11L, "m1")));
+            assertFalse(reloaded.isUnchanged("file1", new FingerprintStore.Fingerprint("\"{F1},1\"", 1000L, 10L, "m2")));
+            // not indexed
+            assertFalse(reloaded.isUnchanged("file2", file2));
+
+            assertFalse(new FingerprintStore(path, "site2").isUnchanged("file1", file1));
+        } finally {
+            Files.deleteIfExists(path);
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    @Test
+    public void test_fingerprint_nullValues() throws Exception {
+        final Path dir = Files.createTempDirectory("fingerprint");
+        final Path path = dir.resolve("fingerprint.properties");
+        try {
+            final FingerprintStore.Fingerprint item = new FingerprintStore.Fingerprint(null, 1000L, -1L, null);
+            final FingerprintStore store = new FingerprintStore(path, "site1");
+            store.put("list/l1/1", item.withContentHash("h"));
+            store.commit(true, Set.of());
+
+            final FingerprintStore reloaded = new FingerprintStore(path, "site1");
+            assertTrue(reloaded.isUnchanged("list/l1/1", item));
+            assertNull(reloaded.get("list/l1/1").getEtag());
+            assertEquals(-1L, reloaded.get("list/l1/1").getSize());
+        } finally {
+            Files.deleteIfExists(path);
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    @Test
+    public void test_crawlTime() throws Exception {
+        final Path dir = Files.createTempDirectory("fingerprint");
+        final Path path = dir.resolve("fingerprint.properties");
+        try {
+            final FingerprintStore store = new FingerprintStore(path, "site1");
+            assertEquals(-1L, store.getCrawlTime("list1"));
+            store.putCrawlTime("list1", 1000L);
+            store.put("list/list1/1", new FingerprintStore.Fingerprint(null, 1000L, -1L, null, "h"));
+            // not stored until committed
+            assertEquals(-1L, store.getCrawlTime("list1"));
+            store.commit(true, Set.of());
+
+            final FingerprintStore reloaded = new FingerprintStore(path, "site1");
+            assertEquals(1000L, reloaded.getCrawlTime("list1"));
+            assertTrue(reloaded.isIndexed("list/list1/1"));
+            assertEquals(-1L, reloaded.getCrawlTime("list2"));
+            assertEquals(-1L, new FingerprintStore(path, "site2").getCrawlTime("list1"));
+
+            // a crawl with failed tasks keeps the stored crawl times
+            reloaded.putCrawlTime("list1", 2000L);
+            reloaded.putCrawlTime("list2", 2000L);
+            reloaded.commit(false, Set.of("list1"));
+            final FingerprintStore failed = new FingerprintStore(path, "site1");
+            assertEquals(1000L, failed.getCrawlTime("list1"));
+            assertEquals(-1L, failed.getCrawlTime("list2"));
+            assertTrue(failed.isIndexed("list/list1/1"));
+        } finally {
+            Files.deleteIfExists(path);
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    @Test
+    public void test_commit_dropDeleted() throws Exception {
+        final Path dir = Files.createTempDirectory("fingerprint");
+        final Path path = dir.resolve("fingerprint.properties");
+        try {
+            final FingerprintStore.Fingerprint item = new FingerprintStore.Fingerprint(null, 1000L, -1L, null);
+            final FingerprintStore store = new FingerprintStore(path, "site1");
+            store.put("list/list1/1", item.withListId("list1").withContentHash("h"));
+            store.put("list/list1/2", item.withListId("list1").withContentHash("h"));
+            store.put("list/list2/1", item.withListId("list2").withContentHash("h"));
+            store.put("file1", item.withContentHash("h"));
+            store.commit(true, Set.of());
+
+            // item 2 of list1 is deleted
+            final FingerprintStore second = new FingerprintStore(path, "site1");
+            assertTrue(second.isUnchanged("list/list1/1", item.withListId("list1")));
+            second.commit(false, Set.of("list1"));
+            assertTrue(new FingerprintStore(path, "site1").isIndexed("list/list1/2"));
+
+            final FingerprintStore third = new FingerprintStore(path, "site1");
+            assertTrue(third.isUnchanged("list/list1/1", item.withListId("list1")));
+            third.commit(true, Set.of("list1"));
+
+            final FingerprintStore reloaded = new FingerprintStore(path, "site1");
+            assertTrue(reloaded.isIndexed("list/list1/1"));
+            assertEquals("list1", reloaded.get("list/list1/1").getListId());
+            assertFalse(reloaded.isIndexed("list/list1/2"));
+            // not listed in full or without list ID
+            assertTrue(reloaded.isIndexed("list/list2/1"));
+            assertTrue(reloaded.isIndexed("file1"));
+        } finally {
+            Files.deleteIfExists(path);
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    @Test
+    public void test_hashMetadata() {
+        assertEquals(FingerprintStore.hashMetadata(List.of("a", "b"), Map.of("Title", "t", "Modified", "m")),
+                FingerprintStore.hashMetadata(List.of("b", "a"), Map.of("Modified", "m", "Title", "t")));
+        assertFalse(FingerprintStore.hashMetadata(List.of("a"), null).equals(FingerprintStore.hashMetadata(List.of("a", "b"), null)));
+        assertFalse(FingerprintStore.hashMetadata(List.of("a"), null).equals(FingerprintStore.hashMetadata(null, Map.of("a", ""))));
+        assertEquals(64, FingerprintStore.hash("").length());
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.ds.sharepoint.store;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.codelibs.fess.ds.sharepoint.UnitDsTestCase;
+import org.junit.jupiter.api.Test;
+
+public class FolderStoreTest extends UnitDsTestCase {
+
+    @Override
+    protected String prepareConfigFile() {
+        return "test_app.xml";
+    }
+
+    @Override
+    protected boolean isSuppressTestCaseTransaction() {
+        return true;
+    }
+
+    @Test
+    public void test_commit() throws Exception {
+        final Path dir = Files.createTempDirectory("folder");
+        final Path path = dir.resolve("folder.properties");
+        try {
+            final FolderStore store = new FolderStore(path, "site1");
+            assertNull(store.getUnchanged("/sites/site1/Docs/A", 1000L, 3));
+            store.put("/sites/site1/Docs/A", new FolderStore.Folder(1000L, 3, "list1", Map.of("1", "{F1}"),
+                    List.of("/sites/site1/Docs/A/B", "/sites/site1/Docs/A/C, D")));
+            store.put("/sites/site1/Docs/A/B", new FolderStore.Folder(2000L, 0, null, Collections.emptyMap(), Collections.emptyList()));
+            store.commit();
+
+            final FolderStore reloaded = new FolderStore(path, "site1");
+            final FolderStore.Folder folder = reloaded.getUnchanged("/sites/site1/Docs/A", 1000L, 3);
+            assertEquals("list1", folder.getListId());
+            assertEquals(Map.of("1", "{F1}"), folder.getFiles());
+            assertEquals(List.of("/sites/site1/Docs/A/B", "/sites/site1/Docs/A/C, D"), folder.getSubFolders());
+            assertNull(reloaded.getUnchanged("/sites/site1/Docs/A", 1001L, 3));
+            assertNull(reloaded.getUnchanged("/sites/site1/Docs/A", 1000L, 4));
+
+            final FolderStore.Folder empty = reloaded.getUnchanged("/sites/site1/Docs/A/B", 2000L, 0);
+            assertNull(empty.getListId());
+            assertTrue(empty.getFiles().isEmpty());
+            assertTrue(empty.getSubFolders().isEmpty());
+
+            assertNull(new FolderStore(path, "site2").getUnchanged("/sites/site1/Docs/A", 1000L, 3));
+        } finally {
+            Files.deleteIfExists(path);
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    @Test
+    public void test_commit_keepsFoldersNotSeen() throws Exception {
+        final Path dir = Files.createTempDirectory("folder");
+        final Path path = dir.resolve("folder.properties");
+        try {
+            final FolderStore store = new FolderStore(path, "site1");
+            store.put("/a", new FolderStore.Folder(1000L, 1, "list1", Map.of("1", "/a/f.txt"), Collections.emptyList()));
+            store.commit();
+
+            final FolderStore second = new FolderStore(path, "site1");
+            second.put("/b", new FolderStore.Folder(2000L, 0, null, Collections.emptyMap(), Collections.emptyList()));
+            second.commit();
+
+            final FolderStore reloaded = new FolderStore(path, "site1");
+            assertEquals(Map.of("1", "/a/f.txt"), reloaded.getUnchanged("/a", 1000L, 1).getFiles());
+            assertNotNull(reloaded.getUnchanged("/b", 2000L, 0));
+        } finally {
+            Files.deleteIfExists(path);
+            Files.deleteIfExists(dir);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.ds.sharepoint.store;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.codelibs.fess.ds.sharepoint.UnitDsTestCase;
+import org.junit.jupiter.api.Test;
+
+public class MetadataStoreTest extends UnitDsTestCase {
+
+    @Override
+    protected String prepareConfigFile() {
+        return "test_app.xml";
+    }
+
+    @Override
+    protected boolean isSuppressTestCaseTransaction() {
+        return true;
+    }
+
+    @Test
+    public void test_commit() throws Exception {
+        final Path dir = Files.createTempDirectory("metadata");
+        final Path path = dir.resolve("sub/metadata.properties");
+        try {
+            final MetadataStore store = new MetadataStore(path, "site1");
+            store.put(MetadataStore.FORM_URL, "list1", "/sites/site1/Lists/list1/DispForm.aspx");
+            assertNull(store.get(MetadataStore.FORM_URL, "list1"));
+
+            store.validate(MetadataStore.FORM_URL, "list1", "\"1\"");
+            store.validate(MetadataStore.FORM_URL, "list2", "\"5\"");
+            store.put(MetadataStore.FORM_URL, "list1", "/sites/site1/Lists/list1/DispForm.aspx");
+            store.put(MetadataStore.FORM_URL, "list2", "/sites/site1/Lists/list2/DispForm.aspx");
+            store.put(MetadataStore.FORM_URL, "list3", "/sites/site1/Lists/list3/DispForm.aspx");
+            store.commit();
+
+            final MetadataStore reloaded = new MetadataStore(path, "site1");
+            assertNull(reloaded.get(MetadataStore.FORM_URL, "list1"));
+            reloaded.validate(MetadataStore.FORM_URL, "list1", "\"1\"");
+            reloaded.validate(MetadataStore.FORM_URL, "list2", "\"6\"");
+            reloaded.validate(MetadataStore.FORM_URL, "list3", "\"1\"");
+            assertEquals("/sites/site1/Lists/list1/DispForm.aspx", reloaded.get(MetadataStore.FORM_URL, "list1"));
+            assertNull(reloaded.get(MetadataStore.FORM_URL, "list2"));
+            assertNull(reloaded.get(MetadataStore.FORM_URL, "list3"));
+
+            final MetadataStore otherSite = new MetadataStore(path, "site2");
+            otherSite.validate(MetadataStore.FORM_URL, "list1", "\"1\"");
+            assertNull(otherSite.get(MetadataStore.FORM_URL, "list1"));
+        } finally {
+            Files.deleteIfExists(path);
+            Files.deleteIfExists(path.getParent());
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    @Test
+    public void test_commit_allValidated() throws Exception {
+        final Path dir = Files.createTempDirectory("metadata");
+        final Path path = dir.resolve("metadata.properties");
+        try {
+            final MetadataStore store = new MetadataStore(path, "site1");
+            store.validate(MetadataStore.FORM_URL, "list1", "\"1\"");
+            store.validate(MetadataStore.FORM_URL, "list2", "\"1\"");
+            store.put(MetadataStore.FORM_URL, "list1", "/sites/site1/Lists/list1/DispForm.aspx");
+            store.put(MetadataStore.FORM_URL, "list2", "/sites/site1/Lists/list2/DispForm.aspx");
+            store.commit();
+            final MetadataStore otherSite = new MetadataStore(path, "site2");
+            otherSite.validate(MetadataStore.FORM_URL, "list1", "\"1\"");
+            otherSite.put(MetadataStore.FORM_URL, "list1", "/sites/site2/Lists/list1/DispForm.aspx");
+            otherSite.commit();
+
+            // values of lists not seen are kept unless all lists were validated
+            final MetadataStore partial = new MetadataStore(path, "site1");
+            partial.commit();
+            final MetadataStore kept = new MetadataStore(path, "site1");
+            kept.validate(MetadataStore.FORM_URL, "list2", "\"1\"");
+            assertEquals("/sites/site1/Lists/list2/DispForm.aspx", kept.get(MetadataStore.FORM_URL, "list2"));
+
+            // list2 was deleted
+            final MetadataStore listed = new MetadataStore(path, "site1");
+            listed.validate(MetadataStore.FORM_URL, "list1", "\"1\"");
+            listed.setAllValidated(MetadataStore.FORM_URL);
+            listed.commit();
+
+            final MetadataStore reloaded = new MetadataStore(path, "site1");
+            reloaded.validate(MetadataStore.FORM_URL, "list1", "\"1\"");
+            reloaded.validate(MetadataStore.FORM_URL, "list2", "\"1\"");
+            assertEquals("/sites/site1/Lists/list1/DispForm.aspx", reloaded.get(MetadataStore.FORM_URL, "list1"));
+            assertNull(reloaded.get(MetadataStore.FORM_URL, "list2"));
+            final MetadataStore reloadedOtherSite = new MetadataStore(path, "site2");
+            reloadedOtherSite.validate(MetadataStore.FORM_URL, "list1", "\"1\"");
+            assertEquals("/sites/site2/Lists/list1/DispForm.aspx", reloadedOtherSite.get(MetadataStore.FORM_URL, "list1"));
+        } finally {
+            Files.deleteIfExists(path);
+            Files.deleteIfExists(dir);
+        }
+    }
+}